@@ -9,11 +9,49 @@
     mavenCentral()
 }
 
+val jmhVersion = "1.37"
+
+sourceSets {
+    create("jmh") {
+        compileClasspath += sourceSets.main.get().output
+        runtimeClasspath += sourceSets.main.get().output
+    }
+}
+
 dependencies {
     testImplementation(platform("org.junit:junit-bom:5.9.1"))
     testImplementation("org.junit.jupiter:junit-jupiter")
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:$jmhVersion")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:$jmhVersion")
 }
 
+// The field kernels have an implementation on the incubating Vector API, picked at run time when the module is added
+val vectorModule = listOf("--add-modules", "jdk.incubator.vector")
+
 tasks.test {
     useJUnitPlatform()
-}
\ No newline at end of file
+    // the tests compare the vector kernels with the scalar one
+    jvmArgs(vectorModule)
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    options.compilerArgs.addAll(vectorModule)
+}
+
+// Runs the benchmarks in src/jmh with the GC profiler, e.g. ./gradlew jmh -Pjmh.includes=Diffusion
+tasks.register<JavaExec>("jmh") {
+    group = "benchmark"
+    description = "Runs the JMH benchmarks, reporting throughput and allocation rate."
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    jvmArgs(vectorModule)
+    val results = layout.buildDirectory.file("reports/jmh/results.json")
+    outputs.file(results)
+    args(listOfNotNull(
+        project.findProperty("jmh.includes")?.toString(),
+        "-prof", "gc",
+        "-rf", "json",
+        "-rff", results.get().asFile.path
+    ))
+    doFirst { results.get().asFile.parentFile.mkdirs() }
+}
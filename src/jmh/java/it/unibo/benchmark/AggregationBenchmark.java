@@ -0,0 +1,65 @@
+package it.unibo.benchmark;
+
+import it.unibo.controller.Simulation;
+import it.unibo.core.behaviour.Aggregation;
+import it.unibo.core.behaviour.SlimeBehaviour;
+import it.unibo.core.entity.Slime;
+import it.unibo.core.entity.World;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks one step of the whole slime population under {@link Aggregation}, through the
+ * per-slime update, the batch update and the parallel plan and commit.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class AggregationBenchmark {
+    @Param({"GridWorld", "ArrayGridWorld"})
+    private String implementation;
+
+    @Param({"100", "1024", "4096"})
+    private int side;
+
+    @Param({"500", "10000", "1000000"})
+    private int slimes;
+
+    private World world;
+    private Aggregation aggregation;
+    private Simulation parallel;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.world = BenchmarkWorlds.create(this.implementation, this.side, this.slimes);
+        BenchmarkWorlds.seedField(this.world);
+        this.aggregation = new Aggregation(BenchmarkWorlds.SEED, 2, 1);
+        this.parallel = new Simulation(this.world, List.of(), List.<SlimeBehaviour>of(this.aggregation), List.of(), ForkJoinPool.commonPool());
+    }
+
+    @Benchmark
+    public World perSlime() {
+        for (final Slime slime : this.world.getSlimes()) {
+            this.aggregation.update(slime);
+        }
+        return this.world;
+    }
+
+    @Benchmark
+    public World batch() {
+        this.aggregation.updateAll(this.world);
+        return this.world;
+    }
+
+    @Benchmark
+    public World parallel() {
+        this.parallel.update();
+        return this.world;
+    }
+}
@@ -0,0 +1,41 @@
+package it.unibo.benchmark;
+
+import it.unibo.core.entity.ArrayGridWorld;
+import it.unibo.core.entity.GridWorld;
+import it.unibo.core.entity.World;
+
+import java.util.Random;
+
+/**
+ * Factory of the worlds used by the benchmarks.
+ */
+final class BenchmarkWorlds {
+    static final int SEED = 42;
+
+    private BenchmarkWorlds() { }
+
+    /**
+     * Creates a square world of the given implementation. The number of slimes is capped to
+     * half of the cells, so that every combination of the benchmark parameters is valid.
+     */
+    static World create(final String implementation, final int side, final int numSlimes) {
+        final int slimes = Math.min(numSlimes, side * side / 2);
+        return switch (implementation) {
+            case "GridWorld" -> GridWorld.create(side, side, slimes, SEED);
+            case "ArrayGridWorld" -> ArrayGridWorld.create(side, side, slimes, SEED);
+            default -> throw new IllegalArgumentException("Unknown world: " + implementation);
+        };
+    }
+
+    /**
+     * Fills the field with pheromone levels between 0 and 3, so that about two thirds of the
+     * cells are above the diffusion threshold.
+     */
+    static void seedField(final World world) {
+        final Random random = new Random(SEED);
+        final int size = world.getWidth() * world.getHeight();
+        for (int i = 0; i < size; i++) {
+            world.setPheromone(i, random.nextDouble() * 3);
+        }
+    }
+}
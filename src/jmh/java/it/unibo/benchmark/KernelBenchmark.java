@@ -0,0 +1,75 @@
+package it.unibo.benchmark;
+
+import it.unibo.core.kernel.FieldKernel;
+import it.unibo.core.kernel.FieldKernels;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the field kernels on a dense field, comparing the scalar implementation with the
+ * vector one at each vector width. A width wider than the vector units of the machine is still
+ * accepted by the Vector API, but emulated, and is expected to be slower.
+ * The vector kernels need the {@code jdk.incubator.vector} module, added by the {@code jmh} task.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g", "--add-modules", "jdk.incubator.vector"})
+public class KernelBenchmark {
+    private static final double RATE = 1 / 16.0;
+    private static final double THRESHOLD = 1;
+
+    @Param({"scalar", "vector64", "vector128", "vector256", "vector512"})
+    private String kernelName;
+
+    @Param({"512", "1024", "4096"})
+    private int side;
+
+    private FieldKernel kernel;
+    private double[] front;
+    private double[] back;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.kernel = this.kernelName.equals("scalar")
+                ? FieldKernels.scalar()
+                : FieldKernels.vector(Integer.parseInt(this.kernelName.substring("vector".length())));
+        this.front = new double[this.side * this.side];
+        this.back = new double[this.side * this.side];
+    }
+
+    @Setup(Level.Iteration)
+    public void seedField() {
+        final Random random = new Random(BenchmarkWorlds.SEED);
+        for (int i = 0; i < this.front.length; i++) {
+            this.front[i] = random.nextDouble() * 3;
+        }
+    }
+
+    @Benchmark
+    public double[] diffuse() {
+        for (int y = 0; y < this.side; y++) {
+            this.kernel.diffuseRow(this.front, this.back, this.side, this.side, y, 0, this.side, RATE, THRESHOLD, 1, 0);
+        }
+        return this.back;
+    }
+
+    @Benchmark
+    public double[] diffuseAndEvaporate() {
+        for (int y = 0; y < this.side; y++) {
+            this.kernel.diffuseRow(this.front, this.back, this.side, this.side, y, 0, this.side, RATE, THRESHOLD, 1, 1e-6);
+        }
+        return this.back;
+    }
+
+    @Benchmark
+    public double[] evaporate() {
+        // a unit rate keeps the field from decaying to subnormal values between iterations
+        this.kernel.scale(this.front, 0, this.front.length, 1, 1e-6);
+        return this.front;
+    }
+}
@@ -0,0 +1,65 @@
+package it.unibo.benchmark;
+
+import it.unibo.controller.Simulation;
+import it.unibo.core.behaviour.Aggregation;
+import it.unibo.core.behaviour.Diffusion;
+import it.unibo.core.behaviour.Evaporation;
+import it.unibo.core.behaviour.SlimeBehaviour;
+import it.unibo.core.behaviour.WorldBehaviour;
+import it.unibo.core.entity.World;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks a full {@link Simulation#update()} tick with the behaviours and parameters of
+ * {@code Main}, run serially (in-place diffusion, batch aggregation) or in parallel
+ * (fused double-buffered diffusion and evaporation, parallel aggregation).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class SimulationBenchmark {
+    @Param({"GridWorld", "ArrayGridWorld"})
+    private String implementation;
+
+    @Param({"100", "1024", "4096"})
+    private int side;
+
+    @Param({"500", "10000", "1000000"})
+    private int slimes;
+
+    @Param({"serial", "parallel"})
+    private String mode;
+
+    private Simulation simulation;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final World world = BenchmarkWorlds.create(this.implementation, this.side, this.slimes);
+        final List<SlimeBehaviour> slimeBehaviours = List.of(new Aggregation(BenchmarkWorlds.SEED, 20, 1));
+        if (this.mode.equals("parallel")) {
+            final ForkJoinPool pool = ForkJoinPool.commonPool();
+            final List<WorldBehaviour> worldBehaviours = List.of(new Diffusion(1 / 16.0, pool), new Evaporation(0.6));
+            this.simulation = new Simulation(world, worldBehaviours, slimeBehaviours, List.of(), pool);
+        } else {
+            final List<WorldBehaviour> worldBehaviours = List.of(new Diffusion(1 / 16.0), new Evaporation(0.6));
+            this.simulation = new Simulation(world, worldBehaviours, slimeBehaviours, List.of());
+        }
+        // reach a state where trails have formed before measuring
+        for (int i = 0; i < 50; i++) {
+            this.simulation.update();
+        }
+    }
+
+    @Benchmark
+    public Simulation tick() {
+        this.simulation.update();
+        return this.simulation;
+    }
+}
@@ -0,0 +1,84 @@
+package it.unibo.benchmark;
+
+import it.unibo.core.behaviour.Diffusion;
+import it.unibo.core.behaviour.Evaporation;
+import it.unibo.core.behaviour.FusedWorldBehaviour;
+import it.unibo.core.behaviour.WorldBehaviour;
+import it.unibo.core.entity.World;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks a single application of the world behaviours. The field is seeded again at every
+ * iteration, so that diffusion always has pheromone to spread. Evaporation uses a unit rate,
+ * which keeps the field from decaying to subnormal values: those would measure the floating
+ * point unit rather than the traffic over the field.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class WorldBehaviourBenchmark {
+    @Param({"GridWorld", "ArrayGridWorld"})
+    private String implementation;
+
+    @Param({"100", "512", "1024", "4096"})
+    private int side;
+
+    private World world;
+    private WorldBehaviour inPlaceDiffusion;
+    private WorldBehaviour doubleBufferedDiffusion;
+    private WorldBehaviour evaporation;
+    private WorldBehaviour fused;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.world = BenchmarkWorlds.create(this.implementation, this.side, 1);
+        final ForkJoinPool pool = ForkJoinPool.commonPool();
+        this.inPlaceDiffusion = new Diffusion(1 / 16.0);
+        this.doubleBufferedDiffusion = new Diffusion(1 / 16.0, pool);
+        this.evaporation = new Evaporation(1);
+        this.fused = FusedWorldBehaviour.fuse(List.of(new Diffusion(1 / 16.0, pool), new Evaporation(1))).get(0);
+    }
+
+    @Setup(Level.Iteration)
+    public void seedField() {
+        BenchmarkWorlds.seedField(this.world);
+    }
+
+    @Benchmark
+    public World diffusionInPlace() {
+        this.inPlaceDiffusion.update(this.world);
+        return this.world;
+    }
+
+    @Benchmark
+    public World diffusionDoubleBuffered() {
+        this.doubleBufferedDiffusion.update(this.world);
+        return this.world;
+    }
+
+    @Benchmark
+    public World evaporation() {
+        this.evaporation.update(this.world);
+        return this.world;
+    }
+
+    @Benchmark
+    public World diffusionAndEvaporation() {
+        this.doubleBufferedDiffusion.update(this.world);
+        this.evaporation.update(this.world);
+        return this.world;
+    }
+
+    @Benchmark
+    public World fusedDiffusionAndEvaporation() {
+        this.fused.update(this.world);
+        return this.world;
+    }
+}
@@ -0,0 +1,74 @@
+package it.unibo.benchmark;
+
+import it.unibo.core.Position;
+import it.unibo.core.entity.Patch;
+import it.unibo.core.entity.World;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collection;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the access to the field of a world: the Patch-based neighbourhood and patch
+ * collection, against the index-based neighbourhood API.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class WorldBenchmark {
+    private static final int SAMPLES = 1024;
+
+    @Param({"GridWorld", "ArrayGridWorld"})
+    private String implementation;
+
+    @Param({"100", "512", "1024", "4096"})
+    private int side;
+
+    private World world;
+    private Patch[] patches;
+    private int[] xs;
+    private int[] ys;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.world = BenchmarkWorlds.create(this.implementation, this.side, 1);
+        BenchmarkWorlds.seedField(this.world);
+        final Random random = new Random(BenchmarkWorlds.SEED);
+        this.patches = new Patch[SAMPLES];
+        this.xs = new int[SAMPLES];
+        this.ys = new int[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            this.xs[i] = random.nextInt(this.side);
+            this.ys[i] = random.nextInt(this.side);
+            this.patches[i] = this.world.getPatch(new Position(this.xs[i], this.ys[i]));
+        }
+    }
+
+    @Benchmark
+    public Collection<Patch> getNeighborhood() {
+        final int sample = this.next++ & (SAMPLES - 1);
+        return this.world.getNeighborhood(this.patches[sample]);
+    }
+
+    @Benchmark
+    public int getMaxNeighbour() {
+        final int sample = this.next++ & (SAMPLES - 1);
+        return this.world.getMaxNeighbour(this.xs[sample], this.ys[sample]);
+    }
+
+    @Benchmark
+    public double sumNeighbourhood() {
+        final int sample = this.next++ & (SAMPLES - 1);
+        return this.world.sumNeighbourhood(this.xs[sample], this.ys[sample]);
+    }
+
+    @Benchmark
+    public Collection<Patch> getPatches() {
+        return this.world.getPatches();
+    }
+}
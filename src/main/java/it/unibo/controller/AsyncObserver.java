@@ -0,0 +1,276 @@
+package it.unibo.controller;
+
+import it.unibo.core.entity.World;
+import it.unibo.core.entity.WorldSnapshot;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A {@link SimulationObserver} notifying another observer on an executor, so that the simulation only
+ * pays for copying the world. The observer receives a {@link WorldSnapshot} of the world at the end of
+ * the tick, which stays consistent however far the simulation has moved on.
+ *
+ * Up to a fixed number of snapshots wait to be delivered. When the queue is full, the oldest snapshot
+ * is dropped or the simulation waits, depending on the {@link Backpressure}. Snapshots are delivered in
+ * order, one at a time, and are reused once the observer returns: observers must copy what they want
+ * to keep. Exceptions thrown by the observer are logged and do not stop the deliveries.
+ *
+ * The observer must be notified by one thread at a time, as a {@link Simulation} does.
+ */
+public final class AsyncObserver implements SimulationObserver, Closeable {
+    private static final Logger LOGGER = Logger.getLogger(AsyncObserver.class.getName());
+
+    /**
+     * What happens to a notification when the queue of snapshots is full.
+     */
+    public enum Backpressure {
+        /**
+         * The oldest waiting snapshot is dropped, so the simulation never waits for the observer.
+         */
+        DROP_OLDEST,
+        /**
+         * The simulation waits for the observer to take a snapshot, so no notification is lost.
+         */
+        BLOCK
+    }
+
+    private final SimulationObserver observer;
+    private final Executor executor;
+    private final ExecutorService ownedExecutor;
+    private final int capacity;
+    private final Backpressure backpressure;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = this.lock.newCondition();
+    private final Condition idle = this.lock.newCondition();
+    private final Deque<WorldSnapshot> pending = new ArrayDeque<>();
+    private final Deque<WorldSnapshot> free = new ArrayDeque<>();
+    private final Runnable drain = this::drain;
+    private boolean draining;
+    private boolean closed;
+    private long dropped;
+
+    private AsyncObserver(final SimulationObserver observer, final Executor executor, final ExecutorService ownedExecutor,
+                          final int capacity, final Backpressure backpressure) {
+        this.observer = observer;
+        this.executor = executor;
+        this.ownedExecutor = ownedExecutor;
+        this.capacity = capacity;
+        this.backpressure = backpressure;
+    }
+
+    /**
+     * Creates an observer notifying another one on a thread of its own, stopped by {@link #close()}.
+     *
+     * @param observer     The observer to notify.
+     * @param capacity     The number of snapshots that can wait to be delivered.
+     * @param backpressure What to do when the queue is full.
+     * @return The asynchronous observer.
+     */
+    public static AsyncObserver create(final SimulationObserver observer, final int capacity, final Backpressure backpressure) {
+        checkCapacity(capacity);
+        final String name = "observer-" + SimulationProfiler.labelOf(observer);
+        final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        return new AsyncObserver(observer, executor, executor, capacity, backpressure);
+    }
+
+    /**
+     * Creates an observer notifying another one on an executor, which is not stopped by {@link #close()}.
+     * The executor may be shared: the deliveries to an observer never run concurrently.
+     *
+     * @param observer     The observer to notify.
+     * @param executor     The executor running the deliveries.
+     * @param capacity     The number of snapshots that can wait to be delivered.
+     * @param backpressure What to do when the queue is full.
+     * @return The asynchronous observer.
+     */
+    public static AsyncObserver create(final SimulationObserver observer, final Executor executor, final int capacity, final Backpressure backpressure) {
+        checkCapacity(capacity);
+        return new AsyncObserver(observer, executor, null, capacity, backpressure);
+    }
+
+    /**
+     * Copies the world and queues the copy for the observer, which is notified without the tick.
+     *
+     * @param world The current state of the simulation world after changes.
+     */
+    @Override
+    public void onWorldChanges(final World world) {
+        this.onWorldChanges(world, -1);
+    }
+
+    /**
+     * Copies the world and queues the copy for the observer.
+     *
+     * @param world The current state of the simulation world after changes.
+     * @param tick  The tick that has been simulated.
+     * @throws IllegalStateException If the observer has been closed.
+     */
+    @Override
+    public void onWorldChanges(final World world, final long tick) {
+        WorldSnapshot snapshot;
+        this.lock.lock();
+        try {
+            if (this.closed) {
+                throw new IllegalStateException("The observer is closed");
+            }
+            while (this.pending.size() >= this.capacity) {
+                if (this.backpressure == Backpressure.DROP_OLDEST) {
+                    this.free.push(this.pending.poll());
+                    this.dropped++;
+                } else {
+                    try {
+                        this.notFull.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        this.dropped++;
+                        return;
+                    }
+                }
+            }
+            snapshot = this.free.poll();
+        } finally {
+            this.lock.unlock();
+        }
+
+        // only this thread adds snapshots, so the slot stays free while the world is copied
+        if (snapshot == null) {
+            snapshot = WorldSnapshot.of(world, tick);
+        } else {
+            snapshot.copyFrom(world, tick);
+        }
+
+        boolean schedule = false;
+        this.lock.lock();
+        try {
+            this.pending.add(snapshot);
+            if (!this.draining) {
+                this.draining = true;
+                schedule = true;
+            }
+        } finally {
+            this.lock.unlock();
+        }
+        if (schedule) {
+            try {
+                this.executor.execute(this.drain);
+            } catch (RejectedExecutionException e) {
+                this.lock.lock();
+                try {
+                    this.draining = false;
+                    this.free.push(this.pending.pollLast());
+                    this.idle.signalAll();
+                } finally {
+                    this.lock.unlock();
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of snapshots dropped because the queue was full, or because the simulation
+     * thread was interrupted while waiting.
+     *
+     * @return The number of dropped snapshots.
+     */
+    public long getDroppedSnapshots() {
+        this.lock.lock();
+        try {
+            return this.dropped;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the observer receiving the snapshots.
+     *
+     * @return The wrapped observer.
+     */
+    public SimulationObserver getObserver() {
+        return this.observer;
+    }
+
+    /**
+     * Waits for the queued snapshots to be delivered, then stops the thread of the observer if it owns one.
+     * Further notifications are refused.
+     */
+    @Override
+    public void close() {
+        this.lock.lock();
+        try {
+            this.closed = true;
+            while (this.draining) {
+                this.idle.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            this.lock.unlock();
+        }
+        if (this.ownedExecutor != null) {
+            this.ownedExecutor.shutdown();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return SimulationProfiler.labelOf(this.observer) + " async";
+    }
+
+    private static void checkCapacity(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+    }
+
+    /*
+     * Delivers the queued snapshots until the queue is empty. At most one drain runs at a time.
+     */
+    private void drain() {
+        while (true) {
+            final WorldSnapshot snapshot;
+            this.lock.lock();
+            try {
+                snapshot = this.pending.poll();
+                if (snapshot == null) {
+                    this.draining = false;
+                    this.idle.signalAll();
+                    return;
+                }
+                this.notFull.signal();
+            } finally {
+                this.lock.unlock();
+            }
+            try {
+                if (snapshot.getTick() < 0) {
+                    this.observer.onWorldChanges(snapshot);
+                } else {
+                    this.observer.onWorldChanges(snapshot, snapshot.getTick());
+                }
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Observer " + this + " failed at tick " + snapshot.getTick(), e);
+            }
+            this.lock.lock();
+            try {
+                this.free.push(snapshot);
+            } finally {
+                this.lock.unlock();
+            }
+        }
+    }
+}
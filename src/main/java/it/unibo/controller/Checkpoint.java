@@ -0,0 +1,366 @@
+package it.unibo.controller;
+
+import it.unibo.core.behaviour.Behaviour;
+import it.unibo.core.behaviour.PersistentBehaviour;
+import it.unibo.core.entity.ActiveTiles;
+import it.unibo.core.entity.FloatBufferedWorld;
+import it.unibo.core.entity.TiledWorld;
+import it.unibo.core.entity.World;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * The binary checkpoint of a {@link Simulation}, holding everything needed to resume it bit for bit.
+ *
+ * <p>A checkpoint is a little-endian file made of:</p>
+ * <ul>
+ *     <li>a header with a magic number, the version of the format, the tick, the dimensions of the world,
+ *     the number of slimes and the size of a pheromone level, 4 bytes for a {@link FloatBufferedWorld}
+ *     and 8 otherwise;</li>
+ *     <li>the class name of each behaviour, world behaviours first, followed by its state when it is
+ *     a {@link PersistentBehaviour};</li>
+ *     <li>the coordinates of the slimes, in order of identifier;</li>
+ *     <li>a byte per tile of {@link ActiveTiles#TILE_SIZE} cells a side, telling whether the tile is saved,
+ *     followed by the levels of the saved tiles, row by row. Only the active tiles of a {@link TiledWorld}
+ *     are saved, as the others hold no pheromone;</li>
+ *     <li>the CRC-32C of all of the above.</li>
+ * </ul>
+ *
+ * <p>Files are streamed through a {@link FileChannel} with a reusable direct buffer. A checkpoint is
+ * written next to its destination and moved over it once complete, so a crash while saving leaves
+ * the previous one intact.</p>
+ */
+final class Checkpoint {
+    private static final int MAGIC = 0x534C4D43;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 4 * Integer.BYTES + Long.BYTES + 3 * Integer.BYTES;
+    private static final int CHUNK_SIZE = 1 << 20;
+    private static final int TILE_SIZE = ActiveTiles.TILE_SIZE;
+
+    private Checkpoint() { }
+
+    /**
+     * Saves the state of a simulation.
+     *
+     * @param file       The file the checkpoint is written to, replaced if it exists.
+     * @param world      The world of the simulation.
+     * @param behaviours The behaviours of the simulation, world behaviours first, as they were given to it.
+     * @param tick       The current tick of the simulation.
+     * @throws IOException If the file cannot be written.
+     */
+    static void save(final Path file, final World world, final List<Behaviour<?>> behaviours, final long tick) throws IOException {
+        final Path partial = file.resolveSibling(file.getFileName() + ".partial");
+        try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            final Output output = new Output(channel);
+            output.require(HEADER_SIZE)
+                    .putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putLong(tick)
+                    .putInt(world.getWidth())
+                    .putInt(world.getHeight())
+                    .putInt(world.getSlimeCount())
+                    .putInt(levelSize(world))
+                    .putInt(behaviours.size());
+            for (final Behaviour<?> behaviour : behaviours) {
+                saveBehaviour(output, behaviour);
+            }
+            for (int id = 0; id < world.getSlimeCount(); id++) {
+                output.require(2 * Integer.BYTES).putInt(world.getSlimeX(id)).putInt(world.getSlimeY(id));
+            }
+            saveField(output, world);
+            output.finish();
+        }
+        try {
+            Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Restores the state of a simulation built with the same world and behaviours of the saved one.
+     * A restore failing half way leaves the world and the behaviours in an unspecified state.
+     *
+     * @param file       The checkpoint.
+     * @param world      The world of the simulation.
+     * @param behaviours The behaviours of the simulation, world behaviours first, as they were given to it.
+     * @return The tick the checkpoint was taken at.
+     * @throws IOException              If the file cannot be read, or is not a valid checkpoint.
+     * @throws IllegalArgumentException If the checkpoint was taken from a different simulation.
+     */
+    static long restore(final Path file, final World world, final List<Behaviour<?>> behaviours) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final Input input = new Input(channel);
+            final ByteBuffer header = input.require(HEADER_SIZE);
+            if (header.getInt() != MAGIC) {
+                throw new IOException(file + " is not a checkpoint");
+            }
+            final int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported checkpoint version " + version);
+            }
+            final long tick = header.getLong();
+            final int width = header.getInt();
+            final int height = header.getInt();
+            final int slimes = header.getInt();
+            final int levelSize = header.getInt();
+            final int count = header.getInt();
+            if (width != world.getWidth() || height != world.getHeight() || slimes != world.getSlimeCount()) {
+                throw new IllegalArgumentException("The checkpoint is of a " + width + "x" + height + " world with " + slimes + " slimes");
+            }
+            if (levelSize != levelSize(world)) {
+                throw new IllegalArgumentException("The checkpoint has a field of " + (levelSize == Float.BYTES ? "single" : "double") + " precision");
+            }
+            if (count != behaviours.size()) {
+                throw new IllegalArgumentException("The checkpoint has " + count + " behaviours");
+            }
+            for (final Behaviour<?> behaviour : behaviours) {
+                restoreBehaviour(input, behaviour);
+            }
+            for (int id = 0; id < slimes; id++) {
+                final ByteBuffer position = input.require(2 * Integer.BYTES);
+                final int x = position.getInt();
+                final int y = position.getInt();
+                if (x < 0 || x >= width || y < 0 || y >= height) {
+                    throw new IOException("Slime " + id + " is out of the world");
+                }
+                world.moveSlime(id, x, y);
+            }
+            restoreField(input, world);
+            input.finish();
+            return tick;
+        }
+    }
+
+    private static int levelSize(final World world) {
+        return world instanceof FloatBufferedWorld ? Float.BYTES : Double.BYTES;
+    }
+
+    private static void saveBehaviour(final Output output, final Behaviour<?> behaviour) throws IOException {
+        final byte[] name = behaviour.getClass().getName().getBytes(StandardCharsets.UTF_8);
+        final ByteBuffer state;
+        if (behaviour instanceof PersistentBehaviour persistent) {
+            state = ByteBuffer.allocate(persistent.getStateSize()).order(ByteOrder.LITTLE_ENDIAN);
+            persistent.saveState(state);
+            state.flip();
+        } else {
+            state = ByteBuffer.allocate(0);
+        }
+        output.require(Short.BYTES + name.length + Integer.BYTES)
+                .putShort((short) name.length)
+                .put(name)
+                .putInt(state.remaining());
+        output.put(state);
+    }
+
+    /*
+     * Behaviours that are not persistent are assumed to be stateless, so only the names of the persistent ones are checked.
+     */
+    private static void restoreBehaviour(final Input input, final Behaviour<?> behaviour) throws IOException {
+        final byte[] name = new byte[input.require(Short.BYTES).getShort() & 0xFFFF];
+        input.require(name.length + Integer.BYTES).get(name);
+        final ByteBuffer state = ByteBuffer.allocate(input.buffer().getInt()).order(ByteOrder.LITTLE_ENDIAN);
+        input.get(state);
+        state.flip();
+        final String savedName = new String(name, StandardCharsets.UTF_8);
+        if (behaviour instanceof PersistentBehaviour persistent) {
+            if (!savedName.equals(behaviour.getClass().getName())) {
+                throw new IllegalArgumentException("The checkpoint has a " + savedName + " in place of a " + behaviour.getClass().getName());
+            }
+            persistent.restoreState(state);
+            if (state.hasRemaining()) {
+                throw new IOException("The state of " + savedName + " is malformed");
+            }
+        } else if (state.hasRemaining()) {
+            throw new IllegalArgumentException("The checkpoint has a " + savedName + " in place of a " + behaviour.getClass().getName());
+        }
+    }
+
+    private static void saveField(final Output output, final World world) throws IOException {
+        final int columns = (world.getWidth() + TILE_SIZE - 1) / TILE_SIZE;
+        final int rows = (world.getHeight() + TILE_SIZE - 1) / TILE_SIZE;
+        final boolean[] saved = new boolean[columns * rows];
+        for (int tile = 0; tile < saved.length; tile++) {
+            saved[tile] = !(world instanceof TiledWorld tiled) || tiled.getActiveTiles().isActive(tile);
+            output.require(1).put((byte) (saved[tile] ? 1 : 0));
+        }
+        final boolean single = levelSize(world) == Float.BYTES;
+        for (int tile = 0; tile < saved.length; tile++) {
+            if (!saved[tile]) {
+                continue;
+            }
+            final int fromX = tile % columns * TILE_SIZE;
+            final int toX = Math.min(fromX + TILE_SIZE, world.getWidth());
+            final int fromY = tile / columns * TILE_SIZE;
+            final int toY = Math.min(fromY + TILE_SIZE, world.getHeight());
+            for (int y = fromY; y < toY; y++) {
+                final ByteBuffer buffer = output.require((toX - fromX) * levelSize(world));
+                for (int x = fromX; x < toX; x++) {
+                    if (single) {
+                        buffer.putFloat((float) world.getPheromone(x, y));
+                    } else {
+                        buffer.putDouble(world.getPheromone(x, y));
+                    }
+                }
+            }
+        }
+    }
+
+    /*
+     * Tiles that were not saved hold no pheromone, so they only need clearing when the world may hold some there.
+     */
+    private static void restoreField(final Input input, final World world) throws IOException {
+        final int columns = (world.getWidth() + TILE_SIZE - 1) / TILE_SIZE;
+        final int rows = (world.getHeight() + TILE_SIZE - 1) / TILE_SIZE;
+        final boolean[] saved = new boolean[columns * rows];
+        for (int tile = 0; tile < saved.length; tile++) {
+            saved[tile] = input.require(1).get() != 0;
+        }
+        final boolean single = levelSize(world) == Float.BYTES;
+        for (int tile = 0; tile < saved.length; tile++) {
+            if (!saved[tile] && world instanceof TiledWorld tiled && !tiled.getActiveTiles().isActive(tile)) {
+                continue;
+            }
+            final int fromX = tile % columns * TILE_SIZE;
+            final int toX = Math.min(fromX + TILE_SIZE, world.getWidth());
+            final int fromY = tile / columns * TILE_SIZE;
+            final int toY = Math.min(fromY + TILE_SIZE, world.getHeight());
+            for (int y = fromY; y < toY; y++) {
+                if (!saved[tile]) {
+                    for (int x = fromX; x < toX; x++) {
+                        world.setPheromone(x, y, 0);
+                    }
+                    continue;
+                }
+                final ByteBuffer buffer = input.require((toX - fromX) * levelSize(world));
+                for (int x = fromX; x < toX; x++) {
+                    world.setPheromone(x, y, single ? buffer.getFloat() : buffer.getDouble());
+                }
+            }
+        }
+    }
+
+    /*
+     * Writes a checkpoint through a direct buffer, keeping the checksum of what has been written.
+     */
+    private static final class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private final CRC32C checksum = new CRC32C();
+
+        Output(final FileChannel channel) {
+            this.channel = channel;
+        }
+
+        /*
+         * Returns the buffer, with room for at least the given number of bytes.
+         */
+        ByteBuffer require(final int bytes) throws IOException {
+            if (this.buffer.remaining() < bytes) {
+                this.flush();
+            }
+            return this.buffer;
+        }
+
+        void put(final ByteBuffer source) throws IOException {
+            while (source.hasRemaining()) {
+                final int length = Math.min(source.remaining(), this.require(1).remaining());
+                this.buffer.put(source.slice(source.position(), length));
+                source.position(source.position() + length);
+            }
+        }
+
+        void finish() throws IOException {
+            this.flush();
+            this.buffer.putLong(this.checksum.getValue()).flip();
+            while (this.buffer.hasRemaining()) {
+                this.channel.write(this.buffer);
+            }
+            this.channel.force(true);
+        }
+
+        private void flush() throws IOException {
+            this.buffer.flip();
+            this.checksum.update(this.buffer.duplicate());
+            while (this.buffer.hasRemaining()) {
+                this.channel.write(this.buffer);
+            }
+            this.buffer.clear();
+        }
+    }
+
+    /*
+     * Reads a checkpoint through a direct buffer, keeping the checksum of what has been read.
+     */
+    private static final class Input {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK_SIZE).order(ByteOrder.LITTLE_ENDIAN).limit(0);
+        private final CRC32C checksum = new CRC32C();
+        /*
+         * Position in the buffer of the first byte read but not yet added to the checksum.
+         */
+        private int checked;
+
+        Input(final FileChannel channel) {
+            this.channel = channel;
+        }
+
+        ByteBuffer buffer() {
+            return this.buffer;
+        }
+
+        /*
+         * Returns the buffer, with at least the given number of bytes remaining.
+         */
+        ByteBuffer require(final int bytes) throws IOException {
+            if (this.buffer.remaining() < bytes) {
+                this.check();
+                this.buffer.compact();
+                this.checked = 0;
+                while (this.buffer.position() < bytes) {
+                    if (this.channel.read(this.buffer) < 0) {
+                        throw new EOFException("The checkpoint is truncated");
+                    }
+                }
+                this.buffer.flip();
+            }
+            return this.buffer;
+        }
+
+        void get(final ByteBuffer target) throws IOException {
+            while (target.hasRemaining()) {
+                final int length = Math.min(target.remaining(), this.require(1).remaining());
+                target.put(this.buffer.slice(this.buffer.position(), length));
+                this.buffer.position(this.buffer.position() + length);
+            }
+        }
+
+        void finish() throws IOException {
+            this.check();
+            final long expected = this.checksum.getValue();
+            if (this.require(Long.BYTES).getLong() != expected) {
+                throw new IOException("The checkpoint is corrupted");
+            }
+            if (this.buffer.hasRemaining() || this.channel.position() != this.channel.size()) {
+                throw new IOException("The checkpoint has trailing data");
+            }
+        }
+
+        private void check() {
+            this.checksum.update(this.buffer.duplicate().limit(this.buffer.position()).position(this.checked));
+            this.checked = this.buffer.position();
+        }
+    }
+}
@@ -0,0 +1,407 @@
+package it.unibo.controller;
+
+import it.unibo.core.behaviour.Evaporation;
+import it.unibo.core.entity.ActiveTiles;
+import it.unibo.core.entity.TiledWorld;
+import it.unibo.core.entity.World;
+import it.unibo.core.kernel.FieldMoments;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A {@link SimulationObserver} following the clusters the slimes gather in, and the pheromone field they
+ * gather on. Two slimes are in the same cluster when they are on the same cell or on neighbouring cells,
+ * wrapping at the edges of the world as the slimes do.
+ *
+ * Clusters are kept in a union-find forest over the slimes, updated at each notification from the slimes
+ * that moved since the previous one: the clusters they left are taken apart and joined again from the
+ * occupancy of the cells around their members, while the other clusters are kept as they are, merging
+ * with those growing next to them. Finding the slimes that moved reads the position of every slime, so a
+ * notification costs a pass over the slimes, as long as one step of the slime phase, plus a few lookups
+ * for each member of a cluster that changed, but never a sweep of the occupancy grid. The pass is not
+ * saved by a list of the slimes moved kept by the world: the slimes of an {@link it.unibo.core.behaviour.Aggregation}
+ * all move at every tick, so the list would hold all of them, and cost every move a write. The centroid
+ * of a cluster is the circular mean of the positions of its members, so that a cluster lying across an
+ * edge is centred among them.
+ *
+ * Given the {@link Evaporation} of the simulation, the total, maximum and entropy of the field are the
+ * {@link FieldMoments} it adds up at every tick while writing the field, alone or fused in a diffusion, so
+ * reading them costs the notification nothing; tracking them costs the evaporation a few operations per
+ * cell, and a logarithm per cell holding pheromone. They describe the field as the world behaviours of
+ * the notified tick left it, before the slimes dropped their pheromone. Without an evaporation, or when it
+ * published nothing since the previous notification, as when it is composed with another cell behaviour,
+ * the field is swept as notified instead: the active tiles of a {@link TiledWorld}, which only cover the
+ * whole field while the pheromone does, and the whole field of other worlds.
+ */
+public final class ClusterStatistics implements SimulationObserver {
+    private static final Logger LOGGER = Logger.getLogger(ClusterStatistics.class.getName());
+    private static final double TAU = 2 * Math.PI;
+
+    private final boolean logged;
+    private final Evaporation evaporation;
+    private int width;
+    private int height;
+    // the cell of each slime when the clusters were last updated
+    private int[] cellX = new int[0];
+    private int[] cellY;
+    private int[] parents;
+    private int[] sizes;
+    // the members of a cluster are linked in a cycle, so that merging two clusters swaps two links
+    private int[] members;
+    private double[] cosX;
+    private double[] sinX;
+    private double[] cosY;
+    private double[] sinY;
+    private int[] clustersOfSize = new int[1];
+    private int[] rebuilt;
+    private int[] visited;
+    private int epoch;
+    private int clusters;
+    private int largest;
+    private int moved;
+    private long tick = -1;
+    private double totalPheromone;
+    private double maxPheromone;
+    private double entropy;
+    private long markedCells;
+
+    /**
+     * Constructs the statistics, to be notified of the changes of a simulation.
+     *
+     * @param logged Whether a summary of the statistics is logged after each notification.
+     */
+    public ClusterStatistics(final boolean logged) {
+        this.logged = logged;
+        this.evaporation = null;
+    }
+
+    /**
+     * Constructs the statistics, reading the moments of the field from the evaporation of the simulation,
+     * whose tracking of the moments is turned on.
+     *
+     * @param logged      Whether a summary of the statistics is logged after each notification.
+     * @param evaporation The evaporation applied by the simulation at every tick.
+     */
+    public ClusterStatistics(final boolean logged, final Evaporation evaporation) {
+        this.logged = logged;
+        this.evaporation = Objects.requireNonNull(evaporation);
+        evaporation.setMomentsTracked(true);
+    }
+
+    /**
+     * A cluster of slimes.
+     *
+     * @param size      The number of slimes in the cluster.
+     * @param centroidX The column of its centroid, between 0 (inclusive) and the width of the world (exclusive).
+     * @param centroidY The row of its centroid, between 0 (inclusive) and the height of the world (exclusive).
+     */
+    public record Cluster(int size, double centroidX, double centroidY) { }
+
+    @Override
+    public void onWorldChanges(final World world) {
+        if (this.cellX.length != world.getSlimeCount() || this.width != world.getWidth() || this.height != world.getHeight()) {
+            this.allocate(world);
+        }
+        this.updateClusters(world);
+        final FieldMoments published = this.evaporation == null ? null : this.evaporation.pollMoments();
+        final FieldMoments moments = published == null ? sampleField(world) : published;
+        this.totalPheromone = moments.getTotal();
+        this.maxPheromone = moments.getMax();
+        this.entropy = moments.getEntropy();
+        this.markedCells = moments.getCells();
+        if (this.logged && LOGGER.isLoggable(Level.INFO)) {
+            LOGGER.info(this.summary());
+        }
+    }
+
+    @Override
+    public void onWorldChanges(final World world, final long tick) {
+        this.tick = tick;
+        this.onWorldChanges(world);
+    }
+
+    /**
+     * Returns the tick of the last notification.
+     *
+     * @return The tick, or -1 if the observer was never notified with it.
+     */
+    public long getTick() {
+        return this.tick;
+    }
+
+    public int getClusterCount() {
+        return this.clusters;
+    }
+
+    public int getLargestClusterSize() {
+        return this.largest;
+    }
+
+    /**
+     * Returns the number of slimes that had moved at the last notification since the previous one.
+     *
+     * @return The number of slimes moved.
+     */
+    public int getMovedSlimes() {
+        return this.moved;
+    }
+
+    /**
+     * Returns the number of clusters of each size.
+     *
+     * @return An array whose element {@code s} is the number of clusters of {@code s} slimes, up to the largest cluster.
+     */
+    public int[] getSizeDistribution() {
+        return Arrays.copyOf(this.clustersOfSize, this.largest + 1);
+    }
+
+    /**
+     * Returns the largest cluster. Among clusters of the same size, the one holding the slime with the lowest
+     * identifier is returned.
+     *
+     * @return The largest cluster, or {@code null} if there are no slimes.
+     */
+    public Cluster getLargestCluster() {
+        for (int id = 0; id < this.cellX.length; id++) {
+            if (this.parents[id] == id && this.sizes[id] == this.largest) {
+                return new Cluster(this.largest,
+                        circularMean(this.cosX[id], this.sinX[id], this.width),
+                        circularMean(this.cosY[id], this.sinY[id], this.height));
+            }
+        }
+        return null;
+    }
+
+    public double getTotalPheromone() {
+        return this.totalPheromone;
+    }
+
+    public double getMaxPheromone() {
+        return this.maxPheromone;
+    }
+
+    /**
+     * Returns the entropy of the field, taking the pheromone of each cell over the total as a probability.
+     * It is the logarithm of the number of cells for a uniform field, and falls as the pheromone concentrates.
+     *
+     * @return The entropy in nats, or zero for an empty field.
+     */
+    public double getEntropy() {
+        return this.entropy;
+    }
+
+    public long getMarkedCells() {
+        return this.markedCells;
+    }
+
+    /**
+     * Returns a one-line summary of the statistics.
+     *
+     * @return The summary.
+     */
+    public String summary() {
+        final Cluster cluster = this.getLargestCluster();
+        return String.format("tick %d: %d clusters, largest %d at (%.1f, %.1f), %d slimes moved; pheromone total %.3f, max %.3f, entropy %.4f",
+                this.tick, this.clusters, this.largest, cluster == null ? 0 : cluster.centroidX(), cluster == null ? 0 : cluster.centroidY(),
+                this.moved, this.totalPheromone, this.maxPheromone, this.entropy);
+    }
+
+    /**
+     * Returns a human-readable report of the statistics.
+     *
+     * @return The report, one line for the clusters and one for the field.
+     */
+    public String report() {
+        final Cluster cluster = this.getLargestCluster();
+        final int slimes = this.cellX.length;
+        return String.format("  clusters: %d, %.2f slimes each on average, %d slimes alone, largest %d centred at (%.1f, %.1f)%n",
+                this.clusters, this.clusters == 0 ? 0 : (double) slimes / this.clusters, this.clustersOfSize.length > 1 ? this.clustersOfSize[1] : 0,
+                this.largest, cluster == null ? 0 : cluster.centroidX(), cluster == null ? 0 : cluster.centroidY())
+                + String.format("  field: total %.3f, max %.3f, entropy %.4f of at most %.4f, on %d cells%n",
+                this.totalPheromone, this.maxPheromone, this.entropy, this.cellX.length == 0 ? 0 : Math.log((double) this.width * this.height), this.markedCells);
+    }
+
+    private void allocate(final World world) {
+        final int slimes = world.getSlimeCount();
+        this.width = world.getWidth();
+        this.height = world.getHeight();
+        // no slime is anywhere yet, so that all of them move at the first notification
+        this.cellX = new int[slimes];
+        this.cellY = new int[slimes];
+        Arrays.fill(this.cellX, -1);
+        this.parents = new int[slimes];
+        this.sizes = new int[slimes];
+        this.members = new int[slimes];
+        for (int id = 0; id < slimes; id++) {
+            this.parents[id] = id;
+            this.sizes[id] = 1;
+            this.members[id] = id;
+        }
+        this.cosX = new double[slimes];
+        this.sinX = new double[slimes];
+        this.cosY = new double[slimes];
+        this.sinY = new double[slimes];
+        this.clustersOfSize = new int[slimes + 1];
+        if (slimes > 0) {
+            this.clustersOfSize[1] = slimes;
+        }
+        this.rebuilt = new int[slimes];
+        this.visited = new int[slimes];
+        this.epoch = 0;
+        this.clusters = slimes;
+        this.largest = Math.min(slimes, 1);
+    }
+
+    private void updateClusters(final World world) {
+        if (++this.epoch == Integer.MAX_VALUE) {
+            Arrays.fill(this.visited, 0);
+            this.epoch = 1;
+        }
+        int dirty = 0;
+        this.moved = 0;
+        for (int id = 0; id < this.cellX.length; id++) {
+            final int x = world.getSlimeX(id);
+            final int y = world.getSlimeY(id);
+            if (x != this.cellX[id] || y != this.cellY[id]) {
+                this.cellX[id] = x;
+                this.cellY[id] = y;
+                this.moved++;
+                final int root = this.find(id);
+                // the members of a cluster taken apart are marked, so that each is taken apart once
+                if (this.visited[root] != this.epoch) {
+                    dirty = this.takeApart(root, dirty);
+                }
+            }
+        }
+        // the positions of the members are set before joining any of them, as joins reach later members
+        for (int i = 0; i < dirty; i++) {
+            final int id = this.rebuilt[i];
+            final double angleX = TAU * world.getSlimeX(id) / this.width;
+            final double angleY = TAU * world.getSlimeY(id) / this.height;
+            this.cosX[id] = Math.cos(angleX);
+            this.sinX[id] = Math.sin(angleX);
+            this.cosY[id] = Math.cos(angleY);
+            this.sinY[id] = Math.sin(angleY);
+        }
+        for (int i = 0; i < dirty; i++) {
+            this.join(world, this.rebuilt[i]);
+        }
+        while (this.largest > 0 && this.clustersOfSize[this.largest] == 0) {
+            this.largest--;
+        }
+    }
+
+    /*
+     * Splits a cluster into a cluster for each of its members, appending them to the slimes to join again.
+     */
+    private int takeApart(final int root, final int dirty) {
+        int added = dirty;
+        this.clustersOfSize[this.sizes[root]]--;
+        this.clusters--;
+        int member = root;
+        do {
+            final int next = this.members[member];
+            this.parents[member] = member;
+            this.sizes[member] = 1;
+            this.members[member] = member;
+            this.visited[member] = this.epoch;
+            this.rebuilt[added++] = member;
+            member = next;
+        } while (member != root);
+        this.clustersOfSize[1] += added - dirty;
+        this.clusters += added - dirty;
+        return added;
+    }
+
+    private void join(final World world, final int id) {
+        final int x = world.getSlimeX(id);
+        final int y = world.getSlimeY(id);
+        // a slime may have come onto a cell whose other slimes stood still, so it joins all of them, while on the
+        // cells around it is enough to join a slime, the others joining it from their own cell
+        for (int other = world.getFirstSlimeAt(x, y); other != World.NO_SLIME; other = world.getNextSlimeAt(other)) {
+            this.union(id, other);
+        }
+        for (int k = 0; k < World.NEIGHBOURHOOD_SIZE; k++) {
+            final int other = world.getFirstSlimeAt(world.getNeighbourX(x, k), world.getNeighbourY(y, k));
+            if (other != World.NO_SLIME) {
+                this.union(id, other);
+            }
+        }
+    }
+
+    private int find(final int id) {
+        int node = id;
+        while (this.parents[node] != node) {
+            this.parents[node] = this.parents[this.parents[node]];
+            node = this.parents[node];
+        }
+        return node;
+    }
+
+    private void union(final int first, final int second) {
+        int root = this.find(first);
+        int other = this.find(second);
+        if (root == other) {
+            return;
+        }
+        if (this.sizes[root] < this.sizes[other]) {
+            final int swap = root;
+            root = other;
+            other = swap;
+        }
+        this.clustersOfSize[this.sizes[root]]--;
+        this.clustersOfSize[this.sizes[other]]--;
+        this.parents[other] = root;
+        this.sizes[root] += this.sizes[other];
+        this.clustersOfSize[this.sizes[root]]++;
+        this.clusters--;
+        this.largest = Math.max(this.largest, this.sizes[root]);
+        this.cosX[root] += this.cosX[other];
+        this.sinX[root] += this.sinX[other];
+        this.cosY[root] += this.cosY[other];
+        this.sinY[root] += this.sinY[other];
+        final int next = this.members[root];
+        this.members[root] = this.members[other];
+        this.members[other] = next;
+    }
+
+    private static FieldMoments sampleField(final World world) {
+        final FieldMoments moments = new FieldMoments();
+        if (world instanceof TiledWorld tiled) {
+            final ActiveTiles tiles = tiled.getActiveTiles();
+            for (int row = 0; row < tiles.getRows(); row++) {
+                for (int column = 0; column < tiles.getColumns(); column++) {
+                    if (!tiles.isActive(tiles.indexOf(column, row))) {
+                        continue;
+                    }
+                    for (int y = tiles.getStartY(row); y < tiles.getEndY(row); y++) {
+                        sampleField(world, y, tiles.getStartX(column), tiles.getEndX(column), moments);
+                    }
+                }
+            }
+        } else {
+            for (int y = 0; y < world.getHeight(); y++) {
+                sampleField(world, y, 0, world.getWidth(), moments);
+            }
+        }
+        return moments;
+    }
+
+    /*
+     * Adds the cells in columns [fromX, toX) of a row to the moments of the field.
+     */
+    private static void sampleField(final World world, final int y, final int fromX, final int toX, final FieldMoments moments) {
+        for (int x = fromX; x < toX; x++) {
+            moments.add(world.getPheromone(x, y));
+        }
+    }
+
+    private static double circularMean(final double cos, final double sin, final int extent) {
+        final double angle = Math.atan2(sin, cos);
+        final double position = (angle < 0 ? angle + TAU : angle) * extent / TAU;
+        return position < extent ? position : 0;
+    }
+}
@@ -0,0 +1,147 @@
+package it.unibo.controller;
+
+import java.util.Arrays;
+
+/**
+ * A histogram of non-negative values, such as durations in nanoseconds or sizes in bytes, with a
+ * fixed memory footprint and constant recording cost.
+ *
+ * Values are counted in log-linear buckets: each power of two is split in {@value #SUB_BUCKETS} buckets,
+ * so percentiles are reported with a relative error below 1/{@value #SUB_BUCKETS}, rounded up to the
+ * largest value of their bucket. Count, total and maximum are exact.
+ *
+ * A histogram is meant to be written by a single thread: other threads should read a {@link #copy()}
+ * handed over by the writer.
+ */
+public final class Histogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final long[] counts;
+    private long count;
+    private long total;
+    private long max;
+
+    public Histogram() {
+        this.counts = new long[BUCKETS];
+    }
+
+    private Histogram(final Histogram other) {
+        this.counts = other.counts.clone();
+        this.count = other.count;
+        this.total = other.total;
+        this.max = other.max;
+    }
+
+    /**
+     * Records a value. Negative values are recorded as zero.
+     *
+     * @param value The value.
+     */
+    public void record(final long value) {
+        final long recorded = Math.max(value, 0);
+        this.counts[bucketOf(recorded)]++;
+        this.count++;
+        this.total += recorded;
+        this.max = Math.max(this.max, recorded);
+    }
+
+    public long getCount() {
+        return this.count;
+    }
+
+    public long getTotal() {
+        return this.total;
+    }
+
+    public long getMax() {
+        return this.max;
+    }
+
+    public double getMean() {
+        return this.count == 0 ? 0 : (double) this.total / this.count;
+    }
+
+    /**
+     * Returns the value below which a fraction of the recorded values fall.
+     *
+     * @param fraction The fraction, between 0 and 1.
+     * @return The largest value of the bucket holding the percentile, never above the maximum, or 0 if the histogram is empty.
+     */
+    public long getPercentile(final double fraction) {
+        if (fraction < 0 || fraction > 1) {
+            throw new IllegalArgumentException("Fraction must be between 0 and 1");
+        }
+        final long rank = Math.max(1, (long) Math.ceil(fraction * this.count));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += this.counts[bucket];
+            if (seen >= rank) {
+                return Math.min(highestOf(bucket), this.max);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns a copy of this histogram.
+     *
+     * @return The copy.
+     */
+    public Histogram copy() {
+        return new Histogram(this);
+    }
+
+    /**
+     * Returns the values recorded by this histogram since an earlier copy of it. The maximum is the
+     * largest value of the highest bucket that changed, as the exact one cannot be told apart.
+     *
+     * @param earlier An earlier copy of this histogram.
+     * @return The values recorded since the copy.
+     */
+    public Histogram since(final Histogram earlier) {
+        final Histogram difference = new Histogram();
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            difference.counts[bucket] = this.counts[bucket] - earlier.counts[bucket];
+            if (difference.counts[bucket] > 0) {
+                difference.max = Math.min(highestOf(bucket), this.max);
+            }
+        }
+        difference.count = this.count - earlier.count;
+        difference.total = this.total - earlier.total;
+        return difference;
+    }
+
+    /**
+     * Forgets every recorded value.
+     */
+    public void reset() {
+        Arrays.fill(this.counts, 0);
+        this.count = 0;
+        this.total = 0;
+        this.max = 0;
+    }
+
+    /*
+     * Values below SUB_BUCKETS have a bucket each, then each power of two has SUB_BUCKETS buckets.
+     */
+    private static int bucketOf(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        final int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    private static long highestOf(final int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        final int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        final long sub = bucket % SUB_BUCKETS;
+        final long lowest = (1L << exponent) | (sub << (exponent - SUB_BUCKET_BITS));
+        return lowest + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
@@ -0,0 +1,74 @@
+package it.unibo.controller;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * The statistics of a phase of the ticks of a simulation, as published by {@link SimulationMetrics}.
+ * Durations are in nanoseconds, and allocations in bytes.
+ */
+public final class PhaseStatistics {
+    private final String name;
+    private final long count;
+    private final long total;
+    private final double mean;
+    private final long median;
+    private final long p90;
+    private final long p99;
+    private final long max;
+
+    @ConstructorProperties({"name", "count", "total", "mean", "median", "p90", "p99", "max"})
+    public PhaseStatistics(final String name, final long count, final long total, final double mean, final long median, final long p90, final long p99, final long max) {
+        this.name = name;
+        this.count = count;
+        this.total = total;
+        this.mean = mean;
+        this.median = median;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.max = max;
+    }
+
+    /**
+     * Summarises a histogram.
+     *
+     * @param name      The name of the phase.
+     * @param histogram The values recorded for the phase.
+     * @return The statistics of the phase.
+     */
+    public static PhaseStatistics of(final String name, final Histogram histogram) {
+        return new PhaseStatistics(name, histogram.getCount(), histogram.getTotal(), histogram.getMean(),
+                histogram.getPercentile(0.5), histogram.getPercentile(0.9), histogram.getPercentile(0.99), histogram.getMax());
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public long getCount() {
+        return this.count;
+    }
+
+    public long getTotal() {
+        return this.total;
+    }
+
+    public double getMean() {
+        return this.mean;
+    }
+
+    public long getMedian() {
+        return this.median;
+    }
+
+    public long getP90() {
+        return this.p90;
+    }
+
+    public long getP99() {
+        return this.p99;
+    }
+
+    public long getMax() {
+        return this.max;
+    }
+}
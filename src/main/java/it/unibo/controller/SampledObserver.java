@@ -0,0 +1,104 @@
+package it.unibo.controller;
+
+import it.unibo.core.entity.World;
+
+/**
+ * A {@link SimulationObserver} passing only some of the notifications to another observer, either one
+ * tick out of a fixed number or at most a number of times per second. The notifications that are
+ * skipped cost the simulation a comparison, so slow observers such as renderers or recorders can be
+ * attached without slowing every tick down.
+ *
+ * The observer is notified on the simulation thread. To move its work to another thread, wrap it in an
+ * {@link AsyncObserver} as well.
+ */
+public final class SampledObserver implements SimulationObserver {
+    private final SimulationObserver observer;
+    private final long ticks;
+    private final long period;
+    private long notifications;
+    private long lastTick = -1;
+    private long lastDelivered;
+    private boolean delivered;
+
+    private SampledObserver(final SimulationObserver observer, final long ticks, final long period) {
+        this.observer = observer;
+        this.ticks = ticks;
+        this.period = period;
+    }
+
+    /**
+     * Creates an observer notified once per interval of ticks: at the first tick it is notified of that reaches
+     * a multiple of the interval since the previous one. That is the multiple itself, unless it was a catch-up
+     * tick of a {@link SimulationScheduler}, whose observers are not notified; the following tick is passed on
+     * instead. When notified without the tick, it is notified once every {@code ticks} notifications, starting
+     * from the first.
+     *
+     * @param observer The observer to notify.
+     * @param ticks    The number of ticks between two notifications.
+     * @return The sampled observer.
+     */
+    public static SampledObserver every(final SimulationObserver observer, final long ticks) {
+        if (ticks <= 0) {
+            throw new IllegalArgumentException("Ticks must be positive");
+        }
+        return new SampledObserver(observer, ticks, 0);
+    }
+
+    /**
+     * Creates an observer notified at most a number of times per second. The first notification is
+     * always passed on, then those coming at least a period after the last one passed on.
+     *
+     * @param observer The observer to notify.
+     * @param hertz    The largest number of notifications per second.
+     * @return The sampled observer.
+     */
+    public static SampledObserver atMostHz(final SimulationObserver observer, final double hertz) {
+        if (!(hertz > 0) || Double.isInfinite(hertz)) {
+            throw new IllegalArgumentException("Hertz must be positive and finite");
+        }
+        return new SampledObserver(observer, 0, Math.max(1, Math.round(1e9 / hertz)));
+    }
+
+    @Override
+    public void onWorldChanges(final World world) {
+        if (this.ticks > 0 ? this.notifications % this.ticks == 0 : this.isDue()) {
+            this.observer.onWorldChanges(world);
+        }
+        this.notifications++;
+    }
+
+    @Override
+    public void onWorldChanges(final World world, final long tick) {
+        if (this.ticks > 0 ? Math.floorDiv(tick, this.ticks) != Math.floorDiv(this.lastTick, this.ticks) : this.isDue()) {
+            this.observer.onWorldChanges(world, tick);
+        }
+        this.lastTick = tick;
+    }
+
+    /**
+     * Returns the observer receiving the sampled notifications.
+     *
+     * @return The wrapped observer.
+     */
+    public SimulationObserver getObserver() {
+        return this.observer;
+    }
+
+    @Override
+    public String toString() {
+        final String name = SimulationProfiler.labelOf(this.observer);
+        return this.ticks > 0
+                ? name + " every " + this.ticks + " ticks"
+                : String.format("%s at most %.4g Hz", name, 1e9 / this.period);
+    }
+
+    private boolean isDue() {
+        final long now = System.nanoTime();
+        if (this.delivered && now - this.lastDelivered < this.period) {
+            return false;
+        }
+        this.delivered = true;
+        this.lastDelivered = now;
+        return true;
+    }
+}
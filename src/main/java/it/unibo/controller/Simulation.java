@@ -1,10 +1,21 @@
 package it.unibo.controller;
 
+import it.unibo.core.behaviour.BatchSlimeBehaviour;
+import it.unibo.core.behaviour.Behaviour;
+import it.unibo.core.behaviour.FusedWorldBehaviour;
+import it.unibo.core.behaviour.ParallelSlimeBehaviour;
 import it.unibo.core.behaviour.SlimeBehaviour;
+import it.unibo.core.behaviour.SlimeIntents;
 import it.unibo.core.behaviour.WorldBehaviour;
 import it.unibo.core.entity.World;
+import it.unibo.core.parallel.ParallelRange;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
 
 
 /**
@@ -19,12 +30,39 @@
  *     <li>A list of {@link SlimeBehaviour} instances that define behaviors applicable to the slimes in the world.</li>
  *     <li>A list of {@link SimulationObserver} instances that are notified of changes in the world.</li>
  * </ul>
+ *
+ * <p>When constructed with a {@link ForkJoinPool}, the slimes are stepped in parallel by every
+ * {@link ParallelSlimeBehaviour}: their steps are planned concurrently against the world as it was
+ * at the beginning of the phase, and committed in order of slime identifier. Since the random choices
+ * of each slime only depend on the seed of the behaviour, the slime and the tick, a run gives the same
+ * result whatever the number of threads of the pool.</p>
+ *
+ * <p>Otherwise, each slime takes the steps of all the slime behaviours before the next slime moves.
+ * When there is a single slime behaviour and it is a {@link BatchSlimeBehaviour}, it is applied to the
+ * whole population with a single call, which gives the same result.</p>
+ *
+ * <p>World behaviours are compiled with {@link FusedWorldBehaviour#fuse(List)}, so that compatible
+ * behaviours (such as a double-buffered diffusion followed by evaporation) update the field in a
+ * single pass.</p>
+ *
+ * <p>The state of a simulation can be saved in a checkpoint between two ticks, and restored into a
+ * simulation built in the same way, which then resumes the run bit for bit.</p>
  */
 public class Simulation {
+    /*
+     * Maximum number of slimes planned by a single task of the parallel slime phase.
+     */
+    private static final int SLIME_GRAIN = 4096;
+
     private final World world;
+    private final List<WorldBehaviour> declaredWorldBehaviours;
     private final List<WorldBehaviour> worldBehaviours;
     private final List<SlimeBehaviour> behaviours;
     private final List<SimulationObserver> observers;
+    private final ForkJoinPool pool;
+    private SlimeIntents intents;
+    private SimulationProfiler profiler;
+    private long tick;
 
     /**
      * Constructs a Simulation instance with specified world, behaviors, and observers.
@@ -41,9 +79,85 @@ public Simulation(
             final List<SimulationObserver> observers
     ) {
         this.world = world;
-        this.worldBehaviours = worldBehaviours;
+        this.declaredWorldBehaviours = List.copyOf(worldBehaviours);
+        this.worldBehaviours = FusedWorldBehaviour.fuse(worldBehaviours);
         this.behaviours = behaviours;
         this.observers = observers;
+        this.pool = null;
+    }
+
+    /**
+     * Constructs a Simulation instance that steps the slimes in parallel on the given pool.
+     *
+     * @param world            The {@link World} instance representing the simulation environment.
+     * @param worldBehaviours  A list of {@link WorldBehaviour} instances defining behaviors for the world.
+     * @param behaviours       A list of {@link SlimeBehaviour} instances defining behaviors for the slimes.
+     *                         Those that are a {@link ParallelSlimeBehaviour} are planned in parallel,
+     *                         the others are applied to one slime at a time.
+     * @param observers        A list of {@link SimulationObserver} instances to be notified about world changes.
+     * @param pool             The pool used to plan the steps of the slimes.
+     */
+    public Simulation(
+            final World world,
+            final List<WorldBehaviour> worldBehaviours,
+            final List<SlimeBehaviour> behaviours,
+            final List<SimulationObserver> observers,
+            final ForkJoinPool pool
+    ) {
+        this.world = world;
+        this.declaredWorldBehaviours = List.copyOf(worldBehaviours);
+        this.worldBehaviours = FusedWorldBehaviour.fuse(worldBehaviours);
+        this.behaviours = behaviours;
+        this.observers = observers;
+        this.pool = Objects.requireNonNull(pool);
+    }
+
+    /**
+     * Returns the number of updates performed so far.
+     *
+     * @return The current tick of the simulation.
+     */
+    public long getTick() {
+        return this.tick;
+    }
+
+    /**
+     * Saves the state of the simulation in a checkpoint: the world, the parameters and the state of the
+     * behaviours and the current tick. Observers, profiler and pool are not part of the state.
+     *
+     * @param file The file the checkpoint is written to, replaced if it exists.
+     * @throws IOException If the file cannot be written.
+     */
+    public void saveCheckpoint(final Path file) throws IOException {
+        Checkpoint.save(file, this.world, this.getPersistedBehaviours(), this.tick);
+    }
+
+    /**
+     * Restores the state saved in a checkpoint. The simulation must have been built in the same way as the
+     * saved one: a world of the same size, precision and number of slimes, and behaviours of the same classes
+     * and parameters, in the same order. If the restore fails half way, the simulation must be discarded.
+     *
+     * @param file The checkpoint.
+     * @throws IOException              If the file cannot be read, or is not a valid checkpoint.
+     * @throws IllegalArgumentException If the checkpoint was taken from a different simulation.
+     */
+    public void restoreCheckpoint(final Path file) throws IOException {
+        this.tick = Checkpoint.restore(file, this.world, this.getPersistedBehaviours());
+    }
+
+    private List<Behaviour<?>> getPersistedBehaviours() {
+        final List<Behaviour<?>> persisted = new ArrayList<>(this.declaredWorldBehaviours);
+        persisted.addAll(this.behaviours);
+        return persisted;
+    }
+
+    /**
+     * Sets the profiler receiving the time spent in each phase of the following ticks.
+     *
+     * @param profiler The profiler, or {@code null} to stop profiling.
+     */
+    public void setProfiler(final SimulationProfiler profiler) {
+        this.profiler = profiler;
     }
 
     /**
@@ -53,15 +167,90 @@ public Simulation(
      * <p>Steps performed in the update process:</p>
      * <ul>
      *     <li>Applies each {@link WorldBehaviour} to the world.</li>
-     *     <li>Applies each {@link SlimeBehaviour} to every slime in the world.</li>
+     *     <li>Prepares each {@link SlimeBehaviour} for the slime phase, through {@link SlimeBehaviour#prepare(World)}.</li>
+     *     <li>Applies the {@link SlimeBehaviour}s to every slime in the world. Without a pool, each
+     *     slime is stepped by all the behaviours before moving to the next one; in parallel mode, each
+     *     behaviour is applied to all the slimes before moving to the next one.</li>
      *     <li>Notifies each {@link SimulationObserver} of changes to the world.</li>
      * </ul>
      */
     public void update() {
-        this.worldBehaviours.forEach(behaviour -> behaviour.update(this.world));
-        this.world.getSlimes().forEach(slime -> {
-            this.behaviours.forEach(behaviour -> behaviour.update(slime));
+        this.update(true);
+    }
+
+    /**
+     * Updates the state of the simulation as {@link #update()} does, optionally without notifying the
+     * observers. A scheduler catching up with its schedule skips the notifications of the ticks that
+     * nobody would see.
+     *
+     * @param notifyObservers Whether the observers are notified at the end of the tick.
+     */
+    public void update(final boolean notifyObservers) {
+        if (this.profiler == null) {
+            this.worldBehaviours.forEach(behaviour -> behaviour.update(this.world));
+            this.updateSlimes();
+            if (notifyObservers) {
+                this.observers.forEach(observer -> observer.onWorldChanges(this.world, this.tick));
+            }
+        } else {
+            this.updateProfiled(this.profiler, notifyObservers);
+        }
+        this.tick++;
+    }
+
+    private void updateProfiled(final SimulationProfiler profiler, final boolean notifyObservers) {
+        final long start = System.nanoTime();
+        long last = start;
+        for (final WorldBehaviour behaviour : this.worldBehaviours) {
+            behaviour.update(this.world);
+            final long now = System.nanoTime();
+            profiler.onWorldBehaviour(this.tick, behaviour, now - last);
+            last = now;
+        }
+        this.updateSlimes();
+        long now = System.nanoTime();
+        profiler.onSlimePhase(this.tick, now - last);
+        last = now;
+        if (notifyObservers) {
+            for (final SimulationObserver observer : this.observers) {
+                observer.onWorldChanges(this.world, this.tick);
+                now = System.nanoTime();
+                profiler.onObserver(this.tick, observer, now - last);
+                last = now;
+            }
+        }
+        profiler.onTick(this.tick, last - start);
+    }
+
+    private void updateSlimes() {
+        this.behaviours.forEach(behaviour -> behaviour.prepare(this.world));
+        if (this.pool != null || this.behaviours.size() == 1) {
+            this.behaviours.forEach(this::updateSlimes);
+        } else {
+            this.world.getSlimes().forEach(slime -> this.behaviours.forEach(behaviour -> behaviour.update(slime)));
+        }
+    }
+
+    private void updateSlimes(final SlimeBehaviour behaviour) {
+        if (this.pool != null && behaviour instanceof ParallelSlimeBehaviour parallel) {
+            this.updateInParallel(parallel);
+        } else if (behaviour instanceof BatchSlimeBehaviour batch) {
+            batch.updateAll(this.world);
+        } else {
+            this.world.getSlimes().forEach(behaviour::update);
+        }
+    }
+
+    private void updateInParallel(final ParallelSlimeBehaviour behaviour) {
+        final int numSlimes = this.world.getSlimeCount();
+        if (this.intents == null || this.intents.size() != numSlimes) {
+            this.intents = new SlimeIntents(numSlimes);
+        }
+        ParallelRange.forEach(this.pool, 0, numSlimes, SLIME_GRAIN, (from, to) -> {
+            for (int id = from; id < to; id++) {
+                behaviour.plan(this.world.getSlime(id), this.tick, this.intents);
+            }
         });
-        this.observers.forEach(observer -> observer.onWorldChanges(this.world));
+        this.intents.commit(this.world);
     }
 }
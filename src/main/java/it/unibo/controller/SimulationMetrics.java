@@ -0,0 +1,227 @@
+package it.unibo.controller;
+
+import it.unibo.core.behaviour.WorldBehaviour;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A {@link SimulationProfiler} keeping histograms of the duration of the ticks and of each of their
+ * phases (every world behaviour, the slime phase and every observer), and of the bytes allocated by
+ * the simulation thread in each tick. Work done by the threads of a pool is timed, but its
+ * allocations are not counted.
+ *
+ * Histograms are only touched by the simulation thread, and recording a phase never allocates.
+ * Once per period, at the end of a tick, the simulation thread publishes a copy of them, read through
+ * JMX after {@link #register(String)}, and logs the statistics of the ticks since the previous period.
+ * As for any profiler, a simulation without metrics does not measure anything.
+ */
+public final class SimulationMetrics implements SimulationProfiler, SimulationMetricsMXBean {
+    private static final Logger LOGGER = Logger.getLogger(SimulationMetrics.class.getName());
+    private static final String SLIME_PHASE = "slimes";
+    private static final Summary EMPTY = new Summary(0, 0, new Histogram(), new Histogram(), List.of(), List.of());
+
+    private final long period;
+    private final Map<Object, Histogram> phases = new IdentityHashMap<>();
+    private final List<String> names = new ArrayList<>();
+    private final List<Histogram> histograms = new ArrayList<>();
+    private final Histogram ticks = new Histogram();
+    private final Histogram allocations = new Histogram();
+    private final com.sun.management.ThreadMXBean threads;
+    private long allocated = -1;
+    private long lastPublished = System.nanoTime();
+    private Summary previous = EMPTY;
+    private volatile Summary published = EMPTY;
+    private volatile boolean resetRequested;
+    private ObjectName name;
+
+    /**
+     * Constructs the metrics of a simulation.
+     *
+     * @param period The time between two summaries.
+     */
+    public SimulationMetrics(final Duration period) {
+        if (period.isNegative() || period.isZero()) {
+            throw new IllegalArgumentException("Period must be positive");
+        }
+        this.period = period.toNanos();
+        this.threads = ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled() ? bean : null;
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server, as {@code it.unibo:type=SimulationMetrics,name=<name>}.
+     *
+     * @param name The name of the simulation.
+     * @throws IllegalStateException If the metrics cannot be registered, for instance because the name is taken.
+     */
+    public void register(final String name) {
+        try {
+            final ObjectName objectName = new ObjectName("it.unibo", "type", "SimulationMetrics");
+            this.name = ObjectName.getInstance(objectName.getCanonicalName() + ",name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, this.name);
+        } catch (JMException e) {
+            this.name = null;
+            throw new IllegalStateException("Cannot register the metrics of " + name, e);
+        }
+    }
+
+    /**
+     * Removes the metrics from the platform MBean server, if they were registered.
+     */
+    public void unregister() {
+        if (this.name != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.name);
+            } catch (JMException e) {
+                LOGGER.log(Level.WARNING, "Cannot unregister " + this.name, e);
+            }
+            this.name = null;
+        }
+    }
+
+    @Override
+    public void onWorldBehaviour(long tick, WorldBehaviour behaviour, long nanos) {
+        this.phase(behaviour, "world:").record(nanos);
+    }
+
+    @Override
+    public void onSlimePhase(long tick, long nanos) {
+        this.phase(SLIME_PHASE, "").record(nanos);
+    }
+
+    @Override
+    public void onObserver(long tick, SimulationObserver observer, long nanos) {
+        this.phase(observer, "observer:").record(nanos);
+    }
+
+    @Override
+    public void onTick(long tick, long nanos) {
+        this.ticks.record(nanos);
+        if (this.threads != null) {
+            final long allocated = this.threads.getCurrentThreadAllocatedBytes();
+            if (this.allocated >= 0) {
+                this.allocations.record(allocated - this.allocated);
+            }
+            this.allocated = allocated;
+        }
+        final long now = System.nanoTime();
+        if (now - this.lastPublished >= this.period) {
+            this.publish(tick, now);
+        }
+        if (this.resetRequested) {
+            this.resetRequested = false;
+            this.ticks.reset();
+            this.allocations.reset();
+            this.histograms.forEach(Histogram::reset);
+            this.previous = EMPTY;
+            this.published = EMPTY;
+        }
+    }
+
+    @Override
+    public long getTicks() {
+        return this.published.ticks.getCount();
+    }
+
+    @Override
+    public PhaseStatistics getTickTime() {
+        return PhaseStatistics.of("tick", this.published.ticks);
+    }
+
+    @Override
+    public PhaseStatistics getAllocatedBytes() {
+        return PhaseStatistics.of("allocated", this.published.allocations);
+    }
+
+    @Override
+    public List<PhaseStatistics> getPhases() {
+        final Summary summary = this.published;
+        final List<PhaseStatistics> statistics = new ArrayList<>(summary.names.size());
+        for (int i = 0; i < summary.names.size(); i++) {
+            statistics.add(PhaseStatistics.of(summary.names.get(i), summary.phases.get(i)));
+        }
+        return statistics;
+    }
+
+    /**
+     * Asks the simulation thread to forget every measure at the end of its current tick.
+     */
+    @Override
+    public void reset() {
+        this.resetRequested = true;
+    }
+
+    private Histogram phase(final Object phase, final String prefix) {
+        Histogram histogram = this.phases.get(phase);
+        if (histogram == null) {
+            histogram = new Histogram();
+            this.phases.put(phase, histogram);
+            this.names.add(prefix + SimulationProfiler.labelOf(phase));
+            this.histograms.add(histogram);
+        }
+        return histogram;
+    }
+
+    private void publish(final long tick, final long now) {
+        final List<Histogram> phases = new ArrayList<>(this.histograms.size());
+        this.histograms.forEach(histogram -> phases.add(histogram.copy()));
+        final Summary summary = new Summary(tick, now, this.ticks.copy(), this.allocations.copy(), List.copyOf(this.names), phases);
+        if (LOGGER.isLoggable(Level.INFO)) {
+            LOGGER.info(summary.since(this.previous));
+        }
+        this.previous = summary;
+        this.published = summary;
+        this.lastPublished = now;
+    }
+
+    /*
+     * A copy of the histograms taken by the simulation thread at the end of a tick.
+     */
+    private static final class Summary {
+        private final long tick;
+        private final long nanoTime;
+        private final Histogram ticks;
+        private final Histogram allocations;
+        private final List<String> names;
+        private final List<Histogram> phases;
+
+        Summary(final long tick, final long nanoTime, final Histogram ticks, final Histogram allocations, final List<String> names, final List<Histogram> phases) {
+            this.tick = tick;
+            this.nanoTime = nanoTime;
+            this.ticks = ticks;
+            this.allocations = allocations;
+            this.names = names;
+            this.phases = phases;
+        }
+
+        /*
+         * Describes the ticks between an earlier summary and this one.
+         */
+        String since(final Summary earlier) {
+            final Histogram ticks = this.ticks.since(earlier.ticks);
+            final Histogram allocations = this.allocations.since(earlier.allocations);
+            final double seconds = earlier == EMPTY ? ticks.getTotal() / 1e9 : (this.nanoTime - earlier.nanoTime) / 1e9;
+            final StringBuilder report = new StringBuilder(String.format(
+                    "Ticks up to %d: %.1f ticks/s, tick median %.3f ms, p99 %.3f ms, max %.3f ms, allocated median %d B, max %d B",
+                    this.tick, seconds == 0 ? 0 : ticks.getCount() / seconds,
+                    ticks.getPercentile(0.5) / 1e6, ticks.getPercentile(0.99) / 1e6, ticks.getMax() / 1e6,
+                    allocations.getPercentile(0.5), allocations.getMax()));
+            for (int i = 0; i < this.names.size(); i++) {
+                final Histogram phase = i < earlier.phases.size() ? this.phases.get(i).since(earlier.phases.get(i)) : this.phases.get(i);
+                report.append(String.format("%n  %-40s median %10.3f ms  p99 %10.3f ms  max %10.3f ms  %5.1f %%",
+                        this.names.get(i), phase.getPercentile(0.5) / 1e6, phase.getPercentile(0.99) / 1e6, phase.getMax() / 1e6,
+                        ticks.getTotal() == 0 ? 0 : 100.0 * phase.getTotal() / ticks.getTotal()));
+            }
+            return report.toString();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package it.unibo.controller;
+
+import java.util.List;
+
+/**
+ * The management interface of {@link SimulationMetrics}. Values are those of the last summary published
+ * by the simulation thread, so they lag behind the simulation by at most a summary period.
+ */
+public interface SimulationMetricsMXBean {
+
+    /**
+     * Returns the number of ticks measured.
+     *
+     * @return The number of ticks.
+     */
+    long getTicks();
+
+    /**
+     * Returns the statistics of the duration of the whole ticks, in nanoseconds.
+     *
+     * @return The statistics of the ticks.
+     */
+    PhaseStatistics getTickTime();
+
+    /**
+     * Returns the statistics of the bytes allocated by the simulation thread in each tick.
+     *
+     * @return The statistics of the allocations, empty if the JVM cannot measure them.
+     */
+    PhaseStatistics getAllocatedBytes();
+
+    /**
+     * Returns the statistics of the duration of each phase, in nanoseconds, in the order they are first run.
+     *
+     * @return The statistics of the phases.
+     */
+    List<PhaseStatistics> getPhases();
+
+    /**
+     * Asks the simulation thread to forget every measure at the beginning of its next tick.
+     */
+    void reset();
+}
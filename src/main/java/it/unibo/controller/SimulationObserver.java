@@ -23,4 +23,16 @@ public interface SimulationObserver {
      *              details about the simulation world's current state.
      */
     void onWorldChanges(final World world);
+
+    /**
+     * Called by a {@link Simulation} at the end of each tick, with the tick that has been simulated.
+     * Observers that need to know the tick override this method, which otherwise calls
+     * {@link #onWorldChanges(World)}.
+     *
+     * @param world The current state of the simulation world after changes.
+     * @param tick  The tick that has been simulated.
+     */
+    default void onWorldChanges(final World world, final long tick) {
+        this.onWorldChanges(world);
+    }
 }
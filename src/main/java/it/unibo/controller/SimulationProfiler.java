@@ -0,0 +1,96 @@
+package it.unibo.controller;
+
+import it.unibo.core.behaviour.FusedWorldBehaviour;
+import it.unibo.core.behaviour.WorldBehaviour;
+
+/**
+ * Receives the time spent in each phase of the ticks of a {@link Simulation}.
+ *
+ * A simulation only measures its phases when a profiler is set, so an unprofiled simulation
+ * pays nothing for it. Every method is called on the thread running the simulation, right
+ * after the phase it refers to, and does nothing by default.
+ */
+public interface SimulationProfiler {
+
+    /**
+     * Called after a world behaviour has been applied.
+     *
+     * @param tick      The tick being simulated.
+     * @param behaviour The world behaviour, as compiled by the simulation.
+     * @param nanos     The time spent applying the behaviour, in nanoseconds.
+     */
+    default void onWorldBehaviour(long tick, WorldBehaviour behaviour, long nanos) { }
+
+    /**
+     * Called after every slime behaviour has been applied to the slimes.
+     *
+     * @param tick  The tick being simulated.
+     * @param nanos The time spent stepping the slimes, in nanoseconds.
+     */
+    default void onSlimePhase(long tick, long nanos) { }
+
+    /**
+     * Called after an observer has been notified.
+     *
+     * @param tick     The tick being simulated.
+     * @param observer The observer.
+     * @param nanos    The time spent notifying the observer, in nanoseconds.
+     */
+    default void onObserver(long tick, SimulationObserver observer, long nanos) { }
+
+    /**
+     * Called at the end of each tick.
+     *
+     * @param tick  The tick that has been simulated.
+     * @param nanos The time spent in the whole tick, in nanoseconds.
+     */
+    default void onTick(long tick, long nanos) { }
+
+    /**
+     * Returns a profiler passing every measure to this profiler, then to another one.
+     *
+     * @param other The profiler receiving the measures after this one.
+     * @return The combined profiler.
+     */
+    default SimulationProfiler andThen(final SimulationProfiler other) {
+        final SimulationProfiler first = this;
+        return new SimulationProfiler() {
+            @Override
+            public void onWorldBehaviour(long tick, WorldBehaviour behaviour, long nanos) {
+                first.onWorldBehaviour(tick, behaviour, nanos);
+                other.onWorldBehaviour(tick, behaviour, nanos);
+            }
+
+            @Override
+            public void onSlimePhase(long tick, long nanos) {
+                first.onSlimePhase(tick, nanos);
+                other.onSlimePhase(tick, nanos);
+            }
+
+            @Override
+            public void onObserver(long tick, SimulationObserver observer, long nanos) {
+                first.onObserver(tick, observer, nanos);
+                other.onObserver(tick, observer, nanos);
+            }
+
+            @Override
+            public void onTick(long tick, long nanos) {
+                first.onTick(tick, nanos);
+                other.onTick(tick, nanos);
+            }
+        };
+    }
+
+    /**
+     * Returns the name a phase is reported with: the description of fused behaviours and of scheduled
+     * observers, which tells what they wrap, otherwise the simple name of the class.
+     *
+     * @param phase A world behaviour, an observer or a name.
+     * @return The name of the phase.
+     */
+    static String labelOf(final Object phase) {
+        return phase instanceof FusedWorldBehaviour || phase instanceof SampledObserver || phase instanceof AsyncObserver || phase instanceof String
+                ? phase.toString()
+                : phase.getClass().getSimpleName();
+    }
+}
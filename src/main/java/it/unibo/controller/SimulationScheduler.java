@@ -0,0 +1,227 @@
+package it.unibo.controller;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs a {@link Simulation} at a fixed tick rate, in real time. Tick {@code n} of the schedule is due
+ * {@code n} periods after the start: the scheduler sleeps only until the next tick is due, so the time
+ * spent computing a tick does not add to the period and the rate does not drift.
+ *
+ * When the simulation falls behind, a frame runs every tick that is due, up to a cap of catch-up ticks,
+ * and notifies the observers only after the last one. Ticks due beyond the cap are given up, so a
+ * simulation slower than the target rate runs as fast as it can instead of falling further behind.
+ *
+ * The statistics can be read from any thread while the scheduler runs.
+ */
+public final class SimulationScheduler {
+    /**
+     * The default number of ticks a frame may run on top of the first one to catch up.
+     */
+    public static final int DEFAULT_MAX_CATCH_UP = 4;
+    private static final long RATE_WINDOW = 1_000_000_000L;
+
+    private final Simulation simulation;
+    private final long period;
+    private final int maxCatchUp;
+    private volatile boolean running;
+    private volatile Thread runner;
+    private long next = -1;
+    private long windowStart;
+    private long windowTicks;
+    private volatile double achievedRate;
+    private volatile long lag;
+    private volatile long maxLag;
+    private volatile long tickTime;
+    private volatile long ticks;
+    private volatile long catchUpTicks;
+    private volatile long skippedTicks;
+
+    private SimulationScheduler(final Simulation simulation, final long period, final int maxCatchUp) {
+        this.simulation = simulation;
+        this.period = period;
+        this.maxCatchUp = maxCatchUp;
+    }
+
+    /**
+     * Creates a scheduler catching up with at most {@value #DEFAULT_MAX_CATCH_UP} ticks per frame.
+     *
+     * @param simulation The simulation to run.
+     * @param tickRate   The target number of ticks per second.
+     * @return The scheduler.
+     */
+    public static SimulationScheduler create(final Simulation simulation, final double tickRate) {
+        return create(simulation, tickRate, DEFAULT_MAX_CATCH_UP);
+    }
+
+    /**
+     * Creates a scheduler.
+     *
+     * @param simulation The simulation to run.
+     * @param tickRate   The target number of ticks per second.
+     * @param maxCatchUp The number of ticks a frame may run on top of the first one when behind schedule, 0 to never catch up.
+     * @return The scheduler.
+     */
+    public static SimulationScheduler create(final Simulation simulation, final double tickRate, final int maxCatchUp) {
+        if (!(tickRate > 0) || Double.isInfinite(tickRate)) {
+            throw new IllegalArgumentException("Tick rate must be positive and finite");
+        }
+        if (maxCatchUp < 0) {
+            throw new IllegalArgumentException("Catch-up ticks must not be negative");
+        }
+        return new SimulationScheduler(simulation, Math.max(1, Math.round(1e9 / tickRate)), maxCatchUp);
+    }
+
+    /**
+     * Runs frames on the calling thread until {@link #stop()} is called or the thread is interrupted.
+     */
+    public void run() {
+        this.running = true;
+        this.runner = Thread.currentThread();
+        try {
+            while (this.running && !Thread.currentThread().isInterrupted()) {
+                this.advance(Long.MAX_VALUE);
+            }
+        } finally {
+            this.runner = null;
+        }
+    }
+
+    /**
+     * Asks {@link #run()} to return, waking it up if it is waiting for the next tick.
+     */
+    public void stop() {
+        this.running = false;
+        final Thread runner = this.runner;
+        if (runner != null) {
+            LockSupport.unpark(runner);
+        }
+    }
+
+    /**
+     * Runs a frame: waits for the next tick to be due, then runs the ticks that are due, up to the
+     * catch-up cap and without going past a limit. The observers are only notified after the last tick.
+     * The first frame starts the schedule and runs immediately.
+     *
+     * @param limit The tick the simulation must not go past; ticks due after it remain scheduled.
+     * @return The number of ticks run, 0 if the simulation is already at the limit or the wait was
+     *         interrupted by {@link #stop()} or by an interrupt.
+     */
+    public int advance(final long limit) {
+        if (this.simulation.getTick() >= limit) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        if (this.next < 0) {
+            this.next = now;
+            this.windowStart = now;
+        }
+        while (now < this.next) {
+            LockSupport.parkNanos(this.next - now);
+            if (Thread.currentThread().isInterrupted() || (this.runner == Thread.currentThread() && !this.running)) {
+                return 0;
+            }
+            now = System.nanoTime();
+        }
+
+        final long late = now - this.next;
+        final long due = 1 + late / this.period;
+        final int run = (int) Math.min(Math.min(due, 1L + this.maxCatchUp), limit - this.simulation.getTick());
+        final long start = System.nanoTime();
+        for (int i = 0; i < run; i++) {
+            this.simulation.update(i == run - 1);
+        }
+        final long end = System.nanoTime();
+
+        this.next += run * this.period;
+        if (due > 1 + this.maxCatchUp) {
+            // give up what the cap did not allow to run, rather than trying to run it in the next frames
+            final long skipped = due - 1 - this.maxCatchUp;
+            this.next += skipped * this.period;
+            this.skippedTicks += skipped;
+        }
+        this.ticks += run;
+        this.catchUpTicks += run - 1;
+        this.tickTime = (end - start) / run;
+        this.lag = late;
+        this.maxLag = Math.max(this.maxLag, late);
+        this.windowTicks += run;
+        if (end - this.windowStart >= RATE_WINDOW) {
+            this.achievedRate = this.windowTicks * 1e9 / (end - this.windowStart);
+            this.windowStart = end;
+            this.windowTicks = 0;
+        }
+        return run;
+    }
+
+    /**
+     * Returns the target number of ticks per second.
+     *
+     * @return The target tick rate.
+     */
+    public double getTargetRate() {
+        return 1e9 / this.period;
+    }
+
+    /**
+     * Returns the number of ticks per second run over the last measured second.
+     *
+     * @return The achieved tick rate, or 0 before a second has been measured.
+     */
+    public double getAchievedRate() {
+        return this.achievedRate;
+    }
+
+    /**
+     * Returns how late the last frame started after its first tick was due.
+     *
+     * @return The lag of the last frame, in nanoseconds.
+     */
+    public long getLagNanos() {
+        return this.lag;
+    }
+
+    /**
+     * Returns the largest lag of a frame so far.
+     *
+     * @return The largest lag, in nanoseconds.
+     */
+    public long getMaxLagNanos() {
+        return this.maxLag;
+    }
+
+    /**
+     * Returns the mean time spent computing a tick in the last frame, observers included.
+     *
+     * @return The time of a tick, in nanoseconds.
+     */
+    public long getTickNanos() {
+        return this.tickTime;
+    }
+
+    /**
+     * Returns the number of ticks run by the scheduler.
+     *
+     * @return The number of ticks run.
+     */
+    public long getTicks() {
+        return this.ticks;
+    }
+
+    /**
+     * Returns the number of ticks run to catch up, whose observers were not notified.
+     *
+     * @return The number of catch-up ticks.
+     */
+    public long getCatchUpTicks() {
+        return this.catchUpTicks;
+    }
+
+    /**
+     * Returns the number of ticks given up because the simulation was too far behind schedule.
+     *
+     * @return The number of skipped ticks.
+     */
+    public long getSkippedTicks() {
+        return this.skippedTicks;
+    }
+}
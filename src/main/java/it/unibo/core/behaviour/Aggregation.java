@@ -1,11 +1,12 @@
 package it.unibo.core.behaviour;
 
 import it.unibo.core.Position;
-import it.unibo.core.entity.Patch;
 import it.unibo.core.entity.Slime;
 import it.unibo.core.entity.World;
+import it.unibo.core.random.CounterRandom;
+import it.unibo.core.random.StatefulRandom;
 
-import java.util.*;
+import java.nio.ByteBuffer;
 
 /**
  * Represents the aggregation behavior of a slime entity in response to pheromone concentrations.
@@ -14,9 +15,19 @@
  * with the highest concentration. Otherwise, it moves randomly.
  *
  * This class implements the {@link SlimeBehaviour} interface, providing specific behavior logic
- * for slime entities.
+ * for slime entities. As a {@link ParallelSlimeBehaviour}, its steps can also be planned concurrently:
+ * in that case the random choices of a slime are drawn from a stream derived from the seed,
+ * the slime identifier and the tick, instead of the shared random number generator.
+ * As a {@link BatchSlimeBehaviour}, it steps the whole population in a single loop over the
+ * slime coordinates, with the same outcome of updating one slime at a time.
+ * As a {@link PersistentBehaviour}, the state of its random number generator is saved in checkpoints.
+ *
+ * By default a slime looks at its eight neighbours. Given a larger radius, it follows the neighbour facing
+ * the highest mean level within that radius instead, at a constant cost whatever the radius: the behaviour
+ * keeps a {@link SummedAreaTable} of the field, rebuilt by {@link #prepare(World)} at the start of every
+ * slime phase, so the slimes always sense the field left by the world behaviours of the tick.
  */
-public class Aggregation implements SlimeBehaviour {
+public class Aggregation implements ParallelSlimeBehaviour, BatchSlimeBehaviour, PersistentBehaviour {
     /*
      * Threshold for making a decision based on probability, rather than pheromone concentration.
      */
@@ -25,7 +36,9 @@ public class Aggregation implements SlimeBehaviour {
     private final int seed;
     private final double threshold;
     private final double pheromoneDropped;
-    private final Random random;
+    private final int radius;
+    private final SummedAreaTable sums;
+    private final StatefulRandom random;
 
     /**
      * Constructs an {@code Aggregation} object with specified parameters.
@@ -35,10 +48,37 @@ public class Aggregation implements SlimeBehaviour {
      * @param pheromoneDropped The amount of pheromone dropped by the slime after each movement.
      */
     public Aggregation(final int seed, final double threshold, final double pheromoneDropped) {
+        this(seed, threshold, pheromoneDropped, 1);
+    }
+
+    /**
+     * Constructs an {@code Aggregation} object sensing the pheromone within a radius.
+     *
+     * @param seed             The seed for the random number generator, ensuring reproducible behavior.
+     * @param threshold        The pheromone concentration threshold for directional movement.
+     * @param pheromoneDropped The amount of pheromone dropped by the slime after each movement.
+     * @param radius           The radius sensed when following the pheromone, 1 for the neighbours alone.
+     */
+    public Aggregation(final int seed, final double threshold, final double pheromoneDropped, final int radius) {
+        if(radius < 1)
+            throw new IllegalArgumentException("Radius must be positive");
         this.seed = seed;
         this.threshold = threshold;
         this.pheromoneDropped = pheromoneDropped;
-        this.random = new Random(this.seed);
+        this.radius = radius;
+        this.sums = radius > 1 ? new SummedAreaTable() : null;
+        this.random = new StatefulRandom(this.seed);
+    }
+
+    /**
+     * Rebuilds the summed-area table of the field sensed over a radius above 1.
+     *
+     * @param world The world whose slimes are about to be updated.
+     */
+    @Override
+    public void prepare(final World world) {
+        if(this.sums != null)
+            this.sums.update(world);
     }
 
     /**
@@ -54,22 +94,98 @@ public Aggregation(final int seed, final double threshold, final double pheromon
     public void update(Slime slime) {
         final World world = slime.getWorld();
         final Position position = world.getSlimePosition(slime);
-        final Patch patch = world.getPatch(position);
-        final Collection<Patch> neighborhood = world.getNeighborhood(patch);
         final boolean followHigh = this.random.nextDouble() < probabilityThreshold;
+        final int neighbour;
         // if the slime is on a patch with a high concentration of pheromones, it moves towards the highest concentration of pheromones
-        if(patch.getPheromone() >= this.threshold && followHigh) {
-            final Patch max = neighborhood.stream().max(Comparator.comparingDouble(Patch::getPheromone)).get();
-            // random perturbation
-            world.moveSlime(slime, max.getPosition());
+        if(world.getPheromone(position.x(), position.y()) >= this.threshold && followHigh) {
+            neighbour = this.getMaxNeighbour(world, position.x(), position.y());
         } else {
             // otherwise, it moves randomly
-            var shuffle = new ArrayList<>(neighborhood);
-            Collections.shuffle(shuffle, this.random);
-            world.moveSlime(slime, shuffle.get(0).getPosition());
+            neighbour = this.random.nextInt(World.NEIGHBOURHOOD_SIZE);
         }
+        world.moveSlime(slime, new Position(world.getNeighbourX(position.x(), neighbour), world.getNeighbourY(position.y(), neighbour)));
         // the slime drops pheromones on the patch it is on
-        patch.setPheromone(patch.getPheromone() + this.pheromoneDropped);
+        world.setPheromone(position.x(), position.y(), world.getPheromone(position.x(), position.y()) + this.pheromoneDropped);
+
+    }
+
+    /**
+     * Plans the same step of {@link #update(Slime)}, drawing the random choices of the slime
+     * from its own stream for the given tick.
+     *
+     * @param slime   The slime whose step is planned.
+     * @param tick    The tick being simulated.
+     * @param intents The buffer recording the move and the deposit of the slime.
+     */
+    @Override
+    public void plan(Slime slime, long tick, SlimeIntents intents) {
+        final World world = slime.getWorld();
+        final int x = world.getSlimeX(slime.getId());
+        final int y = world.getSlimeY(slime.getId());
+        final long stream = CounterRandom.key(this.seed, slime.getId(), tick);
+        final boolean followHigh = CounterRandom.doubleAt(stream, 0) < probabilityThreshold;
+        final int neighbour;
+        if(world.getPheromone(x, y) >= this.threshold && followHigh) {
+            neighbour = this.getMaxNeighbour(world, x, y);
+        } else {
+            neighbour = CounterRandom.intAt(stream, 1, World.NEIGHBOURHOOD_SIZE);
+        }
+        intents.move(slime, world.getNeighbourX(x, neighbour), world.getNeighbourY(y, neighbour));
+        intents.deposit(slime, x, y, this.pheromoneDropped);
+    }
+
+    /**
+     * Updates every slime of the world, in order of identifier, as {@link #update(Slime)} would.
+     *
+     * @param world The world whose slimes are updated.
+     */
+    @Override
+    public void updateAll(World world) {
+        final int numSlimes = world.getSlimeCount();
+        for(int id = 0; id < numSlimes; id++) {
+            final int x = world.getSlimeX(id);
+            final int y = world.getSlimeY(id);
+            final boolean followHigh = this.random.nextDouble() < probabilityThreshold;
+            final int neighbour;
+            if(world.getPheromone(x, y) >= this.threshold && followHigh) {
+                neighbour = this.getMaxNeighbour(world, x, y);
+            } else {
+                neighbour = this.random.nextInt(World.NEIGHBOURHOOD_SIZE);
+            }
+            world.moveSlime(id, world.getNeighbourX(x, neighbour), world.getNeighbourY(y, neighbour));
+            world.setPheromone(x, y, world.getPheromone(x, y) + this.pheromoneDropped);
+        }
+    }
 
+    @Override
+    public int getStateSize() {
+        return 2 * Integer.BYTES + 3 * Long.BYTES;
+    }
+
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        buffer.putInt(this.seed);
+        buffer.putDouble(this.threshold);
+        buffer.putDouble(this.pheromoneDropped);
+        buffer.putInt(this.radius);
+        buffer.putLong(this.random.getState());
+    }
+
+    @Override
+    public void restoreState(ByteBuffer buffer) {
+        final int seed = buffer.getInt();
+        final double threshold = buffer.getDouble();
+        final double pheromoneDropped = buffer.getDouble();
+        final int radius = buffer.getInt();
+        if(seed != this.seed || Double.compare(threshold, this.threshold) != 0 || Double.compare(pheromoneDropped, this.pheromoneDropped) != 0 || radius != this.radius)
+            throw new IllegalArgumentException("Aggregation was saved with seed " + seed + ", threshold " + threshold + ", pheromone " + pheromoneDropped + " and radius " + radius);
+        this.random.setState(buffer.getLong());
+    }
+
+    /*
+     * The neighbour with the most pheromone, or facing the most pheromone within the radius.
+     */
+    private int getMaxNeighbour(final World world, final int x, final int y) {
+        return this.sums == null ? world.getMaxNeighbour(x, y) : this.sums.getMaxDirection(x, y, this.radius);
     }
 }
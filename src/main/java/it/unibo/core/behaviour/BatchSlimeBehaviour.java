@@ -0,0 +1,19 @@
+package it.unibo.core.behaviour;
+
+import it.unibo.core.entity.World;
+
+/**
+ * A {@link SlimeBehaviour} that can also be applied to every slime of a world in a single call.
+ * Implementations are expected to give the same result of calling {@link #update(Object)} on each
+ * slime in order of identifier, while working on the primitive slime accessors of the
+ * {@link World} and avoiding any per-slime allocation.
+ */
+public interface BatchSlimeBehaviour extends SlimeBehaviour {
+
+    /**
+     * Applies this behaviour to every slime of the world.
+     *
+     * @param world The world whose slimes are updated.
+     */
+    void updateAll(World world);
+}
@@ -0,0 +1,80 @@
+package it.unibo.core.behaviour;
+
+import it.unibo.core.entity.ActiveTiles;
+import it.unibo.core.entity.TiledWorld;
+import it.unibo.core.entity.World;
+
+/**
+ * A {@link WorldBehaviour} that updates each cell of the field on its own, as a function of
+ * its current pheromone level. Since the cells do not depend on each other, consecutive cell
+ * behaviours can be composed, and applied while another behaviour writes the field, saving a
+ * full pass over it.
+ *
+ * A cell behaviour that leaves empty cells empty, that is one for which {@code updateCell(0)} is
+ * zero, only visits the active tiles of a {@link TiledWorld}, and deactivates the tiles it empties.
+ */
+@FunctionalInterface
+public interface CellBehaviour extends WorldBehaviour {
+
+    /**
+     * Computes the new pheromone level of a cell.
+     *
+     * @param pheromone The current pheromone level of the cell.
+     * @return The new pheromone level of the cell.
+     */
+    double updateCell(double pheromone);
+
+    /**
+     * Updates every cell of the world through {@link #updateCell(double)}.
+     *
+     * @param world The world whose field is updated.
+     */
+    @Override
+    default void update(final World world) {
+        if (world instanceof TiledWorld tiled && this.updateCell(0) == 0) {
+            final ActiveTiles tiles = tiled.getActiveTiles();
+            for (int row = 0; row < tiles.getRows(); row++) {
+                for (int column = 0; column < tiles.getColumns(); column++) {
+                    final int tile = tiles.indexOf(column, row);
+                    if (tiles.isActive(tile) && !this.updateTile(world, tiles, column, row)) {
+                        tiles.deactivate(tile);
+                    }
+                }
+            }
+            return;
+        }
+        final int size = world.getWidth() * world.getHeight();
+        for (int i = 0; i < size; i++) {
+            world.setPheromone(i, this.updateCell(world.getPheromone(i)));
+        }
+    }
+
+    /*
+     * Updates the cells of a tile, telling whether any of them still holds pheromone.
+     */
+    private boolean updateTile(final World world, final ActiveTiles tiles, final int column, final int row) {
+        boolean holding = false;
+        for (int y = tiles.getStartY(row); y < tiles.getEndY(row); y++) {
+            for (int x = tiles.getStartX(column); x < tiles.getEndX(column); x++) {
+                final double current = world.getPheromone(x, y);
+                final double pheromone = this.updateCell(current);
+                // unchanged cells are not written, not to dirty the pages of a world mapped from a file
+                if (pheromone != current) {
+                    world.setPheromone(x, y, pheromone);
+                }
+                holding |= pheromone != 0;
+            }
+        }
+        return holding;
+    }
+
+    /**
+     * Returns a cell behaviour that applies this behaviour, then the given one.
+     *
+     * @param next The behaviour applied after this one.
+     * @return The composition of the two behaviours.
+     */
+    default CellBehaviour andThen(final CellBehaviour next) {
+        return pheromone -> next.updateCell(this.updateCell(pheromone));
+    }
+}
@@ -1,20 +1,81 @@
 package it.unibo.core.behaviour;
 
+import it.unibo.core.entity.ActiveTiles;
+import it.unibo.core.entity.BufferedWorld;
+import it.unibo.core.entity.FloatBufferedWorld;
+import it.unibo.core.entity.TiledWorld;
 import it.unibo.core.entity.World;
+import it.unibo.core.kernel.FieldKernel;
+import it.unibo.core.kernel.FieldKernels;
+import it.unibo.core.kernel.FieldMoments;
+import it.unibo.core.parallel.ParallelRange;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Represents the behavior of diffusion within a simulated world.
  * This class implements the {@link WorldBehaviour} interface, specifically
  * simulating the process of diffusion by distributing pheromone levels
  * from each patch to its neighboring patches based on a defined diffusion rate.
+ *
+ * <p>Diffusion works in one of two modes:</p>
+ * <ul>
+ *     <li>in place, where patches are visited one after the other and the pheromone
+ *     diffused by a patch is already visible to the patches visited after it;</li>
+ *     <li>double-buffered, where every cell is computed from the field as it was at the
+ *     beginning of the update. Rows are split into bands processed in parallel on a
+ *     {@link ForkJoinPool}, and the result does not depend on the number of threads.</li>
+ * </ul>
+ *
+ * In both modes, diffusion can be fused with the {@link CellBehaviour}s following it. In place, a
+ * column of the field is final once the next one has been diffused, so the cell behaviours are applied
+ * one column behind the one being diffused, and to the first column, which receives from the last one,
+ * at the end. The mode is saved in checkpoints with the parameters, as the two modes give different results.
+ *
+ * On a {@link TiledWorld} only the active tiles are visited. In double-buffered mode, the border of
+ * the empty tiles next to an active one is computed as well, as pheromone only spreads to the
+ * neighbouring cells. The result is the same as visiting the whole field.
+ *
+ * Rows of a double-buffered diffusion, alone or fused with an {@link Evaporation}, are computed by a
+ * {@link FieldKernel}, using the vector units of the processor when the Vector API is available.
+ * The field of a {@link FloatBufferedWorld} is diffused with single-precision arithmetic.
  */
-public class Diffusion implements WorldBehaviour {
+public class Diffusion implements StencilBehaviour, PersistentBehaviour {
     private static final double DEFAULT_DIFFUSION_THRESHOLD = 1;
+    /*
+     * Minimum number of cells processed by a single task in the double-buffered mode.
+     */
+    private static final int MIN_BAND_CELLS = 1 << 14;
+    /*
+     * Number of bands per thread of the pool when the field is streamed through the accessors of the world.
+     */
+    private static final int BANDS_PER_THREAD = 4;
+    private static final CellBehaviour UNCHANGED = pheromone -> pheromone;
 
     private final double diffusionRate;
+    private final ForkJoinPool pool;
+    private final FieldKernel kernel;
+    /*
+     * Scratch rows of each band used by the double-buffered mode on worlds that are not a BufferedWorld.
+     */
+    private double[][] bandRows;
+    /*
+     * The tiles of a TiledWorld streamed in the double-buffered mode that were active, and those pheromone could reach.
+     */
+    private boolean[] wasActive;
+    private boolean[] reached;
+    /*
+     * The moments of the parts of the field computed by each task for a fused Evaporation tracking them, added in
+     * order once the update is over. A part is a band or a row of tiles, indexed by its first row, or a band of the
+     * streamed mode, indexed by its position.
+     */
+    private FieldMoments[] parts;
 
     /**
-     * Constructs a {@code Diffusion} object with a specified diffusion rate.
+     * Constructs a {@code Diffusion} object with a specified diffusion rate, working in place.
      *
      * @param diffusionRate The rate at which pheromones diffuse to neighboring patches.
      *                      This value is used to calculate the amount of pheromones
@@ -22,6 +83,31 @@ public class Diffusion implements WorldBehaviour {
      */
     public Diffusion(double diffusionRate) {
         this.diffusionRate = diffusionRate;
+        this.pool = null;
+        this.kernel = null;
+    }
+
+    /**
+     * Constructs a double-buffered {@code Diffusion} object with a specified diffusion rate.
+     *
+     * @param diffusionRate The rate at which pheromones diffuse to neighboring patches.
+     * @param pool          The pool used to process the bands of rows of the field.
+     */
+    public Diffusion(final double diffusionRate, final ForkJoinPool pool) {
+        this(diffusionRate, pool, FieldKernels.preferred());
+    }
+
+    /**
+     * Constructs a double-buffered {@code Diffusion} object computing the rows of the field with the given kernel.
+     *
+     * @param diffusionRate The rate at which pheromones diffuse to neighboring patches.
+     * @param pool          The pool used to process the bands of rows of the field.
+     * @param kernel        The kernel computing the rows of the field.
+     */
+    public Diffusion(final double diffusionRate, final ForkJoinPool pool, final FieldKernel kernel) {
+        this.diffusionRate = diffusionRate;
+        this.pool = Objects.requireNonNull(pool);
+        this.kernel = Objects.requireNonNull(kernel);
     }
 
     /**
@@ -37,12 +123,587 @@ public Diffusion(double diffusionRate) {
      */
     @Override
     public void update(World world) {
-        world.getPatches().forEach(patch -> {
-            if (patch.getPheromone() < DEFAULT_DIFFUSION_THRESHOLD) return; // No pheromones to diffuse
-            double diffused = patch.getPheromone() * this.diffusionRate;
-            world.getNeighborhood(patch).forEach(neighbour -> {
-                neighbour.setPheromone(neighbour.getPheromone() + diffused);
-            });
+        if (this.pool == null) {
+            this.updateInPlace(world, UNCHANGED, null);
+        } else {
+            this.updateDoubleBuffered(world, UNCHANGED, null);
+        }
+    }
+
+    @Override
+    public boolean isFusable() {
+        return true;
+    }
+
+    /**
+     * Applies diffusion and then the given cell behaviour to the world. When the cell behaviour is an
+     * {@link Evaporation} tracking the moments of the field, they are added up while the cells are written,
+     * and published to it.
+     *
+     * @param world The world to update.
+     * @param then  The cell behaviour applied to each cell after diffusion.
+     */
+    @Override
+    public void update(World world, CellBehaviour then) {
+        final Evaporation tracked = then instanceof Evaporation evaporation && evaporation.isMomentsTracked() ? evaporation : null;
+        final FieldMoments[] parts = tracked == null ? null : this.clearParts(world.getHeight());
+        if (this.pool == null) {
+            this.updateInPlace(world, then, parts);
+        } else {
+            this.updateDoubleBuffered(world, then, parts);
+        }
+        if (tracked != null) {
+            tracked.publishMoments(parts);
+        }
+    }
+
+    private FieldMoments[] clearParts(final int count) {
+        if (this.parts == null || this.parts.length != count) {
+            this.parts = new FieldMoments[count];
+            for (int i = 0; i < count; i++) {
+                this.parts[i] = new FieldMoments();
+            }
+        } else {
+            for (final FieldMoments part : this.parts) {
+                part.clear();
+            }
+        }
+        return this.parts;
+    }
+
+    @Override
+    public int getStateSize() {
+        return 2 * Double.BYTES + 1;
+    }
+
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        buffer.putDouble(this.diffusionRate);
+        buffer.putDouble(DEFAULT_DIFFUSION_THRESHOLD);
+        buffer.put((byte) (this.pool == null ? 0 : 1));
+    }
+
+    @Override
+    public void restoreState(ByteBuffer buffer) {
+        final double diffusionRate = buffer.getDouble();
+        final double threshold = buffer.getDouble();
+        final boolean buffered = buffer.get() != 0;
+        if (Double.compare(diffusionRate, this.diffusionRate) != 0 || Double.compare(threshold, DEFAULT_DIFFUSION_THRESHOLD) != 0) {
+            throw new IllegalArgumentException("Diffusion was saved with rate " + diffusionRate + " and threshold " + threshold);
+        }
+        if (buffered != (this.pool != null)) {
+            throw new IllegalArgumentException("Diffusion was saved " + (buffered ? "double-buffered" : "in place"));
+        }
+    }
+
+    private void updateInPlace(final World world, final CellBehaviour then, final FieldMoments[] parts) {
+        final ActiveTiles tiles = world instanceof TiledWorld tiled ? tiled.getActiveTiles() : null;
+        // a behaviour leaving empty cells empty only visits the active tiles, as CellBehaviour.update does
+        final boolean sparse = tiles != null && then.updateCell(0) == 0;
+        final boolean[] holding = sparse ? new boolean[tiles.size()] : null;
+        final int width = world.getWidth();
+        final FieldMoments moments = parts == null ? null : parts[0];
+        // patches are visited column by column, as in World.getPatches
+        for (int x = 0; x < width; x++) {
+            if (tiles == null) {
+                for (int y = 0; y < world.getHeight(); y++) {
+                    this.diffuseFrom(world, x, y);
+                }
+            } else {
+                this.diffuseActiveInPlace(world, tiles, x);
+            }
+            // the previous column has received from both of its neighbours, but the first one waits for the last
+            if (then != UNCHANGED && x >= 2) {
+                updateColumn(world, tiles, x - 1, then, holding, moments);
+            }
+        }
+        if (then == UNCHANGED) {
+            return;
+        }
+        if (width > 1) {
+            updateColumn(world, tiles, width - 1, then, holding, moments);
+        }
+        updateColumn(world, tiles, 0, then, holding, moments);
+        if (sparse) {
+            for (int tile = 0; tile < tiles.size(); tile++) {
+                if (tiles.isActive(tile) && !holding[tile]) {
+                    tiles.deactivate(tile);
+                }
+            }
+        }
+    }
+
+    private void diffuseActiveInPlace(final World world, final ActiveTiles tiles, final int x) {
+        // skipping the stretches of the column in inactive tiles: a tile receiving pheromone is activated
+        // before the visit reaches it, so the cells are diffused as on the whole field
+        final int column = tiles.columnOf(x);
+        for (int row = 0; row < tiles.getRows(); row++) {
+            if (tiles.isActive(tiles.indexOf(column, row))) {
+                for (int y = tiles.getStartY(row); y < tiles.getEndY(row); y++) {
+                    this.diffuseFrom(world, x, y);
+                }
+            }
+        }
+    }
+
+    /*
+     * Applies a cell behaviour to a column of the field, adding the new levels to the moments if given. When it leaves
+     * empty cells empty, only the stretches of the column in active tiles are visited, recording the tiles still
+     * holding pheromone.
+     */
+    private static void updateColumn(final World world, final ActiveTiles tiles, final int x, final CellBehaviour then,
+                                     final boolean[] holding, final FieldMoments moments) {
+        if (holding == null) {
+            for (int y = 0; y < world.getHeight(); y++) {
+                final double pheromone = then.updateCell(world.getPheromone(x, y));
+                world.setPheromone(x, y, pheromone);
+                if (moments != null) {
+                    // the level as stored, in the precision of the world
+                    moments.add(world.getPheromone(x, y));
+                }
+            }
+            return;
+        }
+        final int column = tiles.columnOf(x);
+        for (int row = 0; row < tiles.getRows(); row++) {
+            final int tile = tiles.indexOf(column, row);
+            if (!tiles.isActive(tile)) {
+                continue;
+            }
+            for (int y = tiles.getStartY(row); y < tiles.getEndY(row); y++) {
+                final double current = world.getPheromone(x, y);
+                final double pheromone = then.updateCell(current);
+                if (pheromone != current) {
+                    world.setPheromone(x, y, pheromone);
+                }
+                if (moments != null) {
+                    moments.add(world.getPheromone(x, y));
+                }
+                holding[tile] |= pheromone != 0;
+            }
+        }
+    }
+
+    private void diffuseFrom(final World world, final int x, final int y) {
+        final double pheromone = world.getPheromone(x, y);
+        if (pheromone < DEFAULT_DIFFUSION_THRESHOLD) return; // No pheromones to diffuse
+        final double diffused = pheromone * this.diffusionRate;
+        for (int k = 0; k < World.NEIGHBOURHOOD_SIZE; k++) {
+            final int nx = world.getNeighbourX(x, k);
+            final int ny = world.getNeighbourY(y, k);
+            if (nx != x || ny != y) {
+                world.setPheromone(nx, ny, world.getPheromone(nx, ny) + diffused);
+            }
+        }
+    }
+
+    private void updateDoubleBuffered(final World world, final CellBehaviour then, final FieldMoments[] parts) {
+        final int width = world.getWidth();
+        final int height = world.getHeight();
+        final int grain = Math.max(1, MIN_BAND_CELLS / width);
+        if (world instanceof BufferedWorld buffered && world instanceof TiledWorld tiled) {
+            this.updateActiveTiles(buffered, tiled.getActiveTiles(), then, parts);
+        } else if (world instanceof FloatBufferedWorld floats && world instanceof TiledWorld tiled) {
+            this.updateActiveTiles(floats, tiled.getActiveTiles(), then, parts);
+        } else if (world instanceof BufferedWorld buffered) {
+            final double[] front = buffered.getFrontBuffer();
+            final double[] back = buffered.getBackBuffer();
+            ParallelRange.forEach(this.pool, 0, height, grain, (from, to) -> this.diffuseBlock(front, back, width, height, 0, width, from, to, then,
+                    parts == null ? null : parts[from]));
+            buffered.swapBuffers();
+        } else {
+            this.updateStreaming(world, then, parts);
+        }
+    }
+
+    /*
+     * Diffuses a world that is only read and written through its accessors, without copying its field: the rows
+     * are split in bands, each one computed row by row from a window of the three original rows around the current
+     * one. Since a band overwrites its rows, the original rows just outside of each band are saved beforehand.
+     *
+     * On a TiledWorld the bands are made of whole rows of tiles, so that each tile is written, and deactivated, by a
+     * single task. The inactive tiles are read as zeros without visiting them, only the tiles pheromone can reach are
+     * computed, and only the cells that change are written: the quiet regions of the field are never touched.
+     */
+    private void updateStreaming(final World world, final CellBehaviour then, final FieldMoments[] parts) {
+        final int width = world.getWidth();
+        final int height = world.getHeight();
+        final ActiveTiles tiles = world instanceof TiledWorld tiled ? tiled.getActiveTiles() : null;
+        final int unit = tiles == null ? 1 : ActiveTiles.TILE_SIZE;
+        final int units = (height + unit - 1) / unit;
+        final long cells = (long) width * height;
+        final int bands = (int) Math.max(1, Math.min(Math.min(units, cells / MIN_BAND_CELLS), this.pool.getParallelism() * BANDS_PER_THREAD));
+        if (this.bandRows == null || this.bandRows.length != bands * 3 || this.bandRows[0].length != 3 * width) {
+            this.bandRows = new double[bands * 3][];
+            for (int band = 0; band < bands; band++) {
+                this.bandRows[band * 3] = new double[3 * width];
+                this.bandRows[band * 3 + 1] = new double[3 * width];
+                this.bandRows[band * 3 + 2] = new double[2 * width];
+            }
+        }
+        // a behaviour turning empty cells into something else needs the whole field
+        final boolean sparse = then.updateCell(0) == 0;
+        if (tiles != null) {
+            // the state of the tiles before the update, as the bands change it while they write the field
+            if (this.wasActive == null || this.wasActive.length != tiles.size()) {
+                this.wasActive = new boolean[tiles.size()];
+                this.reached = new boolean[tiles.size()];
+            }
+            for (int row = 0; row < tiles.getRows(); row++) {
+                for (int column = 0; column < tiles.getColumns(); column++) {
+                    final int tile = tiles.indexOf(column, row);
+                    this.wasActive[tile] = tiles.isActive(tile);
+                    this.reached[tile] = !sparse || tiles.isActiveAround(column, row);
+                }
+            }
+        }
+        final int selfHits = selfHits(width, height);
+        for (int band = 0; band < bands; band++) {
+            final double[] edges = this.bandRows[band * 3 + 2];
+            this.readRow(world, tiles, Math.floorMod(bandStart(band, bands, units, unit, height) - 1, height), edges, 0, null);
+            this.readRow(world, tiles, bandStart(band + 1, bands, units, unit, height) % height, edges, width, null);
+        }
+        final int columns = tiles == null ? 1 : tiles.getColumns();
+        ParallelRange.forEach(this.pool, 0, bands, 1, (from, to) -> {
+            final boolean[] holding = new boolean[columns];
+            // the columns of tiles the window holds for the current row of tiles, and for the previous one
+            boolean[] needed = new boolean[columns];
+            boolean[] loaded = new boolean[columns];
+            final boolean[] missing = new boolean[columns];
+            for (int band = from; band < to; band++) {
+                final FieldMoments moments = parts == null ? null : parts[band];
+                final double[] window = this.bandRows[band * 3];
+                final double[] next = this.bandRows[band * 3 + 1];
+                final double[] edges = this.bandRows[band * 3 + 2];
+                final int start = bandStart(band, bands, units, unit, height);
+                final int end = bandStart(band + 1, bands, units, unit, height);
+                // the window holds row y at slot y % 3, so that moving it down only reads the row entering it
+                boolean continuing = false;
+                for (int fromY = start; fromY < end; ) {
+                    final int row = tiles == null ? 0 : tiles.rowOf(fromY);
+                    final int toY = tiles == null ? end : tiles.getEndY(row);
+                    if (!this.findNeeded(tiles, row, needed)) {
+                        continuing = false;
+                        fromY = toY;
+                        continue;
+                    }
+                    if (continuing) {
+                        // the columns the previous row of tiles did not need were not written, so they are still original
+                        for (int column = 0; column < columns; column++) {
+                            missing[column] = needed[column] && !loaded[column];
+                        }
+                        this.readRow(world, tiles, fromY - 1, window, slot(fromY - 1, width), missing);
+                        this.readRow(world, tiles, fromY, window, slot(fromY, width), missing);
+                    } else {
+                        if (fromY == start) {
+                            System.arraycopy(edges, 0, window, slot(fromY - 1, width), width);
+                        } else {
+                            this.readRow(world, tiles, fromY - 1, window, slot(fromY - 1, width), needed);
+                        }
+                        this.readRow(world, tiles, fromY, window, slot(fromY, width), needed);
+                    }
+                    Arrays.fill(holding, false);
+                    for (int y = fromY; y < toY; y++) {
+                        if (y + 1 < end) {
+                            this.readRow(world, tiles, y + 1, window, slot(y + 1, width), needed);
+                        } else {
+                            System.arraycopy(edges, width, window, slot(y + 1, width), width);
+                        }
+                        final int middle = slot(y, width);
+                        for (int column = 0; column < columns; column++) {
+                            if (tiles != null && !this.reached[tiles.indexOf(column, row)]) {
+                                continue;
+                            }
+                            final int fromX = tiles == null ? 0 : tiles.getStartX(column);
+                            final int toX = tiles == null ? width : tiles.getEndX(column);
+                            // the window is a field of three rows wrapping around, one of which is computed
+                            holding[column] |= this.diffuseBlock(window, next, width, 3, fromX, toX, middle / width, middle / width + 1, then, selfHits, moments);
+                            for (int x = fromX; x < toX; x++) {
+                                if (next[middle + x] != window[middle + x]) {
+                                    world.setPheromone(x, y, next[middle + x]);
+                                }
+                            }
+                        }
+                    }
+                    if (tiles != null && sparse) {
+                        for (int column = 0; column < columns; column++) {
+                            final int tile = tiles.indexOf(column, row);
+                            if (this.wasActive[tile] && !holding[column]) {
+                                tiles.deactivate(tile);
+                            }
+                        }
+                    }
+                    final boolean[] swap = loaded;
+                    loaded = needed;
+                    needed = swap;
+                    continuing = true;
+                    fromY = toY;
+                }
+            }
+        });
+    }
+
+    /*
+     * The first row of a band, bands being made of whole units of rows.
+     */
+    private static int bandStart(final int band, final int bands, final int units, final int unit, final int height) {
+        return (int) Math.min(height, (long) band * units / bands * unit);
+    }
+
+    private static int slot(final int y, final int width) {
+        return Math.floorMod(y, 3) * width;
+    }
+
+    /*
+     * Finds the columns of tiles the window needs to compute a row of tiles: those pheromone can reach, and the
+     * ones next to them. Tells whether any tile of the row is computed.
+     */
+    private boolean findNeeded(final ActiveTiles tiles, final int row, final boolean[] needed) {
+        if (tiles == null) {
+            needed[0] = true;
+            return true;
+        }
+        boolean any = false;
+        for (int column = 0; column < tiles.getColumns(); column++) {
+            any |= this.reached[tiles.indexOf(column, row)];
+            needed[column] = this.reached[tiles.indexOf(Math.floorMod(column - 1, tiles.getColumns()), row)]
+                    || this.reached[tiles.indexOf(column, row)]
+                    || this.reached[tiles.indexOf((column + 1) % tiles.getColumns(), row)];
+        }
+        return any;
+    }
+
+    /*
+     * Reads a row of the field, or only the given columns of tiles of a TiledWorld.
+     */
+    private void readRow(final World world, final ActiveTiles tiles, final int y, final double[] row, final int offset, final boolean[] columns) {
+        if (tiles == null) {
+            if (columns == null || columns[0]) {
+                for (int x = 0; x < world.getWidth(); x++) {
+                    row[offset + x] = world.getPheromone(x, y);
+                }
+            }
+            return;
+        }
+        final int tileRow = tiles.rowOf(y);
+        for (int column = 0; column < tiles.getColumns(); column++) {
+            if (columns != null && !columns[column]) {
+                continue;
+            }
+            final int fromX = tiles.getStartX(column);
+            final int toX = tiles.getEndX(column);
+            if (!this.wasActive[tiles.indexOf(column, tileRow)]) {
+                // an inactive tile only holds zeros
+                Arrays.fill(row, offset + fromX, offset + toX, 0);
+                continue;
+            }
+            for (int x = fromX; x < toX; x++) {
+                row[offset + x] = world.getPheromone(x, y);
+            }
+        }
+    }
+
+    /*
+     * The buffers of a double-buffered field, whatever the type of their cells.
+     */
+    private interface TileBuffers {
+        /*
+         * Computes the cells in columns [fromX, toX) and rows [fromY, toY) into the back buffer, adding them to the moments
+         * if given, and telling whether any holds pheromone.
+         */
+        boolean diffuse(int fromX, int toX, int fromY, int toY, FieldMoments moments);
+
+        /*
+         * Clears the cells in columns [fromX, toX) and rows [fromY, toY) of the back buffer.
+         */
+        void clear(int fromX, int toX, int fromY, int toY);
+    }
+
+    private void updateActiveTiles(final BufferedWorld world, final ActiveTiles tiles, final CellBehaviour then, final FieldMoments[] parts) {
+        final int width = world.getWidth();
+        final int height = world.getHeight();
+        final double[] front = world.getFrontBuffer();
+        final double[] back = world.getBackBuffer();
+        this.updateActiveTiles(width, tiles, then, parts, new TileBuffers() {
+            @Override
+            public boolean diffuse(final int fromX, final int toX, final int fromY, final int toY, final FieldMoments moments) {
+                return Diffusion.this.diffuseBlock(front, back, width, height, fromX, toX, fromY, toY, then, moments);
+            }
+
+            @Override
+            public void clear(final int fromX, final int toX, final int fromY, final int toY) {
+                for (int y = fromY; y < toY; y++) {
+                    Arrays.fill(back, y * width + fromX, y * width + toX, 0);
+                }
+            }
         });
+        world.swapBuffers();
+    }
+
+    private void updateActiveTiles(final FloatBufferedWorld world, final ActiveTiles tiles, final CellBehaviour then, final FieldMoments[] parts) {
+        final int width = world.getWidth();
+        final int height = world.getHeight();
+        final float[] front = world.getFrontBuffer();
+        final float[] back = world.getBackBuffer();
+        this.updateActiveTiles(width, tiles, then, parts, new TileBuffers() {
+            @Override
+            public boolean diffuse(final int fromX, final int toX, final int fromY, final int toY, final FieldMoments moments) {
+                return Diffusion.this.diffuseBlock(front, back, width, height, fromX, toX, fromY, toY, then, moments);
+            }
+
+            @Override
+            public void clear(final int fromX, final int toX, final int fromY, final int toY) {
+                for (int y = fromY; y < toY; y++) {
+                    Arrays.fill(back, y * width + fromX, y * width + toX, 0);
+                }
+            }
+        });
+        world.swapBuffers();
+    }
+
+    private void updateActiveTiles(final int width, final ActiveTiles tiles, final CellBehaviour then, final FieldMoments[] parts, final TileBuffers buffers) {
+        // a behaviour turning empty cells into something else needs the whole field
+        final boolean sparse = then.updateCell(0) == 0;
+        // bands are made of whole rows of tiles, so that each tile of the back buffer is written by a single task
+        final int grain = Math.max(1, MIN_BAND_CELLS / (width * ActiveTiles.TILE_SIZE));
+        ParallelRange.forEach(this.pool, 0, tiles.getRows(), grain, (from, to) -> {
+            for (int row = from; row < to; row++) {
+                final FieldMoments moments = parts == null ? null : parts[tiles.getStartY(row)];
+                for (int column = 0; column < tiles.getColumns(); column++) {
+                    final int tile = tiles.indexOf(column, row);
+                    final int fromX = tiles.getStartX(column);
+                    final int toX = tiles.getEndX(column);
+                    final int fromY = tiles.getStartY(row);
+                    final int toY = tiles.getEndY(row);
+                    if (!sparse || tiles.isActive(tile)) {
+                        tiles.setBackActive(tile, buffers.diffuse(fromX, toX, fromY, toY, moments));
+                        continue;
+                    }
+                    if (tiles.isBackActive(tile)) {
+                        // the back buffer still holds an older state of the tile
+                        buffers.clear(fromX, toX, fromY, toY);
+                    }
+                    // an empty tile can only receive pheromone on its border, from the tiles around it
+                    final boolean holding = tiles.isActiveAround(column, row)
+                            && (buffers.diffuse(fromX, toX, fromY, fromY + 1, moments)
+                            | (toY - 1 > fromY && buffers.diffuse(fromX, toX, toY - 1, toY, moments))
+                            | buffers.diffuse(fromX, fromX + 1, fromY + 1, toY - 1, moments)
+                            | (toX - 1 > fromX && buffers.diffuse(toX - 1, toX, fromY + 1, toY - 1, moments)));
+                    tiles.setBackActive(tile, holding);
+                }
+            }
+        });
+    }
+
+    /*
+     * Computes the cells in columns [fromX, toX) and rows [fromY, toY) of the next field, gathering from each cell of the wrapped
+     * Moore neighbourhood the pheromone it diffuses, and applying the cell behaviour to the result.
+     * The computed cells are added to the moments if given. Tells whether any of them holds pheromone.
+     */
+    private boolean diffuseBlock(final double[] src, final double[] dst, final int width, final int height,
+                                 final int fromX, final int toX, final int fromY, final int toY, final CellBehaviour then, final FieldMoments moments) {
+        return this.diffuseBlock(src, dst, width, height, fromX, toX, fromY, toY, then, selfHits(width, height), moments);
+    }
+
+    private boolean diffuseBlock(final double[] src, final double[] dst, final int width, final int height, final int fromX, final int toX,
+                                 final int fromY, final int toY, final CellBehaviour then, final int selfHits, final FieldMoments moments) {
+        // the kernels know how to evaporate, and need every neighbour of a cell to be another cell
+        if (selfHits == 0) {
+            if (then == UNCHANGED) {
+                return this.diffuseBlock(src, dst, width, height, fromX, toX, fromY, toY, 1, 0, moments);
+            }
+            if (then instanceof Evaporation evaporation) {
+                return this.diffuseBlock(src, dst, width, height, fromX, toX, fromY, toY, evaporation.getEvaporationRate(), evaporation.getEpsilon(), moments);
+            }
+        }
+        boolean holding = false;
+        for (int y = fromY; y < toY; y++) {
+            final int row = y * width;
+            final int north = ((y - 1 + height) % height) * width;
+            final int south = ((y + 1) % height) * width;
+            for (int x = fromX; x < toX; x++) {
+                final int west = x == 0 ? width - 1 : x - 1;
+                final int east = x == width - 1 ? 0 : x + 1;
+                final double received = diffused(src[north + west]) + diffused(src[north + x]) + diffused(src[north + east])
+                        + diffused(src[row + west]) + diffused(src[row + east])
+                        + diffused(src[south + west]) + diffused(src[south + x]) + diffused(src[south + east]);
+                final double own = src[row + x];
+                final double next = then.updateCell(own + (received - selfHits * diffused(own)) * this.diffusionRate);
+                dst[row + x] = next;
+                if (moments != null) {
+                    moments.add(next);
+                }
+                holding |= next != 0;
+            }
+        }
+        return holding;
+    }
+
+    private boolean diffuseBlock(final double[] src, final double[] dst, final int width, final int height, final int fromX, final int toX,
+                                 final int fromY, final int toY, final double factor, final double epsilon, final FieldMoments moments) {
+        boolean holding = false;
+        for (int y = fromY; y < toY; y++) {
+            holding |= moments == null
+                    ? this.kernel.diffuseRow(src, dst, width, height, y, fromX, toX, this.diffusionRate, DEFAULT_DIFFUSION_THRESHOLD, factor, epsilon)
+                    : this.kernel.diffuseRow(src, dst, width, height, y, fromX, toX, this.diffusionRate, DEFAULT_DIFFUSION_THRESHOLD, factor, epsilon, moments);
+        }
+        return holding;
+    }
+
+    /*
+     * The single-precision version of the block computation, with the same arithmetic carried out on floats.
+     */
+    private boolean diffuseBlock(final float[] src, final float[] dst, final int width, final int height,
+                                 final int fromX, final int toX, final int fromY, final int toY, final CellBehaviour then, final FieldMoments moments) {
+        final int selfHits = selfHits(width, height);
+        final float rate = (float) this.diffusionRate;
+        final float threshold = (float) DEFAULT_DIFFUSION_THRESHOLD;
+        if (selfHits == 0 && (then == UNCHANGED || then instanceof Evaporation)) {
+            final float factor = then instanceof Evaporation evaporation ? (float) evaporation.getEvaporationRate() : 1;
+            final float epsilon = then instanceof Evaporation evaporation ? (float) evaporation.getEpsilon() : 0;
+            boolean holding = false;
+            for (int y = fromY; y < toY; y++) {
+                holding |= moments == null
+                        ? this.kernel.diffuseRow(src, dst, width, height, y, fromX, toX, rate, threshold, factor, epsilon)
+                        : this.kernel.diffuseRow(src, dst, width, height, y, fromX, toX, rate, threshold, factor, epsilon, moments);
+            }
+            return holding;
+        }
+        boolean holding = false;
+        for (int y = fromY; y < toY; y++) {
+            final int row = y * width;
+            final int north = ((y - 1 + height) % height) * width;
+            final int south = ((y + 1) % height) * width;
+            for (int x = fromX; x < toX; x++) {
+                final int west = x == 0 ? width - 1 : x - 1;
+                final int east = x == width - 1 ? 0 : x + 1;
+                final float received = diffused(src[north + west], threshold) + diffused(src[north + x], threshold) + diffused(src[north + east], threshold)
+                        + diffused(src[row + west], threshold) + diffused(src[row + east], threshold)
+                        + diffused(src[south + west], threshold) + diffused(src[south + x], threshold) + diffused(src[south + east], threshold);
+                final float own = src[row + x];
+                final float next = (float) then.updateCell(own + (received - selfHits * diffused(own, threshold)) * rate);
+                dst[row + x] = next;
+                if (moments != null) {
+                    moments.add(next);
+                }
+                holding |= next != 0;
+            }
+        }
+        return holding;
+    }
+
+    private static float diffused(final float pheromone, final float threshold) {
+        return pheromone < threshold ? 0 : pheromone;
+    }
+
+    /*
+     * On a 1-wide or 1-high world some offsets wrap onto the cell itself, which is not its own neighbour.
+     */
+    private static int selfHits(final int width, final int height) {
+        return (width == 1 ? 2 : 0) + (height == 1 ? 2 : 0) + (width == 1 && height == 1 ? 4 : 0);
+    }
+
+    private static double diffused(final double pheromone) {
+        return pheromone < DEFAULT_DIFFUSION_THRESHOLD ? 0 : pheromone; // No pheromones to diffuse
     }
 }
@@ -1,16 +1,41 @@
 package it.unibo.core.behaviour;
 
+import it.unibo.core.entity.ActiveTiles;
+import it.unibo.core.entity.BufferedWorld;
+import it.unibo.core.entity.FloatBufferedWorld;
+import it.unibo.core.entity.TiledWorld;
 import it.unibo.core.entity.World;
+import it.unibo.core.kernel.FieldKernel;
+import it.unibo.core.kernel.FieldKernels;
+import it.unibo.core.kernel.FieldMoments;
+
+import java.nio.ByteBuffer;
 
 /**
  * Represents the behavior of evaporation within a simulated world.
  * This class implements the {@link WorldBehaviour} interface, specifically
  * simulating the process of evaporation by reducing the pheromone levels
  * in each patch of the world based on a defined evaporation rate.
+ * Being a {@link CellBehaviour}, it can be fused with the behaviour preceding it.
+ *
+ * Levels falling below a small epsilon are snapped to zero, so that the tiles of a
+ * {@link TiledWorld} the slimes have left become inactive again. The field of a {@link BufferedWorld},
+ * or of a {@link FloatBufferedWorld} in single precision, is scaled directly by a {@link FieldKernel}.
+ *
+ * When its moments are tracked, each update also adds up the {@link FieldMoments} of the field it leaves,
+ * cell by cell as it writes them, whether it runs on its own or fused in a {@link Diffusion}: an observer
+ * then reads the total, maximum and entropy of the field without a pass of its own. Composed with another
+ * cell behaviour, evaporation no longer knows which cells it writes, and publishes nothing.
  */
-public class Evaporation implements WorldBehaviour {
+public class Evaporation implements CellBehaviour, PersistentBehaviour {
+    private static final double DEFAULT_EPSILON = 1e-6;
 
     private final double evaporationRate;
+    private final double epsilon;
+    private final FieldKernel kernel = FieldKernels.preferred();
+    private final FieldMoments moments = new FieldMoments();
+    private boolean momentsTracked;
+    private boolean published;
 
     /**
      * Constructs an {@code Evaporation} object with a specified evaporation rate.
@@ -20,7 +45,23 @@ public class Evaporation implements WorldBehaviour {
      *                        in pheromone levels in each update.
      */
     public Evaporation(final double evaporationRate) {
+        this(evaporationRate, DEFAULT_EPSILON);
+    }
+
+    /**
+     * Constructs an {@code Evaporation} object with a specified evaporation rate and
+     * the level below which pheromones are considered gone.
+     *
+     * @param evaporationRate The rate at which pheromones evaporate.
+     * @param epsilon         The level below which the pheromone of a cell is set to zero,
+     *                        or zero to keep every level.
+     */
+    public Evaporation(final double evaporationRate, final double epsilon) {
+        if (epsilon < 0) {
+            throw new IllegalArgumentException("Epsilon must not be negative");
+        }
         this.evaporationRate = evaporationRate;
+        this.epsilon = epsilon;
     }
 
     /**
@@ -29,13 +70,196 @@ public Evaporation(final double evaporationRate) {
      * to the provided {@code World} object.
      *
      * @param world The world in which evaporation is to be simulated.
-     *              This method iterates over each patch in the world,
+     *              This method iterates over each cell of the world field,
      *              reducing the pheromone level based on the evaporation rate.
      */
+    @Override
     public void update(World world) {
-        world.getPatches().forEach(patch -> {
-            double evaporated = patch.getPheromone() * this.evaporationRate;
-            patch.setPheromone(evaporated);
-        });
+        if (this.momentsTracked) {
+            this.updateTracked(world);
+        } else if (world instanceof BufferedWorld buffered) {
+            final double[] field = buffered.getFrontBuffer();
+            if (world instanceof TiledWorld tiled) {
+                this.scaleActiveTiles(world, tiled.getActiveTiles(), (from, to) -> this.kernel.scale(field, from, to, this.evaporationRate, this.epsilon));
+            } else {
+                this.kernel.scale(field, 0, field.length, this.evaporationRate, this.epsilon);
+            }
+        } else if (world instanceof FloatBufferedWorld floats && world instanceof TiledWorld tiled) {
+            final float[] field = floats.getFrontBuffer();
+            final float rate = (float) this.evaporationRate;
+            final float epsilon = (float) this.epsilon;
+            this.scaleActiveTiles(world, tiled.getActiveTiles(), (from, to) -> this.kernel.scale(field, from, to, rate, epsilon));
+        } else {
+            CellBehaviour.super.update(world);
+        }
+    }
+
+    /**
+     * Sets whether the updates add up the moments of the field they leave, for {@link #pollMoments()}.
+     * Tracking them costs a few operations per cell, and a logarithm per cell holding pheromone.
+     *
+     * @param momentsTracked Whether the moments of the field are tracked.
+     */
+    public void setMomentsTracked(final boolean momentsTracked) {
+        this.momentsTracked = momentsTracked;
+        this.published = false;
+    }
+
+    public boolean isMomentsTracked() {
+        return this.momentsTracked;
+    }
+
+    /**
+     * Returns the moments of the field as the last update left it, if any update published them since the
+     * previous call. They do not include the changes made to the field after the update, such as the
+     * pheromone the slimes drop after the world behaviours of a tick.
+     *
+     * @return The moments of the field, or {@code null} if no update published them since the previous call.
+     */
+    public FieldMoments pollMoments() {
+        if (!this.published) {
+            return null;
+        }
+        this.published = false;
+        final FieldMoments copy = new FieldMoments();
+        copy.set(this.moments);
+        return copy;
+    }
+
+    /*
+     * Publishes the moments of a pass split in parts, adding the parts in order.
+     */
+    void publishMoments(final FieldMoments[] parts) {
+        this.moments.clear();
+        for (final FieldMoments part : parts) {
+            this.moments.add(part);
+        }
+        this.published = true;
+    }
+
+    private void updateTracked(final World world) {
+        final FieldMoments moments = this.moments;
+        moments.clear();
+        if (world instanceof BufferedWorld buffered) {
+            final double[] field = buffered.getFrontBuffer();
+            if (world instanceof TiledWorld tiled) {
+                this.scaleActiveTiles(world, tiled.getActiveTiles(), (from, to) -> this.kernel.scale(field, from, to, this.evaporationRate, this.epsilon, moments));
+            } else {
+                this.kernel.scale(field, 0, field.length, this.evaporationRate, this.epsilon, moments);
+            }
+        } else if (world instanceof FloatBufferedWorld floats && world instanceof TiledWorld tiled) {
+            final float[] field = floats.getFrontBuffer();
+            final float rate = (float) this.evaporationRate;
+            final float epsilon = (float) this.epsilon;
+            this.scaleActiveTiles(world, tiled.getActiveTiles(), (from, to) -> this.kernel.scale(field, from, to, rate, epsilon, moments));
+        } else if (world instanceof TiledWorld tiled) {
+            final ActiveTiles tiles = tiled.getActiveTiles();
+            for (int row = 0; row < tiles.getRows(); row++) {
+                for (int column = 0; column < tiles.getColumns(); column++) {
+                    final int tile = tiles.indexOf(column, row);
+                    if (!tiles.isActive(tile)) {
+                        continue;
+                    }
+                    boolean holding = false;
+                    for (int y = tiles.getStartY(row); y < tiles.getEndY(row); y++) {
+                        holding |= this.scale(world, y, tiles.getStartX(column), tiles.getEndX(column), moments);
+                    }
+                    if (!holding) {
+                        tiles.deactivate(tile);
+                    }
+                }
+            }
+        } else {
+            for (int y = 0; y < world.getHeight(); y++) {
+                this.scale(world, y, 0, world.getWidth(), moments);
+            }
+        }
+        this.published = true;
+    }
+
+    /*
+     * Scales the cells in columns [fromX, toX) of a row of a world reached through its accessors, writing only the
+     * cells that change, as CellBehaviour.update does.
+     */
+    private boolean scale(final World world, final int y, final int fromX, final int toX, final FieldMoments moments) {
+        boolean holding = false;
+        for (int x = fromX; x < toX; x++) {
+            final double current = world.getPheromone(x, y);
+            final double pheromone = this.updateCell(current);
+            if (pheromone != current) {
+                world.setPheromone(x, y, pheromone);
+            }
+            // the level as stored, in the precision of the world
+            moments.add(world.getPheromone(x, y));
+            holding |= pheromone != 0;
+        }
+        return holding;
+    }
+
+    /*
+     * Scales a stretch [from, to) of the field, telling whether any of its cells still holds pheromone.
+     */
+    @FunctionalInterface
+    private interface Stretch {
+        boolean scale(int from, int to);
+    }
+
+    private void scaleActiveTiles(final World world, final ActiveTiles tiles, final Stretch stretch) {
+        final int width = world.getWidth();
+        for (int row = 0; row < tiles.getRows(); row++) {
+            for (int column = 0; column < tiles.getColumns(); column++) {
+                final int tile = tiles.indexOf(column, row);
+                if (!tiles.isActive(tile)) {
+                    continue;
+                }
+                boolean holding = false;
+                for (int y = tiles.getStartY(row); y < tiles.getEndY(row); y++) {
+                    holding |= stretch.scale(y * width + tiles.getStartX(column), y * width + tiles.getEndX(column));
+                }
+                if (!holding) {
+                    tiles.deactivate(tile);
+                }
+            }
+        }
+    }
+
+    @Override
+    public int getStateSize() {
+        return 2 * Double.BYTES;
+    }
+
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        buffer.putDouble(this.evaporationRate);
+        buffer.putDouble(this.epsilon);
+    }
+
+    @Override
+    public void restoreState(ByteBuffer buffer) {
+        final double evaporationRate = buffer.getDouble();
+        final double epsilon = buffer.getDouble();
+        if (Double.compare(evaporationRate, this.evaporationRate) != 0 || Double.compare(epsilon, this.epsilon) != 0) {
+            throw new IllegalArgumentException("Evaporation was saved with rate " + evaporationRate + " and epsilon " + epsilon);
+        }
+    }
+
+    double getEvaporationRate() {
+        return this.evaporationRate;
+    }
+
+    double getEpsilon() {
+        return this.epsilon;
+    }
+
+    /**
+     * Reduces the pheromone level of a single cell based on the evaporation rate.
+     *
+     * @param pheromone The current pheromone level of the cell.
+     * @return The pheromone level left after evaporation, or zero if it is below the epsilon.
+     */
+    @Override
+    public double updateCell(double pheromone) {
+        final double left = pheromone * this.evaporationRate;
+        return Math.abs(left) < this.epsilon ? 0 : left;
     }
 }
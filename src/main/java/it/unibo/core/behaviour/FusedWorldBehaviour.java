@@ -0,0 +1,79 @@
+package it.unibo.core.behaviour;
+
+import it.unibo.core.entity.World;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A fusable {@link StencilBehaviour} followed by one or more {@link CellBehaviour}s, applied in a
+ * single pass over the field. The result is the same of applying the behaviours one after the other.
+ */
+public final class FusedWorldBehaviour implements WorldBehaviour {
+    private final StencilBehaviour stencil;
+    private final CellBehaviour then;
+    private final List<WorldBehaviour> fused;
+
+    private FusedWorldBehaviour(final StencilBehaviour stencil, final CellBehaviour then, final List<WorldBehaviour> fused) {
+        this.stencil = stencil;
+        this.then = then;
+        this.fused = List.copyOf(fused);
+    }
+
+    /**
+     * Compiles a chain of world behaviours into an equivalent one making fewer passes over the field.
+     * A fusable {@link StencilBehaviour} absorbs the {@link CellBehaviour}s immediately following it,
+     * and other consecutive {@link CellBehaviour}s are composed into one. Any other behaviour is kept
+     * as it is, in its original position.
+     *
+     * @param behaviours The behaviours to compile, in the order they are applied.
+     * @return The compiled behaviours, in the order they must be applied.
+     */
+    public static List<WorldBehaviour> fuse(final List<WorldBehaviour> behaviours) {
+        final List<WorldBehaviour> compiled = new ArrayList<>(behaviours.size());
+        int i = 0;
+        while (i < behaviours.size()) {
+            final WorldBehaviour behaviour = behaviours.get(i);
+            int end = i + 1;
+            if (behaviour instanceof StencilBehaviour stencil && stencil.isFusable()) {
+                CellBehaviour then = null;
+                while (end < behaviours.size() && behaviours.get(end) instanceof CellBehaviour cell) {
+                    then = then == null ? cell : then.andThen(cell);
+                    end++;
+                }
+                compiled.add(then == null ? behaviour : new FusedWorldBehaviour(stencil, then, behaviours.subList(i, end)));
+            } else if (behaviour instanceof CellBehaviour cell) {
+                CellBehaviour cells = cell;
+                while (end < behaviours.size() && behaviours.get(end) instanceof CellBehaviour next) {
+                    cells = cells.andThen(next);
+                    end++;
+                }
+                compiled.add(cells);
+            } else {
+                compiled.add(behaviour);
+            }
+            i = end;
+        }
+        return compiled;
+    }
+
+    /**
+     * Returns the behaviours fused into this one, in the order they are applied.
+     *
+     * @return The fused behaviours.
+     */
+    public List<WorldBehaviour> getFused() {
+        return this.fused;
+    }
+
+    @Override
+    public void update(final World world) {
+        this.stencil.update(world, this.then);
+    }
+
+    @Override
+    public String toString() {
+        return this.fused.stream().map(behaviour -> behaviour.getClass().getSimpleName()).collect(Collectors.joining("+"));
+    }
+}
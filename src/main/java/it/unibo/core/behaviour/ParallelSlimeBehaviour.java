@@ -0,0 +1,26 @@
+package it.unibo.core.behaviour;
+
+import it.unibo.core.entity.Slime;
+
+/**
+ * A {@link SlimeBehaviour} whose step can be planned for many slimes concurrently.
+ *
+ * Planning only reads the world: the move and the pheromone deposit of a slime are recorded
+ * in a {@link SlimeIntents} buffer, which is committed once every slime has been planned.
+ * Every slime therefore sees the world as it was at the beginning of the step, and the
+ * outcome does not depend on the order in which slimes are planned, nor on the number of threads.
+ * Randomness should be drawn from a stream that only depends on the slime and the tick,
+ * for example through {@link it.unibo.core.random.CounterRandom}.
+ */
+public interface ParallelSlimeBehaviour extends SlimeBehaviour {
+
+    /**
+     * Plans the step of a slime, without changing the world.
+     * This method may be called concurrently for different slimes.
+     *
+     * @param slime   The slime whose step is planned.
+     * @param tick    The tick being simulated, used to derive the random stream of the slime.
+     * @param intents The buffer recording the move and the deposit of the slime.
+     */
+    void plan(Slime slime, long tick, SlimeIntents intents);
+}
@@ -0,0 +1,35 @@
+package it.unibo.core.behaviour;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A behaviour whose parameters and internal state can be saved in a checkpoint, and restored later
+ * to resume a simulation exactly where it stopped.
+ *
+ * A behaviour restoring its state checks that the saved parameters are its own, as resuming a run
+ * with different parameters would not continue the run the checkpoint was taken from.
+ */
+public interface PersistentBehaviour {
+
+    /**
+     * Returns the number of bytes written by {@link #saveState(ByteBuffer)}.
+     *
+     * @return The size of the state.
+     */
+    int getStateSize();
+
+    /**
+     * Writes the parameters and the state of the behaviour.
+     *
+     * @param buffer The buffer the state is written to, with at least {@link #getStateSize()} bytes remaining.
+     */
+    void saveState(ByteBuffer buffer);
+
+    /**
+     * Restores the state written by {@link #saveState(ByteBuffer)}.
+     *
+     * @param buffer The buffer the state is read from.
+     * @throws IllegalArgumentException If the saved parameters differ from those of this behaviour.
+     */
+    void restoreState(ByteBuffer buffer);
+}
@@ -1,6 +1,7 @@
 package it.unibo.core.behaviour;
 
 import it.unibo.core.entity.Slime;
+import it.unibo.core.entity.World;
 
 /**
  * Represents a behavior specifically for a {@code Slime} entity.
@@ -11,5 +12,15 @@
  * applied to a {@code Slime} object through the {@code update} method
  * inherited from the {@link Behaviour} interface.
  */
-public interface SlimeBehaviour extends Behaviour<Slime> { }
+public interface SlimeBehaviour extends Behaviour<Slime> {
+
+    /**
+     * Prepares the behaviour for the slime phase of a tick. The simulation calls it once per tick, after the
+     * world behaviours and before any slime is updated, so that a behaviour sensing a structure derived from
+     * the field can rebuild it from the field the slimes are about to see.
+     *
+     * @param world The world whose slimes are about to be updated.
+     */
+    default void prepare(final World world) { }
+}
 
@@ -0,0 +1,109 @@
+package it.unibo.core.behaviour;
+
+import it.unibo.core.entity.Slime;
+import it.unibo.core.entity.World;
+
+import java.util.Arrays;
+
+/**
+ * Buffers the steps planned by a {@link ParallelSlimeBehaviour}: at most one move and one
+ * pheromone deposit per slime. Each slime only writes its own slot, so slimes can be planned
+ * concurrently, and the buffered steps are then applied in order of slime identifier.
+ */
+public final class SlimeIntents {
+    private static final int NONE = -1;
+
+    private final int[] moveX;
+    private final int[] moveY;
+    private final int[] depositX;
+    private final int[] depositY;
+    private final double[] deposit;
+
+    /**
+     * Constructs an empty {@code SlimeIntents} buffer.
+     *
+     * @param numSlimes The number of slimes of the world whose steps are buffered.
+     */
+    public SlimeIntents(final int numSlimes) {
+        this.moveX = new int[numSlimes];
+        this.moveY = new int[numSlimes];
+        this.depositX = new int[numSlimes];
+        this.depositY = new int[numSlimes];
+        this.deposit = new double[numSlimes];
+        Arrays.fill(this.moveX, NONE);
+        Arrays.fill(this.depositX, NONE);
+    }
+
+    /**
+     * Returns the number of slimes this buffer has room for.
+     *
+     * @return The number of slimes.
+     */
+    public int size() {
+        return this.moveX.length;
+    }
+
+    /**
+     * Records the move of a slime, replacing the one previously recorded.
+     *
+     * @param slime The slime that moves.
+     * @param x     The column the slime moves to.
+     * @param y     The row the slime moves to.
+     */
+    public void move(final Slime slime, final int x, final int y) {
+        this.moveX[slime.getId()] = x;
+        this.moveY[slime.getId()] = y;
+    }
+
+    /**
+     * Records a pheromone deposit of a slime, replacing the one previously recorded.
+     *
+     * @param slime  The slime that drops the pheromone.
+     * @param x      The column of the cell receiving the pheromone.
+     * @param y      The row of the cell receiving the pheromone.
+     * @param amount The amount of pheromone dropped.
+     */
+    public void deposit(final Slime slime, final int x, final int y, final double amount) {
+        this.depositX[slime.getId()] = x;
+        this.depositY[slime.getId()] = y;
+        this.deposit[slime.getId()] = amount;
+    }
+
+    /**
+     * Applies the recorded steps to the world in order of slime identifier, then clears the buffer.
+     *
+     * @param world The world the slimes live in.
+     */
+    public void commit(final World world) {
+        for (int id = 0; id < this.moveX.length; id++) {
+            this.commit(world, id);
+        }
+    }
+
+    /**
+     * Applies the recorded steps of some of the slimes, in the given order, then clears them.
+     * It costs the given slimes alone, so the others must have no recorded step.
+     *
+     * @param world The world the slimes live in.
+     * @param ids   The identifiers of the slimes, usually in increasing order.
+     * @param count The number of identifiers to read from the array.
+     */
+    public void commit(final World world, final int[] ids, final int count) {
+        for (int i = 0; i < count; i++) {
+            this.commit(world, ids[i]);
+        }
+    }
+
+    private void commit(final World world, final int id) {
+        if (this.moveX[id] != NONE) {
+            world.moveSlime(id, this.moveX[id], this.moveY[id]);
+            this.moveX[id] = NONE;
+        }
+        final int x = this.depositX[id];
+        final int y = this.depositY[id];
+        if (x != NONE) {
+            world.setPheromone(x, y, world.getPheromone(x, y) + this.deposit[id]);
+            this.depositX[id] = NONE;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package it.unibo.core.behaviour;
+
+import it.unibo.core.entity.World;
+
+/**
+ * A {@link WorldBehaviour} that computes each cell of the field from a neighbourhood of cells.
+ * When every cell is computed from the field as it was before the update, the value of a cell
+ * is final as soon as it is written; otherwise it is final once no cell left to compute can
+ * change it. Either way a {@link CellBehaviour} can be applied to it in the same pass.
+ */
+public interface StencilBehaviour extends WorldBehaviour {
+
+    /**
+     * Tells whether this behaviour knows when the value of each cell is final, so that it can be
+     * fused with the cell behaviours following it.
+     *
+     * @return {@code true} if this behaviour can be fused.
+     */
+    boolean isFusable();
+
+    /**
+     * Applies this behaviour and then the given cell behaviour to the world. When this behaviour
+     * is fusable, both are applied in a single pass over the field, otherwise one after the other.
+     *
+     * @param world The world to update.
+     * @param then  The cell behaviour applied to each cell after this behaviour.
+     */
+    void update(World world, CellBehaviour then);
+}
@@ -0,0 +1,167 @@
+package it.unibo.core.behaviour;
+
+import it.unibo.core.entity.ActiveTiles;
+import it.unibo.core.entity.BufferedWorld;
+import it.unibo.core.entity.FloatBufferedWorld;
+import it.unibo.core.entity.TiledWorld;
+import it.unibo.core.entity.World;
+
+/**
+ * A summed-area table of the pheromone field, answering the total pheromone of any rectangle of the
+ * toroidal world in constant time, whatever its size. It lets slimes sense the field over a large
+ * radius without visiting every cell in it.
+ *
+ * The table is owned by the {@link Aggregation} sensing it, which rebuilds it from the field once per tick,
+ * in a single pass, when the simulation prepares it for the slime phase. Queries then describe the field as
+ * it was at the end of the world phase, not the pheromone the slimes drop during the tick. On a
+ * {@link TiledWorld} the inactive tiles are not read, as their cells are all empty, although the table is
+ * still written whole. Sums are kept in double precision, also for single-precision fields.
+ */
+public final class SummedAreaTable {
+    /*
+     * The offsets of the neighbours, in the order of World.getNeighbourX and World.getNeighbourY.
+     */
+    private static final int[] NEIGHBOUR_DX = {-1, -1, -1, 0, 0, 1, 1, 1};
+    private static final int[] NEIGHBOUR_DY = {-1, 0, 1, -1, 1, -1, 0, 1};
+    /*
+     * Sums are differences of prefix sums up to the total pheromone, so their rounding error is
+     * relative to the total rather than to the sum itself.
+     */
+    private static final double TOLERANCE = 1e-11;
+
+    private int width;
+    private int height;
+    /*
+     * The sum of the cells with both coordinates up to those of each cell, row-major.
+     */
+    private double[] table;
+    /*
+     * The rounding error of a sum, below which two sums are taken as equal.
+     */
+    private double tolerance;
+
+    /**
+     * Rebuilds the table from the current field of a world.
+     *
+     * @param world The world whose field is summed.
+     */
+    public void update(final World world) {
+        if (this.table == null || world.getWidth() != this.width || world.getHeight() != this.height) {
+            this.width = world.getWidth();
+            this.height = world.getHeight();
+            this.table = new double[this.width * this.height];
+        }
+        final double[] doubles = world instanceof BufferedWorld buffered ? buffered.getFrontBuffer() : null;
+        final float[] floats = world instanceof FloatBufferedWorld single ? single.getFrontBuffer() : null;
+        final ActiveTiles tiles = world instanceof TiledWorld tiled ? tiled.getActiveTiles() : null;
+        for (int y = 0; y < this.height; y++) {
+            if (tiles == null) {
+                this.sumRow(world, doubles, floats, y, 0, this.width, 0, true);
+                continue;
+            }
+            final int row = tiles.rowOf(y);
+            double sum = 0;
+            for (int column = 0; column < tiles.getColumns(); column++) {
+                sum = this.sumRow(world, doubles, floats, y, tiles.getStartX(column), tiles.getEndX(column), sum,
+                        tiles.isActive(tiles.indexOf(column, row)));
+            }
+        }
+        this.tolerance = Math.abs(this.table[this.table.length - 1]) * TOLERANCE;
+    }
+
+    /*
+     * Fills the stretch [fromX, toX) of a row of the table, given the sum of the row before it; the cells of a stretch
+     * that is not read are empty. Returns the sum of the row up to the end of the stretch.
+     */
+    private double sumRow(final World world, final double[] doubles, final float[] floats, final int y, final int fromX, final int toX,
+                          final double start, final boolean read) {
+        final int offset = y * this.width;
+        double sum = start;
+        for (int x = fromX, i = offset + fromX; x < toX; x++, i++) {
+            if (read) {
+                sum += doubles != null ? doubles[i] : floats != null ? floats[i] : world.getPheromone(x, y);
+            }
+            this.table[i] = y == 0 ? sum : this.table[i - this.width] + sum;
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the total pheromone of a rectangle, wrapping around the borders of the world. A rectangle
+     * wider or taller than the world counts the cells it covers more than once as many times.
+     *
+     * @param x       The column of the top-left corner, wrapped if outside the world.
+     * @param y       The row of the top-left corner, wrapped if outside the world.
+     * @param columns The width of the rectangle, not negative.
+     * @param rows    The height of the rectangle, not negative.
+     * @return The pheromone in the rectangle.
+     * @throws IllegalStateException If the table has not been built yet.
+     */
+    public double sum(final int x, final int y, final int columns, final int rows) {
+        if (this.table == null) {
+            throw new IllegalStateException("The table has not been built");
+        }
+        final long left = Math.floorMod(x, this.width);
+        final long top = Math.floorMod(y, this.height);
+        final long right = left + columns;
+        final long bottom = top + rows;
+        return this.unrolled(right, bottom) - this.unrolled(left, bottom) - this.unrolled(right, top) + this.unrolled(left, top);
+    }
+
+    /**
+     * Returns the neighbour leading towards the highest mean level within a radius. Each neighbour faces a
+     * region of the square of side {@code 2 * radius + 1} around the cell: a diagonal neighbour the
+     * {@code radius} by {@code radius} square in its corner, a neighbour in the same row the {@code radius}
+     * columns on its side, {@code 2 * (radius / 2) + 1} rows high and centred on the cell, and likewise for
+     * a neighbour in the same column. With a radius of 1 the regions are the neighbours themselves; above 2
+     * the regions of the orthogonal neighbours overlap those of the diagonal ones, and they are larger, so
+     * regions are compared by their mean level rather than their total. Ties, including means within
+     * rounding error of each other, go to the first neighbour.
+     *
+     * @param x      The column of the cell.
+     * @param y      The row of the cell.
+     * @param radius The radius sensed, at least 1.
+     * @return The index of the neighbour, as in {@link World#getNeighbourX(int, int)}.
+     * @throws IllegalStateException If the table has not been built yet.
+     */
+    public int getMaxDirection(final int x, final int y, final int radius) {
+        final int half = radius / 2;
+        // the smallest region is a corner square, whose mean has the largest rounding error
+        final double tolerance = this.tolerance / ((double) radius * radius);
+        int max = 0;
+        double maxMean = Double.NEGATIVE_INFINITY;
+        for (int k = 0; k < World.NEIGHBOURHOOD_SIZE; k++) {
+            final int left = NEIGHBOUR_DX[k] < 0 ? x - radius : NEIGHBOUR_DX[k] == 0 ? x - half : x + 1;
+            final int top = NEIGHBOUR_DY[k] < 0 ? y - radius : NEIGHBOUR_DY[k] == 0 ? y - half : y + 1;
+            final int columns = NEIGHBOUR_DX[k] == 0 ? 2 * half + 1 : radius;
+            final int rows = NEIGHBOUR_DY[k] == 0 ? 2 * half + 1 : radius;
+            final double mean = this.sum(left, top, columns, rows) / ((double) columns * rows);
+            if (mean > maxMean + tolerance) {
+                max = k;
+                maxMean = mean;
+            }
+        }
+        return max;
+    }
+
+    /*
+     * The pheromone of the cells before a column and a row of the plane tiled with copies of the world.
+     */
+    private double unrolled(final long column, final long row) {
+        final long copiesX = column / this.width;
+        final long copiesY = row / this.height;
+        final int restX = (int) (column - copiesX * this.width);
+        final int restY = (int) (row - copiesY * this.height);
+        return copiesX * copiesY * this.prefix(this.width, this.height)
+                + copiesX * this.prefix(this.width, restY)
+                + copiesY * this.prefix(restX, this.height)
+                + this.prefix(restX, restY);
+    }
+
+    /*
+     * The pheromone of the cells before a column and a row, both within the world.
+     */
+    private double prefix(final int columns, final int rows) {
+        return columns == 0 || rows == 0 ? 0 : this.table[(rows - 1) * this.width + columns - 1];
+    }
+}
@@ -0,0 +1,322 @@
+package it.unibo.core.entity;
+
+import it.unibo.core.Position;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongPredicate;
+
+/**
+ * Base class for toroidal grid worlds. It owns the dimensions and the slimes of the world,
+ * leaving to subclasses the way the pheromone field is stored.
+ *
+ * The wrapped coordinates of the neighbours of every column and row are computed once,
+ * so visiting a neighbourhood only costs table lookups.
+ *
+ * Slimes are stored as parallel coordinate arrays indexed by identifier. An occupancy grid,
+ * kept up to date on every move, counts the slimes on each cell and links them in a per-cell
+ * list, so the slimes on a cell are found without scanning the population.
+ *
+ * Cells are indexed by an {@code int}, so a world has at most {@link Integer#MAX_VALUE} cells,
+ * unless a subclass in this package stores its field so as to reach more: the occupancy grid is
+ * addressed by {@code long} offsets, and such a world is only accessed through coordinates.
+ * Unless a subclass keeps its own {@link Patch}es, they are created, once, as views over the
+ * field when the {@link Patch}-based API is used.
+ */
+public abstract class AbstractGridWorld implements World {
+    private static final int[] NEIGHBOUR_DX = {-1, -1, -1, 0, 0, 1, 1, 1};
+    private static final int[] NEIGHBOUR_DY = {-1, 0, 1, -1, 1, -1, 0, 1};
+
+    private final int width;
+    private final int height;
+    private final int[] neighbourColumns;
+    private final int[] neighbourRows;
+    private final List<Slime> slimes;
+    private final int[] slimeX;
+    private final int[] slimeY;
+    private final CellTable cellCount;
+    private final CellTable cellHead;
+    private final int[] nextInCell;
+    private final int[] previousInCell;
+    private Patch[] views;
+    private List<Patch> patches;
+
+    protected AbstractGridWorld(final int width, final int height, final int numSlimes, final int seed) {
+        this(width, height, numSlimes, seed, CellTable::onHeap, Integer.MAX_VALUE);
+    }
+
+    AbstractGridWorld(final int width, final int height, final int numSlimes, final int seed, final CellTable.Allocator tables, final long maxCells) {
+        if(width <= 0 || height <= 0)
+            throw new IllegalArgumentException("Width and height must be positive");
+        if(numSlimes < 0)
+            throw new IllegalArgumentException("Number of slimes must not be negative");
+        if(seed <= 0)
+            throw new IllegalArgumentException("Seed must be positive");
+        if((long) width * height > maxCells)
+            throw new IllegalArgumentException("Number of patches must not exceed " + maxCells);
+        if(numSlimes > (long) width * height)
+            throw new IllegalArgumentException("Number of slimes must be less than the number of patches");
+
+        this.width = width;
+        this.height = height;
+        this.neighbourColumns = wrapTable(width, NEIGHBOUR_DX);
+        this.neighbourRows = wrapTable(height, NEIGHBOUR_DY);
+        this.slimes = new ArrayList<>(numSlimes);
+        this.slimeX = new int[numSlimes];
+        this.slimeY = new int[numSlimes];
+        this.cellCount = tables.allocate((long) width * height, 0);
+        this.cellHead = tables.allocate((long) width * height, NO_SLIME);
+        this.nextInCell = new int[numSlimes];
+        this.previousInCell = new int[numSlimes];
+    }
+
+    /*
+     * Builds the table of the wrapped neighbour coordinates, the one of coordinate c and offset k is at c * 8 + k.
+     */
+    private static int[] wrapTable(final int size, final int[] deltas) {
+        final int[] table = new int[size * NEIGHBOURHOOD_SIZE];
+        for(int c = 0; c < size; c++)
+            for(int k = 0; k < NEIGHBOURHOOD_SIZE; k++)
+                table[c * NEIGHBOURHOOD_SIZE + k] = Math.floorMod(c + deltas[k], size);
+        return table;
+    }
+
+    /**
+     * Draws the seed of a world created without one.
+     *
+     * @return A random seed, always positive.
+     */
+    protected static int randomSeed() {
+        return 1 + ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Places the slimes in the world. Subclasses call it once their field is ready.
+     *
+     * @param numSlimes The number of slimes to create.
+     * @param seed      The seed used to pick the initial positions.
+     */
+    protected void initSlimes(final int numSlimes, final int seed) {
+        for(int i = 0; i < numSlimes; i++)
+            this.slimes.add(new Slime(this, i));
+        this.placeSlimes(seed);
+    }
+
+    /**
+     * Moves the slimes back to the initial positions given by a seed, as if the world had just been
+     * created with it.
+     *
+     * @param seed The seed used to pick the positions.
+     */
+    protected void resetSlimes(final int seed) {
+        if(seed <= 0)
+            throw new IllegalArgumentException("Seed must be positive");
+        for(int id = 0; id < this.slimeX.length; id++)
+            this.unlink(id, this.cellOf(this.slimeX[id], this.slimeY[id]));
+        this.placeSlimes(seed);
+    }
+
+    private void placeSlimes(final int seed) {
+        drawPositions(this.width, this.height, seed, this.slimeX, this.slimeY,
+                cell -> this.cellCount.get(cell) > 0, (id, cell) -> this.link(id, cell));
+    }
+
+    /**
+     * Computes the initial positions of the slimes of a world created with a seed, without creating it.
+     * The processes of a distributed simulation find the slimes of their part of the world this way.
+     *
+     * @param width  The width of the world.
+     * @param height The height of the world.
+     * @param seed   The seed used to place the slimes.
+     * @param x      The array receiving the column of each slime, as long as the number of slimes.
+     * @param y      The array receiving the row of each slime, as long as {@code x}.
+     */
+    public static void initialPositions(final int width, final int height, final int seed, final int[] x, final int[] y) {
+        if(seed <= 0)
+            throw new IllegalArgumentException("Seed must be positive");
+        if(x.length != y.length || x.length > (long) width * height)
+            throw new IllegalArgumentException("There must be a column and a row for each slime, and fewer slimes than patches");
+        final Set<Long> occupied = new HashSet<>();
+        drawPositions(width, height, seed, x, y, occupied::contains, (id, cell) -> occupied.add(cell));
+    }
+
+    /*
+     * Picks a distinct cell for each slime, retrying the cells already occupied, and marks it occupied.
+     */
+    private static void drawPositions(final int width, final int height, final int seed, final int[] slimeX, final int[] slimeY,
+                                      final LongPredicate occupied, final Occupier occupy) {
+        final Random random = new Random(seed);
+        for(int i = 0; i < slimeX.length; i++) {
+            int x;
+            int y;
+            do {
+                x = random.nextInt(width);
+                y = random.nextInt(height);
+            } while(occupied.test((long) y * width + x));
+            slimeX[i] = x;
+            slimeY[i] = y;
+            occupy.occupy(i, (long) y * width + x);
+        }
+    }
+
+    private interface Occupier {
+        void occupy(int id, long cell);
+    }
+
+    /*
+     * The offset of a cell in the occupancy grid, which unlike its index reaches every cell.
+     */
+    private long cellOf(final int x, final int y) {
+        return (long) y * this.width + x;
+    }
+
+    @Override
+    public int getWidth() {
+        return this.width;
+    }
+
+    @Override
+    public int getHeight() {
+        return this.height;
+    }
+
+    @Override
+    public int getNeighbourX(int x, int k) {
+        return this.neighbourColumns[x * NEIGHBOURHOOD_SIZE + k];
+    }
+
+    @Override
+    public int getNeighbourY(int y, int k) {
+        return this.neighbourRows[y * NEIGHBOURHOOD_SIZE + k];
+    }
+
+    @Override
+    public int getNeighbourIndex(int x, int y, int k) {
+        return this.indexOf(this.neighbourColumns[x * NEIGHBOURHOOD_SIZE + k], this.neighbourRows[y * NEIGHBOURHOOD_SIZE + k]);
+    }
+
+    @Override
+    public Position getSlimePosition(Slime slime) {
+        return new Position(this.slimeX[slime.getId()], this.slimeY[slime.getId()]);
+    }
+
+    @Override
+    public void moveSlime(Slime slime, Position position) {
+        this.moveSlime(slime.getId(), position.x(), position.y());
+    }
+
+    @Override
+    public Collection<Slime> getSlimes() {
+        return Collections.unmodifiableList(this.slimes);
+    }
+
+    @Override
+    public int getSlimeCount() {
+        return this.slimes.size();
+    }
+
+    @Override
+    public Slime getSlime(int id) {
+        return this.slimes.get(id);
+    }
+
+    @Override
+    public int getSlimeX(int id) {
+        return this.slimeX[id];
+    }
+
+    @Override
+    public int getSlimeY(int id) {
+        return this.slimeY[id];
+    }
+
+    @Override
+    public void moveSlime(int id, int x, int y) {
+        final long from = this.cellOf(this.slimeX[id], this.slimeY[id]);
+        final long to = this.cellOf(x, y);
+        this.slimeX[id] = x;
+        this.slimeY[id] = y;
+        if(from != to) {
+            this.unlink(id, from);
+            this.link(id, to);
+        }
+    }
+
+    @Override
+    public int getSlimeCountAt(int x, int y) {
+        return this.cellCount.get(this.cellOf(x, y));
+    }
+
+    @Override
+    public int getFirstSlimeAt(int x, int y) {
+        return this.cellHead.get(this.cellOf(x, y));
+    }
+
+    @Override
+    public int getNextSlimeAt(int id) {
+        return this.nextInCell[id];
+    }
+
+    private void link(final int id, final long cell) {
+        final int head = this.cellHead.get(cell);
+        this.nextInCell[id] = head;
+        this.previousInCell[id] = NO_SLIME;
+        if(head != NO_SLIME)
+            this.previousInCell[head] = id;
+        this.cellHead.set(cell, id);
+        this.cellCount.set(cell, this.cellCount.get(cell) + 1);
+    }
+
+    private void unlink(final int id, final long cell) {
+        final int previous = this.previousInCell[id];
+        final int next = this.nextInCell[id];
+        if(previous != NO_SLIME)
+            this.nextInCell[previous] = next;
+        else
+            this.cellHead.set(cell, next);
+        if(next != NO_SLIME)
+            this.previousInCell[next] = previous;
+        this.cellCount.set(cell, this.cellCount.get(cell) - 1);
+    }
+
+    @Override
+    public Collection<Patch> getPatches() {
+        if(this.patches == null) {
+            final Patch[] views = this.getViews();
+            // same column-major order as GridWorld, so order-dependent behaviours give the same result
+            final List<Patch> patches = new ArrayList<>(views.length);
+            for(int x = 0; x < this.getWidth(); x++)
+                for(int y = 0; y < this.getHeight(); y++)
+                    patches.add(views[this.indexOf(x, y)]);
+            this.patches = Collections.unmodifiableList(patches);
+        }
+        return this.patches;
+    }
+
+    @Override
+    public Patch getPatch(Position position) {
+        return this.getViews()[this.indexOf(position.x(), position.y())];
+    }
+
+    private Patch[] getViews() {
+        if(this.views == null) {
+            this.views = new Patch[Math.toIntExact((long) this.width * this.height)];
+            for(int y = 0; y < this.getHeight(); y++)
+                for(int x = 0; x < this.getWidth(); x++)
+                    this.views[this.indexOf(x, y)] = new PatchView(this, new Position(x, y));
+        }
+        return this.views;
+    }
+
+    @Override
+    public Collection<Patch> getNeighborhood(Patch patch) {
+        final Position position = patch.getPosition();
+        final List<Patch> neighbours = new ArrayList<>(NEIGHBOURHOOD_SIZE);
+        for(int k = 0; k < NEIGHBOURHOOD_SIZE; k++) {
+            final Patch neighbour = this.getPatch(new Position(this.getNeighbourX(position.x(), k), this.getNeighbourY(position.y(), k)));
+            if(!neighbour.equals(patch))
+                neighbours.add(neighbour);
+        }
+        return neighbours;
+    }
+}
@@ -0,0 +1,171 @@
+package it.unibo.core.entity;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A bitmap of the square tiles of a field that may hold pheromone, so that the parts of the
+ * field where nothing happens can be skipped.
+ *
+ * A tile that is not active holds no pheromone: every one of its cells is exactly zero. The
+ * world activates a tile whenever a non-zero level is written to one of its cells, while tiles
+ * are deactivated by the behaviours that find them empty. Tiles are numbered row by row.
+ *
+ * The bitmap has a second layer describing the back buffer of a {@link BufferedWorld}: a
+ * behaviour writing the back buffer directly records which of its tiles hold pheromone, and the
+ * two layers are swapped together with the buffers.
+ */
+public final class ActiveTiles {
+    /**
+     * The number of cells on each side of a tile.
+     */
+    public static final int TILE_SIZE = 32;
+    private static final int TILE_SHIFT = 5;
+
+    private final int width;
+    private final int height;
+    private final int columns;
+    private final int rows;
+    private final IntConsumer onDeactivate;
+    private boolean[] front;
+    private boolean[] back;
+
+    ActiveTiles(final int width, final int height) {
+        this(width, height, null);
+    }
+
+    /*
+     * The listener is told of every tile deactivated by a behaviour, which the world may then free.
+     */
+    ActiveTiles(final int width, final int height, final IntConsumer onDeactivate) {
+        this.onDeactivate = onDeactivate;
+        this.width = width;
+        this.height = height;
+        this.columns = (width + TILE_SIZE - 1) >> TILE_SHIFT;
+        this.rows = (height + TILE_SIZE - 1) >> TILE_SHIFT;
+        this.front = new boolean[this.columns * this.rows];
+        this.back = new boolean[this.columns * this.rows];
+    }
+
+    public int getColumns() {
+        return this.columns;
+    }
+
+    public int getRows() {
+        return this.rows;
+    }
+
+    public int size() {
+        return this.front.length;
+    }
+
+    public int indexOf(final int column, final int row) {
+        return row * this.columns + column;
+    }
+
+    public int columnOf(final int x) {
+        return x >> TILE_SHIFT;
+    }
+
+    public int rowOf(final int y) {
+        return y >> TILE_SHIFT;
+    }
+
+    public int getStartX(final int column) {
+        return column << TILE_SHIFT;
+    }
+
+    public int getEndX(final int column) {
+        return Math.min((column + 1) << TILE_SHIFT, this.width);
+    }
+
+    public int getStartY(final int row) {
+        return row << TILE_SHIFT;
+    }
+
+    public int getEndY(final int row) {
+        return Math.min((row + 1) << TILE_SHIFT, this.height);
+    }
+
+    public boolean isActive(final int tile) {
+        return this.front[tile];
+    }
+
+    /**
+     * Checks whether a tile or any of the eight tiles around it, wrapping at the borders, is active.
+     * A behaviour spreading pheromone to the neighbourhood of each cell can only change the cells of
+     * such a tile.
+     *
+     * @param column The column of the tile.
+     * @param row    The row of the tile.
+     * @return {@code true} if pheromone can reach the tile from its neighbourhood.
+     */
+    public boolean isActiveAround(final int column, final int row) {
+        for(int dy = -1; dy <= 1; dy++) {
+            final int base = Math.floorMod(row + dy, this.rows) * this.columns;
+            for(int dx = -1; dx <= 1; dx++)
+                if(this.front[base + Math.floorMod(column + dx, this.columns)])
+                    return true;
+        }
+        return false;
+    }
+
+    public void activate(final int tile) {
+        this.front[tile] = true;
+    }
+
+    /**
+     * Activates the tile holding a cell.
+     *
+     * @param index The index of the cell, as in {@link World#indexOf(int, int)}.
+     */
+    public void activateCell(final int index) {
+        final int y = index / this.width;
+        this.front[(y >> TILE_SHIFT) * this.columns + ((index - y * this.width) >> TILE_SHIFT)] = true;
+    }
+
+    public void deactivate(final int tile) {
+        this.front[tile] = false;
+        if(this.onDeactivate != null)
+            this.onDeactivate.accept(tile);
+    }
+
+    /**
+     * Activates every tile, for when the field has been written without going through the world.
+     */
+    public void activateAll() {
+        Arrays.fill(this.front, true);
+    }
+
+    public boolean isBackActive(final int tile) {
+        return this.back[tile];
+    }
+
+    public void setBackActive(final int tile, final boolean active) {
+        this.back[tile] = active;
+    }
+
+    /**
+     * Counts the active tiles.
+     *
+     * @return The number of active tiles.
+     */
+    public int countActive() {
+        int count = 0;
+        for(final boolean active : this.front)
+            if(active)
+                count++;
+        return count;
+    }
+
+    void clear() {
+        Arrays.fill(this.front, false);
+        Arrays.fill(this.back, false);
+    }
+
+    void swap() {
+        final boolean[] front = this.front;
+        this.front = this.back;
+        this.back = front;
+    }
+}
@@ -0,0 +1,77 @@
+package it.unibo.core.entity;
+
+import java.util.*;
+
+/**
+ * A grid world that keeps its pheromone field in a single row-major {@code double[]}.
+ * Behaviours that work through the index-based accessors of {@link World} never touch
+ * an object, while {@link Patch}es are only created, once, as views over the field
+ * when the {@link Patch}-based API is used.
+ *
+ * The back buffer required by {@link BufferedWorld} is allocated the first time it is requested.
+ * The tiles holding pheromone are tracked in an {@link ActiveTiles} bitmap, swapped with the buffers.
+ */
+public class ArrayGridWorld extends AbstractGridWorld implements BufferedWorld, TiledWorld, ResettableWorld {
+    private double[] field;
+    private double[] back;
+    private final ActiveTiles tiles;
+
+    private ArrayGridWorld(final int width, final int height, final int numSlimes, final int seed) {
+        super(width, height, numSlimes, seed);
+        this.field = new double[width * height];
+        this.tiles = new ActiveTiles(width, height);
+        this.initSlimes(numSlimes, seed);
+    }
+
+    public static ArrayGridWorld create(final int width, final int height, final int numSlimes) {
+        return new ArrayGridWorld(width, height, numSlimes, randomSeed());
+    }
+
+    public static ArrayGridWorld create(final int width, final int height, final int numSlimes, final int seed) {
+        return new ArrayGridWorld(width, height, numSlimes, seed);
+    }
+
+    @Override
+    public double getPheromone(int index) {
+        return this.field[index];
+    }
+
+    @Override
+    public void setPheromone(int index, double pheromone) {
+        this.field[index] = pheromone;
+        if(pheromone != 0)
+            this.tiles.activateCell(index);
+    }
+
+    @Override
+    public ActiveTiles getActiveTiles() {
+        return this.tiles;
+    }
+
+    @Override
+    public double[] getFrontBuffer() {
+        return this.field;
+    }
+
+    @Override
+    public double[] getBackBuffer() {
+        if(this.back == null)
+            this.back = new double[this.field.length];
+        return this.back;
+    }
+
+    @Override
+    public void swapBuffers() {
+        final double[] front = this.field;
+        this.field = this.getBackBuffer();
+        this.back = front;
+        this.tiles.swap();
+    }
+
+    @Override
+    public void reset(final int seed) {
+        Arrays.fill(this.field, 0);
+        this.tiles.clear();
+        this.resetSlimes(seed);
+    }
+}
@@ -0,0 +1,31 @@
+package it.unibo.core.entity;
+
+/**
+ * A {@link World} that keeps its pheromone field in two row-major buffers.
+ * The front buffer is the current state of the world, while the back buffer is
+ * scratch space where a behaviour can write the next state before swapping them.
+ * This lets behaviours read a consistent field while writing, so the cells can be
+ * updated in any order, or concurrently.
+ */
+public interface BufferedWorld extends World {
+
+    /**
+     * Returns the buffer holding the current pheromone field, indexed as in {@link #indexOf(int, int)}.
+     *
+     * @return The front buffer of the world.
+     */
+    double[] getFrontBuffer();
+
+    /**
+     * Returns the scratch buffer, with the same size and layout of the front buffer.
+     * Its content is unspecified until it is written.
+     *
+     * @return The back buffer of the world.
+     */
+    double[] getBackBuffer();
+
+    /**
+     * Swaps the buffers, making the back buffer the current pheromone field.
+     */
+    void swapBuffers();
+}
@@ -0,0 +1,165 @@
+package it.unibo.core.entity;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * A table holding an {@code int} for each cell of a world, used by {@link AbstractGridWorld}
+ * for its occupancy grid. It is either an array on the heap, a list of segments of memory
+ * outside of it, or chunks allocated only where a cell differs from the initial value.
+ * Cells are addressed by their row-major offset as a {@code long}, so that the tables outside
+ * of the heap can be larger than an array.
+ */
+abstract class CellTable {
+
+    /**
+     * Allocates the tables of a world.
+     */
+    @FunctionalInterface
+    interface Allocator {
+        /**
+         * Allocates a table.
+         *
+         * @param size    The number of cells of the table.
+         * @param initial The value of every cell of the new table.
+         * @return The new table.
+         */
+        CellTable allocate(long size, int initial);
+    }
+
+    abstract int get(long cell);
+
+    abstract void set(long cell, int value);
+
+    static CellTable onHeap(final long size, final int initial) {
+        return new HeapTable(Math.toIntExact(size), initial);
+    }
+
+    /**
+     * Creates a table over segments of zeroed memory, each one holding {@link OffHeapMemory#SEGMENT_BYTES} bytes
+     * but the last one.
+     */
+    static CellTable offHeap(final ByteBuffer[] segments, final int initial) {
+        return new OffHeapTable(segments, initial);
+    }
+
+    /**
+     * Creates a table split in the square tiles of {@link ActiveTiles}, each one allocated when one of its
+     * cells is set to a value other than the initial one, and released to a pool once they all hold it again.
+     */
+    static CellTable chunked(final int width, final int height, final int initial) {
+        return new ChunkedTable(width, height, initial);
+    }
+
+    private static final class HeapTable extends CellTable {
+        private final int[] values;
+
+        private HeapTable(final int size, final int initial) {
+            this.values = new int[size];
+            if(initial != 0)
+                Arrays.fill(this.values, initial);
+        }
+
+        @Override
+        int get(final long cell) {
+            return this.values[(int) cell];
+        }
+
+        @Override
+        void set(final long cell, final int value) {
+            this.values[(int) cell] = value;
+        }
+    }
+
+    /*
+     * Values are stored as their difference from the initial one, so that a table over freshly zeroed
+     * memory is ready without writing, and thus without touching, every page of it.
+     */
+    private static final class OffHeapTable extends CellTable {
+        private static final int SHIFT = OffHeapMemory.SEGMENT_SHIFT - 2;
+        private static final int MASK = (1 << SHIFT) - 1;
+
+        private final IntBuffer[] segments;
+        private final int initial;
+
+        private OffHeapTable(final ByteBuffer[] segments, final int initial) {
+            this.segments = new IntBuffer[segments.length];
+            for(int i = 0; i < segments.length; i++)
+                this.segments[i] = segments[i].order(ByteOrder.nativeOrder()).asIntBuffer();
+            this.initial = initial;
+        }
+
+        @Override
+        int get(final long cell) {
+            return this.segments[(int) (cell >>> SHIFT)].get((int) cell & MASK) + this.initial;
+        }
+
+        @Override
+        void set(final long cell, final int value) {
+            this.segments[(int) (cell >>> SHIFT)].put((int) cell & MASK, value - this.initial);
+        }
+    }
+
+    private static final class ChunkedTable extends CellTable {
+        private static final int SHIFT = 5;
+        private static final int MASK = ActiveTiles.TILE_SIZE - 1;
+
+        private final int width;
+        private final int columns;
+        private final int initial;
+        private final int[][] chunks;
+        /*
+         * The number of cells of each chunk that differ from the initial value.
+         */
+        private final int[] changed;
+        private final ArrayDeque<int[]> pool = new ArrayDeque<>();
+
+        private ChunkedTable(final int width, final int height, final int initial) {
+            this.width = width;
+            this.columns = (width + MASK) >> SHIFT;
+            this.initial = initial;
+            this.chunks = new int[this.columns * ((height + MASK) >> SHIFT)][];
+            this.changed = new int[this.chunks.length];
+        }
+
+        @Override
+        int get(final long cell) {
+            final int index = (int) cell;
+            final int y = index / this.width;
+            final int x = index - y * this.width;
+            final int[] chunk = this.chunks[(y >> SHIFT) * this.columns + (x >> SHIFT)];
+            return chunk == null ? this.initial : chunk[(y & MASK) << SHIFT | x & MASK];
+        }
+
+        @Override
+        void set(final long cell, final int value) {
+            final int index = (int) cell;
+            final int y = index / this.width;
+            final int x = index - y * this.width;
+            final int tile = (y >> SHIFT) * this.columns + (x >> SHIFT);
+            int[] chunk = this.chunks[tile];
+            if(chunk == null) {
+                if(value == this.initial)
+                    return;
+                chunk = this.pool.poll();
+                if(chunk == null) {
+                    chunk = new int[ActiveTiles.TILE_SIZE * ActiveTiles.TILE_SIZE];
+                    if(this.initial != 0)
+                        Arrays.fill(chunk, this.initial);
+                }
+                this.chunks[tile] = chunk;
+            }
+            final int offset = (y & MASK) << SHIFT | x & MASK;
+            this.changed[tile] += (value != this.initial ? 1 : 0) - (chunk[offset] != this.initial ? 1 : 0);
+            chunk[offset] = value;
+            if(this.changed[tile] == 0) {
+                // every cell holds the initial value again, as a pooled chunk must
+                this.chunks[tile] = null;
+                this.pool.push(chunk);
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package it.unibo.core.entity;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * A grid world for huge fields that stay mostly empty. Its pheromone field is split in the square
+ * tiles of its {@link ActiveTiles}, and the levels of a tile are only allocated once a non-zero level
+ * is written to it, by a slime dropping pheromone or by diffusion reaching it. When evaporation
+ * finds a tile empty and deactivates it, its chunk is given back to a pool, from which the next
+ * tiles to receive pheromone take theirs. The occupancy grid is split the same way, its chunks
+ * allocated when a slime enters a tile and released when the last one leaves it.
+ *
+ * Creating the world only allocates the slimes and a few references per tile, so memory follows
+ * the area the slimes and their pheromone cover rather than the size of the world, and a world of
+ * a billion cells starts in an instant. Reading a cell costs a division to find its tile, the same
+ * as activating it in the other worlds.
+ *
+ * Levels smaller than an epsilon, by default the one of evaporation, are not written to a tile
+ * without a chunk, so that the traces diffusion would spread over the empty tiles only to be
+ * evaporated at once do not allocate them.
+ *
+ * Behaviours reach the field through the accessors of {@link World}. Double-buffered diffusion
+ * streams it from several threads in bands of whole rows of tiles, so the chunk of a tile is only
+ * ever written by a single thread; taking a chunk from the pool and giving it back are atomic. The
+ * occupancy grid is only written by the moves of the slimes, which are applied on a single thread.
+ * The {@link Patch}-based API creates a view per cell.
+ */
+public class ChunkedGridWorld extends AbstractGridWorld implements TiledWorld, ResettableWorld {
+    /**
+     * The largest number of free chunks kept for reuse, 8 MiB of levels. Further released chunks are
+     * left to the garbage collector, so that memory shrinks when the pheromone does.
+     */
+    public static final int MAX_POOLED_CHUNKS = 1024;
+    /**
+     * The default smallest level written to a tile without a chunk, the same as the epsilon of evaporation.
+     */
+    public static final double DEFAULT_EPSILON = 1e-6;
+    private static final int SHIFT = 5;
+    private static final int MASK = ActiveTiles.TILE_SIZE - 1;
+    private static final int CHUNK_CELLS = ActiveTiles.TILE_SIZE * ActiveTiles.TILE_SIZE;
+
+    private final double[][] chunks;
+    private final ActiveTiles tiles;
+    private final double epsilon;
+    // guards the pool and the count of allocated chunks
+    private final ArrayDeque<double[]> pool = new ArrayDeque<>();
+    private int allocated;
+
+    private ChunkedGridWorld(final int width, final int height, final int numSlimes, final int seed, final double epsilon) {
+        super(width, height, numSlimes, seed, (size, initial) -> CellTable.chunked(width, height, initial), Integer.MAX_VALUE);
+        if(!(epsilon >= 0))
+            throw new IllegalArgumentException("Epsilon must not be negative");
+        this.epsilon = epsilon;
+        this.tiles = new ActiveTiles(width, height, this::release);
+        this.chunks = new double[this.tiles.size()][];
+        this.initSlimes(numSlimes, seed);
+    }
+
+    public static ChunkedGridWorld create(final int width, final int height, final int numSlimes) {
+        return new ChunkedGridWorld(width, height, numSlimes, randomSeed(), DEFAULT_EPSILON);
+    }
+
+    public static ChunkedGridWorld create(final int width, final int height, final int numSlimes, final int seed) {
+        return new ChunkedGridWorld(width, height, numSlimes, seed, DEFAULT_EPSILON);
+    }
+
+    /**
+     * Creates a world that does not allocate a tile for levels smaller than the given epsilon.
+     *
+     * @param width     The width of the world.
+     * @param height    The height of the world.
+     * @param numSlimes The number of slimes.
+     * @param seed      The seed used to place the slimes.
+     * @param epsilon   The smallest level, in absolute value, written to a tile without a chunk; 0 to write them all.
+     * @return The new world.
+     */
+    public static ChunkedGridWorld create(final int width, final int height, final int numSlimes, final int seed, final double epsilon) {
+        return new ChunkedGridWorld(width, height, numSlimes, seed, epsilon);
+    }
+
+    @Override
+    public double getPheromone(int index) {
+        final int y = index / this.getWidth();
+        return this.getPheromone(index - y * this.getWidth(), y);
+    }
+
+    @Override
+    public void setPheromone(int index, double pheromone) {
+        final int y = index / this.getWidth();
+        this.setPheromone(index - y * this.getWidth(), y, pheromone);
+    }
+
+    @Override
+    public double getPheromone(final int x, final int y) {
+        final double[] chunk = this.chunks[this.tiles.indexOf(x >> SHIFT, y >> SHIFT)];
+        return chunk == null ? 0 : chunk[(y & MASK) << SHIFT | x & MASK];
+    }
+
+    @Override
+    public void setPheromone(final int x, final int y, final double pheromone) {
+        final int tile = this.tiles.indexOf(x >> SHIFT, y >> SHIFT);
+        double[] chunk = this.chunks[tile];
+        if(chunk == null) {
+            // an empty tile stays unallocated until it receives a level worth keeping
+            if(pheromone == 0 || Math.abs(pheromone) < this.epsilon)
+                return;
+            chunk = this.allocate();
+            this.chunks[tile] = chunk;
+        }
+        chunk[(y & MASK) << SHIFT | x & MASK] = pheromone;
+        if(pheromone != 0)
+            this.tiles.activate(tile);
+    }
+
+    @Override
+    public ActiveTiles getActiveTiles() {
+        return this.tiles;
+    }
+
+    @Override
+    public void reset(final int seed) {
+        for(int tile = 0; tile < this.chunks.length; tile++)
+            this.release(tile);
+        this.tiles.clear();
+        this.resetSlimes(seed);
+    }
+
+    /**
+     * Returns the number of chunks of the field in use, each holding the levels of a tile.
+     *
+     * @return The number of allocated chunks.
+     */
+    public int getAllocatedChunks() {
+        synchronized(this.pool) {
+            return this.allocated;
+        }
+    }
+
+    /**
+     * Returns the number of free chunks kept for reuse.
+     *
+     * @return The number of pooled chunks.
+     */
+    public int getPooledChunks() {
+        synchronized(this.pool) {
+            return this.pool.size();
+        }
+    }
+
+    private double[] allocate() {
+        synchronized(this.pool) {
+            this.allocated++;
+            final double[] chunk = this.pool.poll();
+            return chunk == null ? new double[CHUNK_CELLS] : chunk;
+        }
+    }
+
+    /*
+     * Frees the chunk of a tile found empty. Tiles are deactivated only when all their cells are zero,
+     * but a chunk is cleared anyway before going back to the pool, so that the chunks taken from it are empty.
+     */
+    private void release(final int tile) {
+        final double[] chunk = this.chunks[tile];
+        if(chunk == null)
+            return;
+        this.chunks[tile] = null;
+        synchronized(this.pool) {
+            this.allocated--;
+            if(this.pool.size() < MAX_POOLED_CHUNKS) {
+                Arrays.fill(chunk, 0);
+                this.pool.push(chunk);
+            }
+        }
+    }
+}
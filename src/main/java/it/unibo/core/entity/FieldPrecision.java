@@ -0,0 +1,32 @@
+package it.unibo.core.entity;
+
+/**
+ * The precision the pheromone field of an array-backed world is stored and computed with.
+ */
+public enum FieldPrecision {
+    /**
+     * Double precision, kept by {@link ArrayGridWorld}.
+     */
+    DOUBLE,
+    /**
+     * Single precision, kept by {@link FloatGridWorld}: half the memory and bandwidth, with
+     * levels rounded to about seven significant digits.
+     */
+    FLOAT;
+
+    /**
+     * Creates an array-backed world storing its field with this precision.
+     *
+     * @param width     The width of the world.
+     * @param height    The height of the world.
+     * @param numSlimes The number of slimes.
+     * @param seed      The seed used to place the slimes.
+     * @return The new world.
+     */
+    public ResettableWorld createWorld(final int width, final int height, final int numSlimes, final int seed) {
+        return switch(this) {
+            case DOUBLE -> ArrayGridWorld.create(width, height, numSlimes, seed);
+            case FLOAT -> FloatGridWorld.create(width, height, numSlimes, seed);
+        };
+    }
+}
@@ -0,0 +1,30 @@
+package it.unibo.core.entity;
+
+/**
+ * A {@link World} that keeps its pheromone field in two row-major single-precision buffers,
+ * as a {@link BufferedWorld} does with double precision. Levels read through
+ * {@link #getPheromone(int)} are widened to {@code double}, and levels written through
+ * {@link #setPheromone(int, double)} are rounded to the nearest {@code float}.
+ */
+public interface FloatBufferedWorld extends World {
+
+    /**
+     * Returns the buffer holding the current pheromone field, indexed as in {@link #indexOf(int, int)}.
+     *
+     * @return The front buffer of the world.
+     */
+    float[] getFrontBuffer();
+
+    /**
+     * Returns the scratch buffer, with the same size and layout of the front buffer.
+     * Its content is unspecified until it is written.
+     *
+     * @return The back buffer of the world.
+     */
+    float[] getBackBuffer();
+
+    /**
+     * Swaps the buffers, making the back buffer the current pheromone field.
+     */
+    void swapBuffers();
+}
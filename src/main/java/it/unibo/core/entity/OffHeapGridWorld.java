@@ -0,0 +1,118 @@
+package it.unibo.core.entity;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.file.Path;
+
+/**
+ * A grid world that keeps its pheromone field, and the occupancy grid of its slimes, outside of
+ * the heap, so that fields much larger than the heap can be simulated without the garbage collector
+ * ever scanning or moving them. The memory is either allocated directly, or mapped from a file so
+ * that the operating system can page out the regions of the field nobody is visiting.
+ *
+ * The field is split in segments of 1 GiB, as a single buffer cannot be larger than 2 GiB; a cell
+ * costs 16 bytes overall, 8 for its pheromone level and 8 for the occupancy grid. The slimes
+ * themselves are few compared to the cells and stay on the heap.
+ *
+ * Unlike the other worlds, the number of cells can exceed {@link Integer#MAX_VALUE}: the field is
+ * addressed by {@code long} offsets through the coordinate accessors of {@link World}, which the
+ * behaviours use on tiled worlds, while {@link #indexOf(int, int)} throws an {@link ArithmeticException}
+ * for the cells an {@code int} cannot reach. This world is not a {@link BufferedWorld}; the tiles
+ * holding pheromone are tracked, so the behaviours never visit the quiet regions of the field. Only a
+ * field mapped from a file leaves them unpaged: direct memory is zero-filled by the JVM, and so touched
+ * whole, when the world is created. Closing the world writes a mapped field back to its file.
+ */
+public class OffHeapGridWorld extends AbstractGridWorld implements TiledWorld, Closeable {
+    private static final int SHIFT = OffHeapMemory.SEGMENT_SHIFT - 3;
+    private static final int MASK = (1 << SHIFT) - 1;
+    private static final long MAX_CELLS = (long) Integer.MAX_VALUE << SHIFT;
+
+    private final OffHeapMemory memory;
+    private final DoubleBuffer[] field;
+    private final ActiveTiles tiles;
+
+    private OffHeapGridWorld(final int width, final int height, final int numSlimes, final int seed, final OffHeapMemory memory) {
+        super(width, height, numSlimes, seed, (size, initial) -> CellTable.offHeap(memory.allocate(4L * size), initial), MAX_CELLS);
+        this.memory = memory;
+        final ByteBuffer[] segments = memory.allocate(8L * width * height);
+        this.field = new DoubleBuffer[segments.length];
+        for(int i = 0; i < segments.length; i++)
+            this.field[i] = segments[i].order(ByteOrder.nativeOrder()).asDoubleBuffer();
+        this.tiles = new ActiveTiles(width, height);
+        this.initSlimes(numSlimes, seed);
+    }
+
+    public static OffHeapGridWorld create(final int width, final int height, final int numSlimes) {
+        return new OffHeapGridWorld(width, height, numSlimes, randomSeed(), OffHeapMemory.direct());
+    }
+
+    public static OffHeapGridWorld create(final int width, final int height, final int numSlimes, final int seed) {
+        return new OffHeapGridWorld(width, height, numSlimes, seed, OffHeapMemory.direct());
+    }
+
+    /**
+     * Creates a world whose memory is mapped from a file. The file is created, or truncated if it exists,
+     * and is not meant to be read back: use it as swap space for fields larger than the physical memory.
+     *
+     * @param width     The width of the world.
+     * @param height    The height of the world.
+     * @param numSlimes The number of slimes.
+     * @param seed      The seed used to place the slimes.
+     * @param file      The file the memory of the world is mapped from.
+     * @return The new world.
+     * @throws IOException If the file cannot be opened.
+     */
+    public static OffHeapGridWorld create(final int width, final int height, final int numSlimes, final int seed, final Path file) throws IOException {
+        final OffHeapMemory memory = OffHeapMemory.mapped(file);
+        try {
+            return new OffHeapGridWorld(width, height, numSlimes, seed, memory);
+        } catch(final RuntimeException e) {
+            memory.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public double getPheromone(int index) {
+        return this.field[index >>> SHIFT].get(index & MASK);
+    }
+
+    @Override
+    public void setPheromone(int index, double pheromone) {
+        this.field[index >>> SHIFT].put(index & MASK, pheromone);
+        if(pheromone != 0)
+            this.tiles.activateCell(index);
+    }
+
+    @Override
+    public double getPheromone(final int x, final int y) {
+        final long cell = (long) y * this.getWidth() + x;
+        return this.field[(int) (cell >>> SHIFT)].get((int) cell & MASK);
+    }
+
+    @Override
+    public void setPheromone(final int x, final int y, final double pheromone) {
+        final long cell = (long) y * this.getWidth() + x;
+        this.field[(int) (cell >>> SHIFT)].put((int) cell & MASK, pheromone);
+        if(pheromone != 0)
+            this.tiles.activate(this.tiles.indexOf(this.tiles.columnOf(x), this.tiles.rowOf(y)));
+    }
+
+    @Override
+    public int indexOf(final int x, final int y) {
+        return Math.toIntExact((long) y * this.getWidth() + x);
+    }
+
+    @Override
+    public ActiveTiles getActiveTiles() {
+        return this.tiles;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.memory.close();
+    }
+}
@@ -0,0 +1,83 @@
+package it.unibo.core.entity;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Memory outside of the heap, handed out in consecutive regions split into segments of at most
+ * {@link #SEGMENT_BYTES} bytes, as a single buffer cannot be larger than 2 GiB.
+ * The memory is either allocated directly, counting towards {@code -XX:MaxDirectMemorySize}, or
+ * mapped from a file, whose cold pages are then written back and evicted by the operating system.
+ * Every region starts zeroed.
+ */
+final class OffHeapMemory implements Closeable {
+    static final int SEGMENT_SHIFT = 30;
+    static final int SEGMENT_BYTES = 1 << SEGMENT_SHIFT;
+
+    private final FileChannel channel;
+    private final List<MappedByteBuffer> mapped = new ArrayList<>();
+    private long position;
+
+    private OffHeapMemory(final FileChannel channel) {
+        this.channel = channel;
+    }
+
+    static OffHeapMemory direct() {
+        return new OffHeapMemory(null);
+    }
+
+    /**
+     * Maps memory from a file, which is created, or truncated if it exists.
+     */
+    static OffHeapMemory mapped(final Path file) throws IOException {
+        return new OffHeapMemory(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE));
+    }
+
+    /**
+     * Allocates the next region, split in segments.
+     *
+     * @param bytes The size of the region.
+     * @return The segments of the region, all of {@link #SEGMENT_BYTES} bytes but the last one.
+     */
+    ByteBuffer[] allocate(final long bytes) {
+        final ByteBuffer[] segments = new ByteBuffer[(int) ((bytes + SEGMENT_BYTES - 1) >> SEGMENT_SHIFT)];
+        for(int i = 0; i < segments.length; i++) {
+            final int size = (int) Math.min(SEGMENT_BYTES, bytes - ((long) i << SEGMENT_SHIFT));
+            if(this.channel == null) {
+                segments[i] = ByteBuffer.allocateDirect(size);
+            } else {
+                try {
+                    final MappedByteBuffer segment = this.channel.map(FileChannel.MapMode.READ_WRITE, this.position, size);
+                    this.mapped.add(segment);
+                    segments[i] = segment;
+                } catch(final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            this.position += size;
+        }
+        return segments;
+    }
+
+    /**
+     * Writes the mapped memory back to its file, and closes the file. Direct memory is released once
+     * its buffers are collected.
+     */
+    @Override
+    public void close() throws IOException {
+        if(this.channel != null) {
+            for(final MappedByteBuffer segment : this.mapped)
+                segment.force();
+            this.channel.close();
+        }
+    }
+}
@@ -9,6 +9,10 @@
  * like slimes.
  *
  * The pheromone level is constrained to be within the range of 0.0 to 1.0.
+ *
+ * Worlds that keep their field in primitive storage hand out patches that are
+ * views over it, so reading or writing the pheromone of a patch always reflects
+ * the state of the world.
  */
 public class Patch {
 
@@ -0,0 +1,29 @@
+package it.unibo.core.entity;
+
+import it.unibo.core.Position;
+
+/**
+ * A {@link Patch} that does not own its pheromone level, but reads and writes
+ * the cell of the world it refers to. It lets the {@link Patch}-based API work on
+ * worlds that keep their field in primitive storage.
+ */
+final class PatchView extends Patch {
+    private final World world;
+    private final int index;
+
+    PatchView(final World world, final Position position) {
+        super(position, 0.0);
+        this.world = world;
+        this.index = world.indexOf(position.x(), position.y());
+    }
+
+    @Override
+    public double getPheromone() {
+        return this.world.getPheromone(this.index);
+    }
+
+    @Override
+    public void setPheromone(double pheromone) {
+        this.world.setPheromone(this.index, pheromone);
+    }
+}
@@ -0,0 +1,17 @@
+package it.unibo.core.entity;
+
+/**
+ * A {@link World} that can be brought back to the state of a new one, with the same size and number
+ * of slimes, without allocating anything. Runs of a sweep reuse a world this way instead of creating
+ * one per run.
+ */
+public interface ResettableWorld extends World {
+
+    /**
+     * Clears the pheromone field and places the slimes as a world just created with a seed.
+     * The {@link Slime} and {@link Patch} objects of the world stay valid.
+     *
+     * @param seed The seed used to place the slimes.
+     */
+    void reset(int seed);
+}
@@ -17,15 +17,23 @@ public class Slime {
      */
     private final World world;
 
+    /**
+     * The identifier of this slime, unique within its world.
+     */
+    private final int id;
+
     /**
      * Constructs a {@code Slime} with a reference to the world it inhabits.
      *
      * @param world The simulation world to which this slime belongs.
      *              This world is used as the context for various behaviors
      *              and interactions of the slime.
+     * @param id    The identifier of the slime, between 0 (inclusive) and the
+     *              number of slimes of the world (exclusive).
      */
-    public Slime(final World world) {
+    public Slime(final World world, final int id) {
         this.world = world;
+        this.id = id;
     }
 
     /**
@@ -37,4 +45,14 @@ public Slime(final World world) {
     public World getWorld() {
         return this.world;
     }
+
+    /**
+     * Returns the identifier of this slime. Identifiers are stable for the whole
+     * life of the world, and can be used to index per-slime data.
+     *
+     * @return The identifier of the slime.
+     */
+    public int getId() {
+        return this.id;
+    }
 }
@@ -0,0 +1,16 @@
+package it.unibo.core.entity;
+
+/**
+ * A {@link World} that tracks which tiles of its field may hold pheromone, so that behaviours
+ * and views only visit the parts of the field where something happens.
+ */
+public interface TiledWorld extends World {
+
+    /**
+     * Returns the bitmap of the active tiles of the field, kept up to date by
+     * {@link #setPheromone(int, double)}.
+     *
+     * @return The active tiles of the world.
+     */
+    ActiveTiles getActiveTiles();
+}
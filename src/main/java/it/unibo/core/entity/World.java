@@ -11,6 +11,18 @@
  */
 public interface World {
 
+    /**
+     * The number of cells in the Moore neighbourhood of a cell. Neighbours are identified by
+     * an offset {@code k} between 0 (inclusive) and this value (exclusive), so a random neighbour
+     * can be picked by drawing {@code k} uniformly in that range.
+     */
+    int NEIGHBOURHOOD_SIZE = 8;
+
+    /**
+     * The identifier returned by the occupancy queries when there is no slime.
+     */
+    int NO_SLIME = -1;
+
     /**
      * Returns the width of the simulation world.
      *
@@ -42,12 +54,79 @@ public interface World {
     void moveSlime(Slime slime, Position position);
 
     /**
-     * Returns a collection of all slimes present in the world.
+     * Returns a collection of all slimes present in the world, ordered by identifier.
      *
      * @return A collection of {@link Slime} objects representing all slimes in the world.
      */
     Collection<Slime> getSlimes();
 
+    /**
+     * Returns the number of slimes present in the world.
+     *
+     * @return The number of slimes.
+     */
+    int getSlimeCount();
+
+    /**
+     * Returns the slime with the specified identifier.
+     *
+     * @param id The identifier of the slime, between 0 (inclusive) and {@link #getSlimeCount()} (exclusive).
+     * @return The slime with the specified identifier.
+     */
+    Slime getSlime(int id);
+
+    /**
+     * Returns the column of the slime with the specified identifier.
+     *
+     * @param id The identifier of the slime.
+     * @return The column the slime is on.
+     */
+    int getSlimeX(int id);
+
+    /**
+     * Returns the row of the slime with the specified identifier.
+     *
+     * @param id The identifier of the slime.
+     * @return The row the slime is on.
+     */
+    int getSlimeY(int id);
+
+    /**
+     * Moves the slime with the specified identifier to the specified coordinates.
+     *
+     * @param id The identifier of the slime.
+     * @param x  The column the slime moves to.
+     * @param y  The row the slime moves to.
+     */
+    void moveSlime(int id, int x, int y);
+
+    /**
+     * Returns the number of slimes on the cell at the specified coordinates.
+     *
+     * @param x The column of the cell.
+     * @param y The row of the cell.
+     * @return The number of slimes on the cell.
+     */
+    int getSlimeCountAt(int x, int y);
+
+    /**
+     * Returns the identifier of a slime on the cell at the specified coordinates.
+     * The other slimes on the same cell are then found through {@link #getNextSlimeAt(int)}.
+     *
+     * @param x The column of the cell.
+     * @param y The row of the cell.
+     * @return The identifier of the first slime on the cell, or {@link #NO_SLIME} if the cell is empty.
+     */
+    int getFirstSlimeAt(int x, int y);
+
+    /**
+     * Returns the identifier of the next slime on the same cell of the specified slime.
+     *
+     * @param id The identifier of a slime.
+     * @return The identifier of the next slime on the same cell, or {@link #NO_SLIME} if there are no more.
+     */
+    int getNextSlimeAt(int id);
+
     /**
      * Returns a collection of all patches in the world.
      *
@@ -70,4 +149,129 @@ public interface World {
      * @return The {@link Patch} at the specified position.
      */
     Patch getPatch(Position position);
+
+    /**
+     * Returns the row-major index of the cell at the specified coordinates.
+     * Cells are laid out row by row, so the index of {@code (x, y)} is {@code y * width + x}.
+     * Worlds with more than {@link Integer#MAX_VALUE} cells cannot be indexed this way, and are
+     * only accessed through the coordinate-based accessors of the field.
+     *
+     * @param x The column of the cell.
+     * @param y The row of the cell.
+     * @return The index of the cell, between 0 (inclusive) and {@code width * height} (exclusive).
+     */
+    default int indexOf(final int x, final int y) {
+        return y * this.getWidth() + x;
+    }
+
+    /**
+     * Returns the pheromone level of the cell at the specified row-major index.
+     *
+     * @param index The index of the cell, as computed by {@link #indexOf(int, int)}.
+     * @return The current pheromone level of the cell.
+     */
+    double getPheromone(int index);
+
+    /**
+     * Sets the pheromone level of the cell at the specified row-major index.
+     *
+     * @param index     The index of the cell, as computed by {@link #indexOf(int, int)}.
+     * @param pheromone The new pheromone level of the cell.
+     */
+    void setPheromone(int index, double pheromone);
+
+    /**
+     * Returns the pheromone level of the cell at the specified coordinates. Unlike {@link #getPheromone(int)},
+     * it reaches every cell of a world with more than {@link Integer#MAX_VALUE} cells.
+     *
+     * @param x The column of the cell.
+     * @param y The row of the cell.
+     * @return The current pheromone level of the cell.
+     */
+    default double getPheromone(final int x, final int y) {
+        return this.getPheromone(this.indexOf(x, y));
+    }
+
+    /**
+     * Sets the pheromone level of the cell at the specified coordinates. Unlike {@link #setPheromone(int, double)},
+     * it reaches every cell of a world with more than {@link Integer#MAX_VALUE} cells.
+     *
+     * @param x         The column of the cell.
+     * @param y         The row of the cell.
+     * @param pheromone The new pheromone level of the cell.
+     */
+    default void setPheromone(final int x, final int y, final double pheromone) {
+        this.setPheromone(this.indexOf(x, y), pheromone);
+    }
+
+    /**
+     * Returns the column of a neighbour of the cells in column {@code x}, wrapping around the world edges.
+     * Neighbours are enumerated column by column, in the same order of {@link #getNeighborhood(Patch)}:
+     * offsets 0-2 are in the column on the left, 3-4 in the same column and 5-7 in the column on the right.
+     *
+     * @param x The column of the cell.
+     * @param k The offset of the neighbour, between 0 (inclusive) and {@link #NEIGHBOURHOOD_SIZE} (exclusive).
+     * @return The column of the neighbour.
+     */
+    int getNeighbourX(int x, int k);
+
+    /**
+     * Returns the row of a neighbour of the cells in row {@code y}, wrapping around the world edges.
+     * Within each column, neighbours are enumerated from the row above to the row below.
+     *
+     * @param y The row of the cell.
+     * @param k The offset of the neighbour, between 0 (inclusive) and {@link #NEIGHBOURHOOD_SIZE} (exclusive).
+     * @return The row of the neighbour.
+     */
+    int getNeighbourY(int y, int k);
+
+    /**
+     * Returns the row-major index of a neighbour of the cell at the specified coordinates.
+     * On worlds narrower or shorter than three cells, different offsets may refer to the same cell,
+     * or to the cell itself.
+     *
+     * @param x The column of the cell.
+     * @param y The row of the cell.
+     * @param k The offset of the neighbour, between 0 (inclusive) and {@link #NEIGHBOURHOOD_SIZE} (exclusive).
+     * @return The index of the neighbour.
+     */
+    default int getNeighbourIndex(final int x, final int y, final int k) {
+        return this.indexOf(this.getNeighbourX(x, k), this.getNeighbourY(y, k));
+    }
+
+    /**
+     * Returns the total pheromone level of the Moore neighbourhood of the cell at the specified coordinates.
+     *
+     * @param x The column of the cell.
+     * @param y The row of the cell.
+     * @return The sum of the pheromone levels of the neighbours.
+     */
+    default double sumNeighbourhood(final int x, final int y) {
+        double sum = 0;
+        for (int k = 0; k < NEIGHBOURHOOD_SIZE; k++) {
+            sum += this.getPheromone(this.getNeighbourX(x, k), this.getNeighbourY(y, k));
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the offset of the neighbour with the highest pheromone level. In case of ties,
+     * the neighbour with the lowest offset is returned.
+     *
+     * @param x The column of the cell.
+     * @param y The row of the cell.
+     * @return The offset of the neighbour with the highest pheromone level.
+     */
+    default int getMaxNeighbour(final int x, final int y) {
+        int max = 0;
+        double maxPheromone = this.getPheromone(this.getNeighbourX(x, 0), this.getNeighbourY(y, 0));
+        for (int k = 1; k < NEIGHBOURHOOD_SIZE; k++) {
+            final double pheromone = this.getPheromone(this.getNeighbourX(x, k), this.getNeighbourY(y, k));
+            if (pheromone > maxPheromone) {
+                max = k;
+                maxPheromone = pheromone;
+            }
+        }
+        return max;
+    }
 }
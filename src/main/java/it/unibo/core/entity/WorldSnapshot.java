@@ -0,0 +1,243 @@
+package it.unibo.core.entity;
+
+import it.unibo.core.Position;
+
+import java.util.*;
+
+/**
+ * A read-only copy of a {@link World} at the end of a tick: its pheromone field, widened to
+ * {@code double}, and the positions of its slimes. It is handed to observers running on other
+ * threads in place of the live world, which keeps changing under them.
+ *
+ * Every method changing the world throws {@link UnsupportedOperationException}. The occupancy of the
+ * cells, the slimes and the {@link Patch}es are only built when first asked for, on the thread reading
+ * the snapshot. A snapshot can be refilled with {@link #copyFrom(World, long)} to reuse its memory.
+ */
+public final class WorldSnapshot implements World {
+    private static final int[] NEIGHBOUR_DX = {-1, -1, -1, 0, 0, 1, 1, 1};
+    private static final int[] NEIGHBOUR_DY = {-1, 0, 1, -1, 1, -1, 0, 1};
+
+    private final int width;
+    private final int height;
+    private final double[] field;
+    private final int[] slimeX;
+    private final int[] slimeY;
+    private long tick;
+    private int[] cellHead;
+    private int[] nextInCell;
+    private boolean linked;
+    private List<Slime> slimes;
+    private Patch[] views;
+
+    private WorldSnapshot(final int width, final int height, final int numSlimes) {
+        if((long) width * height > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("A snapshot can only copy worlds of at most " + Integer.MAX_VALUE + " cells");
+        this.width = width;
+        this.height = height;
+        this.field = new double[width * height];
+        this.slimeX = new int[numSlimes];
+        this.slimeY = new int[numSlimes];
+    }
+
+    /**
+     * Copies the state of a world.
+     *
+     * @param world The world to copy.
+     * @param tick  The tick the world has just simulated.
+     * @return The snapshot of the world.
+     */
+    public static WorldSnapshot of(final World world, final long tick) {
+        final WorldSnapshot snapshot = new WorldSnapshot(world.getWidth(), world.getHeight(), world.getSlimeCount());
+        snapshot.copyFrom(world, tick);
+        return snapshot;
+    }
+
+    /**
+     * Replaces the content of this snapshot with the state of a world of the same size.
+     * It must not be called while another thread reads the snapshot.
+     *
+     * @param world The world to copy.
+     * @param tick  The tick the world has just simulated.
+     */
+    public void copyFrom(final World world, final long tick) {
+        if(world.getWidth() != this.width || world.getHeight() != this.height || world.getSlimeCount() != this.slimeX.length)
+            throw new IllegalArgumentException("The world must have the size and the slimes of the snapshot");
+        this.tick = tick;
+        if(world instanceof BufferedWorld buffered) {
+            System.arraycopy(buffered.getFrontBuffer(), 0, this.field, 0, this.field.length);
+        } else if(world instanceof FloatBufferedWorld floats) {
+            final float[] front = floats.getFrontBuffer();
+            for(int i = 0; i < this.field.length; i++)
+                this.field[i] = front[i];
+        } else {
+            for(int i = 0; i < this.field.length; i++)
+                this.field[i] = world.getPheromone(i);
+        }
+        for(int id = 0; id < this.slimeX.length; id++) {
+            this.slimeX[id] = world.getSlimeX(id);
+            this.slimeY[id] = world.getSlimeY(id);
+        }
+        this.linked = false;
+    }
+
+    /**
+     * Returns the tick the world had just simulated when it was copied.
+     *
+     * @return The tick of the snapshot.
+     */
+    public long getTick() {
+        return this.tick;
+    }
+
+    @Override
+    public int getWidth() {
+        return this.width;
+    }
+
+    @Override
+    public int getHeight() {
+        return this.height;
+    }
+
+    @Override
+    public Position getSlimePosition(Slime slime) {
+        return new Position(this.slimeX[slime.getId()], this.slimeY[slime.getId()]);
+    }
+
+    @Override
+    public void moveSlime(Slime slime, Position position) {
+        throw new UnsupportedOperationException("A snapshot is read-only");
+    }
+
+    @Override
+    public Collection<Slime> getSlimes() {
+        if(this.slimes == null) {
+            final List<Slime> slimes = new ArrayList<>(this.slimeX.length);
+            for(int id = 0; id < this.slimeX.length; id++)
+                slimes.add(new Slime(this, id));
+            this.slimes = Collections.unmodifiableList(slimes);
+        }
+        return this.slimes;
+    }
+
+    @Override
+    public int getSlimeCount() {
+        return this.slimeX.length;
+    }
+
+    @Override
+    public Slime getSlime(int id) {
+        return ((List<Slime>) this.getSlimes()).get(id);
+    }
+
+    @Override
+    public int getSlimeX(int id) {
+        return this.slimeX[id];
+    }
+
+    @Override
+    public int getSlimeY(int id) {
+        return this.slimeY[id];
+    }
+
+    @Override
+    public void moveSlime(int id, int x, int y) {
+        throw new UnsupportedOperationException("A snapshot is read-only");
+    }
+
+    @Override
+    public int getSlimeCountAt(int x, int y) {
+        int count = 0;
+        for(int id = this.getFirstSlimeAt(x, y); id != NO_SLIME; id = this.nextInCell[id])
+            count++;
+        return count;
+    }
+
+    @Override
+    public int getFirstSlimeAt(int x, int y) {
+        this.link();
+        return this.cellHead[this.indexOf(x, y)];
+    }
+
+    @Override
+    public int getNextSlimeAt(int id) {
+        this.link();
+        return this.nextInCell[id];
+    }
+
+    /*
+     * Builds the per-cell lists of slimes, in order of identifier.
+     */
+    private void link() {
+        if(this.linked)
+            return;
+        if(this.cellHead == null) {
+            this.cellHead = new int[this.field.length];
+            this.nextInCell = new int[this.slimeX.length];
+        }
+        Arrays.fill(this.cellHead, NO_SLIME);
+        for(int id = this.slimeX.length - 1; id >= 0; id--) {
+            final int cell = this.indexOf(this.slimeX[id], this.slimeY[id]);
+            this.nextInCell[id] = this.cellHead[cell];
+            this.cellHead[cell] = id;
+        }
+        this.linked = true;
+    }
+
+    @Override
+    public Collection<Patch> getPatches() {
+        final Patch[] views = this.getViews();
+        final List<Patch> patches = new ArrayList<>(views.length);
+        for(int x = 0; x < this.width; x++)
+            for(int y = 0; y < this.height; y++)
+                patches.add(views[this.indexOf(x, y)]);
+        return Collections.unmodifiableList(patches);
+    }
+
+    @Override
+    public Collection<Patch> getNeighborhood(Patch patch) {
+        final Position position = patch.getPosition();
+        final List<Patch> neighbours = new ArrayList<>(NEIGHBOURHOOD_SIZE);
+        for(int k = 0; k < NEIGHBOURHOOD_SIZE; k++) {
+            final Patch neighbour = this.getViews()[this.getNeighbourIndex(position.x(), position.y(), k)];
+            if(!neighbour.equals(patch))
+                neighbours.add(neighbour);
+        }
+        return neighbours;
+    }
+
+    @Override
+    public Patch getPatch(Position position) {
+        return this.getViews()[this.indexOf(position.x(), position.y())];
+    }
+
+    private Patch[] getViews() {
+        if(this.views == null) {
+            this.views = new Patch[this.field.length];
+            for(int y = 0; y < this.height; y++)
+                for(int x = 0; x < this.width; x++)
+                    this.views[this.indexOf(x, y)] = new PatchView(this, new Position(x, y));
+        }
+        return this.views;
+    }
+
+    @Override
+    public double getPheromone(int index) {
+        return this.field[index];
+    }
+
+    @Override
+    public void setPheromone(int index, double pheromone) {
+        throw new UnsupportedOperationException("A snapshot is read-only");
+    }
+
+    @Override
+    public int getNeighbourX(int x, int k) {
+        return Math.floorMod(x + NEIGHBOUR_DX[k], this.width);
+    }
+
+    @Override
+    public int getNeighbourY(int y, int k) {
+        return Math.floorMod(y + NEIGHBOUR_DY[k], this.height);
+    }
+}
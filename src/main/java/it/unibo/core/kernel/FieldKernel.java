@@ -0,0 +1,160 @@
+package it.unibo.core.kernel;
+
+/**
+ * The inner loops over a row-major pheromone field, for which an implementation using the
+ * vector units of the processor may exist. Every implementation computes exactly the same
+ * values, performing the same floating point operations in the same order on each cell.
+ *
+ * Both kernels end by scaling the level of each cell and by snapping the levels below an
+ * epsilon to zero, which is how evaporation is applied; a factor of one and an epsilon of
+ * zero leave the levels unchanged.
+ *
+ * Each kernel comes in a double and in a single-precision version, the latter moving half the
+ * bytes per cell and processing twice the cells per vector. Each also comes in a version adding the
+ * levels it writes to a {@link FieldMoments}, so that the aggregates of the field are collected by
+ * the pass writing it rather than by a pass of their own.
+ */
+public interface FieldKernel {
+
+    /**
+     * Returns a short name of the implementation, for reports and benchmarks.
+     *
+     * @return The name of the kernel.
+     */
+    String getName();
+
+    /**
+     * Computes the cells {@code [fromX, toX)} of row {@code y} of the diffused field. Each cell keeps
+     * its own level and receives {@code rate} times the level of each of the eight cells of its
+     * wrapped Moore neighbourhood holding at least {@code threshold}. The field must be at least two
+     * cells wide and two cells high, so that no cell is its own neighbour.
+     *
+     * @param src       The current field.
+     * @param dst       The field to write, distinct from {@code src}.
+     * @param width     The width of the field.
+     * @param height    The height of the field.
+     * @param y         The row to compute.
+     * @param fromX     The first column to compute (inclusive).
+     * @param toX       The last column to compute (exclusive).
+     * @param rate      The diffusion rate.
+     * @param threshold The level from which a cell diffuses.
+     * @param factor    The factor the diffused level is scaled by.
+     * @param epsilon   The level below which a scaled level is set to zero.
+     * @return {@code true} if any of the computed cells holds pheromone.
+     */
+    boolean diffuseRow(double[] src, double[] dst, int width, int height, int y, int fromX, int toX,
+                       double rate, double threshold, double factor, double epsilon);
+
+    /**
+     * Computes the cells of a row of the diffused field as {@link #diffuseRow(double[], double[], int, int, int, int, int, double, double, double, double)},
+     * adding them to the given aggregates.
+     *
+     * @param src       The current field.
+     * @param dst       The field to write, distinct from {@code src}.
+     * @param width     The width of the field.
+     * @param height    The height of the field.
+     * @param y         The row to compute.
+     * @param fromX     The first column to compute (inclusive).
+     * @param toX       The last column to compute (exclusive).
+     * @param rate      The diffusion rate.
+     * @param threshold The level from which a cell diffuses.
+     * @param factor    The factor the diffused level is scaled by.
+     * @param epsilon   The level below which a scaled level is set to zero.
+     * @param moments   The aggregates the computed cells are added to.
+     * @return {@code true} if any of the computed cells holds pheromone.
+     */
+    boolean diffuseRow(double[] src, double[] dst, int width, int height, int y, int fromX, int toX,
+                       double rate, double threshold, double factor, double epsilon, FieldMoments moments);
+
+    /**
+     * Scales the cells {@code [from, to)} of the field in place.
+     *
+     * @param field   The field to update.
+     * @param from    The first cell to scale (inclusive).
+     * @param to      The last cell to scale (exclusive).
+     * @param factor  The factor each level is scaled by.
+     * @param epsilon The level below which a scaled level is set to zero.
+     * @return {@code true} if any of the scaled cells holds pheromone.
+     */
+    boolean scale(double[] field, int from, int to, double factor, double epsilon);
+
+    /**
+     * Scales the cells {@code [from, to)} of the field in place, adding the scaled levels to the given aggregates.
+     *
+     * @param field   The field to update.
+     * @param from    The first cell to scale (inclusive).
+     * @param to      The last cell to scale (exclusive).
+     * @param factor  The factor each level is scaled by.
+     * @param epsilon The level below which a scaled level is set to zero.
+     * @param moments The aggregates the scaled cells are added to.
+     * @return {@code true} if any of the scaled cells holds pheromone.
+     */
+    boolean scale(double[] field, int from, int to, double factor, double epsilon, FieldMoments moments);
+
+    /**
+     * Computes the cells {@code [fromX, toX)} of row {@code y} of a single-precision diffused field,
+     * with single-precision arithmetic, as {@link #diffuseRow(double[], double[], int, int, int, int, int, double, double, double, double)}.
+     *
+     * @param src       The current field.
+     * @param dst       The field to write, distinct from {@code src}.
+     * @param width     The width of the field.
+     * @param height    The height of the field.
+     * @param y         The row to compute.
+     * @param fromX     The first column to compute (inclusive).
+     * @param toX       The last column to compute (exclusive).
+     * @param rate      The diffusion rate.
+     * @param threshold The level from which a cell diffuses.
+     * @param factor    The factor the diffused level is scaled by.
+     * @param epsilon   The level below which a scaled level is set to zero.
+     * @return {@code true} if any of the computed cells holds pheromone.
+     */
+    boolean diffuseRow(float[] src, float[] dst, int width, int height, int y, int fromX, int toX,
+                       float rate, float threshold, float factor, float epsilon);
+
+    /**
+     * Computes the cells of a row of a single-precision diffused field, adding them to the given aggregates
+     * in double precision.
+     *
+     * @param src       The current field.
+     * @param dst       The field to write, distinct from {@code src}.
+     * @param width     The width of the field.
+     * @param height    The height of the field.
+     * @param y         The row to compute.
+     * @param fromX     The first column to compute (inclusive).
+     * @param toX       The last column to compute (exclusive).
+     * @param rate      The diffusion rate.
+     * @param threshold The level from which a cell diffuses.
+     * @param factor    The factor the diffused level is scaled by.
+     * @param epsilon   The level below which a scaled level is set to zero.
+     * @param moments   The aggregates the computed cells are added to.
+     * @return {@code true} if any of the computed cells holds pheromone.
+     */
+    boolean diffuseRow(float[] src, float[] dst, int width, int height, int y, int fromX, int toX,
+                       float rate, float threshold, float factor, float epsilon, FieldMoments moments);
+
+    /**
+     * Scales the cells {@code [from, to)} of a single-precision field in place.
+     *
+     * @param field   The field to update.
+     * @param from    The first cell to scale (inclusive).
+     * @param to      The last cell to scale (exclusive).
+     * @param factor  The factor each level is scaled by.
+     * @param epsilon The level below which a scaled level is set to zero.
+     * @return {@code true} if any of the scaled cells holds pheromone.
+     */
+    boolean scale(float[] field, int from, int to, float factor, float epsilon);
+
+    /**
+     * Scales the cells {@code [from, to)} of a single-precision field in place, adding the scaled levels to the
+     * given aggregates in double precision.
+     *
+     * @param field   The field to update.
+     * @param from    The first cell to scale (inclusive).
+     * @param to      The last cell to scale (exclusive).
+     * @param factor  The factor each level is scaled by.
+     * @param epsilon The level below which a scaled level is set to zero.
+     * @param moments The aggregates the scaled cells are added to.
+     * @return {@code true} if any of the scaled cells holds pheromone.
+     */
+    boolean scale(float[] field, int from, int to, float factor, float epsilon, FieldMoments moments);
+}
@@ -0,0 +1,69 @@
+package it.unibo.core.kernel;
+
+/**
+ * Chooses the implementation of the {@link FieldKernel}s. The vector implementation is used when the
+ * {@code jdk.incubator.vector} module has been added to the running VM, with
+ * {@code --add-modules jdk.incubator.vector}, and the scalar one otherwise. The choice can be forced
+ * with the {@code slime.kernel} system property, set to {@code scalar} or {@code vector}.
+ */
+public final class FieldKernels {
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String VECTOR_KERNEL = "it.unibo.core.kernel.VectorFieldKernel";
+    private static final FieldKernel SCALAR = new ScalarFieldKernel();
+    private static final FieldKernel PREFERRED = choose();
+
+    private FieldKernels() { }
+
+    private static FieldKernel choose() {
+        final String requested = System.getProperty("slime.kernel", "vector");
+        if(requested.equals("scalar") || !isVectorAvailable())
+            return SCALAR;
+        return vector(0);
+    }
+
+    /**
+     * Returns the fastest kernel available in the running VM.
+     *
+     * @return The preferred kernel.
+     */
+    public static FieldKernel preferred() {
+        return PREFERRED;
+    }
+
+    /**
+     * Returns the scalar kernel.
+     *
+     * @return The scalar kernel.
+     */
+    public static FieldKernel scalar() {
+        return SCALAR;
+    }
+
+    /**
+     * Checks whether the vector kernels can be used in the running VM.
+     *
+     * @return {@code true} if the Vector API module is available.
+     */
+    public static boolean isVectorAvailable() {
+        return ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent();
+    }
+
+    /**
+     * Returns the vector kernel working on vectors of the given size.
+     *
+     * @param bits The size of the vectors in bits (64, 128, 256 or 512), or zero for the preferred size.
+     * @return The vector kernel.
+     * @throws UnsupportedOperationException If the Vector API module is not available.
+     */
+    public static FieldKernel vector(final int bits) {
+        if(!isVectorAvailable())
+            throw new UnsupportedOperationException("The " + VECTOR_MODULE + " module is not available, run with --add-modules " + VECTOR_MODULE);
+        if(bits != 0 && bits != 64 && bits != 128 && bits != 256 && bits != 512)
+            throw new IllegalArgumentException("Vector size must be 64, 128, 256 or 512 bits");
+        try {
+            return (FieldKernel) Class.forName(VECTOR_KERNEL).getDeclaredMethod("create", int.class).invoke(null, bits);
+        } catch(final ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create the vector kernel", e);
+        }
+    }
+}
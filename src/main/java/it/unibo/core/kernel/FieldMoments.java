@@ -0,0 +1,93 @@
+package it.unibo.core.kernel;
+
+/**
+ * The aggregates of a pheromone field that a pass writing it can accumulate on the way: the total and
+ * the maximum level, the number of cells holding pheromone, and the sum of {@code p ln p} over them,
+ * from which the entropy of the field follows. Empty cells add nothing, and levels are expected not to
+ * be negative.
+ *
+ * An instance is not thread-safe: a pass split in tasks accumulates each row on its own instance, and
+ * adds the rows together in order, so that the result does not depend on the number of threads. The
+ * kernels accumulating a row in vectors add the levels in another order than one cell at a time, so
+ * their aggregates may differ in the last bits.
+ */
+public final class FieldMoments {
+    private double total;
+    private double max;
+    private double weighted;
+    private long cells;
+
+    /**
+     * Resets the aggregates to those of an empty field.
+     */
+    public void clear() {
+        this.total = 0;
+        this.max = 0;
+        this.weighted = 0;
+        this.cells = 0;
+    }
+
+    /**
+     * Adds a cell to the aggregates.
+     *
+     * @param pheromone The level of the cell.
+     */
+    public void add(final double pheromone) {
+        if(pheromone > 0) {
+            this.total += pheromone;
+            this.max = Math.max(this.max, pheromone);
+            this.weighted += pheromone * Math.log(pheromone);
+            this.cells++;
+        }
+    }
+
+    /**
+     * Adds the aggregates of another part of the field.
+     *
+     * @param other The aggregates to add.
+     */
+    public void add(final FieldMoments other) {
+        this.add(other.total, other.max, other.weighted, other.cells);
+    }
+
+    /*
+     * Adds aggregates computed by a kernel.
+     */
+    void add(final double total, final double max, final double weighted, final long cells) {
+        this.total += total;
+        this.max = Math.max(this.max, max);
+        this.weighted += weighted;
+        this.cells += cells;
+    }
+
+    /**
+     * Replaces the aggregates with those of another instance.
+     *
+     * @param other The aggregates to copy.
+     */
+    public void set(final FieldMoments other) {
+        this.clear();
+        this.add(other);
+    }
+
+    public double getTotal() {
+        return this.total;
+    }
+
+    public double getMax() {
+        return this.max;
+    }
+
+    public long getCells() {
+        return this.cells;
+    }
+
+    /**
+     * Returns the entropy of the field, taking the pheromone of each cell over the total as a probability.
+     *
+     * @return The entropy in nats, or zero for an empty field.
+     */
+    public double getEntropy() {
+        return this.total > 0 ? Math.log(this.total) - this.weighted / this.total : 0;
+    }
+}
@@ -0,0 +1,154 @@
+package it.unibo.core.kernel;
+
+/**
+ * The plain Java implementation of the field kernels, always available.
+ */
+final class ScalarFieldKernel implements FieldKernel {
+
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+
+    @Override
+    public boolean diffuseRow(final double[] src, final double[] dst, final int width, final int height, final int y,
+                              final int fromX, final int toX, final double rate, final double threshold,
+                              final double factor, final double epsilon) {
+        boolean holding = false;
+        for(int x = fromX; x < toX; x++)
+            holding |= diffuseCell(src, dst, width, height, x, y, rate, threshold, factor, epsilon);
+        return holding;
+    }
+
+    @Override
+    public boolean diffuseRow(final double[] src, final double[] dst, final int width, final int height, final int y,
+                              final int fromX, final int toX, final double rate, final double threshold,
+                              final double factor, final double epsilon, final FieldMoments moments) {
+        boolean holding = false;
+        for(int x = fromX; x < toX; x++) {
+            holding |= diffuseCell(src, dst, width, height, x, y, rate, threshold, factor, epsilon);
+            moments.add(dst[y * width + x]);
+        }
+        return holding;
+    }
+
+    /*
+     * Computes a single cell, wrapping around the borders. Shared with the vector kernel, which uses it for
+     * the cells on the edges of a row.
+     */
+    static boolean diffuseCell(final double[] src, final double[] dst, final int width, final int height, final int x, final int y,
+                               final double rate, final double threshold, final double factor, final double epsilon) {
+        final int row = y * width;
+        final int north = (y == 0 ? height - 1 : y - 1) * width;
+        final int south = (y == height - 1 ? 0 : y + 1) * width;
+        final int west = x == 0 ? width - 1 : x - 1;
+        final int east = x == width - 1 ? 0 : x + 1;
+        final double received = diffused(src[north + west], threshold) + diffused(src[north + x], threshold) + diffused(src[north + east], threshold)
+                + diffused(src[row + west], threshold) + diffused(src[row + east], threshold)
+                + diffused(src[south + west], threshold) + diffused(src[south + x], threshold) + diffused(src[south + east], threshold);
+        final double next = scaled(src[row + x] + received * rate, factor, epsilon);
+        dst[row + x] = next;
+        return next != 0;
+    }
+
+    @Override
+    public boolean scale(final double[] field, final int from, final int to, final double factor, final double epsilon) {
+        boolean holding = false;
+        for(int i = from; i < to; i++) {
+            final double next = scaled(field[i], factor, epsilon);
+            field[i] = next;
+            holding |= next != 0;
+        }
+        return holding;
+    }
+
+    @Override
+    public boolean scale(final double[] field, final int from, final int to, final double factor, final double epsilon, final FieldMoments moments) {
+        boolean holding = false;
+        for(int i = from; i < to; i++) {
+            final double next = scaled(field[i], factor, epsilon);
+            field[i] = next;
+            moments.add(next);
+            holding |= next != 0;
+        }
+        return holding;
+    }
+
+    @Override
+    public boolean diffuseRow(final float[] src, final float[] dst, final int width, final int height, final int y,
+                              final int fromX, final int toX, final float rate, final float threshold,
+                              final float factor, final float epsilon) {
+        boolean holding = false;
+        for(int x = fromX; x < toX; x++)
+            holding |= diffuseCell(src, dst, width, height, x, y, rate, threshold, factor, epsilon);
+        return holding;
+    }
+
+    @Override
+    public boolean diffuseRow(final float[] src, final float[] dst, final int width, final int height, final int y,
+                              final int fromX, final int toX, final float rate, final float threshold,
+                              final float factor, final float epsilon, final FieldMoments moments) {
+        boolean holding = false;
+        for(int x = fromX; x < toX; x++) {
+            holding |= diffuseCell(src, dst, width, height, x, y, rate, threshold, factor, epsilon);
+            moments.add(dst[y * width + x]);
+        }
+        return holding;
+    }
+
+    static boolean diffuseCell(final float[] src, final float[] dst, final int width, final int height, final int x, final int y,
+                               final float rate, final float threshold, final float factor, final float epsilon) {
+        final int row = y * width;
+        final int north = (y == 0 ? height - 1 : y - 1) * width;
+        final int south = (y == height - 1 ? 0 : y + 1) * width;
+        final int west = x == 0 ? width - 1 : x - 1;
+        final int east = x == width - 1 ? 0 : x + 1;
+        final float received = diffused(src[north + west], threshold) + diffused(src[north + x], threshold) + diffused(src[north + east], threshold)
+                + diffused(src[row + west], threshold) + diffused(src[row + east], threshold)
+                + diffused(src[south + west], threshold) + diffused(src[south + x], threshold) + diffused(src[south + east], threshold);
+        final float next = scaled(src[row + x] + received * rate, factor, epsilon);
+        dst[row + x] = next;
+        return next != 0;
+    }
+
+    @Override
+    public boolean scale(final float[] field, final int from, final int to, final float factor, final float epsilon) {
+        boolean holding = false;
+        for(int i = from; i < to; i++) {
+            final float next = scaled(field[i], factor, epsilon);
+            field[i] = next;
+            holding |= next != 0;
+        }
+        return holding;
+    }
+
+    @Override
+    public boolean scale(final float[] field, final int from, final int to, final float factor, final float epsilon, final FieldMoments moments) {
+        boolean holding = false;
+        for(int i = from; i < to; i++) {
+            final float next = scaled(field[i], factor, epsilon);
+            field[i] = next;
+            moments.add(next);
+            holding |= next != 0;
+        }
+        return holding;
+    }
+
+    private static float diffused(final float pheromone, final float threshold) {
+        return pheromone < threshold ? 0 : pheromone;
+    }
+
+    static float scaled(final float pheromone, final float factor, final float epsilon) {
+        final float next = pheromone * factor;
+        return Math.abs(next) < epsilon ? 0 : next;
+    }
+
+    private static double diffused(final double pheromone, final double threshold) {
+        return pheromone < threshold ? 0 : pheromone;
+    }
+
+    static double scaled(final double pheromone, final double factor, final double epsilon) {
+        final double next = pheromone * factor;
+        return Math.abs(next) < epsilon ? 0 : next;
+    }
+}
@@ -0,0 +1,395 @@
+package it.unibo.core.kernel;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The field kernels written with the incubating Vector API, processing as many cells at once as
+ * the lanes of the chosen vector shape. Rows are processed with unaligned loads of the three rows
+ * around the computed one, while the first and the last cell of a row, whose neighbourhood wraps
+ * around the field, are left to the scalar code, as are the cells past the last full vector.
+ *
+ * The compiler only turns vector operations into vector instructions when their species is a constant,
+ * so each vector size has its own subclass returning {@code static final} species.
+ *
+ * This class links against {@code jdk.incubator.vector}, so it is only loaded by {@link FieldKernels}
+ * after checking that the module is available.
+ */
+abstract class VectorFieldKernel implements FieldKernel {
+
+    /**
+     * Creates the kernels for vectors of the given size.
+     *
+     * @param bits The size of the vectors in bits, or zero for the preferred size of the platform.
+     * @return The kernels for the given size.
+     */
+    static FieldKernel create(final int bits) {
+        final int size = bits == 0 ? DoubleVector.SPECIES_PREFERRED.vectorBitSize() : bits;
+        return switch(size) {
+            case 64 -> new Vector64();
+            case 128 -> new Vector128();
+            case 256 -> new Vector256();
+            case 512 -> new Vector512();
+            default -> throw new IllegalArgumentException("Unsupported vector size: " + size);
+        };
+    }
+
+    abstract VectorSpecies<Double> species();
+
+    abstract VectorSpecies<Float> floatSpecies();
+
+    @Override
+    public String getName() {
+        return "vector" + this.species().vectorBitSize();
+    }
+
+    @Override
+    public boolean diffuseRow(final double[] src, final double[] dst, final int width, final int height, final int y,
+                              final int fromX, final int toX, final double rate, final double threshold,
+                              final double factor, final double epsilon) {
+        boolean holding = false;
+        int x = fromX;
+        if(x == 0 && x < toX) {
+            holding = ScalarFieldKernel.diffuseCell(src, dst, width, height, 0, y, rate, threshold, factor, epsilon);
+            x = 1;
+        }
+        // the last cell of the row wraps to the first one
+        final int end = Math.min(toX, width - 1);
+        if(x < end) {
+            final VectorSpecies<Double> species = this.species();
+            final int row = y * width;
+            final int north = (y == 0 ? height - 1 : y - 1) * width;
+            final int south = (y == height - 1 ? 0 : y + 1) * width;
+            final int bound = x + species.loopBound(end - x);
+            for(; x < bound; x += species.length()) {
+                final DoubleVector received = diffused(species, src, north + x - 1, threshold)
+                        .add(diffused(species, src, north + x, threshold))
+                        .add(diffused(species, src, north + x + 1, threshold))
+                        .add(diffused(species, src, row + x - 1, threshold))
+                        .add(diffused(species, src, row + x + 1, threshold))
+                        .add(diffused(species, src, south + x - 1, threshold))
+                        .add(diffused(species, src, south + x, threshold))
+                        .add(diffused(species, src, south + x + 1, threshold));
+                final DoubleVector next = scaled(DoubleVector.fromArray(species, src, row + x).add(received.mul(rate)), factor, epsilon);
+                next.intoArray(dst, row + x);
+                holding |= next.compare(VectorOperators.NE, 0).anyTrue();
+            }
+        }
+        for(; x < toX; x++)
+            holding |= ScalarFieldKernel.diffuseCell(src, dst, width, height, x, y, rate, threshold, factor, epsilon);
+        return holding;
+    }
+
+    @Override
+    public boolean diffuseRow(final double[] src, final double[] dst, final int width, final int height, final int y,
+                              final int fromX, final int toX, final double rate, final double threshold,
+                              final double factor, final double epsilon, final FieldMoments moments) {
+        final int row = y * width;
+        boolean holding = false;
+        int x = fromX;
+        if(x == 0 && x < toX) {
+            holding = ScalarFieldKernel.diffuseCell(src, dst, width, height, 0, y, rate, threshold, factor, epsilon);
+            moments.add(dst[row]);
+            x = 1;
+        }
+        final int end = Math.min(toX, width - 1);
+        if(x < end) {
+            final VectorSpecies<Double> species = this.species();
+            final int north = (y == 0 ? height - 1 : y - 1) * width;
+            final int south = (y == height - 1 ? 0 : y + 1) * width;
+            // each lane adds up its own cells, the lanes are only added together at the end of the row
+            DoubleVector total = DoubleVector.zero(species);
+            DoubleVector max = DoubleVector.zero(species);
+            DoubleVector weighted = DoubleVector.zero(species);
+            long cells = 0;
+            final int bound = x + species.loopBound(end - x);
+            for(; x < bound; x += species.length()) {
+                final DoubleVector received = diffused(species, src, north + x - 1, threshold)
+                        .add(diffused(species, src, north + x, threshold))
+                        .add(diffused(species, src, north + x + 1, threshold))
+                        .add(diffused(species, src, row + x - 1, threshold))
+                        .add(diffused(species, src, row + x + 1, threshold))
+                        .add(diffused(species, src, south + x - 1, threshold))
+                        .add(diffused(species, src, south + x, threshold))
+                        .add(diffused(species, src, south + x + 1, threshold));
+                final DoubleVector next = scaled(DoubleVector.fromArray(species, src, row + x).add(received.mul(rate)), factor, epsilon);
+                next.intoArray(dst, row + x);
+                final VectorMask<Double> marked = next.compare(VectorOperators.GT, 0);
+                holding |= next.compare(VectorOperators.NE, 0).anyTrue();
+                total = total.add(next, marked);
+                max = max.max(next);
+                weighted = weighted.add(next.mul(next.lanewise(VectorOperators.LOG)), marked);
+                cells += marked.trueCount();
+            }
+            moments.add(total.reduceLanes(VectorOperators.ADD), max.reduceLanes(VectorOperators.MAX),
+                    weighted.reduceLanes(VectorOperators.ADD), cells);
+        }
+        for(; x < toX; x++) {
+            holding |= ScalarFieldKernel.diffuseCell(src, dst, width, height, x, y, rate, threshold, factor, epsilon);
+            moments.add(dst[row + x]);
+        }
+        return holding;
+    }
+
+    @Override
+    public boolean scale(final double[] field, final int from, final int to, final double factor, final double epsilon) {
+        final VectorSpecies<Double> species = this.species();
+        boolean holding = false;
+        int i = from;
+        final int bound = from + species.loopBound(to - from);
+        for(; i < bound; i += species.length()) {
+            final DoubleVector next = scaled(DoubleVector.fromArray(species, field, i), factor, epsilon);
+            next.intoArray(field, i);
+            holding |= next.compare(VectorOperators.NE, 0).anyTrue();
+        }
+        for(; i < to; i++) {
+            final double next = ScalarFieldKernel.scaled(field[i], factor, epsilon);
+            field[i] = next;
+            holding |= next != 0;
+        }
+        return holding;
+    }
+
+    @Override
+    public boolean scale(final double[] field, final int from, final int to, final double factor, final double epsilon, final FieldMoments moments) {
+        final VectorSpecies<Double> species = this.species();
+        boolean holding = false;
+        DoubleVector total = DoubleVector.zero(species);
+        DoubleVector max = DoubleVector.zero(species);
+        DoubleVector weighted = DoubleVector.zero(species);
+        long cells = 0;
+        int i = from;
+        final int bound = from + species.loopBound(to - from);
+        for(; i < bound; i += species.length()) {
+            final DoubleVector next = scaled(DoubleVector.fromArray(species, field, i), factor, epsilon);
+            next.intoArray(field, i);
+            final VectorMask<Double> marked = next.compare(VectorOperators.GT, 0);
+            holding |= next.compare(VectorOperators.NE, 0).anyTrue();
+            total = total.add(next, marked);
+            max = max.max(next);
+            weighted = weighted.add(next.mul(next.lanewise(VectorOperators.LOG)), marked);
+            cells += marked.trueCount();
+        }
+        moments.add(total.reduceLanes(VectorOperators.ADD), max.reduceLanes(VectorOperators.MAX),
+                weighted.reduceLanes(VectorOperators.ADD), cells);
+        for(; i < to; i++) {
+            final double next = ScalarFieldKernel.scaled(field[i], factor, epsilon);
+            field[i] = next;
+            moments.add(next);
+            holding |= next != 0;
+        }
+        return holding;
+    }
+
+    @Override
+    public boolean diffuseRow(final float[] src, final float[] dst, final int width, final int height, final int y,
+                              final int fromX, final int toX, final float rate, final float threshold,
+                              final float factor, final float epsilon) {
+        boolean holding = false;
+        int x = fromX;
+        if(x == 0 && x < toX) {
+            holding = ScalarFieldKernel.diffuseCell(src, dst, width, height, 0, y, rate, threshold, factor, epsilon);
+            x = 1;
+        }
+        final int end = Math.min(toX, width - 1);
+        if(x < end) {
+            final VectorSpecies<Float> species = this.floatSpecies();
+            final int row = y * width;
+            final int north = (y == 0 ? height - 1 : y - 1) * width;
+            final int south = (y == height - 1 ? 0 : y + 1) * width;
+            final int bound = x + species.loopBound(end - x);
+            for(; x < bound; x += species.length()) {
+                final FloatVector received = diffused(species, src, north + x - 1, threshold)
+                        .add(diffused(species, src, north + x, threshold))
+                        .add(diffused(species, src, north + x + 1, threshold))
+                        .add(diffused(species, src, row + x - 1, threshold))
+                        .add(diffused(species, src, row + x + 1, threshold))
+                        .add(diffused(species, src, south + x - 1, threshold))
+                        .add(diffused(species, src, south + x, threshold))
+                        .add(diffused(species, src, south + x + 1, threshold));
+                final FloatVector next = scaled(FloatVector.fromArray(species, src, row + x).add(received.mul(rate)), factor, epsilon);
+                next.intoArray(dst, row + x);
+                holding |= next.compare(VectorOperators.NE, 0).anyTrue();
+            }
+        }
+        for(; x < toX; x++)
+            holding |= ScalarFieldKernel.diffuseCell(src, dst, width, height, x, y, rate, threshold, factor, epsilon);
+        return holding;
+    }
+
+    @Override
+    public boolean diffuseRow(final float[] src, final float[] dst, final int width, final int height, final int y,
+                              final int fromX, final int toX, final float rate, final float threshold,
+                              final float factor, final float epsilon, final FieldMoments moments) {
+        final int row = y * width;
+        boolean holding = false;
+        int x = fromX;
+        if(x == 0 && x < toX) {
+            holding = ScalarFieldKernel.diffuseCell(src, dst, width, height, 0, y, rate, threshold, factor, epsilon);
+            moments.add(dst[row]);
+            x = 1;
+        }
+        final int end = Math.min(toX, width - 1);
+        if(x < end) {
+            final VectorSpecies<Float> species = this.floatSpecies();
+            final int north = (y == 0 ? height - 1 : y - 1) * width;
+            final int south = (y == height - 1 ? 0 : y + 1) * width;
+            final int bound = x + species.loopBound(end - x);
+            for(; x < bound; x += species.length()) {
+                final FloatVector received = diffused(species, src, north + x - 1, threshold)
+                        .add(diffused(species, src, north + x, threshold))
+                        .add(diffused(species, src, north + x + 1, threshold))
+                        .add(diffused(species, src, row + x - 1, threshold))
+                        .add(diffused(species, src, row + x + 1, threshold))
+                        .add(diffused(species, src, south + x - 1, threshold))
+                        .add(diffused(species, src, south + x, threshold))
+                        .add(diffused(species, src, south + x + 1, threshold));
+                final FloatVector next = scaled(FloatVector.fromArray(species, src, row + x).add(received.mul(rate)), factor, epsilon);
+                next.intoArray(dst, row + x);
+                holding |= next.compare(VectorOperators.NE, 0).anyTrue();
+                add(next, moments);
+            }
+        }
+        for(; x < toX; x++) {
+            holding |= ScalarFieldKernel.diffuseCell(src, dst, width, height, x, y, rate, threshold, factor, epsilon);
+            moments.add(dst[row + x]);
+        }
+        return holding;
+    }
+
+    @Override
+    public boolean scale(final float[] field, final int from, final int to, final float factor, final float epsilon) {
+        final VectorSpecies<Float> species = this.floatSpecies();
+        boolean holding = false;
+        int i = from;
+        final int bound = from + species.loopBound(to - from);
+        for(; i < bound; i += species.length()) {
+            final FloatVector next = scaled(FloatVector.fromArray(species, field, i), factor, epsilon);
+            next.intoArray(field, i);
+            holding |= next.compare(VectorOperators.NE, 0).anyTrue();
+        }
+        for(; i < to; i++) {
+            final float next = ScalarFieldKernel.scaled(field[i], factor, epsilon);
+            field[i] = next;
+            holding |= next != 0;
+        }
+        return holding;
+    }
+
+    @Override
+    public boolean scale(final float[] field, final int from, final int to, final float factor, final float epsilon, final FieldMoments moments) {
+        final VectorSpecies<Float> species = this.floatSpecies();
+        boolean holding = false;
+        int i = from;
+        final int bound = from + species.loopBound(to - from);
+        for(; i < bound; i += species.length()) {
+            final FloatVector next = scaled(FloatVector.fromArray(species, field, i), factor, epsilon);
+            next.intoArray(field, i);
+            holding |= next.compare(VectorOperators.NE, 0).anyTrue();
+            add(next, moments);
+        }
+        for(; i < to; i++) {
+            final float next = ScalarFieldKernel.scaled(field[i], factor, epsilon);
+            field[i] = next;
+            moments.add(next);
+            holding |= next != 0;
+        }
+        return holding;
+    }
+
+    /*
+     * Adds the cells of a single-precision vector to the aggregates. The sum of each vector is added in double
+     * precision, not to lose the small levels in the sum of a long row.
+     */
+    private static void add(final FloatVector next, final FieldMoments moments) {
+        final VectorMask<Float> marked = next.compare(VectorOperators.GT, 0);
+        if(marked.anyTrue())
+            moments.add(next.reduceLanes(VectorOperators.ADD, marked), next.reduceLanes(VectorOperators.MAX),
+                    next.mul(next.lanewise(VectorOperators.LOG)).reduceLanes(VectorOperators.ADD, marked), marked.trueCount());
+    }
+
+    private static FloatVector diffused(final VectorSpecies<Float> species, final float[] src, final int offset, final float threshold) {
+        final FloatVector pheromone = FloatVector.fromArray(species, src, offset);
+        return pheromone.blend(0, pheromone.compare(VectorOperators.LT, threshold));
+    }
+
+    private static FloatVector scaled(final FloatVector pheromone, final float factor, final float epsilon) {
+        final FloatVector next = pheromone.mul(factor);
+        final VectorMask<Float> negligible = next.abs().compare(VectorOperators.LT, epsilon);
+        return next.blend(0, negligible);
+    }
+
+    private static DoubleVector diffused(final VectorSpecies<Double> species, final double[] src, final int offset, final double threshold) {
+        final DoubleVector pheromone = DoubleVector.fromArray(species, src, offset);
+        return pheromone.blend(0, pheromone.compare(VectorOperators.LT, threshold));
+    }
+
+    private static DoubleVector scaled(final DoubleVector pheromone, final double factor, final double epsilon) {
+        final DoubleVector next = pheromone.mul(factor);
+        final VectorMask<Double> negligible = next.abs().compare(VectorOperators.LT, epsilon);
+        return next.blend(0, negligible);
+    }
+
+    private static final class Vector64 extends VectorFieldKernel {
+        private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_64;
+        private static final VectorSpecies<Float> FLOAT_SPECIES = FloatVector.SPECIES_64;
+
+        @Override
+        VectorSpecies<Double> species() {
+            return SPECIES;
+        }
+
+        @Override
+        VectorSpecies<Float> floatSpecies() {
+            return FLOAT_SPECIES;
+        }
+    }
+
+    private static final class Vector128 extends VectorFieldKernel {
+        private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_128;
+        private static final VectorSpecies<Float> FLOAT_SPECIES = FloatVector.SPECIES_128;
+
+        @Override
+        VectorSpecies<Double> species() {
+            return SPECIES;
+        }
+
+        @Override
+        VectorSpecies<Float> floatSpecies() {
+            return FLOAT_SPECIES;
+        }
+    }
+
+    private static final class Vector256 extends VectorFieldKernel {
+        private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_256;
+        private static final VectorSpecies<Float> FLOAT_SPECIES = FloatVector.SPECIES_256;
+
+        @Override
+        VectorSpecies<Double> species() {
+            return SPECIES;
+        }
+
+        @Override
+        VectorSpecies<Float> floatSpecies() {
+            return FLOAT_SPECIES;
+        }
+    }
+
+    private static final class Vector512 extends VectorFieldKernel {
+        private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_512;
+        private static final VectorSpecies<Float> FLOAT_SPECIES = FloatVector.SPECIES_512;
+
+        @Override
+        VectorSpecies<Double> species() {
+            return SPECIES;
+        }
+
+        @Override
+        VectorSpecies<Float> floatSpecies() {
+            return FLOAT_SPECIES;
+        }
+    }
+}
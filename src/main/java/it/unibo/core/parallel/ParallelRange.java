@@ -0,0 +1,80 @@
+package it.unibo.core.parallel;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Utility to split a range of integers (rows, slime ids, ...) into contiguous
+ * chunks and process them on a {@link ForkJoinPool}.
+ *
+ * The range is halved until a chunk is not larger than the requested grain, so the
+ * chunks only depend on the range and the grain, never on the number of threads.
+ */
+public final class ParallelRange {
+
+    /**
+     * An action applied to a contiguous chunk of a range.
+     */
+    @FunctionalInterface
+    public interface RangeAction {
+        /**
+         * Processes the chunk {@code [from, to)}.
+         *
+         * @param from The first element of the chunk (inclusive).
+         * @param to   The last element of the chunk (exclusive).
+         */
+        void apply(int from, int to);
+    }
+
+    private ParallelRange() { }
+
+    /**
+     * Applies the action to the range {@code [from, to)}, split in chunks of at most
+     * {@code grain} elements processed by the given pool. The call returns once every
+     * chunk has been processed.
+     *
+     * @param pool   The pool running the chunks.
+     * @param from   The first element of the range (inclusive).
+     * @param to     The last element of the range (exclusive).
+     * @param grain  The maximum size of a chunk, must be positive.
+     * @param action The action applied to each chunk.
+     */
+    public static void forEach(final ForkJoinPool pool, final int from, final int to, final int grain, final RangeAction action) {
+        if(grain <= 0)
+            throw new IllegalArgumentException("Grain must be positive");
+        if(to - from <= grain) {
+            action.apply(from, to);
+        } else {
+            pool.invoke(new RangeTask(from, to, grain, action));
+        }
+    }
+
+    private static final class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final RangeAction action;
+
+        private RangeTask(final int from, final int to, final int grain, final RangeAction action) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if(this.to - this.from <= this.grain) {
+                this.action.apply(this.from, this.to);
+            } else {
+                final int middle = (this.from + this.to) >>> 1;
+                invokeAll(
+                        new RangeTask(this.from, middle, this.grain, this.action),
+                        new RangeTask(middle, this.to, this.grain, this.action)
+                );
+            }
+        }
+    }
+}
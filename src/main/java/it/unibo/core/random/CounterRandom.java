@@ -0,0 +1,108 @@
+package it.unibo.core.random;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * A counter-based random generator. Every value is a pure function of a key and of a counter,
+ * so independent streams (one per slime and per tick, for instance) can be drawn in any order
+ * and on any thread while still giving the same values.
+ *
+ * Keys are derived from a seed, a stream identifier and a tick with {@link #key(long, int, long)}.
+ * Values can then be drawn either through the static methods, which never allocate, or through
+ * an instance that increments its counter at each draw.
+ */
+public final class CounterRandom implements RandomGenerator {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    private final long key;
+    private long counter;
+
+    /**
+     * Constructs a {@code CounterRandom} drawing the stream identified by the given seed, stream and tick.
+     *
+     * @param seed   The seed of the whole simulation, or of the behaviour.
+     * @param stream The identifier of the stream, for instance the identifier of a slime.
+     * @param tick   The tick the values are drawn for.
+     */
+    public CounterRandom(final long seed, final int stream, final long tick) {
+        this.key = key(seed, stream, tick);
+    }
+
+    /**
+     * Derives the key of a stream.
+     *
+     * @param seed   The seed of the whole simulation, or of the behaviour.
+     * @param stream The identifier of the stream, for instance the identifier of a slime.
+     * @param tick   The tick the values are drawn for.
+     * @return The key of the stream.
+     */
+    public static long key(final long seed, final int stream, final long tick) {
+        final long seeded = mix(seed + GOLDEN_GAMMA);
+        final long streamed = mix(seeded + stream * GOLDEN_GAMMA);
+        return mix(streamed + tick * GOLDEN_GAMMA);
+    }
+
+    /**
+     * Returns the value of a stream at the given counter.
+     *
+     * @param key     The key of the stream.
+     * @param counter The position of the value in the stream.
+     * @return A uniformly distributed {@code long}.
+     */
+    public static long longAt(final long key, final long counter) {
+        return mix(key + (counter + 1) * GOLDEN_GAMMA);
+    }
+
+    /**
+     * Returns the value of a stream at the given counter as a {@code double} in {@code [0, 1)}.
+     *
+     * @param key     The key of the stream.
+     * @param counter The position of the value in the stream.
+     * @return A uniformly distributed {@code double} between 0 (inclusive) and 1 (exclusive).
+     */
+    public static double doubleAt(final long key, final long counter) {
+        return (longAt(key, counter) >>> 11) * DOUBLE_UNIT;
+    }
+
+    /**
+     * Returns the value of a stream at the given counter as an {@code int} in {@code [0, bound)}.
+     * The value is exactly uniform when the bound is a power of two.
+     *
+     * @param key     The key of the stream.
+     * @param counter The position of the value in the stream.
+     * @param bound   The upper bound (exclusive), must be positive.
+     * @return A uniformly distributed {@code int} between 0 (inclusive) and {@code bound} (exclusive).
+     */
+    public static int intAt(final long key, final long counter, final int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("Bound must be positive");
+        }
+        return (int) (((longAt(key, counter) >>> 32) * bound) >>> 32);
+    }
+
+    @Override
+    public long nextLong() {
+        return longAt(this.key, this.counter++);
+    }
+
+    @Override
+    public double nextDouble() {
+        return doubleAt(this.key, this.counter++);
+    }
+
+    @Override
+    public int nextInt(final int bound) {
+        return intAt(this.key, this.counter++, bound);
+    }
+
+    /*
+     * The finalizer of SplitMix64 (variant 13 of Stafford's mixers).
+     */
+    private static long mix(final long value) {
+        long z = value;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
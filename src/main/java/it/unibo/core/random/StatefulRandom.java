@@ -0,0 +1,63 @@
+package it.unibo.core.random;
+
+import java.util.Random;
+
+/**
+ * A {@link Random} whose state can be read and restored, so that a simulation saved in the middle
+ * of a run draws the same values once resumed.
+ *
+ * It implements the linear congruential generator specified by {@link Random}, so it yields the very
+ * same sequences for the same seed. Unlike {@link Random} it is not thread safe, and the value cached
+ * by {@link #nextGaussian()} is not part of its state.
+ */
+public final class StatefulRandom extends Random {
+    private static final long serialVersionUID = 1L;
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    private long state;
+
+    /**
+     * Constructs a {@code StatefulRandom} with the given seed, as {@link Random#Random(long)} would.
+     *
+     * @param seed The initial seed.
+     */
+    public StatefulRandom(final long seed) {
+        super(seed);
+    }
+
+    @Override
+    public synchronized void setSeed(final long seed) {
+        // also called by the constructor of Random
+        super.setSeed(seed);
+        this.state = (seed ^ MULTIPLIER) & MASK;
+    }
+
+    /**
+     * Returns the current state of the generator.
+     *
+     * @return The 48-bit state of the generator.
+     */
+    public long getState() {
+        return this.state;
+    }
+
+    /**
+     * Restores a state previously returned by {@link #getState()}.
+     *
+     * @param state The state of the generator.
+     */
+    public void setState(final long state) {
+        if ((state & ~MASK) != 0) {
+            throw new IllegalArgumentException("State must fit in 48 bits");
+        }
+        this.setSeed(state ^ MULTIPLIER);
+    }
+
+    @Override
+    protected int next(final int bits) {
+        this.state = (this.state * MULTIPLIER + ADDEND) & MASK;
+        return (int) (this.state >>> (48 - bits));
+    }
+}
@@ -0,0 +1,339 @@
+package it.unibo.distributed;
+
+import it.unibo.core.Position;
+import it.unibo.core.behaviour.SlimeIntents;
+import it.unibo.core.entity.AbstractGridWorld;
+import it.unibo.core.entity.ArrayGridWorld;
+import it.unibo.core.entity.Patch;
+import it.unibo.core.entity.Slime;
+import it.unibo.core.entity.World;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The band of rows of a toroidal world owned by a worker, seen through the coordinates of the whole world.
+ *
+ * The field of the band is a world of its own, as wide as the whole world and two rows taller: its first
+ * and last rows are the halos, copies of the rows of the neighbouring bands, so that the diffusion of the
+ * band reads the same neighbours as that of the whole world. Pheromone is addressed by the indexes of
+ * the whole world, which may fall in the band or in its halos.
+ *
+ * The band knows the position of every slime, so that they keep the identifiers, and the random streams,
+ * they have in the whole world, but only those standing in its rows are owned and stepped by the worker.
+ * The positions of the others are stale. The owned slimes are kept in order of identifier, as they are
+ * committed in that order, and ownership is updated as they migrate, so that a tick only costs the owned
+ * slimes. Occupancy and patches are not available.
+ */
+final class BandWorld implements World {
+    private static final int[] NEIGHBOUR_DX = {-1, -1, -1, 0, 0, 1, 1, 1};
+    private static final int[] NEIGHBOUR_DY = {-1, 0, 1, -1, 1, -1, 0, 1};
+
+    private final int width;
+    private final int height;
+    private final int start;
+    private final int rows;
+    private final ArrayGridWorld field;
+    private final int[] slimeX;
+    private final int[] slimeY;
+    private final Slime[] slimes;
+    private int[] owned;
+    private int ownedCount;
+
+    /**
+     * Creates the band of a world, placing the slimes as the whole world would.
+     *
+     * @param width     The width of the world.
+     * @param height    The height of the world.
+     * @param start     The first row of the band.
+     * @param rows      The number of rows of the band.
+     * @param numSlimes The number of slimes of the world.
+     * @param seed      The seed of the world.
+     */
+    BandWorld(final int width, final int height, final int start, final int rows, final int numSlimes, final int seed) {
+        if (start < 0 || rows <= 0 || start + rows > height) {
+            throw new IllegalArgumentException("The band must be within the rows of the world");
+        }
+        this.width = width;
+        this.height = height;
+        this.start = start;
+        this.rows = rows;
+        this.field = ArrayGridWorld.create(width, rows + 2, 0, seed);
+        this.slimeX = new int[numSlimes];
+        this.slimeY = new int[numSlimes];
+        AbstractGridWorld.initialPositions(width, height, seed, this.slimeX, this.slimeY);
+        this.slimes = new Slime[numSlimes];
+        this.owned = new int[16];
+        for (int id = 0; id < numSlimes; id++) {
+            this.slimes[id] = new Slime(this, id);
+            if (this.contains(this.slimeY[id])) {
+                this.own(id, this.slimeX[id], this.slimeY[id]);
+            }
+        }
+    }
+
+    /**
+     * Returns the field of the band, halos included, which the world behaviours update.
+     *
+     * @return The field of the band.
+     */
+    ArrayGridWorld getField() {
+        return this.field;
+    }
+
+    /**
+     * Tells whether a row of the world belongs to the band.
+     *
+     * @param y The row.
+     * @return Whether the row is owned.
+     */
+    boolean contains(final int y) {
+        return y >= this.start && y < this.start + this.rows;
+    }
+
+    int getOwnedCount() {
+        return this.ownedCount;
+    }
+
+    /**
+     * Returns the identifier of an owned slime.
+     *
+     * @param i The position of the slime among the owned ones.
+     * @return Its identifier.
+     */
+    int getOwned(final int i) {
+        return this.owned[i];
+    }
+
+    /**
+     * Takes ownership of a slime entering the band.
+     *
+     * @param id The identifier of the slime.
+     * @param x  Its column.
+     * @param y  Its row, within the band.
+     */
+    void own(final int id, final int x, final int y) {
+        if (this.ownedCount == this.owned.length) {
+            this.owned = Arrays.copyOf(this.owned, this.owned.length * 2);
+        }
+        // few slimes cross a border at each tick, so they are inserted in place
+        int i = this.ownedCount++;
+        for (; i > 0 && this.owned[i - 1] > id; i--) {
+            this.owned[i] = this.owned[i - 1];
+        }
+        this.owned[i] = id;
+        this.slimeX[id] = x;
+        this.slimeY[id] = y;
+    }
+
+    /**
+     * Gives up the owned slimes that left the band, writing each one as its identifier and position.
+     *
+     * @param buffer The buffer the slimes are written to, with room for three ints per owned slime.
+     * @return The number of slimes written.
+     */
+    int release(final ByteBuffer buffer) {
+        int kept = 0;
+        for (int i = 0; i < this.ownedCount; i++) {
+            final int id = this.owned[i];
+            if (this.contains(this.slimeY[id])) {
+                this.owned[kept++] = id;
+            } else {
+                buffer.putInt(id).putInt(this.slimeX[id]).putInt(this.slimeY[id]);
+            }
+        }
+        final int released = this.ownedCount - kept;
+        this.ownedCount = kept;
+        return released;
+    }
+
+    /**
+     * Applies the steps planned for the owned slimes, in order of identifier.
+     *
+     * @param intents The steps planned for the owned slimes, and for no other.
+     */
+    void commit(final SlimeIntents intents) {
+        intents.commit(this, this.owned, this.ownedCount);
+    }
+
+    /**
+     * Writes the owned slimes, each as its identifier and position.
+     *
+     * @param buffer The buffer the slimes are written to, with room for three ints per owned slime.
+     */
+    void putOwned(final ByteBuffer buffer) {
+        for (int i = 0; i < this.ownedCount; i++) {
+            final int id = this.owned[i];
+            buffer.putInt(id).putInt(this.slimeX[id]).putInt(this.slimeY[id]);
+        }
+    }
+
+    /**
+     * Replaces the halos with rows of the neighbouring bands.
+     *
+     * @param buffer The buffer holding the row above the band, then the row below it.
+     */
+    void setHalos(final ByteBuffer buffer) {
+        this.setRow(buffer, 0);
+        this.setRow(buffer, this.rows + 1);
+    }
+
+    /*
+     * Through setPheromone, so that the tiles of the halo holding pheromone are active.
+     */
+    private void setRow(final ByteBuffer buffer, final int row) {
+        final int offset = row * this.width;
+        for (int x = 0; x < this.width; x++) {
+            this.field.setPheromone(offset + x, buffer.getDouble());
+        }
+    }
+
+    /**
+     * Writes the first and the last row of the band, the halos of the neighbouring bands.
+     *
+     * @param buffer The buffer the rows are written to.
+     */
+    void putBorders(final ByteBuffer buffer) {
+        Link.putDoubles(buffer, this.field.getFrontBuffer(), this.width, this.width);
+        Link.putDoubles(buffer, this.field.getFrontBuffer(), this.rows * this.width, this.width);
+    }
+
+    /**
+     * Writes a row of the band.
+     *
+     * @param buffer The buffer the row is written to.
+     * @param row    The row, counted from the first of the band.
+     */
+    void putRow(final ByteBuffer buffer, final int row) {
+        Link.putDoubles(buffer, this.field.getFrontBuffer(), (row + 1) * this.width, this.width);
+    }
+
+    int getStart() {
+        return this.start;
+    }
+
+    int getRows() {
+        return this.rows;
+    }
+
+    /*
+     * The index in the field of the band of a cell of the world, in the band or in its halos.
+     */
+    private int localIndex(final int index) {
+        final int y = index / this.width;
+        final int row;
+        if (this.contains(y)) {
+            row = y - this.start + 1;
+        } else if (y == Math.floorMod(this.start - 1, this.height)) {
+            row = 0;
+        } else if (y == Math.floorMod(this.start + this.rows, this.height)) {
+            row = this.rows + 1;
+        } else {
+            throw new IllegalArgumentException("Row " + y + " is not visible from the band starting at row " + this.start);
+        }
+        return row * this.width + index - y * this.width;
+    }
+
+    @Override
+    public int getWidth() {
+        return this.width;
+    }
+
+    @Override
+    public int getHeight() {
+        return this.height;
+    }
+
+    @Override
+    public Position getSlimePosition(final Slime slime) {
+        return new Position(this.slimeX[slime.getId()], this.slimeY[slime.getId()]);
+    }
+
+    @Override
+    public void moveSlime(final Slime slime, final Position position) {
+        this.moveSlime(slime.getId(), position.x(), position.y());
+    }
+
+    @Override
+    public Collection<Slime> getSlimes() {
+        return List.of(this.slimes);
+    }
+
+    @Override
+    public int getSlimeCount() {
+        return this.slimes.length;
+    }
+
+    @Override
+    public Slime getSlime(final int id) {
+        return this.slimes[id];
+    }
+
+    @Override
+    public int getSlimeX(final int id) {
+        return this.slimeX[id];
+    }
+
+    @Override
+    public int getSlimeY(final int id) {
+        return this.slimeY[id];
+    }
+
+    @Override
+    public void moveSlime(final int id, final int x, final int y) {
+        this.slimeX[id] = x;
+        this.slimeY[id] = y;
+    }
+
+    @Override
+    public int getSlimeCountAt(final int x, final int y) {
+        throw new UnsupportedOperationException("A band does not track the occupancy of its cells");
+    }
+
+    @Override
+    public int getFirstSlimeAt(final int x, final int y) {
+        throw new UnsupportedOperationException("A band does not track the occupancy of its cells");
+    }
+
+    @Override
+    public int getNextSlimeAt(final int id) {
+        throw new UnsupportedOperationException("A band does not track the occupancy of its cells");
+    }
+
+    @Override
+    public Collection<Patch> getPatches() {
+        throw new UnsupportedOperationException("A band has no patches");
+    }
+
+    @Override
+    public Collection<Patch> getNeighborhood(final Patch patch) {
+        throw new UnsupportedOperationException("A band has no patches");
+    }
+
+    @Override
+    public Patch getPatch(final Position position) {
+        throw new UnsupportedOperationException("A band has no patches");
+    }
+
+    @Override
+    public double getPheromone(final int index) {
+        return this.field.getPheromone(this.localIndex(index));
+    }
+
+    @Override
+    public void setPheromone(final int index, final double pheromone) {
+        this.field.setPheromone(this.localIndex(index), pheromone);
+    }
+
+    @Override
+    public int getNeighbourX(final int x, final int k) {
+        return Math.floorMod(x + NEIGHBOUR_DX[k], this.width);
+    }
+
+    @Override
+    public int getNeighbourY(final int y, final int k) {
+        return Math.floorMod(y + NEIGHBOUR_DY[k], this.height);
+    }
+}
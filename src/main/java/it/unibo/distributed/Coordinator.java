@@ -0,0 +1,425 @@
+package it.unibo.distributed;
+
+import it.unibo.controller.Histogram;
+import it.unibo.controller.SimulationObserver;
+import it.unibo.core.entity.ArrayGridWorld;
+import it.unibo.core.entity.World;
+import it.unibo.headless.WorldStatistics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives a simulation split across worker processes on the same machine. The toroidal world is cut in
+ * horizontal bands of rows, each simulated by a {@link DistributedWorker} connected to the coordinator
+ * through a Unix domain socket, and the coordinator steps the workers through the phases of each tick
+ * in lock-step.
+ *
+ * In the world phase every worker receives its halos, the rows just above and below its band, and
+ * updates its field; in the slime phase it receives the halos of the updated field, steps its slimes
+ * and reports the slimes that crossed into another band, which the coordinator hands over to their new
+ * worker with its next request. Halos go through the coordinator, which keeps the border rows of every
+ * band: slimes move by a cell per tick, so only the rows next to a band are ever read from it.
+ *
+ * Every given number of ticks the coordinator gathers the whole state of the world from the workers
+ * into a world of its own, and notifies its observers with it. It also collects the time each worker
+ * spends in each phase, the time of the ticks and the slimes handed over.
+ */
+public final class Coordinator implements Closeable {
+    private static final long CONNECT_TIMEOUT = TimeUnit.SECONDS.toNanos(60);
+    private static final long CONNECT_POLL = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long STOP_TIMEOUT = 5;
+
+    private final DistributedConfig config;
+    private final List<SimulationObserver> observers;
+    private final Process[] processes;
+    private final Link[] links;
+    private final int[] starts;
+    private final double[][] firstRows;
+    private final double[][] lastRows;
+    private final int[][] arrivals;
+    private final int[] arrivalCounts;
+    private final int[] slimesPerWorker;
+    private final Histogram tickTimes = new Histogram();
+    private ArrayGridWorld snapshot;
+    private long tick;
+    private long worldPhaseNanos;
+    private long slimePhaseNanos;
+    private long gatherNanos;
+    private long handoffs;
+
+    private Coordinator(final DistributedConfig config, final List<SimulationObserver> observers, final Process[] processes,
+                        final Link[] links, final int[] slimesPerWorker) {
+        this.config = config;
+        this.observers = List.copyOf(observers);
+        this.processes = processes;
+        this.links = links;
+        this.starts = new int[links.length + 1];
+        for (int i = 0; i <= links.length; i++) {
+            this.starts[i] = config.bandStart(i);
+        }
+        this.firstRows = new double[links.length][config.width()];
+        this.lastRows = new double[links.length][config.width()];
+        this.arrivals = new int[links.length][48];
+        this.arrivalCounts = new int[links.length];
+        this.slimesPerWorker = slimesPerWorker;
+    }
+
+    /**
+     * Launches a worker process per band, with the options and the class path of this JVM, and sets
+     * them up for the simulation described by the configuration.
+     *
+     * @param config    The configuration of the simulation.
+     * @param observers The observers notified with the snapshots of the world.
+     * @return The coordinator of the workers, at tick 0.
+     * @throws IOException If a worker cannot be started or does not connect.
+     */
+    public static Coordinator launch(final DistributedConfig config, final List<SimulationObserver> observers) throws IOException {
+        final Process[] processes = new Process[config.workers()];
+        final Link[] links = new Link[config.workers()];
+        final Path directory = Files.createTempDirectory("slime-workers");
+        final Path socket = directory.resolve("coordinator.socket");
+        try {
+            try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+                server.bind(UnixDomainSocketAddress.of(socket));
+                for (int i = 0; i < processes.length; i++) {
+                    processes[i] = new ProcessBuilder(command(socket, i)).inheritIO().start();
+                }
+                accept(server, processes, links);
+            } finally {
+                Files.deleteIfExists(socket);
+                Files.deleteIfExists(directory);
+            }
+            for (int i = 0; i < links.length; i++) {
+                final int start = config.bandStart(i);
+                links[i].message(7 * Integer.BYTES + 4 * Double.BYTES)
+                        .putInt(config.width()).putInt(config.height()).putInt(start).putInt(config.bandStart(i + 1) - start)
+                        .putInt(config.slimes()).putInt(config.seed()).putInt(config.threads())
+                        .putDouble(config.diffusionRate()).putDouble(config.evaporationRate())
+                        .putDouble(config.threshold()).putDouble(config.pheromoneDropped());
+                links[i].send();
+            }
+            final int[] slimesPerWorker = new int[links.length];
+            for (int i = 0; i < links.length; i++) {
+                slimesPerWorker[i] = links[i].receive().getInt();
+            }
+            return new Coordinator(config, observers, processes, links, slimesPerWorker);
+        } catch (IOException | RuntimeException e) {
+            stop(processes, links);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the number of ticks simulated so far.
+     *
+     * @return The current tick.
+     */
+    public long getTick() {
+        return this.tick;
+    }
+
+    /**
+     * Simulates a tick on every worker, then notifies the observers with a snapshot of the world if
+     * the tick is a multiple of the stride.
+     *
+     * @throws IOException If a worker fails or its connection is broken.
+     */
+    public void update() throws IOException {
+        final long start = System.nanoTime();
+        final int rowBytes = this.config.width() * Double.BYTES;
+        for (int i = 0; i < this.links.length; i++) {
+            final ByteBuffer request = this.links[i].message(1 + 2 * rowBytes + this.arrivalsBytes(i));
+            request.put(DistributedWorker.WORLD_PHASE);
+            this.putHalos(request, i);
+            this.putArrivals(request, i);
+            this.links[i].send();
+        }
+        long worldPhase = 0;
+        for (int i = 0; i < this.links.length; i++) {
+            final ByteBuffer reply = this.links[i].receive();
+            worldPhase = Math.max(worldPhase, reply.getLong());
+            this.getBorders(reply, i);
+        }
+
+        for (int i = 0; i < this.links.length; i++) {
+            final ByteBuffer request = this.links[i].message(1 + Long.BYTES + 2 * rowBytes);
+            request.put(DistributedWorker.SLIME_PHASE).putLong(this.tick);
+            this.putHalos(request, i);
+            this.links[i].send();
+        }
+        long slimePhase = 0;
+        for (int i = 0; i < this.links.length; i++) {
+            final ByteBuffer reply = this.links[i].receive();
+            slimePhase = Math.max(slimePhase, reply.getLong());
+            this.getBorders(reply, i);
+            final int departures = reply.getInt();
+            for (int k = 0; k < departures; k++) {
+                this.handOff(reply.getInt(), reply.getInt(), reply.getInt());
+            }
+            this.slimesPerWorker[i] = reply.getInt();
+            this.handoffs += departures;
+        }
+        this.worldPhaseNanos += worldPhase;
+        this.slimePhaseNanos += slimePhase;
+        this.tickTimes.record(System.nanoTime() - start);
+
+        if (!this.observers.isEmpty() && this.tick % this.config.stride() == 0) {
+            if (this.snapshot == null) {
+                this.snapshot = ArrayGridWorld.create(this.config.width(), this.config.height(), this.config.slimes(), this.config.seed());
+            }
+            this.gather(this.snapshot);
+            for (final SimulationObserver observer : this.observers) {
+                observer.onWorldChanges(this.snapshot, this.tick);
+            }
+        }
+        this.tick++;
+    }
+
+    /**
+     * Copies the field and the positions of the slimes of every band into a world of the same size.
+     *
+     * @param world The world receiving the state of the simulation.
+     * @throws IOException If a worker fails or its connection is broken.
+     */
+    public void gather(final World world) throws IOException {
+        if (world.getWidth() != this.config.width() || world.getHeight() != this.config.height() || world.getSlimeCount() != this.config.slimes()) {
+            throw new IllegalArgumentException("The world must have the size and the slimes of the simulation");
+        }
+        final long start = System.nanoTime();
+        this.request(DistributedWorker.GATHER);
+        for (int i = 0; i < this.links.length; i++) {
+            for (int index = this.starts[i] * this.config.width(); index < this.starts[i + 1] * this.config.width(); ) {
+                final ByteBuffer row = this.links[i].receive();
+                while (row.hasRemaining()) {
+                    world.setPheromone(index++, row.getDouble());
+                }
+            }
+            final ByteBuffer slimes = this.links[i].receive();
+            for (int k = slimes.getInt(); k > 0; k--) {
+                world.moveSlime(slimes.getInt(), slimes.getInt(), slimes.getInt());
+            }
+        }
+        this.gatherNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * Computes the statistics of the world from those of the bands, without gathering it.
+     *
+     * @return The statistics of the current state of the world.
+     * @throws IOException If a worker fails or its connection is broken.
+     */
+    public WorldStatistics statistics() throws IOException {
+        this.request(DistributedWorker.STATISTICS);
+        double total = 0;
+        double max = 0;
+        long marked = 0;
+        long occupied = 0;
+        int crowding = 0;
+        for (final Link link : this.links) {
+            final ByteBuffer reply = link.receive();
+            total += reply.getDouble();
+            max = Math.max(max, reply.getDouble());
+            marked += reply.getLong();
+            occupied += reply.getLong();
+            crowding = Math.max(crowding, reply.getInt());
+        }
+        return new WorldStatistics((long) this.config.width() * this.config.height(), total, max, marked,
+                this.config.slimes(), (int) occupied, crowding);
+    }
+
+    /**
+     * Returns the time of the ticks, from the first request of the world phase to the last reply of the slime phase.
+     *
+     * @return A copy of the histogram of the tick times, in nanoseconds.
+     */
+    public Histogram getTickTimes() {
+        return this.tickTimes.copy();
+    }
+
+    /**
+     * Returns the time spent in the world phase by the slowest worker of each tick, summed over the ticks.
+     *
+     * @return The time of the world phase, in nanoseconds.
+     */
+    public long getWorldPhaseNanos() {
+        return this.worldPhaseNanos;
+    }
+
+    /**
+     * Returns the time spent in the slime phase by the slowest worker of each tick, summed over the ticks.
+     *
+     * @return The time of the slime phase, in nanoseconds.
+     */
+    public long getSlimePhaseNanos() {
+        return this.slimePhaseNanos;
+    }
+
+    /**
+     * Returns the time spent gathering snapshots of the world.
+     *
+     * @return The time of the gathers, in nanoseconds.
+     */
+    public long getGatherNanos() {
+        return this.gatherNanos;
+    }
+
+    /**
+     * Returns the number of slimes handed over from a band to another.
+     *
+     * @return The number of handoffs.
+     */
+    public long getHandoffs() {
+        return this.handoffs;
+    }
+
+    /**
+     * Returns the number of slimes each worker owned at the end of the last tick, those being handed over excluded.
+     *
+     * @return The number of slimes per worker, in order of band.
+     */
+    public int[] getSlimesPerWorker() {
+        return this.slimesPerWorker.clone();
+    }
+
+    /**
+     * Stops the workers and waits for them to exit, killing those that do not.
+     */
+    @Override
+    public void close() {
+        stop(this.processes, this.links);
+    }
+
+    /*
+     * Sends a request to every worker, handing over the slimes that entered its band, so that it
+     * answers for all the slimes standing in it.
+     */
+    private void request(final byte request) throws IOException {
+        for (int i = 0; i < this.links.length; i++) {
+            final ByteBuffer message = this.links[i].message(1 + this.arrivalsBytes(i));
+            message.put(request);
+            this.putArrivals(message, i);
+            this.links[i].send();
+        }
+    }
+
+    private int arrivalsBytes(final int worker) {
+        return Integer.BYTES + this.arrivalCounts[worker] * Integer.BYTES;
+    }
+
+    private void putArrivals(final ByteBuffer request, final int worker) {
+        request.putInt(this.arrivalCounts[worker] / 3);
+        request.asIntBuffer().put(this.arrivals[worker], 0, this.arrivalCounts[worker]);
+        request.position(request.position() + this.arrivalCounts[worker] * Integer.BYTES);
+        this.arrivalCounts[worker] = 0;
+    }
+
+    private void putHalos(final ByteBuffer request, final int worker) {
+        final int n = this.links.length;
+        Link.putDoubles(request, this.lastRows[(worker + n - 1) % n], 0, this.config.width());
+        Link.putDoubles(request, this.firstRows[(worker + 1) % n], 0, this.config.width());
+    }
+
+    private void getBorders(final ByteBuffer reply, final int worker) {
+        Link.getDoubles(reply, this.firstRows[worker], 0, this.config.width());
+        Link.getDoubles(reply, this.lastRows[worker], 0, this.config.width());
+    }
+
+    private void handOff(final int id, final int x, final int y) {
+        final int found = Arrays.binarySearch(this.starts, y);
+        final int owner = found >= 0 ? found : -found - 2;
+        if (this.arrivalCounts[owner] + 3 > this.arrivals[owner].length) {
+            this.arrivals[owner] = Arrays.copyOf(this.arrivals[owner], this.arrivals[owner].length * 2);
+        }
+        this.arrivals[owner][this.arrivalCounts[owner]++] = id;
+        this.arrivals[owner][this.arrivalCounts[owner]++] = x;
+        this.arrivals[owner][this.arrivalCounts[owner]++] = y;
+    }
+
+    private static List<String> command(final Path socket, final int worker) {
+        final List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        for (final String option : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            // agents, such as debuggers, would compete for the same port
+            if (!option.startsWith("-agentlib") && !option.startsWith("-javaagent") && !option.startsWith("-Xrunjdwp")) {
+                command.add(option);
+            }
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(DistributedWorker.class.getName());
+        command.add(socket.toString());
+        command.add(String.valueOf(worker));
+        return command;
+    }
+
+    /*
+     * Accepts a connection from every worker, which starts by sending its index.
+     */
+    private static void accept(final ServerSocketChannel server, final Process[] processes, final Link[] links) throws IOException {
+        server.configureBlocking(false);
+        final long deadline = System.nanoTime() + CONNECT_TIMEOUT;
+        int connected = 0;
+        while (connected < links.length) {
+            final SocketChannel channel = server.accept();
+            if (channel == null) {
+                for (final Process process : processes) {
+                    if (!process.isAlive()) {
+                        throw new IOException("A worker exited with status " + process.exitValue() + " before connecting");
+                    }
+                }
+                if (System.nanoTime() > deadline) {
+                    throw new IOException("The workers did not connect in time");
+                }
+                LockSupport.parkNanos(CONNECT_POLL);
+                continue;
+            }
+            channel.configureBlocking(true);
+            final int index = new Link(channel, "a worker").receive().getInt();
+            if (index < 0 || index >= links.length || links[index] != null) {
+                channel.close();
+                throw new IOException("Unexpected worker " + index);
+            }
+            links[index] = new Link(channel, "worker " + index);
+            connected++;
+        }
+    }
+
+    private static void stop(final Process[] processes, final Link[] links) {
+        for (final Link link : links) {
+            if (link != null) {
+                try (link) {
+                    link.message(1).put(DistributedWorker.STOP);
+                    link.send();
+                } catch (IOException e) {
+                    // the worker is gone already
+                }
+            }
+        }
+        for (final Process process : processes) {
+            if (process != null) {
+                try {
+                    if (!process.waitFor(STOP_TIMEOUT, TimeUnit.SECONDS)) {
+                        process.destroyForcibly();
+                    }
+                } catch (InterruptedException e) {
+                    process.destroyForcibly();
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package it.unibo.distributed;
+
+import it.unibo.headless.HeadlessConfig;
+
+import java.io.IOException;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * The configuration of a distributed run, read like a {@link HeadlessConfig} from {@code key=value}
+ * arguments and an optional properties file. The simulation is that of a parallel headless run with a
+ * radius of 1, in double precision.
+ *
+ * @param workers          The number of worker processes, each owning a band of rows.
+ * @param threads          The number of threads of each worker.
+ * @param width            The width of the world.
+ * @param height           The height of the world, at least twice the number of workers.
+ * @param slimes           The number of slimes.
+ * @param seed             The seed of the world and of the aggregation behaviour.
+ * @param diffusionRate    The diffusion rate.
+ * @param evaporationRate  The evaporation rate.
+ * @param threshold        The pheromone threshold of the aggregation behaviour.
+ * @param pheromoneDropped The pheromone dropped by a slime at each step.
+ * @param ticks            The number of ticks of the run.
+ * @param trajectory       The file the trajectory of the run is recorded to, or {@code null} not to record it.
+ * @param stride           The number of ticks between two snapshots gathered from the workers for the observers.
+ */
+public record DistributedConfig(
+        int workers,
+        int threads,
+        int width,
+        int height,
+        int slimes,
+        int seed,
+        double diffusionRate,
+        double evaporationRate,
+        double threshold,
+        double pheromoneDropped,
+        long ticks,
+        String trajectory,
+        int stride
+) {
+    /**
+     * The accepted arguments, with their default values.
+     */
+    public static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: DistributedMain [key=value ...]",
+            "  config=<file>       properties file with any of the keys below",
+            "  workers=<int>       worker processes, each simulating a band of rows (2)",
+            "  threads=<int>       threads of each worker (1)",
+            "  width=<int>         world width (100)",
+            "  height=<int>        world height, at least twice the number of workers (100)",
+            "  slimes=<int>        number of slimes (500)",
+            "  seed=<int>          positive seed (42)",
+            "  diffusion=<double>  diffusion rate (0.0625)",
+            "  evaporation=<double> evaporation rate (0.6)",
+            "  threshold=<double>  aggregation threshold (20)",
+            "  pheromone=<double>  pheromone dropped per step (1)",
+            "  ticks=<long>        ticks of the run (1000)",
+            "  trajectory=<file>   file the trajectory is recorded to, created or truncated (none)",
+            "  stride=<int>        ticks between snapshots gathered for the trajectory (1)");
+
+    private static final Set<String> KEYS = Set.of(
+            "config", "workers", "threads", "width", "height", "slimes", "seed", "diffusion", "evaporation",
+            "threshold", "pheromone", "ticks", "trajectory", "stride");
+
+    public DistributedConfig {
+        if (workers <= 0 || threads <= 0)
+            throw new IllegalArgumentException("Workers and threads must be positive");
+        if (width <= 0 || height <= 0)
+            throw new IllegalArgumentException("Width and height must be positive");
+        if ((long) width * height > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("World too large for int indices");
+        // with a single row, or a single band of a world one row high, the halos of a band would be its own rows
+        if (height < 2 * workers)
+            throw new IllegalArgumentException("Each worker needs at least two rows");
+        if (slimes <= 0 || slimes > (long) width * height)
+            throw new IllegalArgumentException("Slimes must be positive and no more than the cells");
+        if (seed <= 0)
+            throw new IllegalArgumentException("Seed must be positive");
+        if (ticks < 0)
+            throw new IllegalArgumentException("Ticks must not be negative");
+        if (stride <= 0)
+            throw new IllegalArgumentException("Stride must be positive");
+    }
+
+    /**
+     * Parses the configuration from the command line arguments.
+     *
+     * @param args The arguments, each in the form {@code key=value} (optionally prefixed by {@code --}).
+     * @return The configuration.
+     * @throws IOException              if the configuration file cannot be read.
+     * @throws IllegalArgumentException if an argument is malformed or unknown.
+     */
+    public static DistributedConfig parse(final String[] args) throws IOException {
+        final Properties properties = HeadlessConfig.readProperties(args, KEYS);
+        try {
+            return new DistributedConfig(
+                    Integer.parseInt(properties.getProperty("workers", "2")),
+                    Integer.parseInt(properties.getProperty("threads", "1")),
+                    Integer.parseInt(properties.getProperty("width", "100")),
+                    Integer.parseInt(properties.getProperty("height", "100")),
+                    Integer.parseInt(properties.getProperty("slimes", "500")),
+                    Integer.parseInt(properties.getProperty("seed", "42")),
+                    Double.parseDouble(properties.getProperty("diffusion", "0.0625")),
+                    Double.parseDouble(properties.getProperty("evaporation", "0.6")),
+                    Double.parseDouble(properties.getProperty("threshold", "20")),
+                    Double.parseDouble(properties.getProperty("pheromone", "1")),
+                    Long.parseLong(properties.getProperty("ticks", "1000")),
+                    properties.getProperty("trajectory"),
+                    Integer.parseInt(properties.getProperty("stride", "1"))
+            );
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed number: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the first row of the band of a worker. Bands differ by at most a row.
+     *
+     * @param worker The index of the worker, up to the number of workers for the end of the last band.
+     * @return The first row of its band.
+     */
+    int bandStart(final int worker) {
+        return (int) ((long) worker * this.height / this.workers);
+    }
+}
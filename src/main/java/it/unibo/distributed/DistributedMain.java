@@ -0,0 +1,89 @@
+package it.unibo.distributed;
+
+import it.unibo.controller.Histogram;
+import it.unibo.controller.SimulationObserver;
+import it.unibo.trajectory.TrajectoryRecorder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Entry point running a simulation across worker processes, as configured by {@link DistributedConfig}.
+ * At the end of the run it reports the achieved tick rate, the time of a tick and of its phases on the
+ * slowest worker, the slimes handed over between bands and the statistics of the final state of the world.
+ *
+ * The workers are launched with the options and the class path of this JVM, so that they run the same code.
+ * A run can record its trajectory from snapshots gathered from the workers, at the cost of moving the whole
+ * world to the coordinator once per stride.
+ */
+public final class DistributedMain {
+
+    private DistributedMain() { }
+
+    public static void main(String[] args) {
+        final DistributedConfig config;
+        try {
+            config = DistributedConfig.parse(args);
+        } catch (IllegalArgumentException | IOException e) {
+            System.err.println(e.getMessage());
+            System.err.println(DistributedConfig.USAGE);
+            System.exit(2);
+            return;
+        }
+        try {
+            run(config);
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs the simulation described by the configuration, printing its report on the standard output.
+     *
+     * @param config The configuration of the run.
+     * @throws IOException If the workers cannot be launched or fail, or the trajectory cannot be written.
+     */
+    public static void run(final DistributedConfig config) throws IOException {
+        final TrajectoryRecorder recorder = config.trajectory() == null ? null : TrajectoryRecorder.create(Path.of(config.trajectory()), config.stride());
+        final List<SimulationObserver> observers = recorder == null ? List.of() : List.of(recorder);
+        try (Coordinator coordinator = Coordinator.launch(config, observers)) {
+            final long start = System.nanoTime();
+            while (coordinator.getTick() < config.ticks()) {
+                coordinator.update();
+            }
+            final long elapsed = System.nanoTime() - start;
+            if (recorder != null) {
+                recorder.close();
+            }
+
+            final long ticks = coordinator.getTick();
+            final Histogram tickTimes = coordinator.getTickTimes();
+            System.out.println(config);
+            System.out.printf("Simulated %d ticks on %d workers in %.3f s: %.1f ticks/s%n",
+                    ticks, config.workers(), elapsed / 1e9, elapsed == 0 ? 0 : ticks * 1e9 / elapsed);
+            if (ticks > 0) {
+                final long exchange = tickTimes.getTotal() - coordinator.getWorldPhaseNanos() - coordinator.getSlimePhaseNanos();
+                System.out.printf("Time per tick: mean %.3f ms, p50 %.3f ms, p99 %.3f ms, max %.3f ms%n",
+                        tickTimes.getMean() / 1e6, tickTimes.getPercentile(0.5) / 1e6, tickTimes.getPercentile(0.99) / 1e6, tickTimes.getMax() / 1e6);
+                System.out.printf("  world phase %.3f ms, slime phase %.3f ms on the slowest worker, exchange and waiting %.3f ms%n",
+                        coordinator.getWorldPhaseNanos() / 1e6 / ticks, coordinator.getSlimePhaseNanos() / 1e6 / ticks, exchange / 1e6 / ticks);
+            }
+            System.out.printf("Handed over %d slimes between bands; slimes per worker %s%n",
+                    coordinator.getHandoffs(), Arrays.toString(coordinator.getSlimesPerWorker()));
+            if (recorder != null) {
+                System.out.printf("Recorded the trajectory in %d bytes, dropping %d frames, gathering for %.3f s%n",
+                        Files.size(Path.of(config.trajectory())), recorder.getDroppedFrames(), coordinator.getGatherNanos() / 1e9);
+            }
+            System.out.println("Final state:");
+            System.out.print(coordinator.statistics().report());
+        } finally {
+            if (recorder != null) {
+                recorder.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package it.unibo.distributed;
+
+import it.unibo.core.behaviour.Aggregation;
+import it.unibo.core.behaviour.Diffusion;
+import it.unibo.core.behaviour.Evaporation;
+import it.unibo.core.behaviour.FusedWorldBehaviour;
+import it.unibo.core.behaviour.SlimeIntents;
+import it.unibo.core.behaviour.WorldBehaviour;
+import it.unibo.core.parallel.ParallelRange;
+
+import java.io.IOException;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Entry point of a worker process of a distributed simulation, launched by the {@link Coordinator} with
+ * the path of its socket and the index of the worker. The worker simulates a band of rows of the world,
+ * stepping through the phases of a tick when the coordinator asks, and answers its requests for the
+ * state of the band until it is told to stop.
+ *
+ * The band runs the behaviours of a parallel headless run: double-buffered diffusion fused with
+ * evaporation, and aggregation planned against the field of the world phase and committed in order of
+ * slime identifier. Since the random choices of a slime only depend on the seed, its identifier and the
+ * tick, the bands together compute exactly what a single process would.
+ */
+public final class DistributedWorker {
+    static final byte STOP = 0;
+    static final byte WORLD_PHASE = 1;
+    static final byte SLIME_PHASE = 2;
+    static final byte GATHER = 3;
+    static final byte STATISTICS = 4;
+    /*
+     * Maximum number of slimes planned by a single task, as in Simulation.
+     */
+    private static final int SLIME_GRAIN = 4096;
+
+    private final Link link;
+    private final BandWorld band;
+    private final ForkJoinPool pool;
+    private final List<WorldBehaviour> worldBehaviours;
+    private final Aggregation aggregation;
+    private final SlimeIntents intents;
+
+    private DistributedWorker(final Link link, final ByteBuffer setup) {
+        this.link = link;
+        final int width = setup.getInt();
+        final int height = setup.getInt();
+        final int start = setup.getInt();
+        final int rows = setup.getInt();
+        final int slimes = setup.getInt();
+        final int seed = setup.getInt();
+        final int threads = setup.getInt();
+        final double diffusionRate = setup.getDouble();
+        final double evaporationRate = setup.getDouble();
+        final double threshold = setup.getDouble();
+        final double pheromoneDropped = setup.getDouble();
+        this.band = new BandWorld(width, height, start, rows, slimes, seed);
+        this.pool = new ForkJoinPool(threads);
+        this.worldBehaviours = FusedWorldBehaviour.fuse(List.of(new Diffusion(diffusionRate, this.pool), new Evaporation(evaporationRate)));
+        this.aggregation = new Aggregation(seed, threshold, pheromoneDropped);
+        this.intents = new SlimeIntents(slimes);
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: DistributedWorker <socket> <index>");
+            System.exit(2);
+            return;
+        }
+        try (Link link = new Link(SocketChannel.open(UnixDomainSocketAddress.of(Path.of(args[0]))), "the coordinator")) {
+            link.message(Integer.BYTES).putInt(Integer.parseInt(args[1]));
+            link.send();
+            final DistributedWorker worker = new DistributedWorker(link, link.receive());
+            worker.serve();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Worker " + args[1] + ": " + e);
+            System.exit(1);
+        }
+    }
+
+    private void serve() throws IOException {
+        this.link.message(Integer.BYTES).putInt(this.band.getOwnedCount());
+        this.link.send();
+        try {
+            while (true) {
+                final ByteBuffer request = this.link.receive();
+                switch (request.get()) {
+                    case WORLD_PHASE -> this.worldPhase(request);
+                    case SLIME_PHASE -> this.slimePhase(request);
+                    case GATHER -> {
+                        this.takeArrivals(request);
+                        this.gather();
+                    }
+                    case STATISTICS -> {
+                        this.takeArrivals(request);
+                        this.statistics();
+                    }
+                    case STOP -> {
+                        return;
+                    }
+                    default -> throw new IllegalStateException("Unknown request");
+                }
+            }
+        } finally {
+            this.pool.shutdown();
+        }
+    }
+
+    /*
+     * Takes the slimes entering the band and the halos, updates the field and answers its new borders.
+     */
+    private void worldPhase(final ByteBuffer request) throws IOException {
+        final long start = System.nanoTime();
+        this.band.setHalos(request);
+        this.takeArrivals(request);
+        for (final WorldBehaviour behaviour : this.worldBehaviours) {
+            behaviour.update(this.band.getField());
+        }
+        final long elapsed = System.nanoTime() - start;
+        final ByteBuffer reply = this.link.message(Long.BYTES + 2 * this.band.getWidth() * Double.BYTES);
+        reply.putLong(elapsed);
+        this.band.putBorders(reply);
+        this.link.send();
+    }
+
+    /*
+     * Takes ownership of the slimes that entered the band in the last slime phase.
+     */
+    private void takeArrivals(final ByteBuffer request) {
+        final int arrivals = request.getInt();
+        for (int i = 0; i < arrivals; i++) {
+            this.band.own(request.getInt(), request.getInt(), request.getInt());
+        }
+    }
+
+    /*
+     * Takes the halos of the updated field, steps the owned slimes and answers the new borders and the
+     * slimes that left the band.
+     */
+    private void slimePhase(final ByteBuffer request) throws IOException {
+        final long start = System.nanoTime();
+        final long tick = request.getLong();
+        this.band.setHalos(request);
+        ParallelRange.forEach(this.pool, 0, this.band.getOwnedCount(), SLIME_GRAIN, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                this.aggregation.plan(this.band.getSlime(this.band.getOwned(i)), tick, this.intents);
+            }
+        });
+        this.band.commit(this.intents);
+        final long elapsed = System.nanoTime() - start;
+        final ByteBuffer reply = this.link.message(Long.BYTES + 2 * Integer.BYTES + 2 * this.band.getWidth() * Double.BYTES
+                + 3 * Integer.BYTES * this.band.getOwnedCount());
+        reply.putLong(elapsed);
+        this.band.putBorders(reply);
+        final int departures = reply.position();
+        reply.putInt(0);
+        reply.putInt(departures, this.band.release(reply));
+        reply.putInt(this.band.getOwnedCount());
+        this.link.send();
+    }
+
+    /*
+     * Answers the rows of the band, one message each so that they never overflow a message, then the owned slimes.
+     */
+    private void gather() throws IOException {
+        for (int row = 0; row < this.band.getRows(); row++) {
+            this.band.putRow(this.link.message(this.band.getWidth() * Double.BYTES), row);
+            this.link.send();
+        }
+        final ByteBuffer slimes = this.link.message(Integer.BYTES + 3 * Integer.BYTES * this.band.getOwnedCount());
+        slimes.putInt(this.band.getOwnedCount());
+        this.band.putOwned(slimes);
+        this.link.send();
+    }
+
+    /*
+     * Answers the statistics of the rows of the band and of the owned slimes.
+     */
+    private void statistics() throws IOException {
+        final int width = this.band.getWidth();
+        double total = 0;
+        double max = 0;
+        long marked = 0;
+        for (int i = width; i < (this.band.getRows() + 1) * width; i++) {
+            final double pheromone = this.band.getField().getPheromone(i);
+            total += pheromone;
+            max = Math.max(max, pheromone);
+            if (pheromone > 0) {
+                marked++;
+            }
+        }
+        final int[] cells = new int[this.band.getOwnedCount()];
+        for (int i = 0; i < cells.length; i++) {
+            final int id = this.band.getOwned(i);
+            cells[i] = this.band.indexOf(this.band.getSlimeX(id), this.band.getSlimeY(id));
+        }
+        Arrays.sort(cells);
+        long occupied = 0;
+        int crowding = 0;
+        for (int i = 0, run = 0; i < cells.length; i++) {
+            run = i > 0 && cells[i] == cells[i - 1] ? run + 1 : 1;
+            if (run == 1) {
+                occupied++;
+            }
+            crowding = Math.max(crowding, run);
+        }
+        final ByteBuffer reply = this.link.message(2 * Double.BYTES + 2 * Long.BYTES + Integer.BYTES);
+        reply.putDouble(total).putDouble(max).putLong(marked).putLong(occupied).putInt(crowding);
+        this.link.send();
+    }
+}
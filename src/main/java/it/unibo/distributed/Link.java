@@ -0,0 +1,125 @@
+package it.unibo.distributed;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SocketChannel;
+
+/**
+ * A connection between the coordinator and a worker, exchanging messages framed by their length. Both
+ * ends run on the same machine, so messages are in the native byte order. The buffers of the messages
+ * are reused, and grow to fit the largest message sent or received.
+ */
+final class Link implements Closeable {
+    private static final int INITIAL_CAPACITY = 1 << 12;
+
+    private final SocketChannel channel;
+    private final String peer;
+    private final ByteBuffer[] frame = {ByteBuffer.allocateDirect(Integer.BYTES).order(ByteOrder.nativeOrder()), null};
+    private final ByteBuffer header = ByteBuffer.allocateDirect(Integer.BYTES).order(ByteOrder.nativeOrder());
+    private ByteBuffer outgoing = allocate(INITIAL_CAPACITY);
+    private ByteBuffer incoming = allocate(INITIAL_CAPACITY);
+
+    /**
+     * Wraps a connected channel.
+     *
+     * @param channel The channel.
+     * @param peer    The name of the other end in error messages.
+     */
+    Link(final SocketChannel channel, final String peer) {
+        this.channel = channel;
+        this.peer = peer;
+    }
+
+    /**
+     * Starts a message, returning the buffer to write it to.
+     *
+     * @param capacity The size of the message, in bytes.
+     * @return The empty buffer of the message.
+     */
+    ByteBuffer message(final int capacity) {
+        if (this.outgoing.capacity() < capacity) {
+            this.outgoing = allocate(Math.max(capacity, this.outgoing.capacity() * 2));
+        }
+        this.outgoing.clear();
+        return this.outgoing;
+    }
+
+    /**
+     * Sends the message written since the last call to {@link #message(int)}.
+     *
+     * @throws IOException If the connection is broken.
+     */
+    void send() throws IOException {
+        this.outgoing.flip();
+        this.frame[0].clear();
+        this.frame[0].putInt(this.outgoing.remaining()).flip();
+        this.frame[1] = this.outgoing;
+        try {
+            while (this.outgoing.hasRemaining()) {
+                this.channel.write(this.frame);
+            }
+        } catch (IOException e) {
+            throw new IOException("Cannot send to " + this.peer + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Waits for the next message.
+     *
+     * @return The buffer holding the message, valid until the next call.
+     * @throws IOException If the connection is broken or closed by the other end.
+     */
+    ByteBuffer receive() throws IOException {
+        this.header.clear();
+        this.readFully(this.header);
+        final int length = this.header.flip().getInt();
+        if (this.incoming.capacity() < length) {
+            this.incoming = allocate(Math.max(length, this.incoming.capacity() * 2));
+        }
+        this.incoming.clear().limit(length);
+        this.readFully(this.incoming);
+        return this.incoming.flip();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    /**
+     * Writes part of an array of doubles to a message.
+     */
+    static void putDoubles(final ByteBuffer buffer, final double[] values, final int offset, final int length) {
+        buffer.asDoubleBuffer().put(values, offset, length);
+        buffer.position(buffer.position() + length * Double.BYTES);
+    }
+
+    /**
+     * Reads doubles from a message into part of an array.
+     */
+    static void getDoubles(final ByteBuffer buffer, final double[] values, final int offset, final int length) {
+        buffer.asDoubleBuffer().get(values, offset, length);
+        buffer.position(buffer.position() + length * Double.BYTES);
+    }
+
+    private void readFully(final ByteBuffer buffer) throws IOException {
+        int read = 0;
+        while (buffer.hasRemaining() && read >= 0) {
+            try {
+                read = this.channel.read(buffer);
+            } catch (IOException e) {
+                throw new IOException("Cannot receive from " + this.peer + ": " + e.getMessage(), e);
+            }
+        }
+        if (read < 0) {
+            throw new EOFException("The connection was closed by " + this.peer);
+        }
+    }
+
+    private static ByteBuffer allocate(final int capacity) {
+        return ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+    }
+}
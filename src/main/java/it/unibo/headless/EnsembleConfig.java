@@ -0,0 +1,181 @@
+package it.unibo.headless;
+
+import it.unibo.core.entity.FieldPrecision;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * The configuration of an ensemble of headless runs: a grid of parameters, every combination of which
+ * is run with each of a list of seeds. It is read like a {@link HeadlessConfig}, from {@code key=value}
+ * arguments and an optional properties file, with comma-separated lists for the swept parameters.
+ *
+ * @param precision        The precision of the fields of the worlds.
+ * @param width            The width of the worlds.
+ * @param height           The height of the worlds.
+ * @param ticks            The number of ticks of each run.
+ * @param slimes           The numbers of slimes swept.
+ * @param diffusionRates   The diffusion rates swept.
+ * @param evaporationRates The evaporation rates swept.
+ * @param thresholds       The aggregation thresholds swept.
+ * @param pheromones       The amounts of pheromone dropped swept.
+ * @param radii            The radii sensed by the slimes swept.
+ * @param seeds            The seeds each combination of parameters is run with.
+ * @param workers          The number of runs executed at once.
+ * @param memory           The largest estimated footprint of a run in MiB, or 0 for no limit.
+ * @param output           The CSV file the results are written to.
+ */
+public record EnsembleConfig(
+        FieldPrecision precision,
+        int width,
+        int height,
+        long ticks,
+        List<Integer> slimes,
+        List<Double> diffusionRates,
+        List<Double> evaporationRates,
+        List<Double> thresholds,
+        List<Double> pheromones,
+        List<Integer> radii,
+        List<Integer> seeds,
+        int workers,
+        long memory,
+        String output
+) {
+    /**
+     * The accepted arguments, with their default values.
+     */
+    public static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: EnsembleMain output=<file> [key=value ...]",
+            "  config=<file>       properties file with any of the keys below",
+            "  output=<file>       CSV file the results are written to, created or truncated",
+            "  precision=double|float field precision (double)",
+            "  width=<int>         world width (100)",
+            "  height=<int>        world height (100)",
+            "  ticks=<long>        ticks of each run (1000)",
+            "  slimes=<int,...>    numbers of slimes (500)",
+            "  diffusion=<double,...> diffusion rates (0.0625)",
+            "  evaporation=<double,...> evaporation rates (0.6)",
+            "  threshold=<double,...> aggregation thresholds (20)",
+            "  pheromone=<double,...> pheromone dropped per step (1)",
+            "  radius=<int,...>    radii sensed by the slimes (1)",
+            "  seeds=<int|int-int,...> positive seeds, or ranges of them (42)",
+            "  workers=<int>       runs executed at once (available processors)",
+            "  memory=<long>       largest estimated footprint of a run in MiB, 0 for no limit (0)");
+
+    private static final Set<String> KEYS = Set.of(
+            "config", "output", "precision", "width", "height", "ticks", "slimes", "diffusion", "evaporation",
+            "threshold", "pheromone", "radius", "seeds", "workers", "memory");
+
+    public EnsembleConfig {
+        slimes = List.copyOf(slimes);
+        diffusionRates = List.copyOf(diffusionRates);
+        evaporationRates = List.copyOf(evaporationRates);
+        thresholds = List.copyOf(thresholds);
+        pheromones = List.copyOf(pheromones);
+        radii = List.copyOf(radii);
+        seeds = List.copyOf(seeds);
+        if (slimes.isEmpty() || diffusionRates.isEmpty() || evaporationRates.isEmpty() || thresholds.isEmpty() || pheromones.isEmpty() || radii.isEmpty() || seeds.isEmpty())
+            throw new IllegalArgumentException("Every swept parameter needs at least a value");
+        if (ticks < 0)
+            throw new IllegalArgumentException("Ticks must not be negative");
+        if (workers <= 0)
+            throw new IllegalArgumentException("Workers must be positive");
+        if (memory < 0)
+            throw new IllegalArgumentException("Memory limit must not be negative");
+        if (output == null)
+            throw new IllegalArgumentException("An output file is required");
+    }
+
+    /**
+     * Parses the configuration from the command line arguments.
+     *
+     * @param args The arguments, each in the form {@code key=value} (optionally prefixed by {@code --}).
+     * @return The configuration.
+     * @throws IOException              if the configuration file cannot be read.
+     * @throws IllegalArgumentException if an argument is malformed or unknown.
+     */
+    public static EnsembleConfig parse(final String[] args) throws IOException {
+        final Properties properties = HeadlessConfig.readProperties(args, KEYS);
+        try {
+            return new EnsembleConfig(
+                    HeadlessConfig.parsePrecision(properties.getProperty("precision", "double")),
+                    Integer.parseInt(properties.getProperty("width", "100")),
+                    Integer.parseInt(properties.getProperty("height", "100")),
+                    Long.parseLong(properties.getProperty("ticks", "1000")),
+                    parseList(properties.getProperty("slimes", "500"), Integer::valueOf),
+                    parseList(properties.getProperty("diffusion", "0.0625"), Double::valueOf),
+                    parseList(properties.getProperty("evaporation", "0.6"), Double::valueOf),
+                    parseList(properties.getProperty("threshold", "20"), Double::valueOf),
+                    parseList(properties.getProperty("pheromone", "1"), Double::valueOf),
+                    parseList(properties.getProperty("radius", "1"), Integer::valueOf),
+                    parseSeeds(properties.getProperty("seeds", "42")),
+                    Integer.parseInt(properties.getProperty("workers", String.valueOf(Runtime.getRuntime().availableProcessors()))),
+                    Long.parseLong(properties.getProperty("memory", "0")),
+                    properties.getProperty("output")
+            );
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed number: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the configuration of every run of the ensemble: each combination of the swept parameters,
+     * with the number of slimes varying slowest and the seed fastest, so that consecutive runs share the
+     * size of their world. The runs are serial and unthrottled.
+     *
+     * @return The runs, in order.
+     */
+    public List<HeadlessConfig> runs() {
+        final List<HeadlessConfig> runs = new ArrayList<>();
+        for (final int slimes : this.slimes) {
+            for (final double diffusionRate : this.diffusionRates) {
+                for (final double evaporationRate : this.evaporationRates) {
+                    for (final double threshold : this.thresholds) {
+                        for (final double pheromone : this.pheromones) {
+                            for (final int radius : this.radii) {
+                                for (final int seed : this.seeds) {
+                                    runs.add(new HeadlessConfig("array", null, this.precision, this.width, this.height, slimes, seed,
+                                            diffusionRate, evaporationRate, threshold, pheromone, radius, this.ticks, 0, 0,
+                                            null, 0, null, null, 1, 0, 0));
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return runs;
+    }
+
+    private static <T> List<T> parseList(final String values, final Function<String, T> parser) {
+        final List<T> list = new ArrayList<>();
+        for (final String value : values.split(",")) {
+            list.add(parser.apply(value.trim()));
+        }
+        return list;
+    }
+
+    private static List<Integer> parseSeeds(final String values) {
+        final List<Integer> seeds = new ArrayList<>();
+        for (final String value : values.split(",")) {
+            final String trimmed = value.trim();
+            final int separator = trimmed.indexOf('-', 1);
+            if (separator < 0) {
+                seeds.add(Integer.parseInt(trimmed));
+            } else {
+                final int first = Integer.parseInt(trimmed.substring(0, separator));
+                final int last = Integer.parseInt(trimmed.substring(separator + 1));
+                if (last < first)
+                    throw new IllegalArgumentException("Malformed seed range: " + trimmed);
+                for (long seed = first; seed <= last; seed++) {
+                    seeds.add((int) seed);
+                }
+            }
+        }
+        return seeds;
+    }
+}
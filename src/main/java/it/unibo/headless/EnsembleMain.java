@@ -0,0 +1,186 @@
+package it.unibo.headless;
+
+import it.unibo.controller.Simulation;
+import it.unibo.core.entity.ActiveTiles;
+import it.unibo.core.entity.FieldPrecision;
+import it.unibo.core.entity.ResettableWorld;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Entry point running an ensemble of headless simulations, as configured by {@link EnsembleConfig},
+ * in a single JVM: the runs share the compiled code, and each worker thread reuses its world from one
+ * run to the next when their sizes match, so a sweep spends its time simulating.
+ *
+ * A fixed number of runs, each serial, are executed at once. A run starts only when its estimated
+ * footprint fits in what is left of three quarters of the heap, and runs larger than the configured
+ * limit are not executed at all. The summary of each run is appended to the CSV file as soon as it
+ * completes, so the rows are in order of completion and identified by the position of the run.
+ */
+public final class EnsembleMain {
+    private static final String HEADER = "run,slimes,diffusion,evaporation,threshold,pheromone,radius,seed,status,"
+            + "seconds,ticks_per_second,total_pheromone,mean_pheromone,max_pheromone,marked_cells,occupied_cells,max_crowding";
+    private static final long MIB = 1 << 20;
+
+    private EnsembleMain() { }
+
+    public static void main(String[] args) {
+        final EnsembleConfig config;
+        try {
+            config = EnsembleConfig.parse(args);
+        } catch (IllegalArgumentException | IOException e) {
+            System.err.println(e.getMessage());
+            System.err.println(EnsembleConfig.USAGE);
+            System.exit(2);
+            return;
+        }
+        try {
+            run(config);
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs the ensemble described by the configuration, writing a row of the results file per run and a
+     * final report on the standard output.
+     *
+     * @param config The configuration of the ensemble.
+     * @throws IOException If the results file cannot be written.
+     */
+    public static void run(final EnsembleConfig config) throws IOException {
+        final List<HeadlessConfig> runs = config.runs();
+        final long budget = Runtime.getRuntime().maxMemory() / 4 * 3 / MIB;
+        final Semaphore memory = new Semaphore((int) Math.min(budget, Integer.MAX_VALUE));
+        final ThreadLocal<ResettableWorld> worlds = new ThreadLocal<>();
+        final AtomicInteger threads = new AtomicInteger();
+        final ExecutorService workers = Executors.newFixedThreadPool(config.workers(), runnable -> {
+            final Thread thread = new Thread(runnable, "ensemble-worker-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        final CompletionService<Result> results = new ExecutorCompletionService<>(workers);
+        for (int i = 0; i < runs.size(); i++) {
+            final int index = i;
+            results.submit(() -> execute(index, runs.get(index), config.memory(), budget, memory, worlds));
+        }
+
+        final long start = System.nanoTime();
+        int failed = 0;
+        try (BufferedWriter writer = Files.newBufferedWriter(Path.of(config.output()))) {
+            writer.write(HEADER);
+            writer.newLine();
+            for (int i = 0; i < runs.size(); i++) {
+                final Result result = results.take().get();
+                if (!result.completed()) {
+                    failed++;
+                }
+                writer.write(result.row());
+                writer.newLine();
+                writer.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the runs");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A run could not report its result", e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+        final double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(config);
+        System.out.printf("Executed %d runs (%d not completed) on %d workers in %.3f s: %.2f runs/s%n",
+                runs.size(), failed, config.workers(), seconds, runs.size() / seconds);
+    }
+
+    /**
+     * Estimates the memory taken by a run: the two buffers of the field, the occupancy grid and the
+     * tiles, the summed-area table of a radius above 1, and the arrays and objects of the slimes. Behaviours only add a few objects.
+     *
+     * @param run The configuration of the run.
+     * @return The estimated footprint, in MiB, rounded up.
+     */
+    static long footprint(final HeadlessConfig run) {
+        final long cells = (long) run.width() * run.height();
+        final long level = run.precision() == FieldPrecision.FLOAT ? Float.BYTES : Double.BYTES;
+        final long tiles = cells / ((long) ActiveTiles.TILE_SIZE * ActiveTiles.TILE_SIZE) + 1;
+        final long table = run.radius() > 1 ? Double.BYTES : 0;
+        final long bytes = cells * (2 * level + 2 * Integer.BYTES + table) + 2 * tiles + run.slimes() * 48L;
+        return (bytes + MIB - 1) / MIB;
+    }
+
+    private static Result execute(final int index, final HeadlessConfig run, final long limit, final long budget,
+                                  final Semaphore memory, final ThreadLocal<ResettableWorld> worlds) {
+        final long footprint = footprint(run);
+        if ((limit > 0 && footprint > limit) || footprint > budget) {
+            return new Result(row(index, run, "over_memory_limit", 0, 0, null), false);
+        }
+        // the world a worker keeps between runs is not counted, hence the margin left by the budget
+        memory.acquireUninterruptibly((int) footprint);
+        try {
+            final ResettableWorld world = reuse(worlds, run);
+            final Simulation simulation = HeadlessMain.createSimulation(run, world, null, List.of());
+            final long start = System.nanoTime();
+            while (simulation.getTick() < run.ticks()) {
+                simulation.update();
+            }
+            final long elapsed = System.nanoTime() - start;
+            return new Result(row(index, run, "ok", elapsed, simulation.getTick(), WorldStatistics.of(world)), true);
+        } catch (RuntimeException e) {
+            return new Result(row(index, run, "failed: " + e.getMessage(), 0, 0, null), false);
+        } finally {
+            memory.release((int) footprint);
+        }
+    }
+
+    /*
+     * Returns the world of the worker thread, reset for the run, or a new one if its size differs.
+     */
+    private static ResettableWorld reuse(final ThreadLocal<ResettableWorld> worlds, final HeadlessConfig run) {
+        final ResettableWorld previous = worlds.get();
+        if (previous != null && previous.getWidth() == run.width() && previous.getHeight() == run.height()
+                && previous.getSlimeCount() == run.slimes()) {
+            previous.reset(run.seed());
+            return previous;
+        }
+        // forget the previous world before allocating, so that it can be collected if memory runs short
+        worlds.remove();
+        final ResettableWorld world = run.precision().createWorld(run.width(), run.height(), run.slimes(), run.seed());
+        worlds.set(world);
+        return world;
+    }
+
+    private static String row(final int index, final HeadlessConfig run, final String status, final long nanos,
+                              final long ticks, final WorldStatistics statistics) {
+        final String parameters = String.format(Locale.ROOT, "%d,%d,%s,%s,%s,%s,%d,%d,%s", index, run.slimes(),
+                run.diffusionRate(), run.evaporationRate(), run.threshold(), run.pheromoneDropped(), run.radius(), run.seed(), quote(status));
+        if (statistics == null) {
+            return parameters + ",,,,,,,,";
+        }
+        return parameters + String.format(Locale.ROOT, ",%.6f,%.1f,%.9g,%.9g,%.9g,%d,%d,%d",
+                nanos / 1e9, nanos == 0 ? 0 : ticks * 1e9 / nanos, statistics.totalPheromone(), statistics.meanPheromone(),
+                statistics.maxPheromone(), statistics.markedCells(), statistics.occupiedCells(), statistics.maxCrowding());
+    }
+
+    private record Result(String row, boolean completed) { }
+
+    private static String quote(final String field) {
+        return field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0
+                ? field
+                : '"' + field.replace("\"", "\"\"") + '"';
+    }
+}
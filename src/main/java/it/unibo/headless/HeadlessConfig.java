@@ -0,0 +1,210 @@
+package it.unibo.headless;
+
+import it.unibo.core.entity.FieldPrecision;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * The configuration of a headless run, read from {@code key=value} command line arguments and,
+ * optionally, from a properties file with the same keys. Values given on the command line take
+ * precedence over those in the file.
+ *
+ * @param world            The world implementation, {@code array}, {@code grid}, {@code offheap} or {@code chunked}.
+ * @param mapped           The file the memory of an {@code offheap} world is mapped from, or {@code null} to allocate it directly.
+ * @param precision        The precision of the field of an {@code array} world.
+ * @param width            The width of the world.
+ * @param height           The height of the world.
+ * @param slimes           The number of slimes.
+ * @param seed             The seed of the world and of the aggregation behaviour.
+ * @param diffusionRate    The diffusion rate.
+ * @param evaporationRate  The evaporation rate.
+ * @param threshold        The pheromone threshold of the aggregation behaviour.
+ * @param pheromoneDropped The pheromone dropped by a slime at each step.
+ * @param radius           The radius sensed by the aggregation behaviour, 1 for the neighbours alone.
+ * @param ticks            The tick the run ends at, counted from the start of the simulation even when it is restored.
+ * @param tickRate         The target number of ticks per second, or 0 to run unthrottled. A paced run is driven by a
+ *                         {@link it.unibo.controller.SimulationScheduler}, so catch-up ticks are not observed.
+ * @param threads          The number of threads, or 0 to run serially with in-place diffusion.
+ * @param checkpoint       The file checkpoints are saved to, or {@code null} not to save any.
+ * @param checkpointEvery  The number of ticks between two checkpoints, or 0 to only save one at the end of the run.
+ * @param restore          The checkpoint the run resumes from, or {@code null} to start from scratch.
+ * @param trajectory       The file the trajectory of the run is recorded to, or {@code null} not to record it.
+ * @param stride           The number of ticks between two recorded frames.
+ * @param metrics          The number of seconds between two metrics summaries, or 0 not to collect metrics.
+ * @param clusters         The number of ticks between two samples of the {@link it.unibo.controller.ClusterStatistics},
+ *                         logged while running, or 0 not to follow the clusters.
+ */
+public record HeadlessConfig(
+        String world,
+        String mapped,
+        FieldPrecision precision,
+        int width,
+        int height,
+        int slimes,
+        int seed,
+        double diffusionRate,
+        double evaporationRate,
+        double threshold,
+        double pheromoneDropped,
+        int radius,
+        long ticks,
+        double tickRate,
+        int threads,
+        String checkpoint,
+        long checkpointEvery,
+        String restore,
+        String trajectory,
+        int stride,
+        double metrics,
+        long clusters
+) {
+    /**
+     * The accepted arguments, with their default values.
+     */
+    public static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: HeadlessMain [key=value ...]",
+            "  config=<file>       properties file with any of the keys below",
+            "  world=array|grid|offheap|chunked world implementation, chunked allocating only where slimes go (array)",
+            "  mapped=<file>       file backing an offheap world, created or truncated (none)",
+            "  precision=double|float field precision of an array world (double)",
+            "  width=<int>         world width (100)",
+            "  height=<int>        world height (100)",
+            "  slimes=<int>        number of slimes (500)",
+            "  seed=<int>          positive seed (42)",
+            "  diffusion=<double>  diffusion rate (0.0625)",
+            "  evaporation=<double> evaporation rate (0.6)",
+            "  threshold=<double>  aggregation threshold (20)",
+            "  pheromone=<double>  pheromone dropped per step (1)",
+            "  radius=<int>        radius sensed by the slimes, through a summed-area table above 1 (1)",
+            "  ticks=<long>        tick the run ends at, also when restored (1000)",
+            "  rate=<double>       target ticks per second, 0 for unthrottled (0)",
+            "  threads=<int>       worker threads, 0 for a serial run (0)",
+            "  checkpoint=<file>   file checkpoints are saved to (none)",
+            "  every=<long>        ticks between checkpoints, 0 for one at the end (0)",
+            "  restore=<file>      checkpoint to resume from, with the same configuration (none)",
+            "  trajectory=<file>   file the trajectory is recorded to, created or truncated (none)",
+            "  stride=<int>        ticks between recorded frames (1)",
+            "  metrics=<double>    seconds between metrics summaries, also published through JMX, 0 for none (0)",
+            "  clusters=<long>     ticks between logged samples of the slime clusters and the field, 0 for none (0)");
+
+    private static final Set<String> KEYS = Set.of(
+            "config", "world", "mapped", "precision", "width", "height", "slimes", "seed", "diffusion",
+            "evaporation", "threshold", "pheromone", "radius", "ticks", "rate", "threads", "checkpoint", "every", "restore",
+            "trajectory", "stride", "metrics", "clusters");
+
+    public HeadlessConfig {
+        if (!world.equals("array") && !world.equals("grid") && !world.equals("offheap") && !world.equals("chunked"))
+            throw new IllegalArgumentException("World must be array, grid, offheap or chunked");
+        if (mapped != null && !world.equals("offheap"))
+            throw new IllegalArgumentException("Only an offheap world can be mapped from a file");
+        if (precision != FieldPrecision.DOUBLE && !world.equals("array"))
+            throw new IllegalArgumentException("Only an array world can change precision");
+        if (radius < 1)
+            throw new IllegalArgumentException("Radius must be positive");
+        if ((long) width * height > Integer.MAX_VALUE && !world.equals("offheap"))
+            throw new IllegalArgumentException("Only an offheap world can have more than " + Integer.MAX_VALUE + " cells");
+        if ((long) width * height > Integer.MAX_VALUE && (radius > 1 || trajectory != null))
+            throw new IllegalArgumentException("A world of more than " + Integer.MAX_VALUE + " cells can neither sense a radius above 1 nor record a trajectory");
+        if (ticks < 0)
+            throw new IllegalArgumentException("Ticks must not be negative");
+        if (tickRate < 0)
+            throw new IllegalArgumentException("Rate must not be negative");
+        if (threads < 0)
+            throw new IllegalArgumentException("Threads must not be negative");
+        if (checkpointEvery < 0)
+            throw new IllegalArgumentException("Checkpoint interval must not be negative");
+        if (checkpointEvery > 0 && checkpoint == null)
+            throw new IllegalArgumentException("A checkpoint interval needs a checkpoint file");
+        if (stride <= 0)
+            throw new IllegalArgumentException("Stride must be positive");
+        if (metrics < 0)
+            throw new IllegalArgumentException("Metrics period must not be negative");
+        if (clusters < 0)
+            throw new IllegalArgumentException("Cluster sampling interval must not be negative");
+    }
+
+    /**
+     * Parses the configuration from the command line arguments.
+     *
+     * @param args The arguments, each in the form {@code key=value} (optionally prefixed by {@code --}).
+     * @return The configuration.
+     * @throws IOException              if the configuration file cannot be read.
+     * @throws IllegalArgumentException if an argument is malformed or unknown.
+     */
+    public static HeadlessConfig parse(final String[] args) throws IOException {
+        final Properties properties = readProperties(args, KEYS);
+        try {
+            return new HeadlessConfig(
+                    properties.getProperty("world", "array"),
+                    properties.getProperty("mapped"),
+                    parsePrecision(properties.getProperty("precision", "double")),
+                    Integer.parseInt(properties.getProperty("width", "100")),
+                    Integer.parseInt(properties.getProperty("height", "100")),
+                    Integer.parseInt(properties.getProperty("slimes", "500")),
+                    Integer.parseInt(properties.getProperty("seed", "42")),
+                    Double.parseDouble(properties.getProperty("diffusion", "0.0625")),
+                    Double.parseDouble(properties.getProperty("evaporation", "0.6")),
+                    Double.parseDouble(properties.getProperty("threshold", "20")),
+                    Double.parseDouble(properties.getProperty("pheromone", "1")),
+                    Integer.parseInt(properties.getProperty("radius", "1")),
+                    Long.parseLong(properties.getProperty("ticks", "1000")),
+                    Double.parseDouble(properties.getProperty("rate", "0")),
+                    Integer.parseInt(properties.getProperty("threads", "0")),
+                    properties.getProperty("checkpoint"),
+                    Long.parseLong(properties.getProperty("every", "0")),
+                    properties.getProperty("restore"),
+                    properties.getProperty("trajectory"),
+                    Integer.parseInt(properties.getProperty("stride", "1")),
+                    Double.parseDouble(properties.getProperty("metrics", "0")),
+                    Long.parseLong(properties.getProperty("clusters", "0"))
+            );
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed number: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads {@code key=value} arguments, and the properties file named by a {@code config} argument.
+     *
+     * @param args The arguments, each in the form {@code key=value} (optionally prefixed by {@code --}).
+     * @param keys The accepted keys, {@code config} included.
+     * @return The properties, those given as arguments taking precedence over those in the file.
+     * @throws IOException              if the configuration file cannot be read.
+     * @throws IllegalArgumentException if an argument is malformed or unknown.
+     */
+    public static Properties readProperties(final String[] args, final Set<String> keys) throws IOException {
+        final Properties arguments = new Properties();
+        for (final String arg : args) {
+            final String stripped = arg.startsWith("--") ? arg.substring(2) : arg;
+            final int separator = stripped.indexOf('=');
+            if (separator <= 0)
+                throw new IllegalArgumentException("Malformed argument: " + arg);
+            arguments.setProperty(stripped.substring(0, separator), stripped.substring(separator + 1));
+        }
+        final Properties properties = new Properties();
+        if (arguments.containsKey("config")) {
+            try (Reader reader = Files.newBufferedReader(Path.of(arguments.getProperty("config")))) {
+                properties.load(reader);
+            }
+        }
+        properties.putAll(arguments);
+        for (final String key : properties.stringPropertyNames()) {
+            if (!keys.contains(key))
+                throw new IllegalArgumentException("Unknown argument: " + key);
+        }
+        return properties;
+    }
+
+    static FieldPrecision parsePrecision(final String precision) {
+        return switch (precision) {
+            case "double" -> FieldPrecision.DOUBLE;
+            case "float" -> FieldPrecision.FLOAT;
+            default -> throw new IllegalArgumentException("Precision must be double or float");
+        };
+    }
+}
@@ -0,0 +1,203 @@
+package it.unibo.headless;
+
+import it.unibo.controller.ClusterStatistics;
+import it.unibo.controller.SampledObserver;
+import it.unibo.controller.Simulation;
+import it.unibo.controller.SimulationMetrics;
+import it.unibo.controller.SimulationObserver;
+import it.unibo.controller.SimulationScheduler;
+import it.unibo.core.behaviour.*;
+import it.unibo.core.entity.ChunkedGridWorld;
+import it.unibo.core.entity.GridWorld;
+import it.unibo.core.entity.OffHeapGridWorld;
+import it.unibo.core.entity.World;
+import it.unibo.trajectory.TrajectoryRecorder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Entry point running a simulation without any view, for a fixed number of ticks, as configured
+ * by {@link HeadlessConfig}. At the end of the run it reports the achieved tick rate, the time
+ * spent in each phase of the simulation and some statistics of the final state of the world.
+ *
+ * A run can save checkpoints periodically and at its end, and resume from one: the time spent
+ * saving them is reported apart from the tick rate. It can also record its trajectory with a
+ * {@link TrajectoryRecorder}, and collect {@link SimulationMetrics}, logged periodically and
+ * published through JMX while it runs. To watch a run converge, it can log samples of the
+ * {@link ClusterStatistics} of the slimes and the field, reported as of the last tick at its end.
+ */
+public final class HeadlessMain {
+
+    private HeadlessMain() { }
+
+    public static void main(String[] args) {
+        final HeadlessConfig config;
+        try {
+            config = HeadlessConfig.parse(args);
+        } catch (IllegalArgumentException | IOException e) {
+            System.err.println(e.getMessage());
+            System.err.println(HeadlessConfig.USAGE);
+            System.exit(2);
+            return;
+        }
+        try {
+            run(config);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs the simulation described by the configuration, printing its report on the standard output.
+     *
+     * @param config The configuration of the run.
+     * @throws IOException If the file backing the world cannot be opened or written, or a checkpoint cannot be saved or restored.
+     */
+    public static void run(final HeadlessConfig config) throws IOException {
+        final World world = createWorld(config);
+        final ForkJoinPool pool = config.threads() == 0 ? null : new ForkJoinPool(config.threads());
+        final TrajectoryRecorder recorder = config.trajectory() == null ? null : TrajectoryRecorder.create(Path.of(config.trajectory()), config.stride());
+        final Evaporation evaporation = new Evaporation(config.evaporationRate());
+        // the statistics read the moments of the field the evaporation adds up, instead of sweeping it
+        final ClusterStatistics clusters = config.clusters() == 0 ? null : new ClusterStatistics(true, evaporation);
+        final List<SimulationObserver> observers = new ArrayList<>();
+        if (recorder != null) {
+            observers.add(recorder);
+        }
+        if (clusters != null) {
+            observers.add(SampledObserver.every(clusters, config.clusters()));
+        }
+        final Simulation simulation = createSimulation(config, world, pool, evaporation, observers);
+        if (config.restore() != null) {
+            simulation.restoreCheckpoint(Path.of(config.restore()));
+        }
+        final PhaseTimes phaseTimes = new PhaseTimes();
+        final SimulationMetrics metrics = config.metrics() == 0 ? null : new SimulationMetrics(Duration.ofNanos((long) (config.metrics() * 1e9)));
+        if (metrics == null) {
+            simulation.setProfiler(phaseTimes);
+        } else {
+            metrics.register("headless");
+            simulation.setProfiler(phaseTimes.andThen(metrics));
+        }
+
+        final long first = simulation.getTick();
+        final SimulationScheduler scheduler = config.tickRate() == 0 ? null : SimulationScheduler.create(simulation, config.tickRate());
+        final long start = System.nanoTime();
+        long checkpointNanos = 0;
+        int checkpoints = 0;
+        while (simulation.getTick() < config.ticks()) {
+            if (scheduler == null) {
+                simulation.update();
+            } else {
+                // frames stop at checkpoints, so that they are taken at the same ticks as in an unpaced run
+                scheduler.advance(config.checkpointEvery() == 0 ? config.ticks()
+                        : Math.min(config.ticks(), (simulation.getTick() / config.checkpointEvery() + 1) * config.checkpointEvery()));
+            }
+            if (config.checkpointEvery() > 0 && simulation.getTick() % config.checkpointEvery() == 0) {
+                checkpointNanos += saveCheckpoint(simulation, config);
+                checkpoints++;
+            }
+        }
+        final long elapsed = System.nanoTime() - start - checkpointNanos;
+        if (config.checkpoint() != null && (config.checkpointEvery() == 0 || simulation.getTick() % config.checkpointEvery() != 0)) {
+            checkpointNanos += saveCheckpoint(simulation, config);
+            checkpoints++;
+        }
+        if (pool != null) {
+            pool.shutdown();
+        }
+        if (recorder != null) {
+            recorder.close();
+        }
+        if (metrics != null) {
+            metrics.unregister();
+        }
+
+        final long simulated = simulation.getTick() - first;
+        System.out.println(config);
+        if (first > 0) {
+            System.out.printf("Resumed from tick %d%n", first);
+        }
+        System.out.printf("Simulated %d ticks in %.3f s: %.1f ticks/s%n",
+                simulated, elapsed / 1e9, elapsed == 0 ? 0 : simulated * 1e9 / elapsed);
+        if (scheduler != null) {
+            System.out.printf("Paced at %.1f ticks/s: %d catch-up ticks, %d ticks given up, lag max %.3f ms%n",
+                    scheduler.getTargetRate(), scheduler.getCatchUpTicks(), scheduler.getSkippedTicks(), scheduler.getMaxLagNanos() / 1e6);
+        }
+        if (checkpoints > 0) {
+            System.out.printf("Saved %d checkpoints in %.3f s: %.1f ms each%n",
+                    checkpoints, checkpointNanos / 1e9, checkpointNanos / 1e6 / checkpoints);
+        }
+        if (recorder != null) {
+            System.out.printf("Recorded the trajectory in %d bytes, dropping %d frames%n",
+                    Files.size(Path.of(config.trajectory())), recorder.getDroppedFrames());
+        }
+        System.out.println("Time per phase:");
+        System.out.print(phaseTimes.report());
+        System.out.println("Final state:");
+        System.out.print(WorldStatistics.of(world).report());
+        if (clusters != null) {
+            if (simulation.getTick() > 0 && clusters.getTick() != simulation.getTick() - 1) {
+                clusters.onWorldChanges(world, simulation.getTick() - 1);
+            }
+            System.out.printf("Clusters at tick %d:%n", clusters.getTick());
+            System.out.print(clusters.report());
+        }
+        if (world instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+    private static long saveCheckpoint(final Simulation simulation, final HeadlessConfig config) throws IOException {
+        final long start = System.nanoTime();
+        simulation.saveCheckpoint(Path.of(config.checkpoint()));
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Creates the simulation described by the configuration over a world: in-place diffusion without a pool,
+     * double-buffered diffusion and parallel slimes with one.
+     *
+     * @param config    The configuration of the run.
+     * @param world     The world to simulate.
+     * @param pool      The pool running the simulation, or {@code null} to run it serially.
+     * @param observers The observers of the simulation.
+     * @return The new simulation.
+     */
+    static Simulation createSimulation(final HeadlessConfig config, final World world, final ForkJoinPool pool, final List<SimulationObserver> observers) {
+        return createSimulation(config, world, pool, new Evaporation(config.evaporationRate()), observers);
+    }
+
+    /*
+     * Creates the simulation described by the configuration with the given evaporation, which must have its rate.
+     */
+    private static Simulation createSimulation(final HeadlessConfig config, final World world, final ForkJoinPool pool,
+                                               final Evaporation evaporation, final List<SimulationObserver> observers) {
+        final List<WorldBehaviour> worldBehaviours = List.of(
+                pool == null ? new Diffusion(config.diffusionRate()) : new Diffusion(config.diffusionRate(), pool),
+                evaporation);
+        final SlimeBehaviour aggregation = new Aggregation(config.seed(), config.threshold(), config.pheromoneDropped(), config.radius());
+        return pool == null
+                ? new Simulation(world, worldBehaviours, List.of(aggregation), observers)
+                : new Simulation(world, worldBehaviours, List.of(aggregation), observers, pool);
+    }
+
+    private static World createWorld(final HeadlessConfig config) throws IOException {
+        return switch (config.world()) {
+            case "grid" -> GridWorld.create(config.width(), config.height(), config.slimes(), config.seed());
+            case "chunked" -> ChunkedGridWorld.create(config.width(), config.height(), config.slimes(), config.seed());
+            case "offheap" -> config.mapped() == null
+                    ? OffHeapGridWorld.create(config.width(), config.height(), config.slimes(), config.seed())
+                    : OffHeapGridWorld.create(config.width(), config.height(), config.slimes(), config.seed(), Path.of(config.mapped()));
+            default -> config.precision().createWorld(config.width(), config.height(), config.slimes(), config.seed());
+        };
+    }
+}
@@ -0,0 +1,65 @@
+package it.unibo.headless;
+
+import it.unibo.controller.SimulationObserver;
+import it.unibo.controller.SimulationProfiler;
+import it.unibo.core.behaviour.WorldBehaviour;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A {@link SimulationProfiler} accumulating the total time spent in each phase of the simulation.
+ */
+public class PhaseTimes implements SimulationProfiler {
+    private static final String SLIME_PHASE = "slimes";
+
+    private final Map<Object, String> labels = new LinkedHashMap<>();
+    private final Map<String, long[]> totals = new LinkedHashMap<>();
+    private long ticks;
+    private long tickTotal;
+
+    @Override
+    public void onWorldBehaviour(long tick, WorldBehaviour behaviour, long nanos) {
+        this.add(this.labels.computeIfAbsent(behaviour, b -> "world:" + SimulationProfiler.labelOf(b)), nanos);
+    }
+
+    @Override
+    public void onSlimePhase(long tick, long nanos) {
+        this.add(SLIME_PHASE, nanos);
+    }
+
+    @Override
+    public void onObserver(long tick, SimulationObserver observer, long nanos) {
+        this.add(this.labels.computeIfAbsent(observer, o -> "observer:" + SimulationProfiler.labelOf(o)), nanos);
+    }
+
+    @Override
+    public void onTick(long tick, long nanos) {
+        this.ticks++;
+        this.tickTotal += nanos;
+    }
+
+    /**
+     * Returns a human-readable report of the time spent in each phase.
+     *
+     * @return The report, one line per phase.
+     */
+    public String report() {
+        final StringBuilder report = new StringBuilder();
+        this.totals.forEach((phase, sum) -> {
+            final long total = sum[0];
+            report.append(String.format(
+                    "  %-40s %10.1f ms %10.1f us/tick %6.1f %%%n",
+                    phase,
+                    total / 1e6,
+                    this.ticks == 0 ? 0 : total / 1e3 / this.ticks,
+                    this.tickTotal == 0 ? 0 : 100.0 * total / this.tickTotal));
+        });
+        return report.toString();
+    }
+
+    private void add(final String phase, final long nanos) {
+        // a mutable cell per phase, so that adding does not box
+        this.totals.computeIfAbsent(phase, p -> new long[1])[0] += nanos;
+    }
+}
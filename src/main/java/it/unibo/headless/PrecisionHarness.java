@@ -0,0 +1,116 @@
+package it.unibo.headless;
+
+import it.unibo.controller.Simulation;
+import it.unibo.core.entity.FieldPrecision;
+import it.unibo.core.entity.World;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Validation harness measuring how far a single-precision field drifts from a double-precision one.
+ * Two copies of the simulation configured by {@link HeadlessConfig}, by default with the parameters of
+ * {@code Main}, are run side by side, one with each {@link FieldPrecision}, and compared at ten evenly
+ * spaced ticks. The {@code world} and {@code precision} arguments are ignored.
+ *
+ * Besides the numerical error of the field, the report counts the cells that would be painted with a
+ * different colour, and those falling on a different side of the aggregation threshold: the only two
+ * ways the field is ever looked at. Once a slime takes a different step the two runs are no longer
+ * comparable cell by cell, so the first tick at which that happens is reported as well.
+ */
+public final class PrecisionHarness {
+    private static final int CHECKPOINTS = 10;
+    // The colour levels of the view, as in WorldPane
+    private static final int MAX_COLOR = 150;
+
+    private PrecisionHarness() { }
+
+    public static void main(String[] args) {
+        final HeadlessConfig config;
+        try {
+            config = HeadlessConfig.parse(args);
+        } catch (IllegalArgumentException | IOException e) {
+            System.err.println(e.getMessage());
+            System.err.println(HeadlessConfig.USAGE);
+            System.exit(2);
+            return;
+        }
+        run(config);
+    }
+
+    /**
+     * Runs the two simulations described by the configuration, printing the comparison on the standard output.
+     *
+     * @param config The configuration of the runs.
+     */
+    public static void run(final HeadlessConfig config) {
+        final World reference = FieldPrecision.DOUBLE.createWorld(config.width(), config.height(), config.slimes(), config.seed());
+        final World single = FieldPrecision.FLOAT.createWorld(config.width(), config.height(), config.slimes(), config.seed());
+        final ForkJoinPool pool = config.threads() == 0 ? null : new ForkJoinPool(config.threads());
+        final Simulation referenceRun = HeadlessMain.createSimulation(config, reference, pool, List.of());
+        final Simulation singleRun = HeadlessMain.createSimulation(config, single, pool, List.of());
+
+        System.out.println(config);
+        System.out.printf("%8s %12s %12s %12s %10s %10s %10s%n",
+                "tick", "max |diff|", "rms diff", "rel L2", "colours", "threshold", "displaced");
+        final long every = Math.max(1, config.ticks() / CHECKPOINTS);
+        long firstDisplaced = -1;
+        for (long tick = 1; tick <= config.ticks(); tick++) {
+            referenceRun.update();
+            singleRun.update();
+            final int displaced = countDisplaced(reference, single);
+            if (displaced > 0 && firstDisplaced < 0) {
+                firstDisplaced = tick;
+            }
+            if (tick % every == 0 || tick == config.ticks()) {
+                printComparison(tick, reference, single, config.threshold(), displaced);
+            }
+        }
+        if (pool != null) {
+            pool.shutdown();
+        }
+        System.out.println(firstDisplaced < 0
+                ? "Every slime took the same steps in both runs"
+                : "The first slime took a different step at tick " + firstDisplaced);
+    }
+
+    private static int countDisplaced(final World reference, final World single) {
+        int displaced = 0;
+        for (int id = 0; id < reference.getSlimeCount(); id++) {
+            if (reference.getSlimeX(id) != single.getSlimeX(id) || reference.getSlimeY(id) != single.getSlimeY(id)) {
+                displaced++;
+            }
+        }
+        return displaced;
+    }
+
+    private static void printComparison(final long tick, final World reference, final World single, final double threshold, final int displaced) {
+        final int size = reference.getWidth() * reference.getHeight();
+        double max = 0;
+        double squares = 0;
+        double norm = 0;
+        int colours = 0;
+        int flips = 0;
+        for (int i = 0; i < size; i++) {
+            final double expected = reference.getPheromone(i);
+            final double actual = single.getPheromone(i);
+            final double difference = Math.abs(actual - expected);
+            max = Math.max(max, difference);
+            squares += difference * difference;
+            norm += expected * expected;
+            if (colour(expected) != colour(actual)) {
+                colours++;
+            }
+            if ((expected >= threshold) != (actual >= threshold)) {
+                flips++;
+            }
+        }
+        System.out.printf("%8d %12.3e %12.3e %12.3e %10d %10d %10d%n",
+                tick, max, Math.sqrt(squares / size), norm == 0 ? 0 : Math.sqrt(squares / norm), colours, flips, displaced);
+    }
+
+    private static int colour(final double pheromone) {
+        return pheromone < MAX_COLOR ? (int) Math.max(pheromone, 0) : MAX_COLOR;
+    }
+}
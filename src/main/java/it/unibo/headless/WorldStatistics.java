@@ -0,0 +1,88 @@
+package it.unibo.headless;
+
+import it.unibo.core.entity.ActiveTiles;
+import it.unibo.core.entity.TiledWorld;
+import it.unibo.core.entity.World;
+
+/**
+ * Summary statistics of the state of a world, reported at the end of a run.
+ *
+ * @param cells          The number of cells of the world.
+ * @param totalPheromone The pheromone on the whole field.
+ * @param maxPheromone   The largest pheromone level of a cell.
+ * @param markedCells    The number of cells holding pheromone.
+ * @param slimes         The number of slimes.
+ * @param occupiedCells  The number of cells holding at least a slime.
+ * @param maxCrowding    The largest number of slimes on a cell.
+ */
+public record WorldStatistics(
+        long cells,
+        double totalPheromone,
+        double maxPheromone,
+        long markedCells,
+        int slimes,
+        int occupiedCells,
+        int maxCrowding
+) {
+
+    /**
+     * Computes the statistics of a world. The field of a {@link TiledWorld} is still read row by row,
+     * skipping its inactive tiles, and the occupancy is read from the cells of the slimes, so that
+     * the cost does not grow with the empty regions of a large world.
+     *
+     * @param world The world.
+     * @return The statistics of its current state.
+     */
+    public static WorldStatistics of(final World world) {
+        final ActiveTiles tiles = world instanceof TiledWorld tiled ? tiled.getActiveTiles() : null;
+        double total = 0;
+        double max = 0;
+        long marked = 0;
+        // in row-major order, as the total depends on the order of the sum
+        for (int y = 0; y < world.getHeight(); y++) {
+            final int columns = tiles == null ? 1 : tiles.getColumns();
+            for (int column = 0; column < columns; column++) {
+                // an inactive tile only holds zeros
+                if (tiles != null && !tiles.isActive(tiles.indexOf(column, tiles.rowOf(y)))) {
+                    continue;
+                }
+                final int toX = tiles == null ? world.getWidth() : tiles.getEndX(column);
+                for (int x = tiles == null ? 0 : tiles.getStartX(column); x < toX; x++) {
+                    final double pheromone = world.getPheromone(x, y);
+                    total += pheromone;
+                    max = Math.max(max, pheromone);
+                    if (pheromone > 0) {
+                        marked++;
+                    }
+                }
+            }
+        }
+        int occupied = 0;
+        int crowded = 0;
+        for (int id = 0; id < world.getSlimeCount(); id++) {
+            final int x = world.getSlimeX(id);
+            final int y = world.getSlimeY(id);
+            // each occupied cell is counted once, from the first slime on it
+            if (world.getFirstSlimeAt(x, y) == id) {
+                occupied++;
+                crowded = Math.max(crowded, world.getSlimeCountAt(x, y));
+            }
+        }
+        return new WorldStatistics((long) world.getWidth() * world.getHeight(), total, max, marked, world.getSlimeCount(), occupied, crowded);
+    }
+
+    public double meanPheromone() {
+        return this.totalPheromone / this.cells;
+    }
+
+    /**
+     * Returns a human-readable report of the statistics.
+     *
+     * @return The report, one line for the field and one for the slimes.
+     */
+    public String report() {
+        return String.format("  pheromone: total %.3f, mean %.6f, max %.3f, non-zero cells %d of %d%n",
+                this.totalPheromone, this.meanPheromone(), this.maxPheromone, this.markedCells, this.cells)
+                + String.format("  slimes: %d on %d cells, at most %d on a cell%n", this.slimes, this.occupiedCells, this.maxCrowding);
+    }
+}
@@ -0,0 +1,213 @@
+package it.unibo.trajectory;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The layout of a trajectory file, shared by {@link TrajectoryRecorder} and {@link TrajectoryReader}.
+ *
+ * A trajectory is a little-endian file starting with a header, followed by one record per frame and,
+ * once the recording is closed, by an index of the records and a footer pointing to it:
+ * <pre>
+ * header: magic, version, width, height, slimes, quantum (double), every, keyframe interval
+ * record: compressed size, type, tick (long), raw size, deflated payload
+ * index:  count, then tick (long), offset (long) and type of each record
+ * footer: offset of the index (long), index magic
+ * </pre>
+ * The payload holds the pheromone levels, quantised to multiples of the quantum, and the slime positions.
+ * A keyframe stores them as they are, any other frame as differences from the previous record. Levels are
+ * zigzag varints, each preceded by the varint length of the run of zeros before it, plus a last run
+ * reaching the end of the field. Positions are varints in keyframes, and zigzag varints of the shortest
+ * move around the torus otherwise.
+ */
+final class TrajectoryFormat {
+    static final int MAGIC = 0x534C4D54;
+    static final int INDEX_MAGIC = 0x534C4D49;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 7 * Integer.BYTES + Double.BYTES;
+    static final int RECORD_HEADER_SIZE = Integer.BYTES + 1 + Long.BYTES + Integer.BYTES;
+    static final int INDEX_ENTRY_SIZE = 2 * Long.BYTES + 1;
+    static final int FOOTER_SIZE = Long.BYTES + Integer.BYTES;
+    static final byte DELTA = 0;
+    static final byte KEYFRAME = 1;
+
+    private TrajectoryFormat() { }
+
+    /**
+     * Encodes the levels of a frame.
+     *
+     * @param levels   The quantised levels of the frame.
+     * @param previous The levels of the previous record, or {@code null} for a keyframe.
+     * @param out      The encoder the levels are appended to.
+     */
+    static void encodeLevels(final int[] levels, final int[] previous, final Encoder out) {
+        int zeros = 0;
+        for (int i = 0; i < levels.length; i++) {
+            final int value = previous == null ? levels[i] : levels[i] - previous[i];
+            if (value == 0) {
+                zeros++;
+            } else {
+                out.putVarint(zeros);
+                out.putZigzag(value);
+                zeros = 0;
+            }
+        }
+        if (zeros > 0) {
+            out.putVarint(zeros);
+        }
+    }
+
+    /**
+     * Decodes the levels of a frame, over those of the previous record unless it is a keyframe.
+     *
+     * @param in       The decoder the levels are read from.
+     * @param levels   The levels of the previous record, replaced by those of the frame.
+     * @param keyframe Whether the frame is a keyframe.
+     * @throws IOException If the payload is malformed.
+     */
+    static void decodeLevels(final Decoder in, final int[] levels, final boolean keyframe) throws IOException {
+        if (keyframe) {
+            Arrays.fill(levels, 0);
+        }
+        int i = 0;
+        while (i < levels.length) {
+            i += in.getVarint();
+            if (i < levels.length) {
+                levels[i++] += in.getZigzag();
+            } else if (i > levels.length) {
+                throw new IOException("Malformed levels");
+            }
+        }
+    }
+
+    /**
+     * Encodes the positions of the slimes.
+     *
+     * @param x         The columns of the slimes.
+     * @param y         The rows of the slimes.
+     * @param previousX The columns in the previous record, or {@code null} for a keyframe.
+     * @param previousY The rows in the previous record, or {@code null} for a keyframe.
+     * @param width     The width of the world.
+     * @param height    The height of the world.
+     * @param out       The encoder the positions are appended to.
+     */
+    static void encodeSlimes(final int[] x, final int[] y, final int[] previousX, final int[] previousY, final int width, final int height, final Encoder out) {
+        for (int id = 0; id < x.length; id++) {
+            if (previousX == null) {
+                out.putVarint(x[id]);
+                out.putVarint(y[id]);
+            } else {
+                out.putZigzag(shortest(x[id] - previousX[id], width));
+                out.putZigzag(shortest(y[id] - previousY[id], height));
+            }
+        }
+    }
+
+    /**
+     * Decodes the positions of the slimes, moving them from those of the previous record unless it is a keyframe.
+     *
+     * @param in       The decoder the positions are read from.
+     * @param x        The columns of the slimes, replaced by those of the frame.
+     * @param y        The rows of the slimes, replaced by those of the frame.
+     * @param width    The width of the world.
+     * @param height   The height of the world.
+     * @param keyframe Whether the frame is a keyframe.
+     * @throws IOException If the payload is malformed.
+     */
+    static void decodeSlimes(final Decoder in, final int[] x, final int[] y, final int width, final int height, final boolean keyframe) throws IOException {
+        for (int id = 0; id < x.length; id++) {
+            if (keyframe) {
+                x[id] = in.getVarint();
+                y[id] = in.getVarint();
+            } else {
+                x[id] = Math.floorMod(x[id] + in.getZigzag(), width);
+                y[id] = Math.floorMod(y[id] + in.getZigzag(), height);
+            }
+            if (x[id] < 0 || x[id] >= width || y[id] < 0 || y[id] >= height) {
+                throw new IOException("Malformed slime positions");
+            }
+        }
+    }
+
+    /*
+     * The move between two coordinates of a torus of the given size taking the fewest steps.
+     */
+    private static int shortest(final int delta, final int size) {
+        return Math.floorMod(delta + size / 2, size) - size / 2;
+    }
+
+    /**
+     * A growable byte array that values are appended to.
+     */
+    static final class Encoder {
+        private byte[] bytes = new byte[1 << 16];
+        private int size;
+
+        byte[] bytes() {
+            return this.bytes;
+        }
+
+        int size() {
+            return this.size;
+        }
+
+        void clear() {
+            this.size = 0;
+        }
+
+        void putVarint(final int value) {
+            if (this.bytes.length - this.size < 5) {
+                this.bytes = Arrays.copyOf(this.bytes, this.bytes.length * 2);
+            }
+            int rest = value;
+            while ((rest & ~0x7F) != 0) {
+                this.bytes[this.size++] = (byte) (rest | 0x80);
+                rest >>>= 7;
+            }
+            this.bytes[this.size++] = (byte) rest;
+        }
+
+        void putZigzag(final int value) {
+            this.putVarint((value << 1) ^ (value >> 31));
+        }
+    }
+
+    /**
+     * Reads values from a byte array.
+     */
+    static final class Decoder {
+        private byte[] bytes;
+        private int position;
+        private int limit;
+
+        void reset(final byte[] bytes, final int limit) {
+            this.bytes = bytes;
+            this.position = 0;
+            this.limit = limit;
+        }
+
+        boolean hasRemaining() {
+            return this.position < this.limit;
+        }
+
+        int getVarint() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                if (this.position == this.limit) {
+                    throw new IOException("Truncated payload");
+                }
+                final byte b = this.bytes[this.position++];
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        int getZigzag() throws IOException {
+            final int value = this.getVarint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+}
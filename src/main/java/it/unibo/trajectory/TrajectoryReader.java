@@ -0,0 +1,351 @@
+package it.unibo.trajectory;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Replays a trajectory written by a {@link TrajectoryRecorder}. The reader is a cursor over the recorded
+ * frames: {@link #next()} moves to the following frame and {@link #seek(long)} to any tick, after which
+ * the state of the world at the current frame is read through the accessors.
+ *
+ * Seeking decodes the keyframe preceding the target and the records after it, unless the cursor is
+ * already between the two. The records are found through the index written when the recording was
+ * closed or, for a recording that was interrupted, by scanning the file, ignoring a last truncated record.
+ */
+public final class TrajectoryReader implements Closeable {
+    private final FileChannel channel;
+    private final int width;
+    private final int height;
+    private final double quantum;
+    private final int every;
+    private final long[] ticks;
+    private final long[] offsets;
+    private final boolean[] keyframes;
+    private final int[] levels;
+    private final int[] x;
+    private final int[] y;
+    private final Inflater inflater = new Inflater();
+    private final TrajectoryFormat.Decoder decoder = new TrajectoryFormat.Decoder();
+    private final ByteBuffer recordHeader = ByteBuffer.allocate(TrajectoryFormat.RECORD_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private byte[] compressed = new byte[1 << 16];
+    private byte[] raw = new byte[1 << 16];
+    private int current = -1;
+
+    private TrajectoryReader(final FileChannel channel) throws IOException {
+        this.channel = channel;
+        final ByteBuffer header = this.read(0, TrajectoryFormat.HEADER_SIZE);
+        if (header.getInt() != TrajectoryFormat.MAGIC) {
+            throw new IOException("Not a trajectory");
+        }
+        final int version = header.getInt();
+        if (version != TrajectoryFormat.VERSION) {
+            throw new IOException("Unsupported trajectory version " + version);
+        }
+        this.width = header.getInt();
+        this.height = header.getInt();
+        final int slimes = header.getInt();
+        this.quantum = header.getDouble();
+        this.every = header.getInt();
+        header.getInt();
+        if (this.width <= 0 || this.height <= 0 || slimes < 0 || (long) this.width * this.height > Integer.MAX_VALUE) {
+            throw new IOException("Malformed trajectory header");
+        }
+        this.levels = new int[this.width * this.height];
+        this.x = new int[slimes];
+        this.y = new int[slimes];
+
+        final ByteBuffer index = this.readIndex();
+        final int count = index.remaining() / TrajectoryFormat.INDEX_ENTRY_SIZE;
+        this.ticks = new long[count];
+        this.offsets = new long[count];
+        this.keyframes = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            this.ticks[i] = index.getLong();
+            this.offsets[i] = index.getLong();
+            this.keyframes[i] = index.get() == TrajectoryFormat.KEYFRAME;
+        }
+        if (count > 0 && !this.keyframes[0]) {
+            throw new IOException("Malformed trajectory index");
+        }
+    }
+
+    /**
+     * Opens a trajectory.
+     *
+     * @param file The trajectory file.
+     * @return A reader positioned before the first frame.
+     * @throws IOException If the file cannot be read, or is not a trajectory.
+     */
+    public static TrajectoryReader open(final Path file) throws IOException {
+        final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new TrajectoryReader(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int getWidth() {
+        return this.width;
+    }
+
+    public int getHeight() {
+        return this.height;
+    }
+
+    public int getSlimeCount() {
+        return this.x.length;
+    }
+
+    /**
+     * Returns the step the levels were rounded to.
+     *
+     * @return The quantum of the levels.
+     */
+    public double getQuantum() {
+        return this.quantum;
+    }
+
+    /**
+     * Returns the number of ticks between two frames, as configured when recording.
+     *
+     * @return The recording interval.
+     */
+    public int getEvery() {
+        return this.every;
+    }
+
+    /**
+     * Returns the number of recorded frames.
+     *
+     * @return The number of frames.
+     */
+    public int getFrameCount() {
+        return this.ticks.length;
+    }
+
+    /**
+     * Returns the tick of a recorded frame.
+     *
+     * @param frame The position of the frame, between 0 (inclusive) and {@link #getFrameCount()} (exclusive).
+     * @return The tick the frame was recorded at.
+     */
+    public long getFrameTick(final int frame) {
+        return this.ticks[frame];
+    }
+
+    /**
+     * Returns the position of the current frame.
+     *
+     * @return The position of the current frame, or -1 before the first one.
+     */
+    public int getFrame() {
+        return this.current;
+    }
+
+    /**
+     * Returns the tick of the current frame.
+     *
+     * @return The tick the current frame was recorded at.
+     */
+    public long getTick() {
+        this.checkPositioned();
+        return this.ticks[this.current];
+    }
+
+    /**
+     * Moves to the frame following the current one.
+     *
+     * @return {@code true} if there was a following frame, {@code false} at the end of the trajectory.
+     * @throws IOException If the frame cannot be read.
+     */
+    public boolean next() throws IOException {
+        if (this.current + 1 >= this.ticks.length) {
+            return false;
+        }
+        this.decode(this.current + 1);
+        return true;
+    }
+
+    /**
+     * Moves to the last frame recorded at or before a tick.
+     *
+     * @param tick The tick to move to.
+     * @return {@code true} if there is such a frame, {@code false} if the tick precedes the first frame.
+     * @throws IOException If the frames cannot be read.
+     */
+    public boolean seek(final long tick) throws IOException {
+        final int found = Arrays.binarySearch(this.ticks, tick);
+        final int target = found >= 0 ? found : -found - 2;
+        if (target < 0) {
+            return false;
+        }
+        this.moveTo(target);
+        return true;
+    }
+
+    /**
+     * Moves to a frame.
+     *
+     * @param frame The position of the frame, between 0 (inclusive) and {@link #getFrameCount()} (exclusive).
+     * @throws IOException If the frames cannot be read.
+     */
+    public void moveTo(final int frame) throws IOException {
+        if (frame < 0 || frame >= this.ticks.length) {
+            throw new IllegalArgumentException("No frame " + frame);
+        }
+        int keyframe = frame;
+        while (!this.keyframes[keyframe]) {
+            keyframe--;
+        }
+        final int from = this.current >= keyframe && this.current <= frame ? this.current + 1 : keyframe;
+        for (int i = from; i <= frame; i++) {
+            this.decode(i);
+        }
+    }
+
+    /**
+     * Returns the pheromone level of a cell at the current frame, within half a quantum of the recorded one.
+     *
+     * @param index The row-major index of the cell.
+     * @return The pheromone level of the cell.
+     */
+    public double getPheromone(final int index) {
+        this.checkPositioned();
+        return this.levels[index] * this.quantum;
+    }
+
+    /**
+     * Returns the quantised pheromone level of a cell at the current frame.
+     *
+     * @param index The row-major index of the cell.
+     * @return The pheromone level of the cell, in multiples of the quantum.
+     */
+    public int getLevel(final int index) {
+        this.checkPositioned();
+        return this.levels[index];
+    }
+
+    public int getSlimeX(final int id) {
+        this.checkPositioned();
+        return this.x[id];
+    }
+
+    public int getSlimeY(final int id) {
+        this.checkPositioned();
+        return this.y[id];
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.inflater.end();
+        this.channel.close();
+    }
+
+    private void checkPositioned() {
+        if (this.current < 0) {
+            throw new IllegalStateException("The reader is not on a frame");
+        }
+    }
+
+    /*
+     * Decodes a record over the current state, which must be that of the previous record unless it is a keyframe.
+     */
+    private void decode(final int frame) throws IOException {
+        this.current = -1;
+        this.recordHeader.clear();
+        this.readFully(this.recordHeader, this.offsets[frame]);
+        final int size = this.recordHeader.flip().getInt();
+        final boolean keyframe = this.recordHeader.get() == TrajectoryFormat.KEYFRAME;
+        this.recordHeader.getLong();
+        final int rawSize = this.recordHeader.getInt();
+        if (size < 0 || rawSize < 0) {
+            throw new IOException("Malformed record " + frame);
+        }
+        if (this.compressed.length < size) {
+            this.compressed = new byte[size];
+        }
+        if (this.raw.length < rawSize) {
+            this.raw = new byte[rawSize];
+        }
+        this.readFully(ByteBuffer.wrap(this.compressed, 0, size), this.offsets[frame] + TrajectoryFormat.RECORD_HEADER_SIZE);
+        this.inflater.reset();
+        this.inflater.setInput(this.compressed, 0, size);
+        try {
+            if (this.inflater.inflate(this.raw, 0, rawSize) != rawSize || !this.inflater.finished()) {
+                throw new IOException("Malformed record " + frame);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Malformed record " + frame, e);
+        }
+        this.decoder.reset(this.raw, rawSize);
+        TrajectoryFormat.decodeLevels(this.decoder, this.levels, keyframe);
+        TrajectoryFormat.decodeSlimes(this.decoder, this.x, this.y, this.width, this.height, keyframe);
+        if (this.decoder.hasRemaining()) {
+            throw new IOException("Malformed record " + frame);
+        }
+        this.current = frame;
+    }
+
+    /*
+     * Reads the index written when the recording was closed, or rebuilds it scanning the records.
+     */
+    private ByteBuffer readIndex() throws IOException {
+        final long size = this.channel.size();
+        if (size >= TrajectoryFormat.HEADER_SIZE + TrajectoryFormat.FOOTER_SIZE) {
+            final ByteBuffer footer = this.read(size - TrajectoryFormat.FOOTER_SIZE, TrajectoryFormat.FOOTER_SIZE);
+            final long offset = footer.getLong();
+            if (footer.getInt() == TrajectoryFormat.INDEX_MAGIC && offset >= TrajectoryFormat.HEADER_SIZE && offset + Integer.BYTES <= size - TrajectoryFormat.FOOTER_SIZE) {
+                final int count = this.read(offset, Integer.BYTES).getInt();
+                if (offset + Integer.BYTES + (long) count * TrajectoryFormat.INDEX_ENTRY_SIZE == size - TrajectoryFormat.FOOTER_SIZE) {
+                    return this.read(offset + Integer.BYTES, count * TrajectoryFormat.INDEX_ENTRY_SIZE);
+                }
+            }
+        }
+        ByteBuffer index = ByteBuffer.allocate(1 << 12).order(ByteOrder.LITTLE_ENDIAN);
+        long offset = TrajectoryFormat.HEADER_SIZE;
+        while (offset + TrajectoryFormat.RECORD_HEADER_SIZE <= size) {
+            final ByteBuffer record = this.read(offset, TrajectoryFormat.RECORD_HEADER_SIZE);
+            final int length = record.getInt();
+            final byte type = record.get();
+            final long tick = record.getLong();
+            final long end = offset + TrajectoryFormat.RECORD_HEADER_SIZE + length;
+            if (length < 0 || end > size) {
+                break;
+            }
+            if (index.remaining() < TrajectoryFormat.INDEX_ENTRY_SIZE) {
+                index = ByteBuffer.allocate(index.capacity() * 2).order(ByteOrder.LITTLE_ENDIAN).put(index.flip());
+            }
+            index.putLong(tick).putLong(offset).put(type);
+            offset = end;
+        }
+        return index.flip();
+    }
+
+    private ByteBuffer read(final long position, final int length) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        this.readFully(buffer, position);
+        return buffer.flip();
+    }
+
+    private void readFully(final ByteBuffer buffer, final long position) throws IOException {
+        long at = position;
+        while (buffer.hasRemaining()) {
+            final int read = this.channel.read(buffer, at);
+            if (read < 0) {
+                throw new EOFException("The trajectory is truncated");
+            }
+            at += read;
+        }
+    }
+}
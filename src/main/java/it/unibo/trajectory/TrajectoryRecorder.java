@@ -0,0 +1,345 @@
+package it.unibo.trajectory;
+
+import it.unibo.controller.SimulationObserver;
+import it.unibo.core.entity.World;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+
+/**
+ * A {@link SimulationObserver} streaming the state of the world to a trajectory file, every tick or
+ * every given number of ticks, to be replayed and analysed by a {@link TrajectoryReader}.
+ *
+ * The simulation thread only copies the quantised field and the slime positions into a frame taken
+ * from a small pool. Frames are encoded as differences from the previous one, compressed and written
+ * by a background thread. When every frame of the pool is still waiting to be written, the frame is
+ * dropped instead of blocking the simulation: the trajectory then lacks that tick, which is counted
+ * by {@link #getDroppedFrames()}.
+ *
+ * Every few records a keyframe is stored in full, so that a reader can seek to any tick decoding only
+ * the records since the keyframe before it. Closing the recorder waits for the pending frames and writes
+ * the index of the records. See {@link TrajectoryFormat} for the layout of the file.
+ */
+public final class TrajectoryRecorder implements SimulationObserver, Closeable {
+    /**
+     * The default step of the quantised levels.
+     */
+    public static final double DEFAULT_QUANTUM = 1.0 / 1024;
+    /**
+     * The default number of records between two keyframes.
+     */
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 64;
+    /**
+     * The default number of frames that can wait to be written.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 4;
+    private static final Frame END = new Frame(0, 0);
+
+    private final FileChannel channel;
+    private final int every;
+    private final double quantum;
+    private final int keyframeInterval;
+    private final int capacity;
+    private final BlockingQueue<Frame> pending;
+    private final BlockingQueue<Frame> free;
+    private final Thread writer;
+    private int allocated;
+    private long dropped;
+    private long notifications;
+    private boolean closed;
+    private volatile IOException failure;
+
+    // state of the writer thread
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private final TrajectoryFormat.Encoder raw = new TrajectoryFormat.Encoder();
+    private final ByteBuffer recordHeader = ByteBuffer.allocate(TrajectoryFormat.RECORD_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private ByteBuffer index = ByteBuffer.allocate(1 << 12).order(ByteOrder.LITTLE_ENDIAN);
+    private byte[] compressed = new byte[1 << 16];
+    private int[] previousLevels;
+    private int[] previousX;
+    private int[] previousY;
+    private int records;
+
+    private TrajectoryRecorder(final FileChannel channel, final int every, final double quantum, final int keyframeInterval, final int capacity) {
+        this.channel = channel;
+        this.every = every;
+        this.quantum = quantum;
+        this.keyframeInterval = keyframeInterval;
+        this.capacity = capacity;
+        // runs of zeros are already collapsed by the encoding, so searching for matches costs more than it saves
+        this.deflater.setStrategy(Deflater.HUFFMAN_ONLY);
+        this.pending = new ArrayBlockingQueue<>(capacity + 1);
+        this.free = new ArrayBlockingQueue<>(capacity);
+        this.writer = new Thread(this::write, "trajectory-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Creates a recorder with the default quantum, keyframe interval and queue capacity.
+     *
+     * @param file  The trajectory file, created or truncated.
+     * @param every The number of ticks between two recorded frames.
+     * @return The new recorder.
+     * @throws IOException If the file cannot be opened.
+     */
+    public static TrajectoryRecorder create(final Path file, final int every) throws IOException {
+        return create(file, every, DEFAULT_QUANTUM, DEFAULT_KEYFRAME_INTERVAL, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Creates a recorder.
+     *
+     * @param file             The trajectory file, created or truncated.
+     * @param every            The number of ticks between two recorded frames.
+     * @param quantum          The step levels are rounded to; the error of a replayed level is at most half of it.
+     * @param keyframeInterval The number of records between two keyframes.
+     * @param capacity         The number of frames that can wait to be written before frames are dropped.
+     * @return The new recorder.
+     * @throws IOException If the file cannot be opened.
+     */
+    public static TrajectoryRecorder create(final Path file, final int every, final double quantum, final int keyframeInterval, final int capacity) throws IOException {
+        if (every <= 0) {
+            throw new IllegalArgumentException("Ticks between frames must be positive");
+        }
+        if (!(quantum > 0)) {
+            throw new IllegalArgumentException("Quantum must be positive");
+        }
+        if (keyframeInterval <= 0) {
+            throw new IllegalArgumentException("Keyframe interval must be positive");
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        final FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        return new TrajectoryRecorder(channel, every, quantum, keyframeInterval, capacity);
+    }
+
+    /**
+     * Records the world, counting ticks from the first notification.
+     *
+     * @param world The current state of the simulation world after changes.
+     */
+    @Override
+    public void onWorldChanges(final World world) {
+        this.onWorldChanges(world, this.notifications);
+    }
+
+    /**
+     * Records the world if a multiple of the number of ticks between two frames was reached since the previous
+     * notification. The frame is the multiple itself, unless the recorder was not notified of it, as for the
+     * catch-up ticks of a {@link it.unibo.controller.SimulationScheduler}: the first tick after it is recorded
+     * instead, so that a paced run still gets a frame per interval.
+     *
+     * @param world The current state of the simulation world after changes.
+     * @param tick  The tick that has been simulated.
+     */
+    @Override
+    public void onWorldChanges(final World world, final long tick) {
+        final boolean due = Math.floorDiv(tick, this.every) != Math.floorDiv(this.notifications - 1, this.every);
+        this.notifications = tick + 1;
+        if (this.closed || this.failure != null || !due) {
+            return;
+        }
+        Frame frame = this.free.poll();
+        if (frame == null) {
+            if (this.allocated == this.capacity) {
+                this.dropped++;
+                return;
+            }
+            if ((long) world.getWidth() * world.getHeight() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("A trajectory can only record worlds of at most " + Integer.MAX_VALUE + " cells");
+            }
+            frame = new Frame(world.getWidth() * world.getHeight(), world.getSlimeCount());
+            this.allocated++;
+        }
+        if (frame.levels.length != world.getWidth() * world.getHeight() || frame.x.length != world.getSlimeCount()) {
+            throw new IllegalArgumentException("A recorder can only observe a single world");
+        }
+        frame.tick = tick;
+        frame.width = world.getWidth();
+        frame.height = world.getHeight();
+        final double scale = 1 / this.quantum;
+        for (int i = 0; i < frame.levels.length; i++) {
+            frame.levels[i] = (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, Math.round(world.getPheromone(i) * scale)));
+        }
+        for (int id = 0; id < frame.x.length; id++) {
+            frame.x[id] = world.getSlimeX(id);
+            frame.y[id] = world.getSlimeY(id);
+        }
+        this.pending.add(frame);
+    }
+
+    /**
+     * Returns the number of frames dropped because the writer could not keep up.
+     *
+     * @return The number of dropped frames.
+     */
+    public long getDroppedFrames() {
+        return this.dropped;
+    }
+
+    /**
+     * Waits for the pending frames to be written, then writes the index and closes the file.
+     *
+     * @throws IOException If the trajectory could not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!this.closed) {
+            this.closed = true;
+            this.pending.add(END);
+            try {
+                this.writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while closing the trajectory");
+            }
+        }
+        if (this.failure != null) {
+            throw this.failure;
+        }
+    }
+
+    /*
+     * The loop of the writer thread. After a failure frames are still taken, so the simulation is never blocked.
+     */
+    private void write() {
+        try {
+            Frame frame;
+            while ((frame = this.pending.take()) != END) {
+                if (this.failure == null) {
+                    try {
+                        this.writeFrame(frame);
+                    } catch (IOException e) {
+                        this.failure = e;
+                    }
+                }
+                this.free.add(frame);
+            }
+            if (this.failure == null && this.records > 0) {
+                this.writeIndex();
+            }
+        } catch (InterruptedException e) {
+            this.failure = new InterruptedIOException("The trajectory writer was interrupted");
+        } catch (IOException e) {
+            this.failure = e;
+        } finally {
+            try {
+                this.channel.close();
+            } catch (IOException e) {
+                if (this.failure == null) {
+                    this.failure = e;
+                }
+            }
+            this.deflater.end();
+        }
+    }
+
+    private void writeFrame(final Frame frame) throws IOException {
+        if (this.previousLevels == null) {
+            this.writeHeader(frame);
+            this.previousLevels = new int[frame.levels.length];
+            this.previousX = new int[frame.x.length];
+            this.previousY = new int[frame.y.length];
+        }
+        final boolean keyframe = this.records % this.keyframeInterval == 0;
+        this.raw.clear();
+        TrajectoryFormat.encodeLevels(frame.levels, keyframe ? null : this.previousLevels, this.raw);
+        TrajectoryFormat.encodeSlimes(frame.x, frame.y, keyframe ? null : this.previousX, keyframe ? null : this.previousY, frame.width, frame.height, this.raw);
+        final int size = this.deflate();
+
+        final long offset = this.channel.position();
+        final byte type = keyframe ? TrajectoryFormat.KEYFRAME : TrajectoryFormat.DELTA;
+        this.recordHeader.clear().putInt(size).put(type).putLong(frame.tick).putInt(this.raw.size()).flip();
+        this.writeFully(this.recordHeader);
+        this.writeFully(ByteBuffer.wrap(this.compressed, 0, size));
+        if (this.index.remaining() < TrajectoryFormat.INDEX_ENTRY_SIZE) {
+            this.index = ByteBuffer.allocate(this.index.capacity() * 2).order(ByteOrder.LITTLE_ENDIAN).put(this.index.flip());
+        }
+        this.index.putLong(frame.tick).putLong(offset).put(type);
+        this.records++;
+
+        // the frame keeps the arrays of the previous record, to be overwritten by the next capture
+        final int[] levels = this.previousLevels;
+        this.previousLevels = frame.levels;
+        frame.levels = levels;
+        final int[] x = this.previousX;
+        this.previousX = frame.x;
+        frame.x = x;
+        final int[] y = this.previousY;
+        this.previousY = frame.y;
+        frame.y = y;
+    }
+
+    private int deflate() {
+        this.deflater.reset();
+        this.deflater.setInput(this.raw.bytes(), 0, this.raw.size());
+        this.deflater.finish();
+        int size = 0;
+        while (!this.deflater.finished()) {
+            if (size == this.compressed.length) {
+                this.compressed = Arrays.copyOf(this.compressed, this.compressed.length * 2);
+            }
+            size += this.deflater.deflate(this.compressed, size, this.compressed.length - size);
+        }
+        return size;
+    }
+
+    private void writeHeader(final Frame frame) throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(TrajectoryFormat.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(TrajectoryFormat.MAGIC)
+                .putInt(TrajectoryFormat.VERSION)
+                .putInt(frame.width)
+                .putInt(frame.height)
+                .putInt(frame.x.length)
+                .putDouble(this.quantum)
+                .putInt(this.every)
+                .putInt(this.keyframeInterval);
+        this.writeFully(header.flip());
+    }
+
+    private void writeIndex() throws IOException {
+        final long offset = this.channel.position();
+        this.writeFully(ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).putInt(this.records).flip());
+        this.writeFully(this.index.flip());
+        this.writeFully(ByteBuffer.allocate(TrajectoryFormat.FOOTER_SIZE).order(ByteOrder.LITTLE_ENDIAN)
+                .putLong(offset)
+                .putInt(TrajectoryFormat.INDEX_MAGIC)
+                .flip());
+    }
+
+    private void writeFully(final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            this.channel.write(buffer);
+        }
+    }
+
+    /*
+     * The state of the world at a tick, handed from the simulation thread to the writer.
+     */
+    private static final class Frame {
+        private long tick;
+        private int width;
+        private int height;
+        private int[] levels;
+        private int[] x;
+        private int[] y;
+
+        Frame(final int cells, final int slimes) {
+            this.levels = new int[cells];
+            this.x = new int[slimes];
+            this.y = new int[slimes];
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package it.unibo.view;
+
+import it.unibo.core.entity.ActiveTiles;
+import it.unibo.core.entity.BufferedWorld;
+import it.unibo.core.entity.TiledWorld;
+import it.unibo.core.entity.World;
+
+import java.util.Arrays;
+
+/**
+ * A copy of the state of a world that the view can paint while the simulation goes on.
+ * The state is sampled at the resolution of the view: when the world has more cells than the
+ * view has pixels, each pixel covers a square block of {@code scale} cells per side and keeps
+ * the highest pheromone level of the block, so that trails stay visible.
+ * Frames are recycled by {@link FrameBuffer}, and never written while the view reads them.
+ *
+ * The state of a {@link TiledWorld} is copied tile by tile, skipping the tiles without pheromone.
+ */
+final class Frame {
+    /*
+     * The pheromone level of each pixel, row by row.
+     */
+    final double[] pheromones;
+    /*
+     * The pixel each slime is on.
+     */
+    final int[] slimePixels;
+    final int width;
+    final int height;
+    /*
+     * The pixels are grouped in square tiles, each one covering scale x scale tiles of the world;
+     * a tile that is not marked only holds pixels without pheromone.
+     */
+    final int tileColumns;
+    final int tileRows;
+    final boolean[] tiles;
+    private final int columns;
+    private final int rows;
+    private final int scale;
+    private final int[] pixelColumns;
+    /*
+     * Whether this frame has been published and not yet taken by the view.
+     */
+    volatile boolean fresh;
+
+    Frame(final int columns, final int rows, final int numSlimes, final int scale) {
+        this.columns = columns;
+        this.rows = rows;
+        this.scale = scale;
+        this.width = (columns + scale - 1) / scale;
+        this.height = (rows + scale - 1) / scale;
+        this.tileColumns = (this.width + ActiveTiles.TILE_SIZE - 1) / ActiveTiles.TILE_SIZE;
+        this.tileRows = (this.height + ActiveTiles.TILE_SIZE - 1) / ActiveTiles.TILE_SIZE;
+        this.tiles = new boolean[this.tileColumns * this.tileRows];
+        this.pheromones = new double[this.width * this.height];
+        this.slimePixels = new int[numSlimes];
+        this.pixelColumns = new int[columns];
+        for (int x = 0; x < columns; x++) {
+            this.pixelColumns[x] = x / scale;
+        }
+    }
+
+    void copy(final World world) {
+        final double[] field = world instanceof BufferedWorld buffered ? buffered.getFrontBuffer() : null;
+        if (world instanceof TiledWorld tiled) {
+            this.copyActiveTiles(world, field, tiled.getActiveTiles());
+        } else {
+            this.copyCells(world, field, 0, this.columns, 0, this.rows);
+            Arrays.fill(this.tiles, true);
+        }
+        for (int id = 0; id < this.slimePixels.length; id++) {
+            this.slimePixels[id] = (world.getSlimeY(id) / this.scale) * this.width + this.pixelColumns[world.getSlimeX(id)];
+        }
+    }
+
+    /*
+     * Copies the tiles covering an active tile of the world, and clears the ones that have become inactive since
+     * this frame was last written.
+     */
+    private void copyActiveTiles(final World world, final double[] field, final ActiveTiles active) {
+        final int size = ActiveTiles.TILE_SIZE;
+        for (int row = 0; row < this.tileRows; row++) {
+            for (int column = 0; column < this.tileColumns; column++) {
+                final int tile = row * this.tileColumns + column;
+                final int fromX = column * size;
+                final int toX = Math.min(fromX + size, this.width);
+                final int fromY = row * size;
+                final int toY = Math.min(fromY + size, this.height);
+                if (isAnyActive(active, column * this.scale, row * this.scale, this.scale)) {
+                    this.copyCells(world, field, fromX * this.scale, Math.min(toX * this.scale, this.columns),
+                            fromY * this.scale, Math.min(toY * this.scale, this.rows));
+                    this.tiles[tile] = true;
+                } else if (this.tiles[tile]) {
+                    for (int y = fromY; y < toY; y++) {
+                        Arrays.fill(this.pheromones, y * this.width + fromX, y * this.width + toX, 0);
+                    }
+                    this.tiles[tile] = false;
+                }
+            }
+        }
+    }
+
+    private static boolean isAnyActive(final ActiveTiles active, final int fromColumn, final int fromRow, final int count) {
+        for (int row = fromRow; row < Math.min(fromRow + count, active.getRows()); row++) {
+            for (int column = fromColumn; column < Math.min(fromColumn + count, active.getColumns()); column++) {
+                if (active.isActive(active.indexOf(column, row))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Copies the cells in columns [fromX, toX) and rows [fromY, toY) of the world, which are aligned to the blocks of
+     * cells covered by a pixel.
+     */
+    private void copyCells(final World world, final double[] field, final int fromX, final int toX, final int fromY, final int toY) {
+        if (this.scale == 1 && field != null) {
+            for (int y = fromY; y < toY; y++) {
+                System.arraycopy(field, y * this.columns + fromX, this.pheromones, y * this.width + fromX, toX - fromX);
+            }
+            return;
+        }
+        for (int y = fromY; y < toY; y++) {
+            final int pixelRow = (y / this.scale) * this.width;
+            final boolean firstOfBlock = y % this.scale == 0;
+            for (int x = fromX; x < toX; x++) {
+                final int index = y * this.columns + x;
+                final double pheromone = field != null ? field[index] : world.getPheromone(index);
+                final int pixel = pixelRow + this.pixelColumns[x];
+                if ((firstOfBlock && x % this.scale == 0) || pheromone > this.pheromones[pixel]) {
+                    this.pheromones[pixel] = pheromone;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package it.unibo.view;
+
+import it.unibo.core.entity.World;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A lock-free triple buffer of {@link Frame}s, handing the latest state of the world from the
+ * simulation thread to the thread painting it.
+ *
+ * The simulation owns the back frame, the view owns the front frame, and the middle frame is
+ * exchanged atomically between them. Neither thread ever waits: each state published replaces the
+ * middle frame, even if the view has not taken it yet, so the view always paints the newest state
+ * and never one older than the last it was told about.
+ */
+final class FrameBuffer {
+    private final AtomicReference<Frame> middle;
+    private Frame back;
+    private Frame front;
+
+    FrameBuffer(final int width, final int height, final int numSlimes, final int scale) {
+        this.back = new Frame(width, height, numSlimes, scale);
+        this.middle = new AtomicReference<>(new Frame(width, height, numSlimes, scale));
+        this.front = new Frame(width, height, numSlimes, scale);
+    }
+
+    /**
+     * Publishes the current state of the world, replacing the previous one if the view has not taken it.
+     * Only the simulation thread calls this method.
+     *
+     * @param world The world to copy.
+     */
+    void offer(final World world) {
+        this.back.copy(world);
+        this.back.fresh = true;
+        // the stale frame, taken or not, becomes the next one to be written
+        this.back = this.middle.getAndSet(this.back);
+    }
+
+    /**
+     * Returns the most recently published frame, which stays valid until the next call.
+     * Only the painting thread calls this method.
+     *
+     * @return The latest frame, or the previous one if nothing new has been published.
+     */
+    Frame latest() {
+        if (this.middle.get().fresh) {
+            this.front = this.middle.getAndSet(this.front);
+            this.front.fresh = false;
+        }
+        return this.front;
+    }
+}
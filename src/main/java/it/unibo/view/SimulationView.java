@@ -4,7 +4,6 @@
 import it.unibo.core.entity.World;
 
 import javax.swing.*;
-import java.lang.reflect.InvocationTargetException;
 
 public class SimulationView implements SimulationObserver {
     private final WorldPane worldPane;
@@ -15,23 +14,15 @@ public SimulationView(final World world, final int width, final int height) {
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         frame.setSize(width, height);
         frame.setVisible(true);
-        // Compute the size for each patch
-        final int patchSize = Math.min(width / world.getWidth(), height / world.getHeight());
-        // Create a JPanel to draw the world
-        this.worldPane = new WorldPane(world.getHeight(), world.getWidth(), patchSize);
+        // Create a JPanel to draw the world, scaled to the size of the window
+        this.worldPane = new WorldPane(world.getHeight(), world.getWidth(), world.getSlimeCount(), width, height);
         frame.add(worldPane);
     }
 
     @Override
     public void onWorldChanges(World world) {
-        try {
-            SwingUtilities.invokeAndWait(() -> this.worldPane.update(world));
-            // force the repaint of the world
-            this.worldPane.repaint();
-
-        } catch (InterruptedException | InvocationTargetException e) {
-            throw new RuntimeException("View broken: " + e.getMessage());
-        }
+        // hand the state over to the pane, which repaints on its own without blocking the simulation
+        this.worldPane.update(world);
     }
 
 }
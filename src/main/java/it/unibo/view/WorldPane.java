@@ -1,37 +1,58 @@
 package it.unibo.view;
 
-import it.unibo.core.Position;
+import it.unibo.core.entity.ActiveTiles;
 import it.unibo.core.entity.World;
 
 import javax.swing.*;
 import java.awt.*;
-import java.util.List;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
 
 public class WorldPane extends JPanel {
     private static final int MAX_COLOR = 150;
-    private static final int DELTA_PATCH = 1;
-    private final double[][] pheromones;
-    private List<Position> slime;
-
-    private final int patchSize;
-
-    public WorldPane(final int row, final int columns, int patchSize) {
-        // Init the pheromones matrix
-        this.pheromones = new double[row][columns];
-        // Init the slime list
-        this.slime = List.of();
-        this.patchSize = patchSize;
+    private static final int SLIME_COLOR = Color.RED.getRGB();
+    // The colour of each pheromone level, computed once
+    private static final int[] PALETTE = palette();
+    private final FrameBuffer frames;
+    private final BufferedImage image;
+    private final int[] raster;
+    // The tiles of the image showing some pheromone, and the pixels the slimes have been drawn on
+    private final boolean[] rendered;
+    private final int[] slimePixels;
+    private Frame painted;
+
+    private final int pixelSize;
+
+    public WorldPane(final int row, final int columns, final int numSlimes, final int width, final int height) {
+        // Each cell is drawn as a square of pixelSize pixels, or, if the world does not fit, as part of a block of scale cells per pixel
+        final int patchSize = Math.min(width / columns, height / row);
+        final int scale = patchSize > 0 ? 1 : Math.max((columns + width - 1) / width, (row + height - 1) / height);
+        this.pixelSize = Math.max(patchSize, 1);
+        // Init the frames exchanged with the simulation
+        this.frames = new FrameBuffer(columns, row, numSlimes, scale);
+        // Init the image the frames are rendered to, one pixel per block of cells
+        this.image = new BufferedImage((columns + scale - 1) / scale, (row + scale - 1) / scale, BufferedImage.TYPE_INT_RGB);
+        this.raster = ((DataBufferInt) this.image.getRaster().getDataBuffer()).getData();
+        final int tiles = ActiveTiles.TILE_SIZE;
+        this.rendered = new boolean[((this.image.getWidth() + tiles - 1) / tiles) * ((this.image.getHeight() + tiles - 1) / tiles)];
+        Arrays.fill(this.rendered, true);
+        this.slimePixels = new int[numSlimes];
+    }
+
+    private static int[] palette() {
+        final int[] palette = new int[MAX_COLOR + 1];
+        for (int color = 0; color <= MAX_COLOR; color++) {
+            final float pheromoneLevel = color / (float) MAX_COLOR;
+            palette[color] = Color.getHSBColor(0.33f, pheromoneLevel, pheromoneLevel).getRGB();
+        }
+        return palette;
     }
 
+    // Publish the state of the world, without waiting for the panel to be painted
     public void update(final World world){
-        // Update the pheromones matrix
-        world.getPatches().forEach(patch -> {
-            final Position position = patch.getPosition();
-            this.pheromones[position.y()][position.x()] = patch.getPheromone();
-        });
-
-        // Update the slime list
-        this.slime = world.getSlimes().stream().map(world::getSlimePosition).toList();
+        // If the panel is still behind, this state replaces the one it has not painted yet
+        this.frames.offer(world);
         // Repaint the panel
         this.repaint();
     }
@@ -40,20 +61,44 @@ public void update(final World world){
     @Override
     public void paintComponent(java.awt.Graphics g) {
         super.paintComponent(g);
-        // Draw the pheromones
-        for (int i = 0; i < this.pheromones.length; i++) {
-            for (int j = 0; j < this.pheromones[i].length; j++) {
-                final double pheromone = this.pheromones[i][j];
-                final int color = (pheromone) < MAX_COLOR ? (int) (pheromone): MAX_COLOR;
-                final float pheromoneLevel = (float) (color / (float) MAX_COLOR);
-                g.setColor(java.awt.Color.getHSBColor(0.33f, pheromoneLevel, pheromoneLevel/*color / (float) MAX_COLOR)*/));
-                g.fillRect(j * patchSize, i * patchSize, patchSize - DELTA_PATCH, patchSize - DELTA_PATCH);
+        final Frame frame = this.frames.latest();
+        if (frame != this.painted) {
+            this.render(frame);
+            this.painted = frame;
+        }
+        g.drawImage(this.image, 0, 0, frame.width * this.pixelSize, frame.height * this.pixelSize, null);
+    }
+
+    // Render the pheromones and then the slime into the image, only redrawing the tiles that hold or held some pheromone
+    private void render(final Frame frame) {
+        for (final int pixel : this.slimePixels) {
+            this.raster[pixel] = color(frame.pheromones[pixel]);
+        }
+        for (int tile = 0; tile < frame.tiles.length; tile++) {
+            if (frame.tiles[tile] || this.rendered[tile]) {
+                this.renderTile(frame, tile);
+                this.rendered[tile] = frame.tiles[tile];
+            }
+        }
+        for (final int pixel : frame.slimePixels) {
+            this.raster[pixel] = SLIME_COLOR;
+        }
+        System.arraycopy(frame.slimePixels, 0, this.slimePixels, 0, this.slimePixels.length);
+    }
+
+    private void renderTile(final Frame frame, final int tile) {
+        final int fromX = (tile % frame.tileColumns) * ActiveTiles.TILE_SIZE;
+        final int toX = Math.min(fromX + ActiveTiles.TILE_SIZE, frame.width);
+        final int fromY = (tile / frame.tileColumns) * ActiveTiles.TILE_SIZE;
+        final int toY = Math.min(fromY + ActiveTiles.TILE_SIZE, frame.height);
+        for (int y = fromY; y < toY; y++) {
+            for (int i = y * frame.width + fromX; i < y * frame.width + toX; i++) {
+                this.raster[i] = color(frame.pheromones[i]);
             }
         }
-        // Draw the slime
-        this.slime.forEach(position -> {
-            g.setColor(Color.RED);
-            g.fillOval(position.x() * patchSize, position.y() * patchSize, patchSize, patchSize);
-        });
+    }
+
+    private static int color(final double pheromone) {
+        return PALETTE[pheromone < MAX_COLOR ? (int) Math.max(pheromone, 0) : MAX_COLOR];
     }
 }
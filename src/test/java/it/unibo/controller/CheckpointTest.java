@@ -0,0 +1,156 @@
+package it.unibo.controller;
+
+import it.unibo.core.behaviour.Aggregation;
+import it.unibo.core.behaviour.Diffusion;
+import it.unibo.core.behaviour.Evaporation;
+import it.unibo.core.entity.ArrayGridWorld;
+import it.unibo.core.entity.ChunkedGridWorld;
+import it.unibo.core.entity.FloatGridWorld;
+import it.unibo.core.entity.GridWorld;
+import it.unibo.core.entity.World;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that a simulation restored from a checkpoint resumes exactly as the run that saved it.
+ */
+class CheckpointTest {
+    private static final int WIDTH = 70;
+    private static final int HEIGHT = 45;
+    private static final int SLIMES = 400;
+    private static final int SEED = 11;
+    private static final int TICKS_BEFORE = 25;
+    private static final int TICKS_AFTER = 25;
+
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    static void startPool() {
+        pool = new ForkJoinPool(2);
+    }
+
+    @AfterAll
+    static void stopPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    void restoredRunMatchesUninterruptedRun() throws IOException {
+        final List<Supplier<World>> worlds = List.of(
+                () -> ArrayGridWorld.create(WIDTH, HEIGHT, SLIMES, SEED),
+                () -> FloatGridWorld.create(WIDTH, HEIGHT, SLIMES, SEED),
+                () -> GridWorld.create(WIDTH, HEIGHT, SLIMES, SEED),
+                () -> ChunkedGridWorld.create(WIDTH, HEIGHT, SLIMES, SEED));
+        final Path file = Files.createTempFile("checkpoint", ".bin");
+        try {
+            for (final Supplier<World> factory : worlds) {
+                for (final ForkJoinPool runPool : new ForkJoinPool[]{null, pool}) {
+                    final World world = factory.get();
+                    final String context = world.getClass().getSimpleName() + (runPool == null ? ", serial" : ", parallel");
+                    final Simulation saved = simulation(world, runPool, 0.6);
+                    run(saved, TICKS_BEFORE);
+                    saved.saveCheckpoint(file);
+                    run(saved, TICKS_AFTER);
+
+                    // the restored world starts from other positions, which the checkpoint must replace
+                    final World restoredWorld = factory.get();
+                    final Simulation restored = simulation(restoredWorld, runPool, 0.6);
+                    run(restored, 3);
+                    restored.restoreCheckpoint(file);
+                    assertEquals(TICKS_BEFORE, restored.getTick(), context);
+                    run(restored, TICKS_AFTER);
+
+                    assertEquals(saved.getTick(), restored.getTick(), context);
+                    assertArrayEquals(field(world), field(restoredWorld), context);
+                    assertArrayEquals(slimes(world), slimes(restoredWorld), context);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void rejectsCheckpointOfAnotherSimulation() throws IOException {
+        final Path file = Files.createTempFile("checkpoint", ".bin");
+        try {
+            final Simulation saved = simulation(ArrayGridWorld.create(WIDTH, HEIGHT, SLIMES, SEED), null, 0.6);
+            run(saved, 5);
+            saved.saveCheckpoint(file);
+            final Simulation other = simulation(ArrayGridWorld.create(WIDTH, HEIGHT, SLIMES, SEED), null, 0.5);
+            assertThrows(IllegalArgumentException.class, () -> other.restoreCheckpoint(file));
+            final Simulation smaller = simulation(ArrayGridWorld.create(WIDTH - 1, HEIGHT, SLIMES, SEED), null, 0.6);
+            assertThrows(IllegalArgumentException.class, () -> smaller.restoreCheckpoint(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void rejectsCorruptedCheckpoint() throws IOException {
+        final Path file = Files.createTempFile("checkpoint", ".bin");
+        try {
+            final Simulation saved = simulation(ArrayGridWorld.create(WIDTH, HEIGHT, SLIMES, SEED), null, 0.6);
+            run(saved, 5);
+            saved.saveCheckpoint(file);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                final ByteBuffer last = ByteBuffer.allocate(1);
+                channel.read(last, channel.size() - 5);
+                last.put(0, (byte) ~last.get(0));
+                last.rewind();
+                channel.write(last, channel.size() - 5);
+            }
+            final Simulation restored = simulation(ArrayGridWorld.create(WIDTH, HEIGHT, SLIMES, SEED), null, 0.6);
+            assertThrows(IOException.class, () -> restored.restoreCheckpoint(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static Simulation simulation(final World world, final ForkJoinPool pool, final double evaporationRate) {
+        final Aggregation aggregation = new Aggregation(SEED, 2, 1);
+        return pool == null
+                ? new Simulation(world, List.of(new Diffusion(1 / 16.0), new Evaporation(evaporationRate)), List.of(aggregation), List.of())
+                : new Simulation(world, List.of(new Diffusion(1 / 16.0, pool), new Evaporation(evaporationRate)), List.of(aggregation), List.of(), pool);
+    }
+
+    private static void run(final Simulation simulation, final int ticks) {
+        for (int tick = 0; tick < ticks; tick++) {
+            simulation.update();
+        }
+    }
+
+    private static double[] field(final World world) {
+        final double[] field = new double[world.getWidth() * world.getHeight()];
+        for (int y = 0; y < world.getHeight(); y++) {
+            for (int x = 0; x < world.getWidth(); x++) {
+                field[y * world.getWidth() + x] = world.getPheromone(x, y);
+            }
+        }
+        return field;
+    }
+
+    private static int[] slimes(final World world) {
+        final int[] positions = new int[2 * world.getSlimeCount()];
+        for (int id = 0; id < world.getSlimeCount(); id++) {
+            positions[2 * id] = world.getSlimeX(id);
+            positions[2 * id + 1] = world.getSlimeY(id);
+        }
+        return positions;
+    }
+}
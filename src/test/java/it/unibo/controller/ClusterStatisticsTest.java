@@ -0,0 +1,68 @@
+package it.unibo.controller;
+
+import it.unibo.core.behaviour.Aggregation;
+import it.unibo.core.behaviour.Diffusion;
+import it.unibo.core.behaviour.Evaporation;
+import it.unibo.core.behaviour.WorldBehaviour;
+import it.unibo.core.entity.ArrayGridWorld;
+import it.unibo.core.entity.GridWorld;
+import it.unibo.core.entity.World;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that {@link ClusterStatistics} reading the moments of the field from the evaporation reports the
+ * field as the world behaviours left it, and the same clusters as when sweeping the field.
+ */
+class ClusterStatisticsTest {
+    private static final int WIDTH = 90;
+    private static final int HEIGHT = 70;
+    private static final int SLIMES = 600;
+    private static final int SEED = 4;
+    private static final int TICKS = 30;
+
+    @Test
+    void readsTheFieldTheWorldBehavioursLeave() {
+        final ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            final List<Supplier<World>> worlds = List.of(
+                    () -> ArrayGridWorld.create(WIDTH, HEIGHT, SLIMES, SEED),
+                    () -> GridWorld.create(WIDTH, HEIGHT, SLIMES, SEED));
+            for (final Supplier<World> factory : worlds) {
+                for (final ForkJoinPool runPool : new ForkJoinPool[]{null, pool}) {
+                    final World world = factory.get();
+                    final String context = world.getClass().getSimpleName() + (runPool == null ? ", in place" : ", double-buffered");
+                    final Evaporation evaporation = new Evaporation(0.6);
+                    final ClusterStatistics read = new ClusterStatistics(false, evaporation);
+                    final ClusterStatistics swept = new ClusterStatistics(false);
+                    // sweeps the field after diffusion and evaporation, which stay fused, before the slimes drop pheromone
+                    final ClusterStatistics expected = new ClusterStatistics(false);
+                    final WorldBehaviour sweep = expected::onWorldChanges;
+                    final Diffusion diffusion = runPool == null ? new Diffusion(1 / 16.0) : new Diffusion(1 / 16.0, runPool);
+                    final List<WorldBehaviour> behaviours = List.of(diffusion, evaporation, sweep);
+                    final List<SimulationObserver> observers = List.of(read, swept);
+                    final Simulation simulation = runPool == null
+                            ? new Simulation(world, behaviours, List.of(new Aggregation(SEED, 2, 1)), observers)
+                            : new Simulation(world, behaviours, List.of(new Aggregation(SEED, 2, 1)), observers, runPool);
+                    for (int tick = 0; tick < TICKS; tick++) {
+                        simulation.update();
+                        final String at = context + ", tick " + tick;
+                        assertEquals(expected.getMarkedCells(), read.getMarkedCells(), at);
+                        assertEquals(expected.getMaxPheromone(), read.getMaxPheromone(), 0, at);
+                        assertEquals(expected.getTotalPheromone(), read.getTotalPheromone(), 1e-9 * expected.getTotalPheromone(), at);
+                        assertEquals(expected.getEntropy(), read.getEntropy(), 1e-9, at);
+                        assertEquals(swept.getClusterCount(), read.getClusterCount(), at);
+                        assertEquals(swept.getLargestClusterSize(), read.getLargestClusterSize(), at);
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package it.unibo.controller;
+
+import it.unibo.core.behaviour.Aggregation;
+import it.unibo.core.behaviour.Diffusion;
+import it.unibo.core.behaviour.Evaporation;
+import it.unibo.core.entity.ArrayGridWorld;
+import it.unibo.core.entity.ChunkedGridWorld;
+import it.unibo.core.entity.FloatGridWorld;
+import it.unibo.core.entity.GridWorld;
+import it.unibo.core.entity.World;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * Checks that a parallel simulation gives the same result whatever the number of threads of its pool.
+ */
+class ParallelSimulationTest {
+    // enough cells for diffusion to split the field in bands, and enough slimes to plan them in several tasks
+    private static final int WIDTH = 200;
+    private static final int HEIGHT = 150;
+    private static final int SLIMES = 10_000;
+    private static final int SEED = 5;
+    private static final int TICKS = 20;
+    private static final int[] THREADS = {1, 2, 4};
+
+    @Test
+    void resultDoesNotDependOnThreadCount() {
+        final List<Supplier<World>> worlds = List.of(
+                () -> ArrayGridWorld.create(WIDTH, HEIGHT, SLIMES, SEED),
+                () -> FloatGridWorld.create(WIDTH, HEIGHT, SLIMES, SEED),
+                () -> GridWorld.create(WIDTH, HEIGHT, SLIMES, SEED),
+                () -> ChunkedGridWorld.create(WIDTH, HEIGHT, SLIMES, SEED));
+        for (final Supplier<World> factory : worlds) {
+            double[] expectedField = null;
+            int[] expectedSlimes = null;
+            for (final int threads : THREADS) {
+                final ForkJoinPool pool = new ForkJoinPool(threads);
+                try {
+                    final World world = factory.get();
+                    final Simulation simulation = new Simulation(world, List.of(new Diffusion(1 / 16.0, pool), new Evaporation(0.6)),
+                            List.of(new Aggregation(SEED, 2, 1)), List.of(), pool);
+                    for (int tick = 0; tick < TICKS; tick++) {
+                        simulation.update();
+                    }
+                    final String context = world.getClass().getSimpleName() + " on " + threads + " threads";
+                    if (expectedField == null) {
+                        expectedField = field(world);
+                        expectedSlimes = slimes(world);
+                    } else {
+                        assertArrayEquals(expectedField, field(world), context);
+                        assertArrayEquals(expectedSlimes, slimes(world), context);
+                    }
+                } finally {
+                    pool.shutdown();
+                }
+            }
+        }
+    }
+
+    private static double[] field(final World world) {
+        final double[] field = new double[world.getWidth() * world.getHeight()];
+        for (int y = 0; y < world.getHeight(); y++) {
+            for (int x = 0; x < world.getWidth(); x++) {
+                field[y * world.getWidth() + x] = world.getPheromone(x, y);
+            }
+        }
+        return field;
+    }
+
+    private static int[] slimes(final World world) {
+        final int[] positions = new int[2 * world.getSlimeCount()];
+        for (int id = 0; id < world.getSlimeCount(); id++) {
+            positions[2 * id] = world.getSlimeX(id);
+            positions[2 * id + 1] = world.getSlimeY(id);
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,221 @@
+package it.unibo.core.behaviour;
+
+import it.unibo.core.entity.ArrayGridWorld;
+import it.unibo.core.entity.ChunkedGridWorld;
+import it.unibo.core.entity.GridWorld;
+import it.unibo.core.entity.TiledWorld;
+import it.unibo.core.entity.World;
+import it.unibo.core.kernel.FieldKernel;
+import it.unibo.core.kernel.FieldKernels;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that diffusion followed by evaporation gives the same field, bit for bit, whether it runs on the fused
+ * kernels of every width, on the generic loop of {@link Diffusion} or as two separate updates, double-buffered
+ * or in place.
+ */
+class DiffusionTest {
+    private static final double DIFFUSION_RATE = 0.0625;
+    private static final double EVAPORATION_RATE = 0.6;
+    private static final int TICKS = 6;
+    // odd widths leave cells past the last full vector of every size, the last one is split in two bands
+    private static final int[][] SIZES = {{2, 2}, {3, 5}, {5, 3}, {7, 9}, {17, 4}, {33, 33}, {63, 40}, {65, 17}, {129, 260}};
+    private static final int[][] THIN_SIZES = {{1, 1}, {1, 2}, {1, 3}, {1, 17}, {2, 1}, {3, 1}, {65, 1}};
+
+    private static ForkJoinPool pool;
+
+    private enum Fill { RANDOM, ZERO, SPARSE }
+
+    @BeforeAll
+    static void startPool() {
+        pool = new ForkJoinPool(2);
+    }
+
+    @AfterAll
+    static void stopPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    void kernelsMatchTheGenericUpdate() {
+        for (final int[] size : SIZES) {
+            for (final Fill fill : Fill.values()) {
+                final String context = size[0] + "x" + size[1] + ", " + fill;
+                final double[] expected = this.run(new Diffusion(DIFFUSION_RATE, pool, FieldKernels.scalar()), size, fill, Mode.GENERIC);
+                for (final FieldKernel kernel : kernels()) {
+                    final Diffusion diffusion = new Diffusion(DIFFUSION_RATE, pool, kernel);
+                    assertArrayEquals(expected, this.run(diffusion, size, fill, Mode.FUSED), context + ", fused on " + kernel.getName());
+                    assertArrayEquals(expected, this.run(diffusion, size, fill, Mode.SEPARATE), context + ", separate on " + kernel.getName());
+                    assertArrayEquals(expected, this.run(diffusion, size, fill, Mode.STREAMED), context + ", streamed on " + kernel.getName());
+                }
+            }
+        }
+    }
+
+    @Test
+    void thinWorldsDiffuseToTheirDistinctNeighbours() {
+        for (final int[] size : THIN_SIZES) {
+            for (final Fill fill : Fill.values()) {
+                final String context = size[0] + "x" + size[1] + ", " + fill;
+                final double[] expected = reference(size, fill);
+                for (final FieldKernel kernel : kernels()) {
+                    final Diffusion diffusion = new Diffusion(DIFFUSION_RATE, pool, kernel);
+                    final double[] fused = this.run(diffusion, size, fill, Mode.FUSED);
+                    assertArrayEquals(expected, fused, 1e-9, context + ", fused on " + kernel.getName());
+                    assertArrayEquals(fused, this.run(diffusion, size, fill, Mode.GENERIC), context + ", generic on " + kernel.getName());
+                    assertArrayEquals(fused, this.run(diffusion, size, fill, Mode.SEPARATE), context + ", separate on " + kernel.getName());
+                    assertArrayEquals(fused, this.run(diffusion, size, fill, Mode.STREAMED), context + ", streamed on " + kernel.getName());
+                }
+            }
+        }
+    }
+
+    @Test
+    void inPlaceFusionMatchesSeparateUpdates() {
+        final List<int[]> sizes = new ArrayList<>(List.of(SIZES));
+        sizes.addAll(List.of(THIN_SIZES));
+        for (final int[] size : sizes) {
+            for (final Fill fill : Fill.values()) {
+                final String context = size[0] + "x" + size[1] + ", " + fill;
+                final List<Supplier<World>> worlds = List.of(
+                        () -> ArrayGridWorld.create(size[0], size[1], 0, 1),
+                        () -> GridWorld.create(size[0], size[1], 0, 1),
+                        () -> ChunkedGridWorld.create(size[0], size[1], 0, 1));
+                for (final Supplier<World> factory : worlds) {
+                    final World fused = world(factory.get(), size, fill);
+                    final World separate = world(factory.get(), size, fill);
+                    final Diffusion diffusion = new Diffusion(DIFFUSION_RATE);
+                    final Evaporation evaporation = new Evaporation(EVAPORATION_RATE);
+                    for (int tick = 0; tick < TICKS; tick++) {
+                        diffusion.update(fused, evaporation);
+                        diffusion.update(separate);
+                        evaporation.update(separate);
+                    }
+                    assertArrayEquals(field(separate), field(fused), context + ", " + fused.getClass().getSimpleName());
+                    if (fused instanceof TiledWorld tiled) {
+                        assertEquals(((TiledWorld) separate).getActiveTiles().countActive(), tiled.getActiveTiles().countActive(),
+                                context + ", " + fused.getClass().getSimpleName());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void emptyFieldStaysEmpty() {
+        for (final FieldKernel kernel : kernels()) {
+            final World world = world(ArrayGridWorld.create(65, 9, 0, 1), new int[]{65, 9}, Fill.ZERO);
+            final Diffusion diffusion = new Diffusion(DIFFUSION_RATE, pool, kernel);
+            diffusion.update(world, new Evaporation(EVAPORATION_RATE));
+            assertArrayEquals(new double[65 * 9], field(world), kernel.getName());
+            assertEquals(0, ((ArrayGridWorld) world).getActiveTiles().countActive(), kernel.getName());
+        }
+    }
+
+    /*
+     * How diffusion and evaporation are applied to the world: fused on the kernel, fused through a behaviour the
+     * kernel does not know, one after the other, or fused on a world only reached through its accessors.
+     */
+    private enum Mode { FUSED, GENERIC, SEPARATE, STREAMED }
+
+    private double[] run(final Diffusion diffusion, final int[] size, final Fill fill, final Mode mode) {
+        final World world = world(mode == Mode.STREAMED ? GridWorld.create(size[0], size[1], 0, 1) : ArrayGridWorld.create(size[0], size[1], 0, 1), size, fill);
+        final Evaporation evaporation = new Evaporation(EVAPORATION_RATE);
+        for (int tick = 0; tick < TICKS; tick++) {
+            switch (mode) {
+                case FUSED, STREAMED -> diffusion.update(world, evaporation);
+                case GENERIC -> diffusion.update(world, evaporation::updateCell);
+                case SEPARATE -> {
+                    diffusion.update(world);
+                    evaporation.update(world);
+                }
+            }
+        }
+        return field(world);
+    }
+
+    /*
+     * Diffuses and evaporates the field cell by cell, each cell receiving from every neighbour other than itself,
+     * counted once for each direction it lies in.
+     */
+    private static double[] reference(final int[] size, final Fill fill) {
+        final World world = world(GridWorld.create(size[0], size[1], 0, 1), size, fill);
+        final Evaporation evaporation = new Evaporation(EVAPORATION_RATE);
+        for (int tick = 0; tick < TICKS; tick++) {
+            final double[] next = new double[size[0] * size[1]];
+            for (int y = 0; y < size[1]; y++) {
+                for (int x = 0; x < size[0]; x++) {
+                    double received = 0;
+                    for (int k = 0; k < World.NEIGHBOURHOOD_SIZE; k++) {
+                        final int nx = world.getNeighbourX(x, k);
+                        final int ny = world.getNeighbourY(y, k);
+                        final double level = world.getPheromone(nx, ny);
+                        if ((nx != x || ny != y) && level >= 1) {
+                            received += level;
+                        }
+                    }
+                    next[y * size[0] + x] = evaporation.updateCell(world.getPheromone(x, y) + received * DIFFUSION_RATE);
+                }
+            }
+            for (int y = 0; y < size[1]; y++) {
+                for (int x = 0; x < size[0]; x++) {
+                    world.setPheromone(x, y, next[y * size[0] + x]);
+                }
+            }
+        }
+        return field(world);
+    }
+
+    private static List<FieldKernel> kernels() {
+        final List<FieldKernel> kernels = new ArrayList<>();
+        kernels.add(FieldKernels.scalar());
+        if (FieldKernels.isVectorAvailable()) {
+            for (final int bits : new int[]{64, 128, 256, 512}) {
+                kernels.add(FieldKernels.vector(bits));
+            }
+        }
+        return kernels;
+    }
+
+    /*
+     * A random field has levels on both sides of the diffusion threshold, a sparse one a few high levels in
+     * distant cells, so that most of its tiles are inactive.
+     */
+    private static World world(final World world, final int[] size, final Fill fill) {
+        final Random random = new Random(31L * size[0] + size[1]);
+        for (int y = 0; y < size[1]; y++) {
+            for (int x = 0; x < size[0]; x++) {
+                final double level = switch (fill) {
+                    case RANDOM -> random.nextDouble() * 3;
+                    case ZERO -> 0;
+                    case SPARSE -> random.nextInt(40) == 0 ? random.nextDouble() * 50 : 0;
+                };
+                if (level != 0) {
+                    world.setPheromone(x, y, level);
+                }
+            }
+        }
+        return world;
+    }
+
+    private static double[] field(final World world) {
+        final double[] field = new double[world.getWidth() * world.getHeight()];
+        for (int y = 0; y < world.getHeight(); y++) {
+            for (int x = 0; x < world.getWidth(); x++) {
+                field[y * world.getWidth() + x] = world.getPheromone(x, y);
+            }
+        }
+        return field;
+    }
+}
@@ -0,0 +1,143 @@
+package it.unibo.core.behaviour;
+
+import it.unibo.core.entity.ArrayGridWorld;
+import it.unibo.core.entity.ChunkedGridWorld;
+import it.unibo.core.entity.FloatGridWorld;
+import it.unibo.core.entity.GridWorld;
+import it.unibo.core.entity.World;
+import it.unibo.core.kernel.FieldMoments;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that an {@link Evaporation} tracking the moments of the field publishes those of the field it leaves,
+ * whether it runs on its own or fused in a {@link Diffusion}, without changing the field.
+ */
+class EvaporationTest {
+    private static final double DIFFUSION_RATE = 0.0625;
+    private static final double EVAPORATION_RATE = 0.6;
+    private static final int TICKS = 5;
+    // the last size is split in several bands and rows of tiles, the thin one leaves the diffusion kernels
+    private static final int[][] SIZES = {{1, 9}, {7, 5}, {65, 17}, {130, 300}};
+
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    static void startPool() {
+        pool = new ForkJoinPool(2);
+    }
+
+    @AfterAll
+    static void stopPool() {
+        pool.shutdown();
+    }
+
+    /*
+     * How evaporation runs: on its own after an in-place diffusion, or fused in an in-place or a double-buffered one.
+     */
+    private enum Mode { ALONE, IN_PLACE, DOUBLE_BUFFERED }
+
+    @Test
+    void publishesTheMomentsOfTheFieldItLeaves() {
+        for (final int[] size : SIZES) {
+            final List<Supplier<World>> worlds = List.of(
+                    () -> ArrayGridWorld.create(size[0], size[1], 0, 1),
+                    () -> FloatGridWorld.create(size[0], size[1], 0, 1),
+                    () -> GridWorld.create(size[0], size[1], 0, 1),
+                    () -> ChunkedGridWorld.create(size[0], size[1], 0, 1));
+            for (final Supplier<World> factory : worlds) {
+                for (final Mode mode : Mode.values()) {
+                    final World tracked = fill(factory.get());
+                    final World untracked = fill(factory.get());
+                    final String context = size[0] + "x" + size[1] + ", " + tracked.getClass().getSimpleName() + ", " + mode;
+                    final Diffusion diffusion = mode == Mode.DOUBLE_BUFFERED ? new Diffusion(DIFFUSION_RATE, pool) : new Diffusion(DIFFUSION_RATE);
+                    final Evaporation evaporation = new Evaporation(EVAPORATION_RATE);
+                    final Evaporation reference = new Evaporation(EVAPORATION_RATE);
+                    evaporation.setMomentsTracked(true);
+                    for (int tick = 0; tick < TICKS; tick++) {
+                        update(tracked, diffusion, evaporation, mode);
+                        update(untracked, diffusion, reference, mode);
+                        // single-precision fields are added up one vector at a time
+                        final double tolerance = tracked instanceof FloatGridWorld ? 1e-5 : 1e-9;
+                        assertSameMoments(sweep(tracked), evaporation.pollMoments(), tolerance, context + ", tick " + tick);
+                        assertEquals(null, evaporation.pollMoments(), context + ", polled twice");
+                    }
+                    assertArrayEquals(field(untracked), field(tracked), context);
+                }
+            }
+        }
+    }
+
+    @Test
+    void composedEvaporationPublishesNothing() {
+        final World world = fill(ArrayGridWorld.create(20, 20, 0, 1));
+        final Evaporation evaporation = new Evaporation(EVAPORATION_RATE);
+        evaporation.setMomentsTracked(true);
+        new Diffusion(DIFFUSION_RATE, pool).update(world, evaporation.andThen(pheromone -> pheromone));
+        assertEquals(null, evaporation.pollMoments(), "composed");
+        evaporation.update(world);
+        assertTrue(evaporation.pollMoments() != null, "alone");
+    }
+
+    private static void update(final World world, final Diffusion diffusion, final Evaporation evaporation, final Mode mode) {
+        if (mode == Mode.ALONE) {
+            diffusion.update(world);
+            evaporation.update(world);
+        } else {
+            diffusion.update(world, evaporation);
+        }
+    }
+
+    private static void assertSameMoments(final FieldMoments expected, final FieldMoments actual, final double tolerance, final String context) {
+        assertTrue(actual != null, context + ", nothing published");
+        assertEquals(expected.getCells(), actual.getCells(), context + ", cells");
+        assertEquals(expected.getMax(), actual.getMax(), 0, context + ", max");
+        assertEquals(expected.getTotal(), actual.getTotal(), tolerance * expected.getTotal(), context + ", total");
+        assertEquals(expected.getEntropy(), actual.getEntropy(), tolerance * Math.max(1, expected.getEntropy()), context + ", entropy");
+    }
+
+    /*
+     * A few high levels in distant cells, so that tiled worlds keep inactive tiles, and diffusion has some to wake.
+     */
+    private static World fill(final World world) {
+        final Random random = new Random(31L * world.getWidth() + world.getHeight());
+        for (int y = 0; y < world.getHeight(); y++) {
+            for (int x = 0; x < world.getWidth(); x++) {
+                if (random.nextInt(30) == 0) {
+                    world.setPheromone(x, y, random.nextDouble() * 40);
+                }
+            }
+        }
+        return world;
+    }
+
+    private static FieldMoments sweep(final World world) {
+        final FieldMoments moments = new FieldMoments();
+        for (int y = 0; y < world.getHeight(); y++) {
+            for (int x = 0; x < world.getWidth(); x++) {
+                moments.add(world.getPheromone(x, y));
+            }
+        }
+        return moments;
+    }
+
+    private static double[] field(final World world) {
+        final double[] field = new double[world.getWidth() * world.getHeight()];
+        for (int y = 0; y < world.getHeight(); y++) {
+            for (int x = 0; x < world.getWidth(); x++) {
+                field[y * world.getWidth() + x] = world.getPheromone(x, y);
+            }
+        }
+        return field;
+    }
+}
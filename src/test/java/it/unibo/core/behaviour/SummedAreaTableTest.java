@@ -0,0 +1,92 @@
+package it.unibo.core.behaviour;
+
+import it.unibo.controller.Simulation;
+import it.unibo.core.entity.ArrayGridWorld;
+import it.unibo.core.entity.FloatGridWorld;
+import it.unibo.core.entity.GridWorld;
+import it.unibo.core.entity.World;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the sums of a {@link SummedAreaTable} against the cells they cover, and the directions it picks.
+ */
+class SummedAreaTableTest {
+
+    @Test
+    void sumsTheCellsOfEveryRectangle() {
+        final int width = 100;
+        final int height = 70;
+        // the sparse fields leave most tiles inactive, which the table does not read
+        for (final World world : List.of(ArrayGridWorld.create(width, height, 0, 1), FloatGridWorld.create(width, height, 0, 1),
+                GridWorld.create(width, height, 0, 1))) {
+            final Random random = new Random(7);
+            for (int i = 0; i < 40; i++) {
+                world.setPheromone(random.nextInt(width), random.nextInt(height), 1 + random.nextInt(50));
+            }
+            final SummedAreaTable table = new SummedAreaTable();
+            table.update(world);
+            for (int i = 0; i < 500; i++) {
+                final int x = random.nextInt(3 * width) - width;
+                final int y = random.nextInt(3 * height) - height;
+                final int columns = random.nextInt(2 * width);
+                final int rows = random.nextInt(2 * height);
+                assertEquals(bruteForce(world, x, y, columns, rows), table.sum(x, y, columns, rows), 1e-9,
+                        world.getClass().getSimpleName() + " at " + x + ", " + y + ", " + columns + "x" + rows);
+            }
+        }
+    }
+
+    @Test
+    void uniformFieldHasNoPreferredDirection() {
+        final World world = ArrayGridWorld.create(40, 40, 0, 1);
+        for (int y = 0; y < 40; y++) {
+            for (int x = 0; x < 40; x++) {
+                world.setPheromone(x, y, 1);
+            }
+        }
+        final SummedAreaTable table = new SummedAreaTable();
+        table.update(world);
+        for (int radius = 1; radius <= 6; radius++) {
+            // the larger regions of the orthogonal neighbours must not win on their total alone
+            assertEquals(0, table.getMaxDirection(20, 20, radius), "radius " + radius);
+        }
+    }
+
+    @Test
+    void comparesRegionsByTheirMeanLevel() {
+        final World world = ArrayGridWorld.create(30, 30, 0, 1);
+        // 8 in the two cells of the top-left corner square, 9 in the one cell of the larger region below the cell
+        world.setPheromone(8, 8, 4);
+        world.setPheromone(9, 8, 4);
+        world.setPheromone(10, 12, 9);
+        final SummedAreaTable table = new SummedAreaTable();
+        table.update(world);
+        assertEquals(0, table.getMaxDirection(10, 10, 2));
+    }
+
+    @Test
+    void simulationRebuildsTheTableOfAggregation() {
+        final World world = ArrayGridWorld.create(50, 50, 200, 3);
+        final Aggregation aggregation = new Aggregation(3, 0, 1, 5);
+        final Simulation simulation = new Simulation(world, List.of(new Diffusion(1 / 16.0), new Evaporation(0.6)), List.of(aggregation), List.of());
+        for (int tick = 0; tick < 3; tick++) {
+            simulation.update();
+        }
+        assertEquals(3, simulation.getTick());
+    }
+
+    private static double bruteForce(final World world, final int x, final int y, final int columns, final int rows) {
+        double sum = 0;
+        for (int dy = 0; dy < rows; dy++) {
+            for (int dx = 0; dx < columns; dx++) {
+                sum += world.getPheromone(Math.floorMod(x + dx, world.getWidth()), Math.floorMod(y + dy, world.getHeight()));
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,214 @@
+package it.unibo.core.kernel;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks that every vector kernel computes exactly the values of the scalar one, bit for bit, including
+ * the cells of a row past its last full vector.
+ */
+class FieldKernelTest {
+    private static final int[] VECTOR_BITS = {64, 128, 256, 512};
+    // widths leaving every possible tail after the full vectors of each size, and rows shorter than a vector
+    private static final int[] WIDTHS = {2, 3, 4, 5, 7, 8, 9, 15, 16, 17, 31, 33, 63, 65, 100};
+    private static final int[] HEIGHTS = {2, 3, 7};
+    private static final double RATE = 0.0625;
+    private static final double THRESHOLD = 1;
+    private static final double FACTOR = 0.6;
+    private static final double EPSILON = 1e-6;
+
+    private enum Fill { RANDOM, ZERO, SPARSE }
+
+    @Test
+    void diffusesRowsAsTheScalarKernel() {
+        assumeTrue(FieldKernels.isVectorAvailable(), "the Vector API module is not available");
+        final FieldKernel scalar = FieldKernels.scalar();
+        for (final int bits : VECTOR_BITS) {
+            final FieldKernel vector = FieldKernels.vector(bits);
+            for (final int width : WIDTHS) {
+                for (final int height : HEIGHTS) {
+                    for (final Fill fill : Fill.values()) {
+                        final double[] src = field(width, height, fill, width * 31 + height);
+                        final String context = vector.getName() + ", " + width + "x" + height + ", " + fill;
+                        // the whole row, then a stretch starting and ending inside it
+                        assertSameRows(scalar, vector, src, width, height, 0, width, 1, 0, context + ", diffusion alone");
+                        assertSameRows(scalar, vector, src, width, height, 0, width, FACTOR, EPSILON, context + ", with evaporation");
+                        assertSameRows(scalar, vector, src, width, height, 1, width - 1, FACTOR, EPSILON, context + ", inner stretch");
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void diffusesFloatRowsAsTheScalarKernel() {
+        assumeTrue(FieldKernels.isVectorAvailable(), "the Vector API module is not available");
+        final FieldKernel scalar = FieldKernels.scalar();
+        for (final int bits : VECTOR_BITS) {
+            final FieldKernel vector = FieldKernels.vector(bits);
+            for (final int width : WIDTHS) {
+                for (final int height : HEIGHTS) {
+                    for (final Fill fill : Fill.values()) {
+                        final float[] src = toFloats(field(width, height, fill, width * 31 + height));
+                        final String context = vector.getName() + ", " + width + "x" + height + ", " + fill;
+                        assertSameFloatRows(scalar, vector, src, width, height, 0, width, 1, 0, context + ", diffusion alone");
+                        assertSameFloatRows(scalar, vector, src, width, height, 0, width, (float) FACTOR, (float) EPSILON, context + ", with evaporation");
+                        assertSameFloatRows(scalar, vector, src, width, height, 1, width - 1, (float) FACTOR, (float) EPSILON, context + ", inner stretch");
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void scalesAsTheScalarKernel() {
+        assumeTrue(FieldKernels.isVectorAvailable(), "the Vector API module is not available");
+        final FieldKernel scalar = FieldKernels.scalar();
+        for (final int bits : VECTOR_BITS) {
+            final FieldKernel vector = FieldKernels.vector(bits);
+            for (final Fill fill : Fill.values()) {
+                final double[] field = field(101, 1, fill, bits);
+                // stretches of every length up to a few vectors, at every offset of the first vector
+                for (int from = 0; from < 9; from++) {
+                    for (int to = from; to <= field.length; to += 7) {
+                        final double[] expected = field.clone();
+                        final double[] actual = field.clone();
+                        final String context = vector.getName() + ", " + fill + ", [" + from + ", " + to + ")";
+                        assertEquals(scalar.scale(expected, from, to, FACTOR, EPSILON), vector.scale(actual, from, to, FACTOR, EPSILON), context);
+                        assertArrayEquals(expected, actual, context);
+                        final float[] expectedFloats = toFloats(field);
+                        final float[] actualFloats = toFloats(field);
+                        assertEquals(scalar.scale(expectedFloats, from, to, (float) FACTOR, (float) EPSILON),
+                                vector.scale(actualFloats, from, to, (float) FACTOR, (float) EPSILON), context);
+                        assertArrayEquals(expectedFloats, actualFloats, context);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void addsUpTheMomentsOfTheCellsWritten() {
+        final List<FieldKernel> kernels = new ArrayList<>(List.of(FieldKernels.scalar()));
+        if (FieldKernels.isVectorAvailable()) {
+            for (final int bits : VECTOR_BITS) {
+                kernels.add(FieldKernels.vector(bits));
+            }
+        }
+        for (final FieldKernel kernel : kernels) {
+            for (final int width : WIDTHS) {
+                for (final Fill fill : Fill.values()) {
+                    final int height = 3;
+                    final double[] src = field(width, height, fill, width * 17 + fill.ordinal());
+                    final float[] floatSrc = toFloats(src);
+                    final String context = kernel.getName() + ", " + width + " wide, " + fill;
+                    // the same cells are written as without the moments, which add up exactly those cells
+                    final double[] expected = new double[src.length];
+                    final double[] actual = new double[src.length];
+                    final float[] expectedFloats = new float[src.length];
+                    final float[] actualFloats = new float[src.length];
+                    final FieldMoments moments = new FieldMoments();
+                    final FieldMoments floatMoments = new FieldMoments();
+                    for (int y = 0; y < height; y++) {
+                        assertEquals(kernel.diffuseRow(src, expected, width, height, y, 1, width, RATE, THRESHOLD, FACTOR, EPSILON),
+                                kernel.diffuseRow(src, actual, width, height, y, 1, width, RATE, THRESHOLD, FACTOR, EPSILON, moments), context);
+                        assertEquals(kernel.diffuseRow(floatSrc, expectedFloats, width, height, y, 1, width, (float) RATE, (float) THRESHOLD, (float) FACTOR, (float) EPSILON),
+                                kernel.diffuseRow(floatSrc, actualFloats, width, height, y, 1, width, (float) RATE, (float) THRESHOLD, (float) FACTOR, (float) EPSILON, floatMoments), context);
+                    }
+                    assertArrayEquals(expected, actual, context + ", diffusion");
+                    assertArrayEquals(expectedFloats, actualFloats, context + ", float diffusion");
+                    assertSameMoments(cellByCell(actual), moments, 1e-12, context + ", diffusion");
+                    assertSameMoments(cellByCell(toDoubles(actualFloats)), floatMoments, 1e-5, context + ", float diffusion");
+
+                    final double[] scaled = src.clone();
+                    final float[] scaledFloats = floatSrc.clone();
+                    moments.clear();
+                    floatMoments.clear();
+                    assertEquals(kernel.scale(src.clone(), 2, src.length, FACTOR, EPSILON), kernel.scale(scaled, 2, src.length, FACTOR, EPSILON, moments), context);
+                    kernel.scale(scaledFloats, 2, src.length, (float) FACTOR, (float) EPSILON, floatMoments);
+                    scaled[0] = scaled[1] = 0;
+                    scaledFloats[0] = scaledFloats[1] = 0;
+                    assertSameMoments(cellByCell(scaled), moments, 1e-12, context + ", scale");
+                    assertSameMoments(cellByCell(toDoubles(scaledFloats)), floatMoments, 1e-5, context + ", float scale");
+                }
+            }
+        }
+    }
+
+    private static FieldMoments cellByCell(final double[] field) {
+        final FieldMoments moments = new FieldMoments();
+        for (final double pheromone : field) {
+            moments.add(pheromone);
+        }
+        return moments;
+    }
+
+    private static void assertSameMoments(final FieldMoments expected, final FieldMoments actual, final double tolerance, final String context) {
+        assertEquals(expected.getCells(), actual.getCells(), context + ", cells");
+        assertEquals(expected.getMax(), actual.getMax(), 0, context + ", max");
+        assertEquals(expected.getTotal(), actual.getTotal(), tolerance * expected.getTotal(), context + ", total");
+        assertEquals(expected.getEntropy(), actual.getEntropy(), tolerance * Math.max(1, expected.getEntropy()), context + ", entropy");
+    }
+
+    private static void assertSameRows(final FieldKernel scalar, final FieldKernel vector, final double[] src, final int width, final int height,
+                                       final int fromX, final int toX, final double factor, final double epsilon, final String context) {
+        final double[] expected = new double[src.length];
+        final double[] actual = new double[src.length];
+        for (int y = 0; y < height; y++) {
+            final boolean holding = scalar.diffuseRow(src, expected, width, height, y, fromX, toX, RATE, THRESHOLD, factor, epsilon);
+            assertEquals(holding, vector.diffuseRow(src, actual, width, height, y, fromX, toX, RATE, THRESHOLD, factor, epsilon), context + ", row " + y);
+        }
+        assertArrayEquals(expected, actual, context);
+    }
+
+    private static void assertSameFloatRows(final FieldKernel scalar, final FieldKernel vector, final float[] src, final int width, final int height,
+                                            final int fromX, final int toX, final float factor, final float epsilon, final String context) {
+        final float[] expected = new float[src.length];
+        final float[] actual = new float[src.length];
+        for (int y = 0; y < height; y++) {
+            final boolean holding = scalar.diffuseRow(src, expected, width, height, y, fromX, toX, (float) RATE, (float) THRESHOLD, factor, epsilon);
+            assertEquals(holding, vector.diffuseRow(src, actual, width, height, y, fromX, toX, (float) RATE, (float) THRESHOLD, factor, epsilon), context + ", row " + y);
+        }
+        assertArrayEquals(expected, actual, context);
+    }
+
+    /*
+     * A random field has levels on both sides of the threshold, a sparse one a few high levels among zeros and
+     * levels small enough to be snapped to zero.
+     */
+    private static double[] field(final int width, final int height, final Fill fill, final long seed) {
+        final Random random = new Random(seed);
+        final double[] field = new double[width * height];
+        for (int i = 0; i < field.length; i++) {
+            field[i] = switch (fill) {
+                case RANDOM -> random.nextDouble() * 3;
+                case ZERO -> 0;
+                case SPARSE -> random.nextInt(10) == 0 ? random.nextDouble() * 50 : random.nextInt(10) == 0 ? EPSILON * random.nextDouble() : 0;
+            };
+        }
+        return field;
+    }
+
+    private static double[] toDoubles(final float[] field) {
+        final double[] doubles = new double[field.length];
+        for (int i = 0; i < field.length; i++) {
+            doubles[i] = field[i];
+        }
+        return doubles;
+    }
+
+    private static float[] toFloats(final double[] field) {
+        final float[] floats = new float[field.length];
+        for (int i = 0; i < field.length; i++) {
+            floats[i] = (float) field[i];
+        }
+        return floats;
+    }
+}
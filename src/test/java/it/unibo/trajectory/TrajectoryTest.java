@@ -0,0 +1,188 @@
+package it.unibo.trajectory;
+
+import it.unibo.controller.Simulation;
+import it.unibo.controller.SimulationObserver;
+import it.unibo.core.behaviour.Aggregation;
+import it.unibo.core.behaviour.Diffusion;
+import it.unibo.core.behaviour.Evaporation;
+import it.unibo.core.entity.ArrayGridWorld;
+import it.unibo.core.entity.World;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Records a simulation and checks that every frame replays the recorded state within the quantum, whether
+ * reached in order or by seeking, also from a recording cut short.
+ */
+class TrajectoryTest {
+    private static final int WIDTH = 60;
+    private static final int HEIGHT = 40;
+    private static final int SLIMES = 300;
+    private static final int TICKS = 120;
+    private static final int STRIDE = 3;
+    private static final int KEYFRAME_INTERVAL = 4;
+    private static final double QUANTUM = 1.0 / 256;
+
+    /*
+     * The quantised field and the slime positions of a notified tick, as the recorder should have stored them.
+     */
+    private record State(int[] levels, int[] x, int[] y) { }
+
+    @Test
+    void seeksToEveryRecordedTick() throws IOException {
+        final Path file = Files.createTempFile("trajectory", ".bin");
+        try {
+            final Map<Long, State> states = record(file, new boolean[TICKS]);
+            try (TrajectoryReader reader = TrajectoryReader.open(file)) {
+                assertEquals(STRIDE, reader.getEvery());
+                assertEquals(TICKS / STRIDE, reader.getFrameCount());
+                // in order first
+                int frames = 0;
+                while (reader.next()) {
+                    assertEquals((long) frames * STRIDE, reader.getTick());
+                    assertState(states.get(reader.getTick()), reader);
+                    frames++;
+                }
+                // then back and forth, including ticks between two frames
+                final Random random = new Random(3);
+                for (int i = 0; i < 100; i++) {
+                    final long tick = random.nextInt(TICKS + 10);
+                    assertTrue(reader.seek(tick));
+                    assertEquals(Math.min(tick - tick % STRIDE, TICKS - STRIDE), reader.getTick());
+                    assertState(states.get(reader.getTick()), reader);
+                }
+                assertFalse(reader.seek(-1));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void recordsOneFramePerStrideAcrossSkippedNotifications() throws IOException {
+        final Path file = Files.createTempFile("trajectory", ".bin");
+        try {
+            // as a scheduler catching up, which does not notify the observers of most ticks
+            final boolean[] skipped = new boolean[TICKS];
+            for (int tick = 0; tick < TICKS; tick++) {
+                skipped[tick] = tick % 7 != 6;
+            }
+            final Map<Long, State> states = record(file, skipped);
+            try (TrajectoryReader reader = TrajectoryReader.open(file)) {
+                long previous = -1;
+                while (reader.next()) {
+                    final long tick = reader.getTick();
+                    assertFalse(skipped[(int) tick], "frame at skipped tick " + tick);
+                    // the frame is the first notified tick past a multiple of the stride
+                    assertTrue(Math.floorDiv(tick, STRIDE) != Math.floorDiv(previous, STRIDE), "two frames in a stride at " + tick);
+                    assertState(states.get(tick), reader);
+                    previous = tick;
+                }
+                assertEquals(TICKS / 7, reader.getFrameCount());
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void readsTheCompleteFramesOfTruncatedRecording() throws IOException {
+        final Path file = Files.createTempFile("trajectory", ".bin");
+        try {
+            final Map<Long, State> states = record(file, new boolean[TICKS]);
+            final long size = Files.size(file);
+            // cut the index and part of the records
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(size * 3 / 5);
+            }
+            try (TrajectoryReader reader = TrajectoryReader.open(file)) {
+                final int frames = reader.getFrameCount();
+                assertTrue(frames > 0 && frames < TICKS / STRIDE, frames + " frames");
+                for (int frame = frames - 1; frame >= 0; frame -= 3) {
+                    reader.moveTo(frame);
+                    assertEquals((long) frame * STRIDE, reader.getTick());
+                    assertState(states.get(reader.getTick()), reader);
+                }
+                assertTrue(reader.seek(TICKS));
+                assertEquals((long) (frames - 1) * STRIDE, reader.getTick());
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /*
+     * Runs a simulation notifying the recorder of the ticks that are not skipped, and returns the state of the world
+     * at each of them.
+     */
+    private static Map<Long, State> record(final Path file, final boolean[] skipped) throws IOException {
+        final World world = ArrayGridWorld.create(WIDTH, HEIGHT, SLIMES, 9);
+        final Map<Long, State> states = new HashMap<>();
+        final SimulationObserver capture = new SimulationObserver() {
+            @Override
+            public void onWorldChanges(final World world) {
+            }
+
+            @Override
+            public void onWorldChanges(final World world, final long tick) {
+                states.put(tick, capture(world));
+            }
+        };
+        // the queue holds every frame, so that none is dropped however slow the writer is
+        try (TrajectoryRecorder recorder = TrajectoryRecorder.create(file, STRIDE, QUANTUM, KEYFRAME_INTERVAL, TICKS)) {
+            final Simulation simulation = new Simulation(world, List.of(new Diffusion(1 / 16.0), new Evaporation(0.6)),
+                    List.of(new Aggregation(9, 2, 1)), List.of(recorder, capture));
+            for (int tick = 0; tick < TICKS; tick++) {
+                simulation.update(!skipped[tick]);
+            }
+            recorder.close();
+            assertEquals(0, recorder.getDroppedFrames());
+        }
+        return states;
+    }
+
+    private static State capture(final World world) {
+        final int[] levels = new int[world.getWidth() * world.getHeight()];
+        for (int i = 0; i < levels.length; i++) {
+            levels[i] = (int) Math.round(world.getPheromone(i) / QUANTUM);
+        }
+        final int[] x = new int[world.getSlimeCount()];
+        final int[] y = new int[world.getSlimeCount()];
+        for (int id = 0; id < x.length; id++) {
+            x[id] = world.getSlimeX(id);
+            y[id] = world.getSlimeY(id);
+        }
+        return new State(levels, x, y);
+    }
+
+    private static void assertState(final State expected, final TrajectoryReader reader) {
+        final int[] levels = new int[expected.levels().length];
+        for (int i = 0; i < levels.length; i++) {
+            levels[i] = reader.getLevel(i);
+            assertEquals(expected.levels()[i] * QUANTUM, reader.getPheromone(i), QUANTUM / 2, "level of cell " + i);
+        }
+        assertArrayEquals(expected.levels(), levels, "levels at tick " + reader.getTick());
+        final int[] x = new int[expected.x().length];
+        final int[] y = new int[expected.y().length];
+        for (int id = 0; id < x.length; id++) {
+            x[id] = reader.getSlimeX(id);
+            y[id] = reader.getSlimeY(id);
+        }
+        assertArrayEquals(expected.x(), x, "x at tick " + reader.getTick());
+        assertArrayEquals(expected.y(), y, "y at tick " + reader.getTick());
+    }
+}